@@ -0,0 +1,91 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.client;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.execution.QueryExecutionCoordinator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes {@link MessageType#QUERY_RESULT_BINARY} messages. The terms that
+ * were sent by the master are remembered until the master tells the client to
+ * forget them. The rows are written in the same format as the rows of
+ * {@link MessageType#QUERY_RESULT} messages.
+ */
+public class BinaryQueryResultDecoder {
+
+  private final Map<Long, String> terms;
+
+  public BinaryQueryResultDecoder() {
+    terms = new HashMap<>();
+  }
+
+  /**
+   * @param message
+   * @param outputWriter
+   * @return the number of written rows
+   * @throws IOException
+   */
+  public int writeRows(byte[] message, Writer outputWriter) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(message);
+    MessageType messageType = MessageType.valueOf(buffer.get());
+    if (messageType != MessageType.QUERY_RESULT_BINARY) {
+      throw new IllegalArgumentException(
+              "Only messages of type " + MessageType.QUERY_RESULT_BINARY.name()
+                      + " can be decoded but the message has type " + messageType.name() + ".");
+    }
+    byte flags = buffer.get();
+    if ((flags & QueryExecutionCoordinator.BINARY_RESULT_FLAG_FORGET_TERMS) != 0) {
+      terms.clear();
+    }
+    int numberOfNewTerms = buffer.getInt();
+    for (int i = 0; i < numberOfNewTerms; i++) {
+      long id = buffer.getLong();
+      int length = buffer.getInt();
+      terms.put(id, new String(message, buffer.position(), length, StandardCharsets.UTF_8));
+      buffer.position(buffer.position() + length);
+    }
+    int numberOfVariables = buffer.getInt();
+    int numberOfRows = buffer.getInt();
+    for (int row = 0; row < numberOfRows; row++) {
+      // each row starts with a new line, since the header is written
+      // without row separator
+      outputWriter.write(Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR);
+      String delim = "";
+      for (int i = 0; i < numberOfVariables; i++) {
+        long id = buffer.getLong();
+        String term = terms.get(id);
+        if (term == null) {
+          throw new IllegalStateException(
+                  "The master has not sent the term for id " + id + ".");
+        }
+        outputWriter.write(delim);
+        outputWriter.write(term);
+        delim = Configuration.QUERY_RESULT_COLUMN_SEPARATOR_CHAR;
+      }
+    }
+    return numberOfRows;
+  }
+
+}
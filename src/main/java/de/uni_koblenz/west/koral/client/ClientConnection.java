@@ -240,6 +240,17 @@ public class ClientConnection implements Closeable {
     }
   }
 
+  public void sendQueryResultReceived() {
+    synchronized (outSocketSemaphore) {
+      if (outSocket == null) {
+        System.out.println("Connection to master is already closed.");
+        return;
+      }
+      outSocket.send(MessageUtils.createStringMessage(MessageType.CLIENT_QUERY_RESULT_RECEIVED,
+              clientAddress, null));
+    }
+  }
+
   public byte[][] getResponse() {
     if (!isConnected()) {
       throw new RuntimeException("The client has not connected to the master, yet.");
@@ -275,6 +286,7 @@ public class ClientConnection implements Closeable {
         case CLIENT_COMMAND_SUCCEEDED:
         case CLIENT_COMMAND_FAILED:
         case QUERY_RESULT:
+        case QUERY_RESULT_BINARY:
           response = new byte[1][];
           break;
         default:
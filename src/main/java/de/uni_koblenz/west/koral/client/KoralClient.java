@@ -53,6 +53,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
@@ -61,6 +62,7 @@ import java.util.List;
 import java.util.Scanner;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * API and command line interface to interact with Koral master.
@@ -91,6 +93,21 @@ public class KoralClient {
 
   public void loadGraph(CoverStrategyType graphCover, int nHopReplicationPathLength,
           int maxMoleculeDiameter, String... inputPaths) {
+    loadGraph(false, graphCover, nHopReplicationPathLength, maxMoleculeDiameter, inputPaths);
+  }
+
+  /**
+   * @param isAppended
+   *          if <code>true</code>, the graph files are added to the already
+   *          loaded graph. Otherwise, the loaded graph is replaced.
+   * @param graphCover
+   * @param nHopReplicationPathLength
+   * @param maxMoleculeDiameter
+   * @param inputPaths
+   */
+  public void loadGraph(boolean isAppended, CoverStrategyType graphCover,
+          int nHopReplicationPathLength, int maxMoleculeDiameter, String... inputPaths) {
+    String command = isAppended ? "append" : "load";
     List<File> files = getFiles(inputPaths);
     System.out.println("loadGraph method called");
     if (files.isEmpty()) {
@@ -103,22 +120,27 @@ public class KoralClient {
     args[3] = NumberConversion.int2bytes(maxMoleculeDiameter);
     args[4] = NumberConversion.int2bytes(files.size());
     fillWithFileEndings(args, 5, files);
-    connection.sendCommand("load", args);
+    connection.sendCommand(command, args);
 
     byte[][] response = connection.getResponse();
     try {
       while (response != null) {
         MessageType mtype = MessageType.valueOf(response[0][0]);
         if (mtype == MessageType.MASTER_SEND_FILES) {
+          // ipAddress:port[:maximal number of parallel uploads]
           String[] ftpServer = MessageUtils.extractMessageString(response[0], null).split(":");
-          FTPClient ftpClient = new FTPClient(null);
+          int numberOfParallelUploads =
+                  ftpServer.length > 2 ? Integer.parseInt(ftpServer[2]) : 1;
+          List<File> existingFiles = new ArrayList<>();
           for (File file : files) {
             if ((file != null) && file.exists()) {
-              System.out.println("uploading " + file.getAbsolutePath() + " to " + master[0] + ":"
-                      + ftpServer[1]);
-              ftpClient.uploadFile(file, master[0], ftpServer[1]);
+              existingFiles.add(file);
             }
           }
+          System.out.println("uploading " + existingFiles.size() + " files to " + master[0] + ":"
+                  + ftpServer[1] + " using " + numberOfParallelUploads + " connections");
+          new FTPClient(null).uploadFiles(existingFiles, master[0], ftpServer[1],
+                  numberOfParallelUploads);
           connection.sendFilesSent();
         } else if (mtype == MessageType.MASTER_WORK_IN_PROGRESS) {
           if (response[0].length > 1) {
@@ -131,7 +153,7 @@ public class KoralClient {
         response = connection.getResponse();
       }
     } catch (Throwable t) {
-      connection.sendCommandAbortion("load");
+      connection.sendCommandAbortion(command);
       throw t;
     }
     if (response == null) {
@@ -182,22 +204,59 @@ public class KoralClient {
   public File processQueryFromFile(String queryFile, String outputFile,
           QueryExecutionTreeType treeType, boolean useBaseOperators)
           throws UnsupportedEncodingException, FileNotFoundException, IOException {
-    return processQueryFromFile(new File(queryFile), outputFile, treeType, useBaseOperators);
+    return processQueryFromFile(queryFile, outputFile, treeType, useBaseOperators, false);
+  }
+
+  public File processQueryFromFile(String queryFile, String outputFile,
+          QueryExecutionTreeType treeType, boolean useBaseOperators, boolean useBinaryResults)
+          throws UnsupportedEncodingException, FileNotFoundException, IOException {
+    return processQueryFromFile(new File(queryFile), outputFile, treeType, useBaseOperators,
+            useBinaryResults);
   }
 
   public File processQueryFromFile(File queryFile, String outputFile,
           QueryExecutionTreeType treeType, boolean useBaseOperators)
           throws UnsupportedEncodingException, FileNotFoundException, IOException {
-    return processQuery(readQueryFromFile(queryFile), outputFile, treeType, useBaseOperators);
+    return processQueryFromFile(queryFile, outputFile, treeType, useBaseOperators, false);
+  }
+
+  public File processQueryFromFile(File queryFile, String outputFile,
+          QueryExecutionTreeType treeType, boolean useBaseOperators, boolean useBinaryResults)
+          throws UnsupportedEncodingException, FileNotFoundException, IOException {
+    return processQuery(readQueryFromFile(queryFile), outputFile, treeType, useBaseOperators,
+            useBinaryResults);
   }
 
   public File processQuery(String query, String outputFile, QueryExecutionTreeType treeType,
           boolean useBaseOperators)
           throws UnsupportedEncodingException, FileNotFoundException, IOException {
+    return processQuery(query, outputFile, treeType, useBaseOperators, false);
+  }
+
+  /**
+   * If the name of <code>outputFile</code> ends with <code>.gz</code>, the
+   * results are written GZIP compressed.
+   * 
+   * @param query
+   * @param outputFile
+   * @param treeType
+   * @param useBaseOperators
+   * @param useBinaryResults
+   * @return
+   * @throws UnsupportedEncodingException
+   * @throws FileNotFoundException
+   * @throws IOException
+   */
+  public File processQuery(String query, String outputFile, QueryExecutionTreeType treeType,
+          boolean useBaseOperators, boolean useBinaryResults)
+          throws UnsupportedEncodingException, FileNotFoundException, IOException {
     File output = new File(outputFile);
-    try (BufferedWriter bw = new BufferedWriter(
-            new OutputStreamWriter(new FileOutputStream(output), "UTF-8"));) {
-      processQuery(query, bw, treeType, useBaseOperators);
+    OutputStream outputStream = new FileOutputStream(output);
+    if (outputFile.endsWith(".gz")) {
+      outputStream = new GZIPOutputStream(outputStream);
+    }
+    try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"));) {
+      processQuery(query, bw, treeType, useBaseOperators, useBinaryResults);
     }
     return output;
   }
@@ -205,17 +264,48 @@ public class KoralClient {
   public void processQueryFromFile(String queryFile, Writer outputWriter,
           QueryExecutionTreeType treeType, boolean useBaseOperators)
           throws FileNotFoundException, IOException {
-    processQueryFromFile(new File(queryFile), outputWriter, treeType, useBaseOperators);
+    processQueryFromFile(queryFile, outputWriter, treeType, useBaseOperators, false);
+  }
+
+  public void processQueryFromFile(String queryFile, Writer outputWriter,
+          QueryExecutionTreeType treeType, boolean useBaseOperators, boolean useBinaryResults)
+          throws FileNotFoundException, IOException {
+    processQueryFromFile(new File(queryFile), outputWriter, treeType, useBaseOperators,
+            useBinaryResults);
   }
 
   public void processQueryFromFile(File queryFile, Writer outputWriter,
           QueryExecutionTreeType treeType, boolean useBaseOperators)
           throws FileNotFoundException, IOException {
-    processQuery(readQueryFromFile(queryFile), outputWriter, treeType, useBaseOperators);
+    processQueryFromFile(queryFile, outputWriter, treeType, useBaseOperators, false);
+  }
+
+  public void processQueryFromFile(File queryFile, Writer outputWriter,
+          QueryExecutionTreeType treeType, boolean useBaseOperators, boolean useBinaryResults)
+          throws FileNotFoundException, IOException {
+    processQuery(readQueryFromFile(queryFile), outputWriter, treeType, useBaseOperators,
+            useBinaryResults);
   }
 
   public void processQuery(String query, Writer outputWriter, QueryExecutionTreeType treeType,
           boolean useBaseOperators) throws IOException {
+    processQuery(query, outputWriter, treeType, useBaseOperators, false);
+  }
+
+  /**
+   * @param query
+   * @param outputWriter
+   * @param treeType
+   * @param useBaseOperators
+   * @param useBinaryResults
+   *          if <code>true</code>, the master sends the results as dictionary
+   *          ids and each term only once. The results are decoded by the
+   *          client. Each received result message is acknowledged so that the
+   *          master does not send more results than the client can process.
+   * @throws IOException
+   */
+  public void processQuery(String query, Writer outputWriter, QueryExecutionTreeType treeType,
+          boolean useBaseOperators, boolean useBinaryResults) throws IOException {
     long startTime = System.currentTimeMillis();
 
     class DummyDictionaryEncoder extends DictionaryEncoder {
@@ -242,11 +332,12 @@ public class KoralClient {
 
     try {
       // send query
-      byte[][] args = new byte[4][];
+      byte[][] args = new byte[5][];
       args[0] = NumberConversion.int2bytes(args.length - 1);
       args[1] = NumberConversion.int2bytes(treeType.ordinal());
       args[2] = new byte[] { useBaseOperators ? (byte) 1 : (byte) 0 };
       args[3] = queryString.getBytes("UTF-8");
+      args[4] = new byte[] { useBinaryResults ? (byte) 1 : (byte) 0 };
       connection.sendCommand("query", args);
 
       // receive response
@@ -254,6 +345,8 @@ public class KoralClient {
         byte[][] response = connection.getResponse();
         long numberOfReceivedMappings = 0;
         boolean isFirstResult = true;
+        BinaryQueryResultDecoder resultDecoder = useBinaryResults
+                ? new BinaryQueryResultDecoder() : null;
         while (response != null) {
           MessageType mtype = MessageType.valueOf(response[0][0]);
           if (mtype == MessageType.MASTER_WORK_IN_PROGRESS) {
@@ -269,6 +362,18 @@ public class KoralClient {
             outputWriter.write(string);
             outputWriter.flush();
             numberOfReceivedMappings += countNumberOfMappings(string);
+            if (useBinaryResults) {
+              // rows decoded by the slaves are acknowledged like binary results
+              connection.sendQueryResultReceived();
+            }
+          } else if ((mtype == MessageType.QUERY_RESULT_BINARY) && (resultDecoder != null)) {
+            if (isFirstResult) {
+              outputHeaders(vars, outputWriter);
+              isFirstResult = false;
+            }
+            numberOfReceivedMappings += resultDecoder.writeRows(response[0], outputWriter);
+            outputWriter.flush();
+            connection.sendQueryResultReceived();
           } else {
             outputWriter.write("\n");
             outputWriter.flush();
@@ -496,8 +601,8 @@ public class KoralClient {
     if (inputPaths.isEmpty()) {
       throw new ParseException("Please specify at least one graph file to load.");
     }
-    client.loadGraph(graphCover, nHopReplicationPathLength, maxMoleculeDiameter,
-            inputPaths.toArray(new String[inputPaths.size()]));
+    client.loadGraph(commandLine.hasOption("a"), graphCover, nHopReplicationPathLength,
+            maxMoleculeDiameter, inputPaths.toArray(new String[inputPaths.size()]));
   }
 
   private static void queryGraph(KoralClient client, String[] args) throws ParseException {
@@ -512,18 +617,20 @@ public class KoralClient {
 
     boolean useBaselineOperators = commandLine.hasOption("b");
 
+    boolean useBinaryResults = commandLine.hasOption("r");
+
     try {
       if (commandLine.hasOption("q")) {
         if (commandLine.hasOption("o")) {
           File outputFile = new File(commandLine.getOptionValue("o"));
           System.out.println("Output written to " + outputFile.getAbsolutePath());
           client.processQueryFromFile(commandLine.getOptionValue("q"), outputFile.getAbsolutePath(),
-                  treeType, useBaselineOperators);
+                  treeType, useBaselineOperators, useBinaryResults);
         } else {
           System.out.println("Output written to console.");
           OutputStreamWriter writer = new OutputStreamWriter(System.out);
           client.processQueryFromFile(commandLine.getOptionValue("q"), writer, treeType,
-                  useBaselineOperators);
+                  useBaselineOperators, useBinaryResults);
           writer.flush();
         }
       } else {
@@ -542,11 +649,12 @@ public class KoralClient {
           File outputFile = new File(commandLine.getOptionValue("o"));
           System.out.println("Output written to " + outputFile.getAbsolutePath());
           client.processQuery(sb.toString(), outputFile.getAbsolutePath(), treeType,
-                  useBaselineOperators);
+                  useBaselineOperators, useBinaryResults);
         } else {
           System.out.println("Output written to console.");
           OutputStreamWriter writer = new OutputStreamWriter(System.out);
-          client.processQuery(sb.toString(), writer, treeType, useBaselineOperators);
+          client.processQuery(sb.toString(), writer, treeType, useBaselineOperators,
+                  useBinaryResults);
           writer.flush();
         }
       }
@@ -584,10 +692,17 @@ public class KoralClient {
             .desc("Performs an n-hop replication on the chosen graph cover strategy.")
             .required(false).build();
 
+    Option append = Option.builder("a").longOpt("append")
+            .desc("Adds the graph files to the already loaded graph instead of replacing it. "
+                    + "The graph cover strategy of the loaded graph should be used. "
+                    + "It cannot be combined with n-hop replication.")
+            .required(false).build();
+
     Options options = new Options();
     options.addOption(coverStrategy);
     options.addOption(maxMoleculeDiameter);
     options.addOption(nHopReplication);
+    options.addOption(append);
     return options;
   }
 
@@ -608,8 +723,12 @@ public class KoralClient {
     Option useBaseOperators = Option.builder("b").longOpt("base").hasArg(false)
             .desc("If set, the baseline query operators are used.").required(false).build();
 
+    Option useBinaryResults = Option.builder("r").longOpt("binaryResults").hasArg(false)
+            .desc("If set, the results are transferred as dictionary ids and decoded by the client.")
+            .required(false).build();
+
     Option output = Option.builder("o").longOpt("output").hasArg().argName("outputFile").desc(
-            "The CSV file where the output is stored. If no file is given, the output is written to command line.")
+            "The CSV file where the output is stored. If the file name ends with .gz, it is GZIP compressed. If no file is given, the output is written to command line.")
             .required(false).build();
 
     Option queryFile = Option.builder("q").longOpt("querFile").hasArg().argName("SPARQLQueryFile")
@@ -619,6 +738,7 @@ public class KoralClient {
     Options options = new Options();
     options.addOption(treeType);
     options.addOption(useBaseOperators);
+    options.addOption(useBinaryResults);
     options.addOption(output);
     options.addOption(queryFile);
     return options;
@@ -699,7 +819,7 @@ public class KoralClient {
     System.out.println("exit\tquits the client");
     System.out.println("quit\tquits the client");
     HelpFormatter formatter = new HelpFormatter();
-    formatter.printHelp("load -c <graphCoverStrategy> [-n <pathLength>] <fileOrFolder>...",
+    formatter.printHelp("load -c <graphCoverStrategy> [-n <pathLength>] [-a] <fileOrFolder>...",
             KoralClient.createLoadOptions());
     formatter.printHelp(
             "query [-t <treeType>] [-o <outputFile>] <SPARQL query>\n"
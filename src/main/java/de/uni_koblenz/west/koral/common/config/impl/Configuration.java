@@ -31,6 +31,8 @@ import de.uni_koblenz.west.koral.common.config.Configurable;
 import de.uni_koblenz.west.koral.common.config.ConfigurableDeserializer;
 import de.uni_koblenz.west.koral.common.config.ConfigurableSerializer;
 import de.uni_koblenz.west.koral.common.config.Property;
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.system.ConfigurationException;
@@ -111,6 +113,19 @@ public class Configuration implements Configurable {
     this.ftpServerPort = ftpServerPort;
   }
 
+  @Property(name = "maxNumberOfParallelGraphFileUploads",
+      description = "The maximal number of graph files that the client uploads concurrently to the master."
+          + " The initial encoding of each graph file starts as soon as its upload has finished.")
+  private int maxNumberOfParallelGraphFileUploads = 4;
+
+  public int getMaxNumberOfParallelGraphFileUploads() {
+    return maxNumberOfParallelGraphFileUploads;
+  }
+
+  public void setMaxNumberOfParallelGraphFileUploads(int maxNumberOfParallelGraphFileUploads) {
+    this.maxNumberOfParallelGraphFileUploads = maxNumberOfParallelGraphFileUploads;
+  }
+
   @Property(name = "slaves",
       description = "The comma separated list of ips and ports of the different slaves, e.g., 192.168.0.2:4712,192.168.0.3,192.168.0.4:4777. If no port is specified, the default port "
           + Configuration.DEFAULT_PORT + " is used.")
@@ -346,6 +361,95 @@ public class Configuration implements Configurable {
     this.maxDictionaryWriteBatchSize = maxDictionaryWriteBatchSize;
   }
 
+  @Property(name = "sizeOfDictionaryDecodingCache",
+      description = "The number of recently decoded dictionary entries that are cached on the master in order to speed up the transformation of query results. A value <=0 disables the cache.")
+  private int sizeOfDictionaryDecodingCache = 100000;
+
+  public int getSizeOfDictionaryDecodingCache() {
+    return sizeOfDictionaryDecodingCache;
+  }
+
+  public void setSizeOfDictionaryDecodingCache(int sizeOfDictionaryDecodingCache) {
+    this.sizeOfDictionaryDecodingCache = sizeOfDictionaryDecodingCache;
+  }
+
+  @Property(name = "numberOfDictionaryEncodingThreads",
+      description = "The number of threads used for the initial encoding of the graph files. If it is larger than 1, the graph files are parsed in parallel and the dictionary is created by sorting all resources and ingesting them in bulk.")
+  private int numberOfDictionaryEncodingThreads = 1;
+
+  public int getNumberOfDictionaryEncodingThreads() {
+    return numberOfDictionaryEncodingThreads;
+  }
+
+  public void setNumberOfDictionaryEncodingThreads(int numberOfDictionaryEncodingThreads) {
+    this.numberOfDictionaryEncodingThreads = numberOfDictionaryEncodingThreads;
+  }
+
+  @Property(name = "numberOfGraphParserThreads",
+      description = "The number of threads used to parse a single N-Triples or N-Quads graph file. If it is larger than 1, the file is split into blocks of complete lines that are parsed in parallel. Other formats are always parsed by a single thread.")
+  private int numberOfGraphParserThreads = 1;
+
+  public int getNumberOfGraphParserThreads() {
+    return numberOfGraphParserThreads;
+  }
+
+  public void setNumberOfGraphParserThreads(int numberOfGraphParserThreads) {
+    this.numberOfGraphParserThreads = numberOfGraphParserThreads;
+  }
+
+  @Property(name = "dictionaryShardType",
+      description = "Defines which dictionary entries are sent to the slaves during graph loading in order to decode query results on the slaves:"
+          + "\nNONE = all query results are decoded by the master"
+          + "\nPARTITIONED = each slave receives the entries of the resources it owns. They are only used to evaluate filters and aggregates on single variables. All result rows are decoded by the master."
+          + "\nREPLICATED = each slave receives all entries. Result rows are decoded by the slaves.")
+  private DictionaryShardType dictionaryShardType = DictionaryShardType.NONE;
+
+  public DictionaryShardType getDictionaryShardType() {
+    return dictionaryShardType;
+  }
+
+  public void setDictionaryShardType(DictionaryShardType dictionaryShardType) {
+    this.dictionaryShardType = dictionaryShardType;
+  }
+
+  @Property(name = "encodedFileCompression",
+      description = "Defines how the intermediate encoded graph files and graph chunks are compressed:"
+          + "\nGZIP = each file is gzip compressed"
+          + "\nSNAPPY = each file consists of Snappy compressed blocks which is faster to write and read")
+  private FileCompression encodedFileCompression = FileCompression.GZIP;
+
+  public FileCompression getEncodedFileCompression() {
+    return encodedFileCompression;
+  }
+
+  public void setEncodedFileCompression(FileCompression encodedFileCompression) {
+    this.encodedFileCompression = encodedFileCompression;
+  }
+
+  @Property(name = "enableGraphChunkStreaming",
+      description = "If set to true, the master streams the graph chunks to the slaves while it adjusts the ownership of the resources and the slaves store the triples while receiving them. Otherwise, the slaves download the complete graph chunks via FTP after the master has finished all preprocessing steps.")
+  private boolean isGraphChunkStreamingEnabled = false;
+
+  public boolean isGraphChunkStreamingEnabled() {
+    return isGraphChunkStreamingEnabled;
+  }
+
+  public void setGraphChunkStreamingEnabled(boolean isGraphChunkStreamingEnabled) {
+    this.isGraphChunkStreamingEnabled = isGraphChunkStreamingEnabled;
+  }
+
+  @Property(name = "collectJoinStatistics",
+      description = "If set to true, the master computes characteristic sets and the join sizes of all property pairs while it collects the statistics. They improve the estimated join sizes used for ordering the joins of a query but require two external sorts of all triples. Thus, they should only be collected if queries are executed with the COST_BASED query execution tree type.")
+  private boolean isJoinStatisticsCollectionEnabled = false;
+
+  public boolean isJoinStatisticsCollectionEnabled() {
+    return isJoinStatisticsCollectionEnabled;
+  }
+
+  public void setJoinStatisticsCollectionEnabled(boolean isJoinStatisticsCollectionEnabled) {
+    this.isJoinStatisticsCollectionEnabled = isJoinStatisticsCollectionEnabled;
+  }
+
   private String statisticsDir = "statistics";
 
   public String getStatisticsDir(boolean flagIsMaster) {
@@ -478,7 +582,7 @@ public class Configuration implements Configurable {
   }
 
   @Property(name = "joinCacheStorageType", description = "Defines how the join cache is persisted:"
-      + "\nMEMORY = triples are only stored in memory"
+      + "\nMEMORY = mappings are only stored in memory in a hash table keyed on the join variable values"
       + "\nMEMORY_MAPPED_FILE = triples are stored as a file located in dictionaryDir which is mapped to memory. In Linux no additional caching is required."
       + "\nRANDOM_ACCESS_FILE = triples are is stored as a file located in dictionaryDir. Each dictionary lookup will result in a file access.")
   private MapDBStorageOptions joinCacheStorageType = MapDBStorageOptions.MEMORY_MAPPED_FILE;
@@ -517,6 +621,20 @@ public class Configuration implements Configurable {
     this.isJoinCacheAsynchronouslyWritten = isJoinCacheAsynchronouslyWritten;
   }
 
+  @Property(name = "enableMergeJoins",
+      description = "If set to true, two triple patterns that share their subject variable are joined by iterating over the sorted index ranges of both triple patterns in parallel, if both ranges are sorted by the subject."
+          + " Only enable it, if all triples with the same subject are stored on the same slave, i.e., the graph is loaded with the HASH graph cover."
+          + " It has no effect, if tripleStoreStorageType is MEMORY.")
+  private boolean useMergeJoins = false;
+
+  public boolean useMergeJoins() {
+    return useMergeJoins;
+  }
+
+  public void setUseMergeJoins(boolean useMergeJoins) {
+    this.useMergeJoins = useMergeJoins;
+  }
+
   @Property(name = "joinCacheType", description = "Defines how the join cache works:"
       + "\nNONE = no instances are cached"
       + "\nHASH_TABLE = a cached instance is deleted, if a hash collision occurs"
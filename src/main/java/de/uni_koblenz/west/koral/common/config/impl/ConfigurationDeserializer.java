@@ -20,6 +20,8 @@ import java.util.logging.Level;
 import java.util.regex.Pattern;
 
 import de.uni_koblenz.west.koral.common.config.ConfigurableDeserializer;
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 
 /**
  * Provides methods to convert the property values in the configuration file to the field values of
@@ -48,6 +50,12 @@ public class ConfigurationDeserializer implements ConfigurableDeserializer {
     }
   }
 
+  public void deserializeMaxNumberOfParallelGraphFileUploads(Configuration conf,
+      String maxNumberOfParallelGraphFileUploads) {
+    conf.setMaxNumberOfParallelGraphFileUploads(
+        Integer.parseInt(maxNumberOfParallelGraphFileUploads));
+  }
+
   public void deserializeSlaves(Configuration conf, String slaves) {
     String[] entries = slaves.split(Pattern.quote(","));
     for (int i = 0; i < entries.length; i++) {
@@ -98,6 +106,56 @@ public class ConfigurationDeserializer implements ConfigurableDeserializer {
     }
   }
 
+  public void deserializeSizeOfDictionaryDecodingCache(Configuration conf,
+      String sizeOfDictionaryDecodingCache) {
+    if ((sizeOfDictionaryDecodingCache != null) && !sizeOfDictionaryDecodingCache.isEmpty()) {
+      conf.setSizeOfDictionaryDecodingCache(Integer.parseInt(sizeOfDictionaryDecodingCache));
+    }
+  }
+
+  public void deserializeNumberOfDictionaryEncodingThreads(Configuration conf,
+      String numberOfDictionaryEncodingThreads) {
+    if ((numberOfDictionaryEncodingThreads != null)
+        && !numberOfDictionaryEncodingThreads.isEmpty()) {
+      conf.setNumberOfDictionaryEncodingThreads(
+          Integer.parseInt(numberOfDictionaryEncodingThreads));
+    }
+  }
+
+  public void deserializeNumberOfGraphParserThreads(Configuration conf,
+      String numberOfGraphParserThreads) {
+    if ((numberOfGraphParserThreads != null) && !numberOfGraphParserThreads.isEmpty()) {
+      conf.setNumberOfGraphParserThreads(Integer.parseInt(numberOfGraphParserThreads));
+    }
+  }
+
+  public void deserializeDictionaryShardType(Configuration conf, String dictionaryShardType) {
+    if ((dictionaryShardType != null) && !dictionaryShardType.isEmpty()) {
+      conf.setDictionaryShardType(DictionaryShardType.valueOf(dictionaryShardType.trim()));
+    }
+  }
+
+  public void deserializeEncodedFileCompression(Configuration conf,
+      String encodedFileCompression) {
+    if ((encodedFileCompression != null) && !encodedFileCompression.isEmpty()) {
+      conf.setEncodedFileCompression(FileCompression.valueOf(encodedFileCompression.trim()));
+    }
+  }
+
+  public void deserializeEnableGraphChunkStreaming(Configuration conf,
+      String enableGraphChunkStreaming) {
+    if ((enableGraphChunkStreaming != null) && !enableGraphChunkStreaming.isEmpty()) {
+      conf.setGraphChunkStreamingEnabled(Boolean.parseBoolean(enableGraphChunkStreaming));
+    }
+  }
+
+  public void deserializeCollectJoinStatistics(Configuration conf,
+      String collectJoinStatistics) {
+    if ((collectJoinStatistics != null) && !collectJoinStatistics.isEmpty()) {
+      conf.setJoinStatisticsCollectionEnabled(Boolean.parseBoolean(collectJoinStatistics));
+    }
+  }
+
   public void deserializeEnableTransactionsForTripleStore(Configuration conf,
       String enableTransactions) {
     if ((enableTransactions != null) && !enableTransactions.isEmpty()) {
@@ -132,6 +190,12 @@ public class ConfigurationDeserializer implements ConfigurableDeserializer {
     }
   }
   
+  public void deserializeEnableMergeJoins(Configuration conf, String enableMergeJoins) {
+    if ((enableMergeJoins != null) && !enableMergeJoins.isEmpty()) {
+      conf.setUseMergeJoins(Boolean.parseBoolean(enableMergeJoins));
+    }
+  }
+
   public void deserializeRowDataLength(Configuration conf, String rowDataLength) {
 	  conf.setRowDataLength(Integer.parseInt(rowDataLength));
   }
@@ -46,6 +46,10 @@ public class ConfigurationSerializer implements ConfigurableSerializer {
     }
   }
 
+  public String serializeMaxNumberOfParallelGraphFileUploads(Configuration conf) {
+    return Integer.valueOf(conf.getMaxNumberOfParallelGraphFileUploads()).toString();
+  }
+
   public String serializeSlaves(Configuration conf) {
     StringBuilder sb = new StringBuilder();
     String delim = "";
@@ -86,6 +90,34 @@ public class ConfigurationSerializer implements ConfigurableSerializer {
     return Integer.valueOf(conf.getMaxDictionaryWriteBatchSize()).toString();
   }
 
+  public String serializeSizeOfDictionaryDecodingCache(Configuration conf) {
+    return Integer.valueOf(conf.getSizeOfDictionaryDecodingCache()).toString();
+  }
+
+  public String serializeNumberOfDictionaryEncodingThreads(Configuration conf) {
+    return Integer.valueOf(conf.getNumberOfDictionaryEncodingThreads()).toString();
+  }
+
+  public String serializeNumberOfGraphParserThreads(Configuration conf) {
+    return Integer.valueOf(conf.getNumberOfGraphParserThreads()).toString();
+  }
+
+  public String serializeDictionaryShardType(Configuration conf) {
+    return conf.getDictionaryShardType().name();
+  }
+
+  public String serializeEncodedFileCompression(Configuration conf) {
+    return conf.getEncodedFileCompression().name();
+  }
+
+  public String serializeEnableGraphChunkStreaming(Configuration conf) {
+    return Boolean.valueOf(conf.isGraphChunkStreamingEnabled()).toString();
+  }
+
+  public String serializeCollectJoinStatistics(Configuration conf) {
+    return Boolean.valueOf(conf.isJoinStatisticsCollectionEnabled()).toString();
+  }
+
   public String serializeEnableTransactionsForTripleStore(Configuration conf) {
     return Boolean.valueOf(conf.useTransactionsForTripleStore()).toString();
   }
@@ -114,6 +146,10 @@ public class ConfigurationSerializer implements ConfigurableSerializer {
     return Boolean.valueOf(conf.useTransactionsForJoinCache()).toString();
   }
 
+  public String serializeEnableMergeJoins(Configuration conf) {
+    return Boolean.valueOf(conf.useMergeJoins()).toString();
+  }
+
   public String serializeRowDataLength(Configuration conf) {
     return Integer.valueOf(conf.getRowDataLength()).toString();
   }
@@ -0,0 +1,34 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.dictionary;
+
+/**
+ * Declares which parts of the dictionary are sent to the slaves during graph
+ * loading such that the slaves can decode the query results themselves.
+ * <ul>
+ * <li>NONE = the results are only decoded by the master</li>
+ * <li>PARTITIONED = each slave receives the entries of the resources it owns,
+ * i.e., the entries are partitioned by the owner encoded in the first two
+ * bytes of each id</li>
+ * <li>REPLICATED = each slave receives all entries</li>
+ * </ul>
+ */
+public enum DictionaryShardType {
+
+  NONE, PARTITIONED, REPLICATED;
+
+}
@@ -25,6 +25,7 @@ import java.util.TreeSet;
 import java.util.logging.Logger;
 
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageReceiverListener;
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSender;
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
@@ -33,9 +34,15 @@ import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
 import de.uni_koblenz.west.koral.common.messages.MessageNotifier;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.query.execution.QueryExecutionTreeDeserializer;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.operators.FilterOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.GroupOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.SliceOperator;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 
 /**
@@ -65,6 +72,15 @@ public class WorkerManager implements Closeable, AutoCloseable {
 
   private TripleStoreAccessor tripleStore;
 
+  private DictionaryShard dictionaryShard;
+
+  /**
+   * Only replicated dictionary shards contain all values of a result row.
+   * With partitioned shards, the rows usually contain values of several
+   * owners and would be decoded by the master anyway.
+   */
+  private final boolean decodeResultsOnSlaves;
+
   private final int cacheSize;
 
   private final File cacheDirectory;
@@ -100,14 +116,17 @@ public class WorkerManager implements Closeable, AutoCloseable {
     storageType = conf.getJoinCacheStorageType();
     useTransactions = conf.useTransactionsForJoinCache();
     writeAsynchronously = conf.isJoinCacheAsynchronouslyWritten();
+    decodeResultsOnSlaves = conf.getDictionaryShardType() == DictionaryShardType.REPLICATED;
 
     int availableCPUs = Runtime.getRuntime().availableProcessors() - 1;
     if (availableCPUs < 1) {
       availableCPUs = 1;
     }
     workers = new WorkerThread[availableCPUs];
+    MappingPayloadPool payloadPool = new MappingPayloadPool(
+        conf.getSizeOfMappingRecycleCache() * workers.length);
     for (int i = 0; i < workers.length; i++) {
-      workers[i] = new WorkerThread(i, conf.getSizeOfMappingRecycleCache(),
+      workers[i] = new WorkerThread(i, conf.getSizeOfMappingRecycleCache(), payloadPool,
           conf.getUnbalanceThresholdForWorkerThreads(), messageReceiver, this.messageSender,
           numberOfSlaves, logger, measurementCollector);
       if (i > 0) {
@@ -126,6 +145,10 @@ public class WorkerManager implements Closeable, AutoCloseable {
     this.tripleStore = tripleStore;
   }
 
+  public void setDictionaryShard(DictionaryShard dictionaryShard) {
+    this.dictionaryShard = dictionaryShard;
+  }
+
   public void addTask(WorkerTask rootTask) {
     initializeTaskTree(rootTask);
   }
@@ -148,6 +171,13 @@ public class WorkerManager implements Closeable, AutoCloseable {
         new ByteArrayInputStream(receivedQUERY_CREATEMessage, Byte.BYTES + Integer.BYTES,
             receivedQUERY_CREATEMessage.length - Byte.BYTES - Integer.BYTES));) {
       QueryOperatorTask queryExecutionTree = deserializer.deserialize(input);
+      if (decodeResultsOnSlaves && (dictionaryShard != null) && !dictionaryShard.isEmpty()
+          && (queryExecutionTree instanceof QueryOperatorBase)
+          && !(queryExecutionTree instanceof SliceOperator)) {
+        // offset and limit are applied by the coordinator on single mappings
+        ((QueryOperatorBase) queryExecutionTree).setDictionaryShard(dictionaryShard);
+      }
+      setDictionaryShardOfFilters(queryExecutionTree);
       initializeTaskTree(queryExecutionTree);
       messageSender.sendQueryCreated(computerOfQueryExecutionCoordinator, coordinatorId);
       if (measurementCollector != null) {
@@ -170,6 +200,24 @@ public class WorkerManager implements Closeable, AutoCloseable {
     }
   }
 
+  /**
+   * Filter operators decode the values of their filter variables and group
+   * operators the aggregated values with the local dictionary shard.
+   * 
+   * @param task
+   */
+  private void setDictionaryShardOfFilters(WorkerTask task) {
+    if (dictionaryShard == null) {
+      return;
+    }
+    if ((task instanceof FilterOperator) || (task instanceof GroupOperator)) {
+      ((QueryOperatorBase) task).setDictionaryShard(dictionaryShard);
+    }
+    for (WorkerTask child : task.getPrecedingTasks()) {
+      setDictionaryShardOfFilters(child);
+    }
+  }
+
   private void initializeTaskTree(WorkerTask rootTask) {
     // initialize current work load of WorkerThreads
     long[] workLoad = new long[workers.length];
@@ -238,16 +286,39 @@ public class WorkerManager implements Closeable, AutoCloseable {
   }
 
   public void abortQuery(byte[] receivedMessage) {
+    stopQuery(receivedMessage, false);
+  }
+
+  public void cancelQuery(byte[] receivedMessage) {
+    stopQuery(receivedMessage, true);
+  }
+
+  /**
+   * Removes all tasks of the query from the {@link WorkerThread}s.
+   *
+   * @param receivedMessage
+   * @param isCancelled
+   *          if <code>true</code> the buffered mappings of the query are
+   *          discarded instead of being sent
+   */
+  private void stopQuery(byte[] receivedMessage, boolean isCancelled) {
     for (WorkerThread worker : workers) {
-      worker.abortQuery(receivedMessage);
+      if (isCancelled) {
+        worker.cancelQuery(receivedMessage);
+      } else {
+        worker.abortQuery(receivedMessage);
+      }
     }
     if (measurementCollector != null) {
-      measurementCollector.measureValue(MeasurementType.QUERY_SLAVE_QUERY_EXECUTION_ABORT,
+      measurementCollector.measureValue(
+          isCancelled ? MeasurementType.QUERY_SLAVE_QUERY_EXECUTION_CANCEL
+              : MeasurementType.QUERY_SLAVE_QUERY_EXECUTION_ABORT,
           System.currentTimeMillis(),
           Integer.toString(NumberConversion.bytes2int(receivedMessage, 1)));
     }
     if (logger != null) {
-      logger.finer("Query " + NumberConversion.bytes2int(receivedMessage, 1) + " aborted.");
+      logger.finer("Query " + NumberConversion.bytes2int(receivedMessage, 1)
+          + (isCancelled ? " cancelled." : " aborted."));
     }
   }
 
@@ -20,6 +20,7 @@ package de.uni_koblenz.west.koral.common.executor;
 
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 
 import java.io.Closeable;
@@ -81,6 +82,17 @@ public interface WorkerTask extends Closeable {
 
   public void enqueueMessage(long sender, byte[] message, int firstIndex, int lengthOfMessage);
 
+  /**
+   * Enqueues a single mapping. The task takes over <code>pooledArray</code>,
+   * i.e., the caller must not use it any more.
+   * 
+   * @param sender
+   * @param pooledArray
+   *          an array of the {@link MappingPayloadPool} that solely contains
+   *          the mapping
+   */
+  public void enqueueMapping(long sender, byte[] pooledArray);
+
   /**
    * Results may only be emitted, it {@link #start()} was called.
    */
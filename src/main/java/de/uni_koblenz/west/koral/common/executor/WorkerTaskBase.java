@@ -21,6 +21,8 @@ package de.uni_koblenz.west.koral.common.executor;
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.utils.CachedFileReceiverQueue;
@@ -62,6 +64,8 @@ public abstract class WorkerTaskBase implements WorkerTask {
 
   private final AtomicBoolean areChildrenFinished;
 
+  private MappingPayloadPool payloadPool;
+
   public WorkerTaskBase(long id, int cacheSize, File cacheDirectory) {
     this.id = id;
     this.cacheSize = cacheSize;
@@ -76,6 +80,12 @@ public abstract class WorkerTaskBase implements WorkerTask {
           Logger logger, MeasurementCollector measurementCollector) {
     this.logger = logger;
     this.measurementCollector = measurementCollector;
+    payloadPool = recycleCache != null ? recycleCache.getPayloadPool() : null;
+    if (inputQueues != null) {
+      for (CachedFileReceiverQueue queue : inputQueues) {
+        queue.setPayloadPool(payloadPool);
+      }
+    }
   }
 
   @Override
@@ -100,6 +110,7 @@ public abstract class WorkerTaskBase implements WorkerTask {
     }
     inputQueues[inputQueues.length - 1] = new CachedFileReceiverQueue(cacheSize, cacheDirectory,
             inputQueues.length - 1);
+    inputQueues[inputQueues.length - 1].setPayloadPool(payloadPool);
   }
 
   @Override
@@ -123,14 +134,25 @@ public abstract class WorkerTaskBase implements WorkerTask {
     return inputQueues[inputQueueIndex].size();
   }
 
-  protected void enqueuMessage(int inputQueueIndex, byte[] message, int firstIndex, int length) {
+  /**
+   * @param inputQueueIndex
+   * @param message
+   * @param firstIndex
+   * @param length
+   * @param isHandedOver
+   *          if <code>true</code>, <code>message</code> is an array of the
+   *          {@link MappingPayloadPool} that solely contains the mapping and
+   *          is taken over by the input queue
+   */
+  protected void enqueuMessage(int inputQueueIndex, byte[] message, int firstIndex, int length,
+          boolean isHandedOver) {
     if (inputQueues[inputQueueIndex].isClosed()) {
       if (logger != null) {
         logger.finer("Discarding a message because the queue of task " + getID()
                 + " was already closed.");
       }
     } else {
-      inputQueues[inputQueueIndex].enqueue(message, firstIndex, length);
+      inputQueues[inputQueueIndex].enqueue(message, firstIndex, length, isHandedOver);
     }
   }
 
@@ -142,6 +164,15 @@ public abstract class WorkerTaskBase implements WorkerTask {
     }
   }
 
+  protected int consumeMappings(int inputQueueIndex, MappingBatch batch,
+          MappingRecycleCache recycleCache) {
+    if (!inputQueues[inputQueueIndex].isClosed()) {
+      return inputQueues[inputQueueIndex].dequeue(batch, recycleCache);
+    } else {
+      return 0;
+    }
+  }
+
   protected boolean isInputQueueEmpty(int inputQueueIndex) {
     return inputQueues[inputQueueIndex].isEmpty();
   }
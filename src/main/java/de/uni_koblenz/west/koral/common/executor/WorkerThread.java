@@ -21,7 +21,9 @@ package de.uni_koblenz.west.koral.common.executor;
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageReceiverListener;
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
 
 import java.io.Closeable;
 import java.util.Comparator;
@@ -70,9 +72,10 @@ public class WorkerThread extends Thread implements Closeable, AutoCloseable {
 
   private long currentLoad;
 
-  public WorkerThread(int id, int sizeOfMappingRecycleCache, double unbalanceThreshold,
-          MessageReceiverListener receiver, MessageSenderBuffer messageSender, int numberOfSlaves,
-          Logger logger, MeasurementCollector measurementCollector) {
+  public WorkerThread(int id, int sizeOfMappingRecycleCache, MappingPayloadPool payloadPool,
+          double unbalanceThreshold, MessageReceiverListener receiver,
+          MessageSenderBuffer messageSender, int numberOfSlaves, Logger logger,
+          MeasurementCollector measurementCollector) {
     setDaemon(true);
     this.logger = logger;
     this.measurementCollector = measurementCollector;
@@ -80,7 +83,7 @@ public class WorkerThread extends Thread implements Closeable, AutoCloseable {
     setName("WorkerThread " + id);
     tasks = new ConcurrentLinkedQueue<>();
     currentLoad = 0;
-    mappingCache = new MappingRecycleCache(sizeOfMappingRecycleCache, numberOfSlaves);
+    mappingCache = new MappingRecycleCache(sizeOfMappingRecycleCache, numberOfSlaves, payloadPool);
     this.unbalanceThreshold = unbalanceThreshold;
     this.receiver = receiver;
     this.messageSender = messageSender;
@@ -180,6 +183,21 @@ public class WorkerThread extends Thread implements Closeable, AutoCloseable {
 
   public void abortQuery(byte[] receivedMessage) {
     messageSender.sendAllBufferedMessages(mappingCache);
+    removeTasksOfQuery(receivedMessage);
+  }
+
+  /**
+   * Removes all tasks of the query without sending their buffered mappings.
+   * 
+   * @param receivedMessage
+   */
+  public void cancelQuery(byte[] receivedMessage) {
+    removeTasksOfQuery(receivedMessage);
+    messageSender.discardBufferedMappings(NumberConversion.bytes2int(receivedMessage, 1),
+            mappingCache);
+  }
+
+  private void removeTasksOfQuery(byte[] receivedMessage) {
     Set<WorkerTask> queryTasks = receiver.getAllTasksOfQuery(receivedMessage, 1);
     Iterator<WorkerTask> iterator = tasks.iterator();
     while (iterator.hasNext()) {
@@ -21,6 +21,7 @@ package de.uni_koblenz.west.koral.common.executor.messagePassing;
 import de.uni_koblenz.west.koral.common.executor.WorkerTask;
 import de.uni_koblenz.west.koral.common.messages.MessageListener;
 import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
 
 import java.nio.BufferUnderflowException;
@@ -133,6 +134,7 @@ public class MessageReceiverListener implements MessageListener {
         case QUERY_CREATED:
         case QUERY_TASK_FINISHED:
         case QUERY_TASK_FAILED:
+        case QUERY_RESULT_ROWS:
           WorkerTask task = null;
           ArrayIndexOutOfBoundsException error = null;
           try {
@@ -187,6 +189,28 @@ public class MessageReceiverListener implements MessageListener {
     }
   }
 
+  /**
+   * Like {@link #receiveLocalMessage(long, long, byte[], int, int)} for a
+   * single mapping whose byte array is handed over to the receiving task.
+   * 
+   * @param sender
+   * @param receiver
+   * @param pooledArray
+   *          an array of the {@link MappingPayloadPool} that solely contains
+   *          the mapping
+   */
+  public void receiveLocalMapping(long sender, long receiver, byte[] pooledArray) {
+    WorkerTask task = getTask(receiver);
+    if (task == null) {
+      if (logger != null) {
+        logger.info("Discarding a local message because the receiving task " + receiver
+                + " is not present.");
+      }
+    } else {
+      task.enqueueMapping(sender, pooledArray);
+    }
+  }
+
   public void unregister(WorkerTask task) {
     byte[] id = NumberConversion.long2bytes(task.getID());
     unregisterTask(id, task);
@@ -22,6 +22,8 @@ import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
 import de.uni_koblenz.west.koral.common.messages.MessageType;
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
@@ -129,14 +131,45 @@ public class MessageSenderBuffer {
     int receivingComputer = getComputerID(receiverTaskID);
     if (receivingComputer == messageSender.getCurrentID()) {
       // the receiver is on this computer
-      localMessageReceiver.receiveLocalMessage(senderTaskID, receiverTaskID, mapping.getByteArray(),
-              mapping.getFirstIndexOfMappingInByteArray(), mapping.getLengthOfMappingInByteArray());
-      mappingCache.releaseMapping(mapping);
+      sendLocally(mapping, senderTaskID, receiverTaskID, mappingCache);
     } else {
       enqueue(receivingComputer, mapping, receiverTaskID, mappingCache);
     }
   }
 
+  /**
+   * Sends each row of <code>batch</code> to the task given in
+   * <code>receiverTaskIDs</code> at the same index. Rows with a receiver of -1
+   * are discarded. Rows for local receivers are serialized into arrays of the
+   * {@link MappingPayloadPool} that are handed over to the receivers.
+   * 
+   * @param batch
+   * @param senderTaskID
+   * @param receiverTaskIDs
+   * @param mappingCache
+   */
+  public void sendQueryMappings(MappingBatch batch, long senderTaskID, long[] receiverTaskIDs,
+          MappingRecycleCache mappingCache) {
+    for (int row = 0; row < batch.size(); row++) {
+      long receiverTaskID = receiverTaskIDs[row];
+      if (receiverTaskID == -1) {
+        continue;
+      }
+      int receivingComputer = getComputerID(receiverTaskID);
+      if (receivingComputer == messageSender.getCurrentID()) {
+        byte[] localMessage = mappingCache.getPayloadPool()
+                .allocate(batch.getLengthOfSerializedRow());
+        batch.serializeRow(row, receiverTaskID, senderTaskID, localMessage, 0);
+        localMessageReceiver.receiveLocalMapping(senderTaskID, receiverTaskID, localMessage);
+      } else {
+        Mapping mapping = batch.createMapping(row, mappingCache);
+        mapping.updateReceiver(receiverTaskID);
+        mapping.updateSender(senderTaskID);
+        enqueue(receivingComputer, mapping, receiverTaskID, mappingCache);
+      }
+    }
+  }
+
   public void sendQueryMappingToAll(Mapping mapping, long senderTaskID, long receiverTaskID,
           MappingRecycleCache mappingCache) {
     receiverTaskID &= 0x00_00_ff_ff_ff_ff_ff_ffl;
@@ -158,10 +191,30 @@ public class MessageSenderBuffer {
     long receiver = ((long) messageSender.getCurrentID()) << (Short.SIZE + Integer.SIZE);
     receiver |= receiverTaskID;
     mapping.updateReceiver(receiver);
-    localMessageReceiver.receiveLocalMessage(senderTaskID, receiver, mapping.getByteArray(),
-            mapping.getFirstIndexOfMappingInByteArray(), mapping.getLengthOfMappingInByteArray());
-    // release mapping
-    mappingCache.releaseMapping(mapping);
+    sendLocally(mapping, senderTaskID, receiver, mappingCache);
+  }
+
+  /**
+   * If <code>mapping</code> owns its byte array, the array is handed over to
+   * the receiver without copying it. Afterwards, <code>mapping</code> is
+   * released.
+   * 
+   * @param mapping
+   * @param senderTaskID
+   * @param receiverTaskID
+   * @param mappingCache
+   */
+  private void sendLocally(Mapping mapping, long senderTaskID, long receiverTaskID,
+          MappingRecycleCache mappingCache) {
+    byte[] payload = mappingCache.releaseMappingAndTakePayload(mapping);
+    if (payload != null) {
+      localMessageReceiver.receiveLocalMapping(senderTaskID, receiverTaskID, payload);
+    } else {
+      localMessageReceiver.receiveLocalMessage(senderTaskID, receiverTaskID,
+              mapping.getByteArray(), mapping.getFirstIndexOfMappingInByteArray(),
+              mapping.getLengthOfMappingInByteArray());
+      mappingCache.releaseMapping(mapping);
+    }
   }
 
   /**
@@ -286,12 +339,63 @@ public class MessageSenderBuffer {
     messageSender.send(receiver, messageBB.array());
   }
 
+  public void sendQueryResultRows(int receiver, long coordinatorID, int numberOfRows,
+          String rows) {
+    byte[] rowBytes = null;
+    try {
+      rowBytes = rows.getBytes("UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+    ByteBuffer messageBB = ByteBuffer.allocate(
+            Byte.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + rowBytes.length);
+    messageBB.put(MessageType.QUERY_RESULT_ROWS.getValue())
+            .putShort((short) messageSender.getCurrentID()).putLong(coordinatorID)
+            .putInt(numberOfRows).put(rowBytes);
+    messageSender.send(receiver, messageBB.array());
+  }
+
   public void sendQueryAbortion(int queryID) {
     ByteBuffer message = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES);
     message.put(MessageType.QUERY_ABORTION.getValue()).putInt(queryID);
     messageSender.sendToAllSlaves(message.array());
   }
 
+  public void sendQueryCancellation(int queryID) {
+    ByteBuffer message = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES);
+    message.put(MessageType.QUERY_CANCELLATION.getValue()).putInt(queryID);
+    messageSender.sendToAllSlaves(message.array());
+  }
+
+  /**
+   * Removes all buffered mappings that are sent to tasks of query
+   * <code>queryID</code> without sending them.
+   * 
+   * @param queryID
+   * @param mappingCache
+   */
+  public synchronized void discardBufferedMappings(int queryID,
+          MappingRecycleCache mappingCache) {
+    for (int receivingComputer = 0; receivingComputer < mappingBuffer.length; receivingComputer++) {
+      Mapping[] buffer = mappingBuffer[receivingComputer];
+      int remainingMappings = 0;
+      for (int i = 0; i < nextIndex[receivingComputer]; i++) {
+        Mapping mapping = buffer[i];
+        buffer[i] = null;
+        if (getQueryID(mapping.getIdOfReceiver()) == queryID) {
+          mappingCache.releaseMapping(mapping);
+        } else {
+          buffer[remainingMappings++] = mapping;
+        }
+      }
+      nextIndex[receivingComputer] = remainingMappings;
+    }
+  }
+
+  private int getQueryID(long taskID) {
+    return (int) ((taskID & 0x00_00_ff_ff_ff_ff_00_00l) >>> Short.SIZE);
+  }
+
   public void clear() {
     int bufferSize = mappingBuffer[0].length;
     for (int i = 0; i < mappingBuffer.length; i++) {
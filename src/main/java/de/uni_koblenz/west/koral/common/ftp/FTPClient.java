@@ -28,10 +28,16 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 /**
- * Connects to {@link FTPServer} in order to upload or download a file.
+ * Connects to {@link FTPServer} in order to upload or download files.
  * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
@@ -83,6 +89,42 @@ public class FTPClient {
     }
   }
 
+  /**
+   * Uploads the files over at most <code>numberOfParallelUploads</code>
+   * concurrent connections. The largest files are uploaded first so that the
+   * connections finish at roughly the same time.
+   * 
+   * @param filesToUpload
+   * @param ipAddress
+   * @param port
+   * @param numberOfParallelUploads
+   */
+  public void uploadFiles(List<File> filesToUpload, String ipAddress, String port,
+          int numberOfParallelUploads) {
+    List<File> files = new ArrayList<>(filesToUpload);
+    files.sort((file1, file2) -> Long.compare(file2.length(), file1.length()));
+    ExecutorService executor = Executors
+            .newFixedThreadPool(Math.max(1, Math.min(numberOfParallelUploads, files.size())));
+    try {
+      List<Future<?>> uploads = new ArrayList<>();
+      for (File file : files) {
+        uploads.add(executor.submit(() -> uploadFile(file, ipAddress, port)));
+      }
+      for (Future<?> upload : uploads) {
+        upload.get();
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   public void downloadFile(String remoteFile, File localFile, String ipAddress, String port) {
     downloadFile(remoteFile, localFile, ipAddress, port, FTPServer.DEFAULT_USER_NAME,
             FTPServer.DEFAULT_PASSWORD);
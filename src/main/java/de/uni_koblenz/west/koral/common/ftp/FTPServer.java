@@ -22,7 +22,13 @@ import org.apache.ftpserver.ConnectionConfigFactory;
 import org.apache.ftpserver.FtpServer;
 import org.apache.ftpserver.FtpServerFactory;
 import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
 import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpReply;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
 import org.apache.ftpserver.ftplet.UserManager;
 import org.apache.ftpserver.listener.ListenerFactory;
 import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
@@ -34,7 +40,10 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 
@@ -54,12 +63,32 @@ public class FTPServer implements Closeable {
   private FtpServer server;
 
   public void start(String ipAddress, String port, File workingDir, int maxNumberOfLogins) {
+    start(ipAddress, port, workingDir, maxNumberOfLogins, null);
+  }
+
+  /**
+   * @param ipAddress
+   * @param port
+   * @param workingDir
+   * @param maxNumberOfLogins
+   * @param uploadListener
+   *          is called with the uploaded file as soon as an upload has
+   *          completed successfully. Since several clients may upload
+   *          concurrently, it has to be thread-safe. May be <code>null</code>.
+   */
+  public void start(String ipAddress, String port, File workingDir, int maxNumberOfLogins,
+          Consumer<File> uploadListener) {
     start(ipAddress, port, workingDir, FTPServer.DEFAULT_USER_NAME, FTPServer.DEFAULT_PASSWORD,
-            maxNumberOfLogins);
+            maxNumberOfLogins, uploadListener);
   }
 
   public void start(String ipAddress, String port, File workingDir, String username,
           String password, int maxNumberOfLogins) {
+    start(ipAddress, port, workingDir, username, password, maxNumberOfLogins, null);
+  }
+
+  public void start(String ipAddress, String port, File workingDir, String username,
+          String password, int maxNumberOfLogins, Consumer<File> uploadListener) {
     ftpFolder = new File(workingDir.getAbsolutePath() + File.separator + "ftp");
     if (!ftpFolder.exists()) {
       ftpFolder.mkdirs();
@@ -97,6 +126,21 @@ public class FTPServer implements Closeable {
       serverFactory.addListener("default", factory.createListener());
       serverFactory.setUserManager(userManager);
       serverFactory.setConnectionConfig(connectionConfig.createConnectionConfig());
+      if (uploadListener != null) {
+        Map<String, Ftplet> ftplets = new HashMap<>();
+        ftplets.put("uploadListener", new DefaultFtplet() {
+          @Override
+          public FtpletResult afterCommand(FtpSession session, FtpRequest request, FtpReply reply)
+                  throws FtpException, IOException {
+            if ("STOR".equalsIgnoreCase(request.getCommand())
+                    && (reply.getCode() == FtpReply.REPLY_226_CLOSING_DATA_CONNECTION)) {
+              uploadListener.accept(new File(workingDir, request.getArgument()));
+            }
+            return super.afterCommand(session, request, reply);
+          }
+        });
+        serverFactory.setFtplets(ftplets);
+      }
       server = serverFactory.createServer();
       server.start();
     } catch (IOException | FtpException e) {
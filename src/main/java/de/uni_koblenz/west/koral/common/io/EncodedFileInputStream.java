@@ -27,12 +27,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.zip.GZIPInputStream;
 
 /**
  * Reads data from a file respecting the {@link EncodingFileFormat}. The v-byte
- * encoded long values in the input file are decoded.
+ * encoded long values in the input file are decoded by {@link VByteCodec}
+ * directly from a buffer that is filled in bulk. The
+ * {@link FileCompression} of the file is detected automatically.
  * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
@@ -41,10 +46,40 @@ public class EncodedFileInputStream implements AutoCloseable, Iterable<Statement
 
   private final EncodingFileFormat inputFormat;
 
-  private final DataInputStream input;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final InputStream input;
+
+  /**
+   * contains the read but not yet decoded bytes
+   */
+  private ByteBuffer buffer;
 
   private final File inputFile;
 
+  private final long rangeStart;
+
+  private final long rangeEnd;
+
+  /**
+   * Reads uncompressed statements as they are written by
+   * {@link EncodedFileOutputStream#EncodedFileOutputStream(java.io.OutputStream)}.
+   * Such an input stream cannot be copied by
+   * {@link #EncodedFileInputStream(EncodedFileInputStream)}.
+   * 
+   * @param inputFormat
+   * @param input
+   */
+  public EncodedFileInputStream(EncodingFileFormat inputFormat, InputStream input) {
+    inputFile = null;
+    this.inputFormat = inputFormat;
+    rangeStart = 0;
+    rangeEnd = Long.MAX_VALUE;
+    buffer = ByteBuffer.allocate(EncodedFileInputStream.BUFFER_SIZE);
+    buffer.flip();
+    this.input = input;
+  }
+
   /**
    * The input must be closed!
    * 
@@ -54,16 +89,82 @@ public class EncodedFileInputStream implements AutoCloseable, Iterable<Statement
    */
   public EncodedFileInputStream(EncodedFileInputStream input)
           throws FileNotFoundException, IOException {
-    this(input.inputFormat, input.inputFile);
+    this(input.inputFormat, EncodedFileInputStream.getInputFile(input), input.rangeStart,
+            input.rangeEnd, false);
   }
 
   public EncodedFileInputStream(EncodingFileFormat inputFormat, File inputFile)
           throws FileNotFoundException, IOException {
+    this(inputFormat, inputFile, 0, Long.MAX_VALUE, false);
+  }
+
+  /**
+   * Reads only the statements of the {@link FileCompression#SNAPPY} blocks
+   * whose headers start in the range [<code>rangeStart</code>,
+   * <code>rangeEnd</code>). Thus, if a file is split into disjoint ranges that
+   * cover the whole file, each statement is read by exactly one reader.
+   * 
+   * @param inputFormat
+   * @param inputFile
+   * @param rangeStart
+   * @param rangeEnd
+   * @throws FileNotFoundException
+   * @throws IOException
+   * @throws IllegalArgumentException
+   *           if the file is not {@link FileCompression#SNAPPY} compressed
+   */
+  public EncodedFileInputStream(EncodingFileFormat inputFormat, File inputFile, long rangeStart,
+          long rangeEnd) throws FileNotFoundException, IOException {
+    this(inputFormat, inputFile, rangeStart, rangeEnd, true);
+  }
+
+  private EncodedFileInputStream(EncodingFileFormat inputFormat, File inputFile, long rangeStart,
+          long rangeEnd, boolean isSplit) throws FileNotFoundException, IOException {
     super();
     this.inputFile = inputFile;
     this.inputFormat = inputFormat;
-    input = new DataInputStream(
-            new BufferedInputStream(new GZIPInputStream(new FileInputStream(inputFile))));
+    this.rangeStart = rangeStart;
+    this.rangeEnd = rangeEnd;
+    buffer = ByteBuffer.allocate(EncodedFileInputStream.BUFFER_SIZE);
+    buffer.flip();
+    if (EncodedFileInputStream.getCompression(inputFile) == FileCompression.SNAPPY) {
+      input = new SnappyBlockInputStream(inputFile, rangeStart, rangeEnd);
+    } else if (!isSplit) {
+      input = new GZIPInputStream(new BufferedInputStream(new FileInputStream(inputFile)),
+              EncodedFileInputStream.BUFFER_SIZE);
+    } else {
+      throw new IllegalArgumentException("Only " + FileCompression.SNAPPY.name()
+              + " compressed files can be split but " + inputFile.getAbsolutePath()
+              + " is not.");
+    }
+  }
+
+  private static File getInputFile(EncodedFileInputStream input) {
+    if (input.inputFile == null) {
+      throw new UnsupportedOperationException(
+              "An input stream that does not read from a file cannot be copied.");
+    }
+    return input.inputFile;
+  }
+
+  /**
+   * @param file
+   * @return the compression of <code>file</code>. Empty files are treated as
+   *         {@link FileCompression#SNAPPY} compressed, since gzip files always
+   *         contain a header.
+   * @throws IOException
+   */
+  public static FileCompression getCompression(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file));) {
+      int magic;
+      try {
+        magic = in.readInt();
+      } catch (EOFException e) {
+        return FileCompression.SNAPPY;
+      }
+      return magic == SnappyBlockOutputStream.BLOCK_MAGIC ? FileCompression.SNAPPY
+              : FileCompression.GZIP;
+    }
   }
 
   /**
@@ -78,29 +179,71 @@ public class EncodedFileInputStream implements AutoCloseable, Iterable<Statement
     byte[] property = inputFormat.isPropertyEncoded() ? readEncodedLong() : readString();
     byte[] object = inputFormat.isObjectEncoded() ? readEncodedLong() : readString();
 
-    int length = input.readShort() & 0xff_ff;
+    require(Short.BYTES);
+    int length = buffer.getShort() & 0xff_ff;
+    require(length);
     byte[] containment = new byte[length];
-    input.readFully(containment);
+    buffer.get(containment);
     return Statement.getStatement(inputFormat, subject, property, object, containment);
   }
 
   private byte[] readString() throws IOException {
-    int length = input.readInt();
+    require(Integer.BYTES);
+    int length = buffer.getInt();
+    require(length);
     byte[] stringContent = new byte[length];
-    input.readFully(stringContent);
+    buffer.get(stringContent);
     return stringContent;
   }
 
   private byte[] readEncodedLong() throws IOException {
-    long result = 0;
-    byte currentBlock;
-    do {
-      currentBlock = input.readByte();
-      result = result << 7;
-      long value = currentBlock & 0b0111_1111;
-      result = result | value;
-    } while (currentBlock >= 0);
-    return NumberConversion.long2bytes(result);
+    fill(VByteCodec.MAX_ENCODED_LENGTH);
+    try {
+      return NumberConversion.long2bytes(VByteCodec.decode(buffer));
+    } catch (BufferUnderflowException e) {
+      throw new EOFException();
+    }
+  }
+
+  /**
+   * @param numberOfBytes
+   * @throws EOFException
+   *           if the file ends before <code>numberOfBytes</code> bytes
+   * @throws IOException
+   */
+  private void require(int numberOfBytes) throws EOFException, IOException {
+    fill(numberOfBytes);
+    if (buffer.remaining() < numberOfBytes) {
+      throw new EOFException();
+    }
+  }
+
+  /**
+   * Reads from the file until at least <code>numberOfBytes</code> bytes are
+   * buffered or the end of the file is reached.
+   * 
+   * @param numberOfBytes
+   * @throws IOException
+   */
+  private void fill(int numberOfBytes) throws IOException {
+    if (buffer.remaining() >= numberOfBytes) {
+      return;
+    }
+    if (numberOfBytes > buffer.capacity()) {
+      ByteBuffer newBuffer = ByteBuffer.allocate(numberOfBytes);
+      newBuffer.put(buffer);
+      buffer = newBuffer;
+    } else {
+      buffer.compact();
+    }
+    while (buffer.position() < numberOfBytes) {
+      int read = input.read(buffer.array(), buffer.position(), buffer.remaining());
+      if (read == -1) {
+        break;
+      }
+      buffer.position(buffer.position() + read);
+    }
+    buffer.flip();
   }
 
   @Override
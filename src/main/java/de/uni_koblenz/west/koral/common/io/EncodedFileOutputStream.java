@@ -18,24 +18,39 @@
  */
 package de.uni_koblenz.west.koral.common.io;
 
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
 import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.zip.GZIPOutputStream;
 
 /**
  * Writes data into a file respecting the {@link EncodingFileFormat}. Long
- * values are v-byte encoded.
+ * values are v-byte encoded by {@link VByteCodec}. The statements are encoded
+ * into a buffer that is passed to the compression as a whole. The file is
+ * compressed according to the {@link FileCompression}. By default,
+ * {@link FileCompression#GZIP} is used.
  * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
  */
 public class EncodedFileOutputStream implements AutoCloseable {
 
-  private final DataOutputStream out;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final OutputStream out;
+
+  /**
+   * <code>null</code> if the file is gzip compressed
+   */
+  private final SnappyBlockOutputStream blockOutput;
+
+  private ByteBuffer buffer;
 
   public EncodedFileOutputStream(File outputFile) throws FileNotFoundException, IOException {
     this(outputFile, false);
@@ -43,151 +58,99 @@ public class EncodedFileOutputStream implements AutoCloseable {
 
   public EncodedFileOutputStream(File outputFile, boolean append)
           throws FileNotFoundException, IOException {
-    out = new DataOutputStream(new BufferedOutputStream(
-            new GZIPOutputStream(new FileOutputStream(outputFile, append))));
+    this(outputFile, append, FileCompression.GZIP);
+  }
+
+  public EncodedFileOutputStream(File outputFile, FileCompression compression)
+          throws FileNotFoundException, IOException {
+    this(outputFile, false, compression);
+  }
+
+  public EncodedFileOutputStream(File outputFile, boolean append, FileCompression compression)
+          throws FileNotFoundException, IOException {
+    if (compression == FileCompression.SNAPPY) {
+      blockOutput = new SnappyBlockOutputStream(
+              new BufferedOutputStream(new FileOutputStream(outputFile, append)));
+      out = blockOutput;
+    } else {
+      blockOutput = null;
+      out = new GZIPOutputStream(
+              new BufferedOutputStream(new FileOutputStream(outputFile, append)),
+              EncodedFileOutputStream.BUFFER_SIZE);
+    }
+    buffer = ByteBuffer.allocate(EncodedFileOutputStream.BUFFER_SIZE);
+  }
+
+  /**
+   * Writes the statements uncompressed to <code>output</code>. Each call of
+   * {@link OutputStream#write(byte[], int, int)} passes only complete
+   * statements. Thus, each written byte sequence can be decoded on its own.
+   * 
+   * @param output
+   */
+  public EncodedFileOutputStream(OutputStream output) {
+    blockOutput = null;
+    out = output;
+    buffer = ByteBuffer.allocate(EncodedFileOutputStream.BUFFER_SIZE);
   }
 
   public void writeStatement(Statement statement) throws IOException {
+    byte[] containment = statement.getContainment();
+    int maxLength = getMaxLength(statement.isSubjectEncoded(), statement.getSubject())
+            + getMaxLength(statement.isPropertyEncoded(), statement.getProperty())
+            + getMaxLength(statement.isObjectEncoded(), statement.getObject()) + Short.BYTES
+            + containment.length;
+    if (maxLength > buffer.remaining()) {
+      writeBuffer();
+      if (maxLength > buffer.capacity()) {
+        buffer = ByteBuffer.allocate(maxLength);
+      }
+    }
     write(statement.isSubjectEncoded(), statement.getSubject());
     write(statement.isPropertyEncoded(), statement.getProperty());
     write(statement.isObjectEncoded(), statement.getObject());
-    out.writeShort(statement.getContainment().length);
-    out.write(statement.getContainment());
+    buffer.putShort((short) containment.length);
+    buffer.put(containment);
+  }
+
+  private int getMaxLength(boolean isPrimitiveDataType, byte[] element) {
+    return isPrimitiveDataType ? VByteCodec.MAX_ENCODED_LENGTH : Integer.BYTES + element.length;
   }
 
-  private void write(boolean isPrimitiveDataType, byte[] element) throws IOException {
+  private void write(boolean isPrimitiveDataType, byte[] element) {
     if (isPrimitiveDataType) {
-      // v-byte encoding
-      int numberOfBits = element.length * Byte.SIZE;
-      int numberOfBlocks = (numberOfBits / 7) + ((numberOfBits % 7) == 0 ? 0 : 1);
-      boolean isFirstBlockWritten = false;
-      for (int blockNumber = 0; blockNumber < numberOfBlocks; blockNumber++) {
-        int nextBlock = get7BitBlock(element, blockNumber);
-        if (isFirstBlockWritten
-                || (nextBlock != 0) /* the last block is always <0 */) {
-          out.writeByte(nextBlock);
-          isFirstBlockWritten = true;
-        }
-      }
+      VByteCodec.encode(NumberConversion.bytes2long(element), buffer);
     } else {
-      out.writeInt(element.length);
-      out.write(element);
+      buffer.putInt(element.length);
+      buffer.put(element);
     }
   }
 
-  private int get7BitBlock(byte[] element, int blockIndexNumber) {
-    int numberOfBits = element.length * Byte.SIZE;
-    int numberOfBlocks = (numberOfBits / 7) + ((numberOfBits % 7) == 0 ? 0 : 1);
-    int firstBlockSize = numberOfBits % 7;
-    if (firstBlockSize == 0) {
-      firstBlockSize = 7;
+  /**
+   * The buffer only contains complete statements.
+   * 
+   * @throws IOException
+   */
+  private void writeBuffer() throws IOException {
+    out.write(buffer.array(), 0, buffer.position());
+    if (blockOutput != null) {
+      blockOutput.finishRecord();
     }
-    int result = 0;
-    if (blockIndexNumber == 0) {
-      // this is the first block
-      // since all 7 bit blocks are filled from right to left, the first block
-      // only contains the remaining bits
-      result = element[0] & 0xff_ff;
-      switch (firstBlockSize) {
-        case 1:
-          result = (result & 0b1000_0000) >>> 7;
-          break;
-        case 2:
-          result = (result & 0b1100_0000) >>> 6;
-          break;
-        case 3:
-          result = (result & 0b1110_0000) >>> 5;
-          break;
-        case 4:
-          result = (result & 0b1111_0000) >>> 4;
-          break;
-        case 5:
-          result = (result & 0b1111_1000) >>> 3;
-          break;
-        case 6:
-          result = (result & 0b1111_1100) >>> 2;
-          break;
-        case 7:
-          result = (result & 0b1111_1110) >>> 1;
-          break;
-        default:
-          // this is not possible
-      }
+    if (buffer.capacity() > EncodedFileOutputStream.BUFFER_SIZE) {
+      buffer = ByteBuffer.allocate(EncodedFileOutputStream.BUFFER_SIZE);
     } else {
-      int firstBitIndex = firstBlockSize + ((blockIndexNumber - 1) * 7);
-      int firstByteIndex = firstBitIndex / Byte.SIZE;
-      int firstBitIndexInByte = firstBitIndex % Byte.SIZE;
-      result = element[firstByteIndex];
-      switch (firstBitIndexInByte) {
-        case 0:
-          result = (result & 0b1111_1110) >>> 1;
-          break;
-        case 1:
-          result = result & 0b0111_1111;
-          break;
-        case 2:
-          result = (result & 0b0011_1111) << 1;
-          break;
-        case 3:
-          result = (result & 0b0001_1111) << 2;
-          break;
-        case 4:
-          result = (result & 0b0000_1111) << 3;
-          break;
-        case 5:
-          result = (result & 0b0000_0111) << 4;
-          break;
-        case 6:
-          result = (result & 0b0000_0011) << 5;
-          break;
-        case 7:
-          result = (result & 0b0000_0001) << 6;
-          break;
-        default:
-          // this is not possible
-      }
-      if (firstBitIndexInByte > 1) {
-        // the 7 bit block is incomplete
-        // read rest from next byte
-        assert (firstByteIndex
-                + 1) < numberOfBlocks : "The last byte should be contained completely in the last block.";
-        int rest = element[firstByteIndex + 1];
-        switch (firstBitIndexInByte) {
-          case 2:
-            rest = (rest & 0b1000_0000) >>> 7;
-            break;
-          case 3:
-            rest = (rest & 0b1100_0000) >>> 6;
-            break;
-          case 4:
-            rest = (rest & 0b1110_0000) >>> 5;
-            break;
-          case 5:
-            rest = (rest & 0b1111_0000) >>> 4;
-            break;
-          case 6:
-            rest = (rest & 0b1111_1000) >>> 3;
-            break;
-          case 7:
-            rest = (rest & 0b1111_1100) >>> 2;
-            break;
-          default:
-            // this is not possible
-        }
-        result |= rest;
-      }
-    }
-    if (blockIndexNumber == (numberOfBlocks - 1)) {
-      // this is the last bit
-      result = result | 0b1000_0000;
+      buffer.clear();
     }
-    return result;
   }
 
   @Override
   public void close() throws IOException {
     if (out != null) {
-      out.close();
+      try {
+        writeBuffer();
+      } finally {
+        out.close();
+      }
     }
   }
 
@@ -0,0 +1,38 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.io;
+
+/**
+ * Compression of the files written by {@link EncodedFileOutputStream}.
+ * {@link EncodedFileInputStream} detects the compression of a file
+ * automatically.
+ */
+public enum FileCompression {
+
+  /**
+   * The whole file is one gzip stream.
+   */
+  GZIP,
+
+  /**
+   * The file consists of independently Snappy compressed blocks of complete
+   * statements. It is faster to write and read than {@link #GZIP} and can be
+   * split into ranges that are read in parallel.
+   */
+  SNAPPY;
+
+}
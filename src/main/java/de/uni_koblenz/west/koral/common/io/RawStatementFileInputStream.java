@@ -0,0 +1,130 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Reads the statements written by {@link RawStatementFileOutputStream}. The
+ * file is memory-mapped in windows of at most {@value #MAX_WINDOW_SIZE} bytes
+ * so that no decompression and no copying into an additional buffer is
+ * required.
+ */
+public class RawStatementFileInputStream implements AutoCloseable {
+
+  private static final int MAX_WINDOW_SIZE = 1 << 30;
+
+  private static final int FIXED_RECORD_SIZE = (3 * Long.BYTES) + Short.BYTES;
+
+  private final RandomAccessFile file;
+
+  private final FileChannel channel;
+
+  private final long fileSize;
+
+  private long windowStart;
+
+  private MappedByteBuffer window;
+
+  private long subject;
+
+  private long property;
+
+  private long object;
+
+  private byte[] containment;
+
+  public RawStatementFileInputStream(File inputFile) throws IOException {
+    file = new RandomAccessFile(inputFile, "r");
+    channel = file.getChannel();
+    fileSize = channel.size();
+    containment = new byte[0];
+    mapWindow(0);
+  }
+
+  private void mapWindow(long start) throws IOException {
+    windowStart = start;
+    window = channel.map(MapMode.READ_ONLY, start,
+            Math.min(fileSize - start, RawStatementFileInputStream.MAX_WINDOW_SIZE));
+  }
+
+  private void require(int numberOfBytes) throws IOException {
+    if (window.remaining() < numberOfBytes) {
+      mapWindow(windowStart + window.position());
+      if (window.remaining() < numberOfBytes) {
+        throw new EOFException("The file ends within a statement.");
+      }
+    }
+  }
+
+  /**
+   * Reads the next statement. Its values are accessible via the getter
+   * methods until this method is called again.
+   * 
+   * @return <code>false</code> if the end of file is reached
+   * @throws IOException
+   */
+  public boolean next() throws IOException {
+    if ((windowStart + window.position()) >= fileSize) {
+      return false;
+    }
+    require(RawStatementFileInputStream.FIXED_RECORD_SIZE);
+    subject = window.getLong();
+    property = window.getLong();
+    object = window.getLong();
+    int containmentLength = window.getShort();
+    require(containmentLength);
+    if (containment.length != containmentLength) {
+      containment = new byte[containmentLength];
+    }
+    window.get(containment);
+    return true;
+  }
+
+  public long getSubject() {
+    return subject;
+  }
+
+  public long getProperty() {
+    return property;
+  }
+
+  public long getObject() {
+    return object;
+  }
+
+  /**
+   * @return the containment of the current statement. The array is reused by
+   *         the next call of {@link #next()}.
+   */
+  public byte[] getContainment() {
+    return containment;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    file.close();
+  }
+
+}
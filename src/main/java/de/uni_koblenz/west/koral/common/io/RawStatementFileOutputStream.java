@@ -0,0 +1,59 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes completely encoded statements uncompressed into a file. Each
+ * statement is stored as subject, property and object long value followed by
+ * the length of the containment as short and the containment bytes. Since all
+ * statements of a graph chunk have containments of the same length, the
+ * records have a fixed width. The file is read by
+ * {@link RawStatementFileInputStream}.
+ */
+public class RawStatementFileOutputStream implements AutoCloseable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataOutputStream out;
+
+  public RawStatementFileOutputStream(File outputFile) throws FileNotFoundException {
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile),
+            RawStatementFileOutputStream.BUFFER_SIZE));
+  }
+
+  public void writeStatement(long subject, long property, long object, byte[] containment)
+          throws IOException {
+    out.writeLong(subject);
+    out.writeLong(property);
+    out.writeLong(object);
+    out.writeShort(containment.length);
+    out.write(containment);
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+}
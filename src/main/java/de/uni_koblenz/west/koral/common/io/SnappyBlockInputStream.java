@@ -0,0 +1,211 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.io;
+
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the blocks written by {@link SnappyBlockOutputStream}. It may be
+ * restricted to the blocks whose headers start within a range of the file.
+ * Thereby, several readers can process one file in parallel. The reader seeks
+ * to the start of its range and searches for the next valid block header.
+ * Thus, only the bytes up to the next block header are scanned.
+ */
+class SnappyBlockInputStream extends InputStream {
+
+  private final DataInputStream input;
+
+  private final long rangeEnd;
+
+  /**
+   * offset of the next block header in the file
+   */
+  private long offset;
+
+  private final byte[] header;
+
+  /**
+   * <code>true</code> if {@link #header} contains the already read header of
+   * the next block
+   */
+  private boolean isHeaderRead;
+
+  private byte[] compressedBuffer;
+
+  private byte[] buffer;
+
+  private int bufferSize;
+
+  private int nextIndex;
+
+  /**
+   * @param file
+   * @param rangeStart
+   *          the first read block is the first block whose header starts at
+   *          or after this offset
+   * @param rangeEnd
+   *          blocks whose header starts at or after this offset are not read
+   * @throws IOException
+   */
+  public SnappyBlockInputStream(File file, long rangeStart, long rangeEnd) throws IOException {
+    FileInputStream fileInput = new FileInputStream(file);
+    input = new DataInputStream(new BufferedInputStream(fileInput));
+    this.rangeEnd = rangeEnd;
+    offset = 0;
+    header = new byte[SnappyBlockOutputStream.BLOCK_HEADER_SIZE];
+    isHeaderRead = false;
+    compressedBuffer = new byte[0];
+    buffer = new byte[0];
+    bufferSize = 0;
+    nextIndex = 0;
+    if (rangeStart > 0) {
+      try {
+        fileInput.getChannel().position(rangeStart);
+        offset = rangeStart;
+        seekNextHeader();
+      } catch (IOException e) {
+        input.close();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Moves a window of the header size over the file until it contains a valid
+   * header. Afterwards, {@link #offset} points to the found header. If no
+   * header is found, {@link #offset} points to the end of the file.
+   * 
+   * @throws IOException
+   */
+  private void seekNextHeader() throws IOException {
+    int windowSize = 0;
+    while (windowSize < header.length) {
+      int readBytes = input.read(header, windowSize, header.length - windowSize);
+      if (readBytes == -1) {
+        offset += windowSize;
+        return;
+      }
+      windowSize += readBytes;
+    }
+    while (!SnappyBlockInputStream.isValidHeader(header)) {
+      int nextByte = input.read();
+      if (nextByte == -1) {
+        offset += header.length;
+        return;
+      }
+      System.arraycopy(header, 1, header, 0, header.length - 1);
+      header[header.length - 1] = (byte) nextByte;
+      offset++;
+    }
+    isHeaderRead = true;
+  }
+
+  private static boolean isValidHeader(byte[] header) {
+    return (NumberConversion.bytes2int(header, 0) == SnappyBlockOutputStream.BLOCK_MAGIC)
+            && (NumberConversion.bytes2int(header, Integer.BYTES) >= 0)
+            && (NumberConversion.bytes2int(header, 2 * Integer.BYTES) >= 0)
+            && (NumberConversion.bytes2int(header, 3 * Integer.BYTES) == SnappyBlockOutputStream
+                    .computeHeaderChecksum(header));
+  }
+
+  /**
+   * @return <code>true</code> if the header of the next block has been read
+   *         into {@link #header} or <code>false</code> if the end of the file
+   *         is reached
+   * @throws IOException
+   */
+  private boolean readHeader() throws IOException {
+    if (isHeaderRead) {
+      isHeaderRead = false;
+      return true;
+    }
+    int readBytes = input.read(header);
+    if (readBytes == -1) {
+      return false;
+    }
+    if (readBytes < header.length) {
+      input.readFully(header, readBytes, header.length - readBytes);
+    }
+    if (!SnappyBlockInputStream.isValidHeader(header)) {
+      throw new IOException("Invalid block header at offset " + offset + ".");
+    }
+    return true;
+  }
+
+  private boolean readNextBlock() throws IOException {
+    if (offset >= rangeEnd) {
+      return false;
+    }
+    if (!readHeader()) {
+      return false;
+    }
+    int uncompressedLength = NumberConversion.bytes2int(header, Integer.BYTES);
+    int compressedLength = NumberConversion.bytes2int(header, 2 * Integer.BYTES);
+    if (compressedBuffer.length < compressedLength) {
+      compressedBuffer = new byte[compressedLength];
+    }
+    input.readFully(compressedBuffer, 0, compressedLength);
+    if (buffer.length < uncompressedLength) {
+      buffer = new byte[uncompressedLength];
+    }
+    bufferSize = Snappy.uncompress(compressedBuffer, 0, compressedLength, buffer, 0);
+    nextIndex = 0;
+    offset += SnappyBlockOutputStream.BLOCK_HEADER_SIZE + compressedLength;
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    while (nextIndex >= bufferSize) {
+      if (!readNextBlock()) {
+        return -1;
+      }
+    }
+    return buffer[nextIndex++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (nextIndex >= bufferSize) {
+      if (!readNextBlock()) {
+        return -1;
+      }
+    }
+    int length = Math.min(len, bufferSize - nextIndex);
+    System.arraycopy(buffer, nextIndex, b, off, length);
+    nextIndex += length;
+    return length;
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.io;
+
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Buffers the written bytes and writes them as Snappy compressed blocks. Each
+ * block starts with a header consisting of {@link #BLOCK_MAGIC}, the
+ * uncompressed length, the compressed length and a CRC32 checksum of the
+ * previous three values. The header serves as sync marker, i.e., a reader can
+ * seek to an arbitrary offset and find the next block by searching for a valid
+ * header. A block is only written after
+ * {@link #finishRecord()} has been called. Thus, blocks always contain complete
+ * records and can be decompressed independently. Since the format has no file
+ * header, files can be appended to and concatenated.
+ */
+class SnappyBlockOutputStream extends OutputStream {
+
+  /**
+   * "KSB1" in ASCII, it cannot be confused with the first bytes of a gzip file
+   */
+  static final int BLOCK_MAGIC = 0x4b_53_42_31;
+
+  static final int BLOCK_HEADER_SIZE = 4 * Integer.BYTES;
+
+  private static final int BLOCK_SIZE = 64 * 1024;
+
+  private final DataOutputStream output;
+
+  private byte[] buffer;
+
+  private int bufferSize;
+
+  private byte[] compressedBuffer;
+
+  private final byte[] header;
+
+  public SnappyBlockOutputStream(OutputStream output) {
+    this.output = new DataOutputStream(output);
+    buffer = new byte[SnappyBlockOutputStream.BLOCK_SIZE];
+    bufferSize = 0;
+    compressedBuffer = new byte[0];
+    header = new byte[SnappyBlockOutputStream.BLOCK_HEADER_SIZE];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureCapacity(1);
+    buffer[bufferSize++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureCapacity(len);
+    System.arraycopy(b, off, buffer, bufferSize, len);
+    bufferSize += len;
+  }
+
+  private void ensureCapacity(int additionalBytes) {
+    if ((bufferSize + additionalBytes) > buffer.length) {
+      // a single record may exceed the block size
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferSize + additionalBytes));
+    }
+  }
+
+  /**
+   * Marks the end of a record. If enough records are buffered, they are
+   * written as a new block.
+   * 
+   * @throws IOException
+   */
+  public void finishRecord() throws IOException {
+    if (bufferSize >= SnappyBlockOutputStream.BLOCK_SIZE) {
+      writeBlock();
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    if (bufferSize == 0) {
+      return;
+    }
+    int maxCompressedLength = Snappy.maxCompressedLength(bufferSize);
+    if (compressedBuffer.length < maxCompressedLength) {
+      compressedBuffer = new byte[maxCompressedLength];
+    }
+    int compressedLength = Snappy.compress(buffer, 0, bufferSize, compressedBuffer, 0);
+    NumberConversion.int2bytes(SnappyBlockOutputStream.BLOCK_MAGIC, header, 0);
+    NumberConversion.int2bytes(bufferSize, header, Integer.BYTES);
+    NumberConversion.int2bytes(compressedLength, header, 2 * Integer.BYTES);
+    NumberConversion.int2bytes(SnappyBlockOutputStream.computeHeaderChecksum(header), header,
+            3 * Integer.BYTES);
+    output.write(header);
+    output.write(compressedBuffer, 0, compressedLength);
+    bufferSize = 0;
+    if (buffer.length > SnappyBlockOutputStream.BLOCK_SIZE) {
+      buffer = new byte[SnappyBlockOutputStream.BLOCK_SIZE];
+    }
+  }
+
+  /**
+   * @param header
+   * @return the CRC32 checksum of the magic number and both lengths stored in
+   *         <code>header</code>
+   */
+  static int computeHeaderChecksum(byte[] header) {
+    CRC32 checksum = new CRC32();
+    checksum.update(header, 0, 3 * Integer.BYTES);
+    return (int) checksum.getValue();
+  }
+
+  /**
+   * Writes the buffered bytes as a block, even if the last record is not
+   * finished.
+   */
+  @Override
+  public void flush() throws IOException {
+    writeBlock();
+    output.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      output.close();
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.io;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Encodes long values with the v-byte encoding used by
+ * {@link EncodedFileOutputStream}. A value is split into 7 bit blocks starting
+ * with the most significant non-zero block. The most significant bit of the
+ * last block is set. Thus, values smaller than 128 require one byte and
+ * negative values require 10 bytes.
+ * </p>
+ * 
+ * <p>
+ * The number of blocks is computed from the number of leading zeros of the
+ * value. Thus, no per bit operations are required. All methods work directly
+ * on {@link ByteBuffer}s so that whole blocks of statements can be encoded
+ * and decoded without any stream calls per byte.
+ * </p>
+ */
+public final class VByteCodec {
+
+  public static final int MAX_ENCODED_LENGTH = 10;
+
+  private VByteCodec() {
+  }
+
+  public static int getEncodedLength(long value) {
+    int numberOfBits = Long.SIZE - Long.numberOfLeadingZeros(value);
+    return numberOfBits == 0 ? 1 : (numberOfBits + 6) / 7;
+  }
+
+  /**
+   * @param value
+   * @param buffer
+   *          must have at least {@link #getEncodedLength(long)} remaining
+   *          bytes
+   */
+  public static void encode(long value, ByteBuffer buffer) {
+    for (int shift = 7 * (VByteCodec.getEncodedLength(value) - 1); shift > 0; shift -= 7) {
+      buffer.put((byte) ((value >>> shift) & 0b0111_1111));
+    }
+    buffer.put((byte) ((value & 0b0111_1111) | 0b1000_0000));
+  }
+
+  public static void encode(long[] values, int offset, int length, ByteBuffer buffer) {
+    for (int i = offset; i < (offset + length); i++) {
+      VByteCodec.encode(values[i], buffer);
+    }
+  }
+
+  /**
+   * @param buffer
+   * @return the decoded value
+   * @throws BufferUnderflowException
+   *           if the buffer ends before the last block of the value
+   */
+  public static long decode(ByteBuffer buffer) {
+    long result = 0;
+    byte currentBlock;
+    do {
+      currentBlock = buffer.get();
+      result = (result << 7) | (currentBlock & 0b0111_1111);
+    } while (currentBlock >= 0);
+    return result;
+  }
+
+  public static void decode(ByteBuffer buffer, long[] values, int offset, int length) {
+    for (int i = offset; i < (offset + length); i++) {
+      values[i] = VByteCodec.decode(buffer);
+    }
+  }
+
+}
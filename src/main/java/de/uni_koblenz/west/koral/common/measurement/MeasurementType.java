@@ -483,6 +483,12 @@ public enum MeasurementType {
    */
   QUERY_SLAVE_QUERY_EXECUTION_ABORT,
 
+  /**
+   * measured on slave<br>
+   * timestamp;queryId
+   */
+  QUERY_SLAVE_QUERY_EXECUTION_CANCEL,
+
   /**
    * measured on master<br>
    * timestamp;queryId;taskId
@@ -126,8 +126,11 @@ public enum MessageType {
 
   /**
    * master to slave (multi-part message)<br>
+   * byte isAppended (optional, if 1 the slave does not clear its triple store)
+   * <br>
    * String ipAddress:port<br>
-   * String fileName
+   * String fileName<br>
+   * String fileName of dictionary shard (empty, if no shard is sent)
    */
   START_FILE_TRANSFER {
     @Override
@@ -235,7 +238,88 @@ public enum MessageType {
   /**
    * master to slave
    */
-  CLEAR;
+  CLEAR,
+
+  /*
+   * the ordinals identify the message types, thus new types are appended
+   */
+
+  /**
+   * master to all slaves, if the coordinator has already received all
+   * requested results, e.g., because of a LIMIT<br>
+   * int query id
+   */
+  QUERY_CANCELLATION,
+
+  /**
+   * master to client<br>
+   * byte flags<br>
+   * int numberOfNewTerms<br>
+   * (long id, int length, byte[] UTF-8 serialized term)<sup>numberOfNewTerms</sup><br>
+   * int numberOfVariables<br>
+   * int numberOfRows<br>
+   * long id<sup>numberOfRows*numberOfVariables</sup>
+   */
+  QUERY_RESULT_BINARY,
+
+  /**
+   * client to master<br>
+   * String ip:port
+   */
+  CLIENT_QUERY_RESULT_RECEIVED,
+
+  /**
+   * slave to master<br>
+   * short slaveID<br>
+   * long id of coordinator task<br>
+   * int number of rows<br>
+   * String result rows that are already decoded by the slave. Each row starts
+   * with the row separator.
+   */
+  QUERY_RESULT_ROWS {
+    @Override
+    public Class<? extends MessageListener> getListenerType() {
+      return MessageReceiverListener.class;
+    }
+  },
+
+  /**
+   * master to slave<br>
+   * announces that the graph chunk is sent as a sequence of
+   * {@link #GRAPH_CHUNK_BLOCK} messages followed by
+   * {@link #END_GRAPH_CHUNK_STREAM}<br>
+   * byte isAppended (optional, if 1 the slave does not clear its triple store)
+   */
+  START_GRAPH_CHUNK_STREAM {
+    @Override
+    public Class<? extends MessageListener> getListenerType() {
+      return GraphChunkListener.class;
+    }
+  },
+
+  /**
+   * master to slave<br>
+   * byte[] complete statements in the uncompressed format of
+   * {@link de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream}
+   */
+  GRAPH_CHUNK_BLOCK {
+    @Override
+    public Class<? extends MessageListener> getListenerType() {
+      return GraphChunkListener.class;
+    }
+  },
+
+  /**
+   * master to slave (multi-part message)<br>
+   * String ipAddress:port<br>
+   * String fileName of dictionary shard (empty, if no shard is sent)
+   */
+  END_GRAPH_CHUNK_STREAM {
+    @Override
+    public Class<? extends MessageListener> getListenerType() {
+      return GraphChunkListener.class;
+    }
+  };
 
   public byte getValue() {
     return (byte) ordinal();
@@ -20,6 +20,7 @@ package de.uni_koblenz.west.koral.common.networManager;
 
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
+import org.zeromq.ZMQ.Poller;
 import org.zeromq.ZMQ.Socket;
 
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
@@ -45,6 +46,11 @@ public class NetworkManager implements Closeable, MessageSender {
 
   private Socket receiver;
 
+  /**
+   * Created lazily by the thread that dispatches the received messages.
+   */
+  private Poller receivePoller;
+
   private final Socket[] senders;
 
   private int currentID;
@@ -183,6 +189,30 @@ public class NetworkManager implements Closeable, MessageSender {
     }
   }
 
+  /**
+   * Blocks until a message can be received from the receiving socket or the
+   * timeout has elapsed. In contrast to polling {@link #receive()} in a loop
+   * with a sleep in between, the caller is woken up as soon as a message
+   * arrives.
+   * 
+   * @param timeout
+   *          maximal number of milliseconds to wait
+   * @return <code>true</code> if {@link #receive()} will return a message
+   *         without blocking
+   */
+  public boolean waitForMessage(long timeout) {
+    if (receiver == null) {
+      return false;
+    }
+    synchronized (receiver) {
+      if (receivePoller == null) {
+        receivePoller = context.createPoller(1);
+        receivePoller.register(receiver, Poller.POLLIN);
+      }
+      return (receivePoller.poll(timeout) > 0) && receivePoller.pollin(0);
+    }
+  }
+
   public int getNumberOfSlaves() {
     return senders.length - 1;
   }
@@ -198,6 +228,10 @@ public class NetworkManager implements Closeable, MessageSender {
       }
     }
     synchronized (receiver) {
+      if (receivePoller != null) {
+        receivePoller.unregister(receiver);
+        receivePoller = null;
+      }
       context.destroySocket(receiver);
     }
     receiver = null;
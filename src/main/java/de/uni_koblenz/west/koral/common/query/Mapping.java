@@ -37,6 +37,14 @@ import de.uni_koblenz.west.koral.common.utils.NumberConversion;
  * </p>
  * 
  * <p>
+ * The byte arrays of mappings that are created by operations, e.g., joins, are
+ * allocated from a {@link MappingPayloadPool}. Such a mapping owns its byte
+ * array, i.e., the array is returned to the pool when the mapping is released.
+ * Mappings that only view a shared byte array, e.g., a received mapping batch,
+ * do not own it.
+ * </p>
+ * 
+ * <p>
  * Thus, instances of this class should be seen as immutable from within a
  * {@link WorkerTask}. Additionally, pointers to an instance should be removed
  * when it is sent to another task or any other operation is performed that
@@ -74,20 +82,62 @@ public class Mapping {
 
   private int length;
 
-  Mapping(int numberOfSlaves) {
+  private final MappingPayloadPool payloadPool;
+
+  /**
+   * true, if {@link #byteArray} was allocated from {@link #payloadPool} and is
+   * not referenced by any other object
+   */
+  private boolean isPayloadOwner;
+
+  Mapping(int numberOfSlaves, MappingPayloadPool payloadPool) {
     this.numberOfSlaves = numberOfSlaves;
+    this.payloadPool = payloadPool;
   }
 
   void set(byte[] byteArrayWithMapping, int firstIndexOfMappingInArray, int lengthOfMapping) {
     byteArray = byteArrayWithMapping;
     firstIndex = firstIndexOfMappingInArray;
     length = lengthOfMapping;
+    isPayloadOwner = false;
   }
 
-  private void set(byte[] newMapping) {
+  /**
+   * @param newMapping
+   *          an array allocated from {@link #payloadPool} which solely
+   *          contains this mapping
+   */
+  void set(byte[] newMapping) {
     byteArray = newMapping;
     firstIndex = 0;
     length = newMapping.length;
+    isPayloadOwner = true;
+  }
+
+  /**
+   * @return the owned byte array which is not returned to the
+   *         {@link MappingPayloadPool} on release any more or
+   *         <code>null</code> if this mapping does not own its byte array
+   */
+  byte[] takePayload() {
+    if (!isPayloadOwner) {
+      return null;
+    }
+    isPayloadOwner = false;
+    return byteArray;
+  }
+
+  /**
+   * Returns the owned byte array to the {@link MappingPayloadPool}.
+   */
+  void releasePayload() {
+    if (isPayloadOwner) {
+      payloadPool.release(byteArray);
+    }
+    byteArray = null;
+    firstIndex = 0;
+    length = 0;
+    isPayloadOwner = false;
   }
 
   public int getNumberOfContainmentBytes() {
@@ -102,6 +152,10 @@ public class Mapping {
     return Mapping.getHeaderSize() + (numberOfVars * Long.BYTES) + getNumberOfContainmentBytes();
   }
 
+  public long getIdOfReceiver() {
+    return NumberConversion.bytes2long(byteArray, firstIndex + Byte.BYTES);
+  }
+
   public void updateReceiver(long receiverTaskID) {
     NumberConversion.long2bytes(receiverTaskID, byteArray, firstIndex + Byte.BYTES);
   }
@@ -208,13 +262,11 @@ public class Mapping {
   public void joinMappings(long[] resultVarsOrdering, Mapping mapping1, long[] vars1,
           Mapping mapping2, long[] vars2) {
     if (mapping2.isEmptyMapping()) {
-      byteArray = mapping1.getByteArray();
-      firstIndex = mapping1.getFirstIndexOfMappingInByteArray();
-      length = mapping1.getLengthOfMappingInByteArray();
+      // copy the array, since the containment is changed below and the
+      // array of mapping1 may be released independently of this mapping
+      set(copyByteArray(mapping1));
     } else if (mapping1.isEmptyMapping()) {
-      byteArray = mapping2.getByteArray();
-      firstIndex = mapping2.getFirstIndexOfMappingInByteArray();
-      length = mapping2.getLengthOfMappingInByteArray();
+      set(copyByteArray(mapping2));
     } else {
       byte[] newMapping = createNewMappingArray(resultVarsOrdering.length);
       int nextFreeIndex = Mapping.getHeaderSize();
@@ -242,8 +294,15 @@ public class Mapping {
     }
   }
 
+  private byte[] copyByteArray(Mapping mapping) {
+    byte[] newMapping = payloadPool.allocate(mapping.getLengthOfMappingInByteArray());
+    System.arraycopy(mapping.getByteArray(), mapping.getFirstIndexOfMappingInByteArray(),
+            newMapping, 0, newMapping.length);
+    return newMapping;
+  }
+
   private byte[] createNewMappingArray(int numberOfVars) {
-    byte[] newMapping = new byte[getLengthOfMapping(numberOfVars)];
+    byte[] newMapping = payloadPool.allocate(getLengthOfMapping(numberOfVars));
     newMapping[0] = MessageType.QUERY_MAPPING_BATCH.getValue();
     NumberConversion.int2bytes(newMapping.length, newMapping, Byte.BYTES + Long.BYTES + Long.BYTES);
     return newMapping;
@@ -0,0 +1,354 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query;
+
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.slave.triple_store.impl.IndexType;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A block of {@link Mapping}s that bind the same variables. The values of each
+ * variable are stored in one long column and the containment information of
+ * all rows is stored in one byte array. Thus, operators can route, hash and
+ * project a whole block in tight loops over arrays instead of calling methods
+ * of single {@link Mapping} instances.
+ * </p>
+ *
+ * <p>
+ * The containment bits of a row have the same layout as in {@link Mapping}.
+ * Instances are reused by calling {@link #clear()}. They are not thread-safe.
+ * </p>
+ */
+public class MappingBatch {
+
+  private final long[] variables;
+
+  private final int numberOfSlaves;
+
+  private final int numberOfContainmentBytes;
+
+  private final long[][] columns;
+
+  private final byte[] containment;
+
+  private final int capacity;
+
+  private int size;
+
+  public MappingBatch(long[] variables, int numberOfSlaves, int capacity) {
+    this.variables = variables;
+    this.numberOfSlaves = numberOfSlaves;
+    numberOfContainmentBytes = (numberOfSlaves / Byte.SIZE)
+            + ((numberOfSlaves % Byte.SIZE) == 0 ? 0 : 1);
+    columns = new long[variables.length][capacity];
+    containment = new byte[capacity * numberOfContainmentBytes];
+    this.capacity = capacity;
+    size = 0;
+  }
+
+  public long[] getVariables() {
+    return variables;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isFull() {
+    return size == getCapacity();
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * @param var
+   * @return the index of the column of <code>var</code> or -1 if this batch
+   *         does not bind <code>var</code>
+   */
+  public int getIndexOfVariable(long var) {
+    for (int i = 0; i < variables.length; i++) {
+      if (variables[i] == var) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param columnIndex
+   * @return the values of the variable at position <code>columnIndex</code>.
+   *         Only the first {@link #size()} entries are valid.
+   */
+  public long[] getColumn(int columnIndex) {
+    return columns[columnIndex];
+  }
+
+  public long getValue(int row, int columnIndex) {
+    return columns[columnIndex][row];
+  }
+
+  /**
+   * Adds a copy of <code>mapping</code>.
+   *
+   * @param mapping
+   * @param mappingVars
+   *          the variables bound by <code>mapping</code>. They must contain all
+   *          variables of this batch.
+   */
+  public void add(Mapping mapping, long[] mappingVars) {
+    int row = size++;
+    for (int i = 0; i < variables.length; i++) {
+      columns[i][row] = mapping.getValue(variables[i], mappingVars);
+    }
+    System.arraycopy(mapping.getByteArray(),
+            (mapping.getFirstIndexOfMappingInByteArray() + mapping.getLengthOfMappingInByteArray())
+                    - numberOfContainmentBytes,
+            containment, row * numberOfContainmentBytes, numberOfContainmentBytes);
+  }
+
+  /**
+   * Adds the join of <code>mapping1</code> and <code>mapping2</code>. Each
+   * variable of this batch is taken from <code>mapping1</code> if it is bound
+   * there or from <code>mapping2</code> otherwise. The containment is the
+   * intersection of both containments.
+   *
+   * @param mapping1
+   * @param vars1
+   * @param mapping2
+   * @param vars2
+   */
+  public void add(Mapping mapping1, long[] vars1, Mapping mapping2, long[] vars2) {
+    int row = size++;
+    for (int i = 0; i < variables.length; i++) {
+      columns[i][row] = MappingBatch.contains(vars1, variables[i])
+              ? mapping1.getValue(variables[i], vars1)
+              : mapping2.getValue(variables[i], vars2);
+    }
+    byte[] array1 = mapping1.getByteArray();
+    int end1 = mapping1.getFirstIndexOfMappingInByteArray()
+            + mapping1.getLengthOfMappingInByteArray();
+    byte[] array2 = mapping2.getByteArray();
+    int end2 = mapping2.getFirstIndexOfMappingInByteArray()
+            + mapping2.getLengthOfMappingInByteArray();
+    int offset = row * numberOfContainmentBytes;
+    for (int i = 0; i < numberOfContainmentBytes; i++) {
+      containment[offset + i] = (byte) (array1[(end1 - numberOfContainmentBytes) + i]
+              & array2[(end2 - numberOfContainmentBytes) + i]);
+    }
+  }
+
+  private static boolean contains(long[] vars, long var) {
+    for (long v : vars) {
+      if (v == var) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the mapping of <code>triple</code> to <code>pattern</code>. The
+   * variables of this batch must be the variables of <code>pattern</code>.
+   *
+   * @param pattern
+   * @param indexType
+   * @param triple
+   */
+  public void add(TriplePattern pattern, IndexType indexType, byte[] triple) {
+    int row = size++;
+    int column = 0;
+    if (pattern.isSubjectVariable()) {
+      columns[column++][row] = indexType.getSubject(triple);
+    }
+    if (pattern.isPropertyVariable()) {
+      columns[column++][row] = indexType.getProperty(triple);
+    }
+    if (pattern.isObjectVariable()) {
+      columns[column++][row] = indexType.getObject(triple);
+    }
+    System.arraycopy(triple, 3 * Long.BYTES, containment, row * numberOfContainmentBytes,
+            numberOfContainmentBytes);
+  }
+
+  /**
+   * Adds the rows of <code>batch</code> restricted to the variables of this
+   * batch.
+   *
+   * @param batch
+   */
+  public void addProjection(MappingBatch batch) {
+    int numberOfRows = batch.size();
+    for (int i = 0; i < variables.length; i++) {
+      System.arraycopy(batch.columns[batch.getIndexOfVariable(variables[i])], 0, columns[i], size,
+              numberOfRows);
+    }
+    System.arraycopy(batch.containment, 0, containment, size * numberOfContainmentBytes,
+            numberOfRows * numberOfContainmentBytes);
+    size += numberOfRows;
+  }
+
+  /**
+   * Adds the projection of one row of <code>batch</code> to this batch.
+   *
+   * @param batch
+   *          it must contain all variables of this batch
+   * @param row
+   */
+  public void addRow(MappingBatch batch, int row) {
+    for (int i = 0; i < variables.length; i++) {
+      columns[i][size] = batch.columns[batch.getIndexOfVariable(variables[i])][row];
+    }
+    System.arraycopy(batch.containment, row * numberOfContainmentBytes, containment,
+            size * numberOfContainmentBytes, numberOfContainmentBytes);
+    size++;
+  }
+
+  /**
+   * Adds a new row that is only known by computer <code>computerId</code>.
+   *
+   * @param values
+   *          the values of the variables of this batch
+   * @param computerId
+   */
+  public void addRow(long[] values, int computerId) {
+    for (int i = 0; i < variables.length; i++) {
+      columns[i][size] = values[i];
+    }
+    Arrays.fill(containment, size * numberOfContainmentBytes,
+            (size + 1) * numberOfContainmentBytes, (byte) 0);
+    if (numberOfContainmentBytes > 0) {
+      containment[getContainingByte(size, computerId)] |= MappingBatch
+              .getBitMaskFor(computerId);
+    }
+    size++;
+  }
+
+  /*
+   * containment
+   */
+
+  public boolean isKnownByComputer(int row, int computerId) {
+    if (numberOfContainmentBytes == 0) {
+      return false;
+    }
+    return (containment[getContainingByte(row, computerId)] & MappingBatch
+            .getBitMaskFor(computerId)) != 0;
+  }
+
+  public void updateContainment(int row, int currentContainingComputer,
+          int nextContainingComputer) {
+    if (numberOfContainmentBytes == 0) {
+      return;
+    }
+    int byteIndex = getContainingByte(row, currentContainingComputer);
+    containment[byteIndex] &= ~MappingBatch.getBitMaskFor(currentContainingComputer);
+    byteIndex = getContainingByte(row, nextContainingComputer);
+    containment[byteIndex] |= MappingBatch.getBitMaskFor(nextContainingComputer);
+  }
+
+  /**
+   * @param row
+   * @return id of the first computer knowing the mapping of <code>row</code>
+   *         or -1 if no computer knows it
+   */
+  public int getIdOfFirstComputerKnowingRow(int row) {
+    int offset = row * numberOfContainmentBytes;
+    for (int i = 0; i < numberOfContainmentBytes; i++) {
+      int value = containment[offset + i] & 0xff;
+      if (value != 0) {
+        return (i * Byte.SIZE) + Integer.numberOfLeadingZeros(value) - (Integer.SIZE - Byte.SIZE)
+                + 1;
+      }
+    }
+    return -1;
+  }
+
+  private int getContainingByte(int row, int computerId) {
+    return (row * numberOfContainmentBytes) + ((computerId - 1) / Byte.SIZE);
+  }
+
+  private static int getBitMaskFor(int computerId) {
+    return 0x80 >>> ((computerId - 1) % Byte.SIZE);
+  }
+
+  /*
+   * serialization
+   */
+
+  /**
+   * @return the length of a row in the serialization format of
+   *         {@link Mapping}
+   */
+  public int getLengthOfSerializedRow() {
+    return Mapping.getHeaderSize() + (variables.length * Long.BYTES) + numberOfContainmentBytes;
+  }
+
+  /**
+   * Writes <code>row</code> in the serialization format of {@link Mapping}.
+   *
+   * @param row
+   * @param receiverTaskID
+   * @param senderTaskID
+   * @param destination
+   * @param offset
+   */
+  public void serializeRow(int row, long receiverTaskID, long senderTaskID, byte[] destination,
+          int offset) {
+    int length = getLengthOfSerializedRow();
+    destination[offset] = MessageType.QUERY_MAPPING_BATCH.getValue();
+    NumberConversion.long2bytes(receiverTaskID, destination, offset + Byte.BYTES);
+    NumberConversion.long2bytes(senderTaskID, destination, offset + Byte.BYTES + Long.BYTES);
+    NumberConversion.int2bytes(length, destination,
+            offset + Byte.BYTES + Long.BYTES + Long.BYTES);
+    int nextIndex = offset + Mapping.getHeaderSize();
+    for (long[] column : columns) {
+      NumberConversion.long2bytes(column[row], destination, nextIndex);
+      nextIndex += Long.BYTES;
+    }
+    System.arraycopy(containment, row * numberOfContainmentBytes, destination, nextIndex,
+            numberOfContainmentBytes);
+  }
+
+  /**
+   * @param row
+   * @param recycleCache
+   * @return a new {@link Mapping} that owns a copy of <code>row</code>
+   */
+  public Mapping createMapping(int row, MappingRecycleCache recycleCache) {
+    byte[] array = recycleCache.getPayloadPool().allocate(getLengthOfSerializedRow());
+    serializeRow(row, 0, 0, array, 0);
+    return recycleCache.createMapping(array);
+  }
+
+  public int getNumberOfSlaves() {
+    return numberOfSlaves;
+  }
+
+}
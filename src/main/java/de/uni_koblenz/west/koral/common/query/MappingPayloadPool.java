@@ -0,0 +1,208 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Pool of the byte arrays that store single {@link Mapping}s. Since the length
+ * of a mapping only depends on its number of variables and the number of
+ * slaves, only few different lengths occur. For each length, released arrays
+ * are kept in a stack of bounded size.
+ * </p>
+ *
+ * <p>
+ * One instance is shared by all {@link MappingRecycleCache}s of a computer.
+ * Thus, an array may be allocated by one thread and released by another one.
+ * In order to avoid contention, each thread allocates from and releases to its
+ * own small stacks. Only if they run empty or full, {@link #TRANSFER_SIZE}
+ * arrays are moved from or to the shared stacks at once.
+ * </p>
+ */
+public class MappingPayloadPool {
+
+  /**
+   * Arrays that are longer are not pooled.
+   */
+  private static final int MAX_POOLED_LENGTH = 4096;
+
+  /**
+   * number of arrays that are moved between the stacks of a thread and the
+   * shared stacks at once
+   */
+  private static final int TRANSFER_SIZE = 32;
+
+  private final int maxNumberOfPooledArraysPerLength;
+
+  /**
+   * guarded by itself
+   */
+  private final ArrayStacks sharedArrays;
+
+  private final ThreadLocal<ArrayStacks> localArrays;
+
+  public MappingPayloadPool(int maxNumberOfPooledArraysPerLength) {
+    this.maxNumberOfPooledArraysPerLength = maxNumberOfPooledArraysPerLength;
+    sharedArrays = new ArrayStacks(maxNumberOfPooledArraysPerLength);
+    int maxNumberOfLocalArrays = Math.min(2 * MappingPayloadPool.TRANSFER_SIZE,
+            maxNumberOfPooledArraysPerLength);
+    localArrays = ThreadLocal.withInitial(() -> new ArrayStacks(maxNumberOfLocalArrays));
+  }
+
+  /**
+   * @param length
+   * @return an array of the requested length. Its content is undefined.
+   */
+  public byte[] allocate(int length) {
+    if (!isPooled(length)) {
+      return new byte[length];
+    }
+    ArrayStacks local = localArrays.get();
+    byte[] array = local.pop(length);
+    if (array == null) {
+      synchronized (sharedArrays) {
+        sharedArrays.transfer(local, length, MappingPayloadPool.TRANSFER_SIZE);
+      }
+      array = local.pop(length);
+    }
+    return array != null ? array : new byte[length];
+  }
+
+  /**
+   * After calling this method, <code>array</code> must not be used any more.
+   *
+   * @param array
+   */
+  public void release(byte[] array) {
+    int length = array.length;
+    if (!isPooled(length)) {
+      return;
+    }
+    ArrayStacks local = localArrays.get();
+    if (!local.push(array)) {
+      synchronized (sharedArrays) {
+        local.transfer(sharedArrays, length, MappingPayloadPool.TRANSFER_SIZE);
+      }
+      // if the shared stack is full as well, the array is discarded
+      local.push(array);
+    }
+  }
+
+  private boolean isPooled(int length) {
+    return (length <= MappingPayloadPool.MAX_POOLED_LENGTH)
+            && (maxNumberOfPooledArraysPerLength > 0);
+  }
+
+  /**
+   * Discards the arrays of the shared stacks. The few arrays kept by the
+   * single threads are reused.
+   */
+  public void clear() {
+    synchronized (sharedArrays) {
+      sharedArrays.clear();
+    }
+  }
+
+  /**
+   * One bounded stack of free arrays per array length. It is not thread-safe.
+   */
+  private static class ArrayStacks {
+
+    private final int maxNumberOfArraysPerLength;
+
+    private byte[][][] freeArrays;
+
+    private int[] numberOfFreeArrays;
+
+    public ArrayStacks(int maxNumberOfArraysPerLength) {
+      this.maxNumberOfArraysPerLength = maxNumberOfArraysPerLength;
+      clear();
+    }
+
+    public byte[] pop(int length) {
+      if (length >= freeArrays.length) {
+        return null;
+      }
+      int numberOfFree = numberOfFreeArrays[length];
+      if (numberOfFree == 0) {
+        return null;
+      }
+      byte[] array = freeArrays[length][numberOfFree - 1];
+      freeArrays[length][numberOfFree - 1] = null;
+      numberOfFreeArrays[length] = numberOfFree - 1;
+      return array;
+    }
+
+    /**
+     * @param array
+     * @return <code>false</code> if the stack of the length of
+     *         <code>array</code> is full
+     */
+    public boolean push(byte[] array) {
+      int length = array.length;
+      if (length >= freeArrays.length) {
+        freeArrays = Arrays.copyOf(freeArrays, length + 1);
+        numberOfFreeArrays = Arrays.copyOf(numberOfFreeArrays, length + 1);
+      }
+      byte[][] stack = freeArrays[length];
+      int numberOfFree = numberOfFreeArrays[length];
+      if (stack == null) {
+        stack = new byte[Math.min(16, maxNumberOfArraysPerLength)][];
+        freeArrays[length] = stack;
+      } else if (numberOfFree == stack.length) {
+        if (stack.length >= maxNumberOfArraysPerLength) {
+          return false;
+        }
+        stack = Arrays.copyOf(stack,
+                (int) Math.min(maxNumberOfArraysPerLength, stack.length * 2l));
+        freeArrays[length] = stack;
+      }
+      stack[numberOfFree] = array;
+      numberOfFreeArrays[length] = numberOfFree + 1;
+      return true;
+    }
+
+    /**
+     * Moves at most <code>numberOfArrays</code> arrays of length
+     * <code>length</code> to <code>destination</code>.
+     *
+     * @param destination
+     * @param length
+     * @param numberOfArrays
+     */
+    public void transfer(ArrayStacks destination, int length, int numberOfArrays) {
+      for (int i = 0; i < numberOfArrays; i++) {
+        byte[] array = pop(length);
+        if (array == null) {
+          return;
+        }
+        if (!destination.push(array)) {
+          push(array);
+          return;
+        }
+      }
+    }
+
+    public void clear() {
+      freeArrays = new byte[0][][];
+      numberOfFreeArrays = new int[0];
+    }
+
+  }
+
+}
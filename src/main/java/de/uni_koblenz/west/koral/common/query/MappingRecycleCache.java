@@ -29,6 +29,9 @@ import de.uni_koblenz.west.koral.slave.triple_store.impl.IndexType;
  * {@link Mapping} instance is only created if no previously released instance
  * is cached. In order to prevent the memory to be flooded by unused
  * {@link Mapping} instances, the number of cached instances is limited.
+ * Additionally, the byte arrays of newly created mappings are allocated from
+ * a {@link MappingPayloadPool} and returned to it when the owning mapping is
+ * released.
  * </p>
  * 
  * <p>
@@ -47,12 +50,23 @@ public class MappingRecycleCache {
 
   private int nextFreeIndex;
 
+  private final MappingPayloadPool payloadPool;
+
   public MappingRecycleCache(int size, int numberOfSlaves) {
+    this(size, numberOfSlaves, new MappingPayloadPool(size));
+  }
+
+  public MappingRecycleCache(int size, int numberOfSlaves, MappingPayloadPool payloadPool) {
     this.numberOfSlaves = numberOfSlaves;
+    this.payloadPool = payloadPool;
     stack = new Mapping[size];
     nextFreeIndex = 0;
   }
 
+  public MappingPayloadPool getPayloadPool() {
+    return payloadPool;
+  }
+
   private boolean isEmpty() {
     return nextFreeIndex == 0;
   }
@@ -74,9 +88,9 @@ public class MappingRecycleCache {
 
   public synchronized Mapping createMapping(TriplePattern pattern, IndexType indexType,
           byte[] triple) {
-    byte[] newMapping = new byte[Byte.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES
+    byte[] newMapping = payloadPool.allocate(Byte.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES
             + (Long.BYTES * pattern.getVariables().length)
-            + ((numberOfSlaves / Byte.SIZE) + ((numberOfSlaves % Byte.SIZE) == 0 ? 0 : 1))];
+            + ((numberOfSlaves / Byte.SIZE) + ((numberOfSlaves % Byte.SIZE) == 0 ? 0 : 1)));
     newMapping[0] = MessageType.QUERY_MAPPING_BATCH.getValue();
     NumberConversion.int2bytes(newMapping.length, newMapping, Byte.BYTES + Long.BYTES + Long.BYTES);
     // set matched variables
@@ -95,9 +109,19 @@ public class MappingRecycleCache {
     }
     System.arraycopy(triple, 3 * Long.BYTES, newMapping, insertionIndex,
             triple.length - (3 * Long.BYTES));
-    return createMapping(newMapping, 0, newMapping.length);
+    return createMapping(newMapping);
   }
 
+  /**
+   * The returned {@link Mapping} does not own <code>byteArrayWithMapping</code>,
+   * i.e., the array is not returned to the {@link MappingPayloadPool} when the
+   * mapping is released.
+   * 
+   * @param byteArrayWithMapping
+   * @param firstIndexOfMappingInArray
+   * @param lengthOfMapping
+   * @return
+   */
   public synchronized Mapping createMapping(byte[] byteArrayWithMapping,
           int firstIndexOfMappingInArray, int lengthOfMapping) {
     Mapping result = getMapping();
@@ -105,17 +129,49 @@ public class MappingRecycleCache {
     return result;
   }
 
+  /**
+   * The returned {@link Mapping} owns <code>pooledArray</code>, i.e., the array
+   * is returned to the {@link MappingPayloadPool} when the mapping is released.
+   * 
+   * @param pooledArray
+   *          an array allocated from {@link #getPayloadPool()} which solely
+   *          contains the mapping and is not referenced anywhere else
+   * @return
+   */
+  public synchronized Mapping createMapping(byte[] pooledArray) {
+    Mapping result = getMapping();
+    result.set(pooledArray);
+    return result;
+  }
+
   private Mapping getMapping() {
     Mapping result;
     if (isEmpty()) {
-      result = new Mapping(numberOfSlaves);
+      result = new Mapping(numberOfSlaves, payloadPool);
     } else {
       result = pop();
     }
     return result;
   }
 
+  /**
+   * Releases <code>mapping</code> but hands its byte array over to the caller.
+   * 
+   * @param mapping
+   * @return the byte array owned by <code>mapping</code> or <code>null</code>
+   *         if <code>mapping</code> does not own its byte array. In the latter
+   *         case, <code>mapping</code> is not released.
+   */
+  public synchronized byte[] releaseMappingAndTakePayload(Mapping mapping) {
+    byte[] payload = mapping.takePayload();
+    if (payload != null) {
+      releaseMapping(mapping);
+    }
+    return payload;
+  }
+
   public synchronized void releaseMapping(Mapping mapping) {
+    mapping.releasePayload();
     if (!isFull()) {
       push(mapping);
     }
@@ -136,10 +192,10 @@ public class MappingRecycleCache {
   }
 
   public synchronized Mapping cloneMapping(Mapping mapping) {
-    byte[] newArray = new byte[mapping.getLengthOfMappingInByteArray()];
+    byte[] newArray = payloadPool.allocate(mapping.getLengthOfMappingInByteArray());
     System.arraycopy(mapping.getByteArray(), mapping.getFirstIndexOfMappingInByteArray(), newArray,
             0, newArray.length);
-    Mapping newMapping = createMapping(newArray, 0, newArray.length);
+    Mapping newMapping = createMapping(newArray);
     return newMapping;
   }
 
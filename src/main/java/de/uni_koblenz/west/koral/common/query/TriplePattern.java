@@ -72,6 +72,25 @@ public class TriplePattern {
     return object;
   }
 
+  /**
+   * @param variable
+   * @param value
+   * @return a triple pattern in which each occurrence of
+   *         <code>variable</code> is replaced by the constant
+   *         <code>value</code>
+   */
+  public TriplePattern bind(long variable, long value) {
+    boolean isSubjectBound = isSubjectVariable() && (subject == variable);
+    boolean isPropertyBound = isPropertyVariable() && (property == variable);
+    boolean isObjectBound = isObjectVariable() && (object == variable);
+    String newType = (isSubjectVariable() && !isSubjectBound ? "_" : "S")
+            + (isPropertyVariable() && !isPropertyBound ? "_" : "P")
+            + (isObjectVariable() && !isObjectBound ? "_" : "O");
+    return new TriplePattern(TriplePatternType.valueOf(newType),
+            isSubjectBound ? value : subject, isPropertyBound ? value : property,
+            isObjectBound ? value : object);
+  }
+
   public long[] getVariables() {
     switch (type) {
       case ___:
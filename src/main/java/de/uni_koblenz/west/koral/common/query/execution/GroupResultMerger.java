@@ -0,0 +1,187 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.execution;
+
+import org.apache.jena.graph.Node;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationFunction;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationState;
+import de.uni_koblenz.west.koral.common.query.execution.operators.GroupOperator;
+import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
+import de.uni_koblenz.west.koral.master.utils.DeSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Merges the partial aggregation states that the {@link GroupOperator}s of all
+ * slaves send to the {@link QueryExecutionCoordinator} and creates the final
+ * result rows. The values of the group variables and of the minimum and
+ * maximum aggregates are decoded with the dictionary. All other aggregate
+ * values are created as new literals.
+ */
+public class GroupResultMerger {
+
+  private final DictionaryEncoder dictionary;
+
+  private final long[] groupVars;
+
+  private final AggregationFunction[] functions;
+
+  private final long[] aggregateVars;
+
+  /**
+   * the variables of the mappings sent by the {@link GroupOperator}s
+   */
+  private final long[] partialStateVars;
+
+  private final boolean isDistinct;
+
+  private final Map<ByteBuffer, AggregationState> groups;
+
+  /**
+   * @param groupOperator
+   * @param dictionary
+   * @param isDistinct
+   *          if <code>true</code>, duplicate result rows are removed
+   */
+  public GroupResultMerger(GroupOperator groupOperator, DictionaryEncoder dictionary,
+          boolean isDistinct) {
+    this.dictionary = dictionary;
+    groupVars = groupOperator.getGroupVariables();
+    functions = groupOperator.getAggregationFunctions();
+    aggregateVars = groupOperator.getAggregateVariables();
+    partialStateVars = groupOperator.getResultVariables();
+    this.isDistinct = isDistinct;
+    groups = new HashMap<>();
+  }
+
+  public void merge(Mapping mapping) {
+    long[] values = new long[partialStateVars.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = mapping.getValue(partialStateVars[i], partialStateVars);
+    }
+    ByteBuffer key = ByteBuffer.allocate(groupVars.length * Long.BYTES);
+    for (int i = 0; i < groupVars.length; i++) {
+      key.putLong(values[i]);
+    }
+    key.flip();
+    AggregationState state = groups.get(key);
+    if (state == null) {
+      state = new AggregationState(functions);
+      groups.put(key, state);
+    }
+    state.merge(values, groupVars.length, decodeExtremes(values));
+  }
+
+  private Node[] decodeExtremes(long[] partialState) {
+    Node[] extremes = new Node[functions.length];
+    long[] ids = new long[functions.length];
+    int numberOfIds = 0;
+    int offset = groupVars.length;
+    for (AggregationFunction function : functions) {
+      if ((function == AggregationFunction.MIN) || (function == AggregationFunction.MAX)) {
+        ids[numberOfIds++] = partialState[offset];
+      }
+      offset += function.getNumberOfStateValues();
+    }
+    if (numberOfIds == 0) {
+      return extremes;
+    }
+    String[] values = dictionary.decodeToSerializedNodes(ids);
+    numberOfIds = 0;
+    for (int i = 0; i < functions.length; i++) {
+      if ((functions[i] == AggregationFunction.MIN) || (functions[i] == AggregationFunction.MAX)) {
+        String value = values[numberOfIds++];
+        extremes[i] = value == null ? null : DeSerializer.deserializeNode(value);
+      }
+    }
+    return extremes;
+  }
+
+  /**
+   * If there are no group variables, one result row is created even if no
+   * mapping has been aggregated.
+   *
+   * @param resultVars
+   *          the variables of the result rows
+   * @return the result rows in which the values are separated by
+   *         {@link Configuration#QUERY_RESULT_COLUMN_SEPARATOR_CHAR}. Unbound
+   *         values are empty.
+   */
+  public List<String> createResultRows(long[] resultVars) {
+    if (groups.isEmpty() && (groupVars.length == 0)) {
+      groups.put(ByteBuffer.allocate(0), new AggregationState(functions));
+    }
+    long[] groupValues = new long[groups.size() * groupVars.length];
+    int index = 0;
+    for (ByteBuffer key : groups.keySet()) {
+      for (int i = 0; i < groupVars.length; i++) {
+        groupValues[index++] = key.getLong(i * Long.BYTES);
+      }
+    }
+    String[] decodedGroupValues = dictionary.decodeToSerializedNodes(groupValues);
+    Collection<String> rows = isDistinct ? new LinkedHashSet<>() : new ArrayList<>();
+    int group = 0;
+    for (Entry<ByteBuffer, AggregationState> entry : groups.entrySet()) {
+      StringBuilder row = new StringBuilder();
+      String delim = "";
+      for (long resultVar : resultVars) {
+        row.append(delim);
+        delim = Configuration.QUERY_RESULT_COLUMN_SEPARATOR_CHAR;
+        int groupVarIndex = GroupResultMerger.indexOf(groupVars, resultVar);
+        if (groupVarIndex >= 0) {
+          String value = decodedGroupValues[(group * groupVars.length) + groupVarIndex];
+          if (value == null) {
+            throw new RuntimeException("The value "
+                    + groupValues[(group * groupVars.length) + groupVarIndex] + " of variable "
+                    + resultVar + " could not be found in the dictionary.");
+          }
+          row.append(value);
+        } else {
+          Node value = entry.getValue()
+                  .getResult(GroupResultMerger.indexOf(aggregateVars, resultVar));
+          if (value != null) {
+            row.append(DeSerializer.serializeNode(value));
+          }
+        }
+      }
+      rows.add(row.toString());
+      group++;
+    }
+    groups.clear();
+    return new ArrayList<>(rows);
+  }
+
+  private static int indexOf(long[] vars, long var) {
+    for (int i = 0; i < vars.length; i++) {
+      if (vars[i] == var) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -18,10 +18,8 @@
  */
 package de.uni_koblenz.west.koral.common.query.execution;
 
-import org.apache.jena.graph.Node;
-import org.apache.jena.graph.NodeFactory;
-
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
 import de.uni_koblenz.west.koral.common.executor.WorkerTask;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
@@ -30,17 +28,26 @@ import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
 import de.uni_koblenz.west.koral.common.messages.MessageType;
 import de.uni_koblenz.west.koral.common.messages.MessageUtils;
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.execution.operators.DistinctOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.GroupOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.ProjectionOperator;
 import de.uni_koblenz.west.koral.common.query.execution.operators.SliceOperator;
 import de.uni_koblenz.west.koral.common.query.parser.QueryExecutionTreeType;
 import de.uni_koblenz.west.koral.common.query.parser.SparqlParser;
 import de.uni_koblenz.west.koral.common.query.parser.VariableDictionary;
+import de.uni_koblenz.west.koral.common.utils.LongHashSet;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
 import de.uni_koblenz.west.koral.master.client_manager.ClientConnectionManager;
 import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
 import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
-import de.uni_koblenz.west.koral.master.utils.DeSerializer;
 
 import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
@@ -52,6 +59,16 @@ import java.util.logging.Logger;
  */
 public class QueryExecutionCoordinator extends QueryTaskBase {
 
+  /**
+   * If this flag is set in a {@link MessageType#QUERY_RESULT_BINARY} message,
+   * the client has to forget all terms received before.
+   */
+  public static final byte BINARY_RESULT_FLAG_FORGET_TERMS = 1;
+
+  private static final int MAX_NUMBER_OF_TERMS_SENT_TO_CLIENT = 1 << 16;
+
+  private static final int MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES = 4;
+
   private final ClientConnectionManager clientConnections;
 
   private final int clientId;
@@ -76,6 +93,30 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
 
   private long[] resultVariables;
 
+  /**
+   * the values of the result mappings of one round. The values of the i-th
+   * mapping are stored at index i*resultVariables.length.
+   */
+  private long[] resultValues;
+
+  /**
+   * if <code>true</code>, the results are sent as
+   * {@link MessageType#QUERY_RESULT_BINARY} messages
+   */
+  private boolean useBinaryResults;
+
+  /**
+   * ids whose terms are known by the client
+   */
+  private final LongHashSet idsSentToClient;
+
+  private final AtomicInteger numberOfUnacknowledgedResultMessages;
+
+  /**
+   * result rows that have already been decoded by the slaves
+   */
+  private final Queue<DecodedResultRows> decodedResultRows;
+
   private int numberOfMissingFinishNotificationsFromSlaves;
 
   private final AtomicInteger numberOfUnprocessedFinishMessagesFromSlaves;
@@ -102,11 +143,31 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
 
   private long lastSentResultMappingNumber;
 
+  /**
+   * if set, the slaves only execute the group operation and this coordinator
+   * merges the partial aggregation states and applies the operations above it
+   */
+  private GroupResultMerger groupResultMerger;
+
+  private boolean areGroupResultsSent;
+
+  /**
+   * the merged group result rows. The rows from index nextGroupResultRow to
+   * lastGroupResultRow-1 have still to be sent to the client.
+   */
+  private List<String> groupResultRows;
+
+  private int nextGroupResultRow;
+
+  private int lastGroupResultRow;
+
   public QueryExecutionCoordinator(short computerID, int queryID, int numberOfSlaves, int cacheSize,
           File cacheDir, int clientID, ClientConnectionManager clientConnections,
           DictionaryEncoder dictionary, GraphStatistics statistics, int emittedMappingsPerRound,
           MapDBStorageOptions storageType, boolean useTransactions, boolean writeAsynchronously,
-          MapDBCacheOptions cacheType, Logger logger, MeasurementCollector measurementCollector) {
+          MapDBCacheOptions cacheType, boolean useMergeJoins,
+          DictionaryShardType dictionaryShardType, Logger logger,
+          MeasurementCollector measurementCollector) {
     super(computerID, queryID, (short) 0, numberOfSlaves, cacheSize, cacheDir);
     this.logger = logger;
     this.measurementCollector = measurementCollector;
@@ -125,7 +186,12 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
     parser = new SparqlParser(dictionary, statistics, null, computerID, getQueryId(), getID(),
             numberOfSlaves, cacheSize, cacheDir, emittedMappingsPerRound, storageType,
             useTransactions, writeAsynchronously, cacheType, false);
+    parser.setUseMergeJoins(useMergeJoins);
+    parser.setDictionaryShardType(dictionaryShardType);
     numberOfUnprocessedFinishMessagesFromSlaves = new AtomicInteger(0);
+    idsSentToClient = new LongHashSet();
+    numberOfUnacknowledgedResultMessages = new AtomicInteger(0);
+    decodedResultRows = new ConcurrentLinkedQueue<>();
   }
 
   public void processQueryRequest(byte[][] arguments) {
@@ -141,6 +207,8 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
       parser.setUseBaseImplementation(useBaseOperators);
     }
     queryString = MessageUtils.convertToString(arguments[2], logger);
+    // older clients do not send the result format
+    useBinaryResults = (arguments.length > 3) && (arguments[3][0] == 1);
     if (logger != null) {
       logger.fine("Started query coordinator for query " + queryString.replace('\n', ' '));
     }
@@ -157,7 +225,7 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
 
   @Override
   public long getCurrentTaskLoad() {
-    long inputSize = getSizeOfInputQueue(0);
+    long inputSize = getSizeOfInputQueue(0) + decodedResultRows.size();
     return inputSize < 10 ? 10 : inputSize;
   }
 
@@ -208,6 +276,13 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
         sendMessageToClient(result);
         closeInternal();
         break;
+      case QUERY_RESULT_ROWS:
+        int rowsIndex = firstIndex + Byte.BYTES + Short.BYTES + Long.BYTES;
+        decodedResultRows.offer(new DecodedResultRows(
+                NumberConversion.bytes2int(message, rowsIndex),
+                MessageUtils.convertToString(Arrays.copyOfRange(message, rowsIndex + Integer.BYTES,
+                        firstIndex + messageLength), logger)));
+        break;
       default:
         super.enqueueMessage(sender, message, firstIndex, messageLength);
     }
@@ -222,8 +297,9 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
   }
 
   @Override
-  protected void handleMappingReception(long sender, byte[] message, int firstIndex, int length) {
-    enqueuMessage(0, message, firstIndex, length);
+  protected void handleMappingReception(long sender, byte[] message, int firstIndex, int length,
+          boolean isHandedOver) {
+    enqueuMessage(0, message, firstIndex, length, isHandedOver);
   }
 
   @Override
@@ -260,17 +336,49 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
                 queryExecutionTree);
       }
       resultVariables = queryExecutionTree.getResultVariables();
+      QueryOperatorBase slaveQueryExecutionTree = getGroupOperator(queryExecutionTree);
+      if (slaveQueryExecutionTree != null) {
+        groupResultMerger = new GroupResultMerger((GroupOperator) slaveQueryExecutionTree,
+                dictionary, containsDistinct(queryExecutionTree));
+      } else {
+        slaveQueryExecutionTree = queryExecutionTree;
+      }
       if (measurementCollector != null) {
         measurementCollector.measureValue(MeasurementType.QUERY_COORDINATOR_SEND_QUERY_TO_SLAVE,
                 System.currentTimeMillis(), Integer.toString(getQueryId()));
       }
-      messageSender.sendQueryCreate(statistics, getQueryId(), queryExecutionTree,
+      messageSender.sendQueryCreate(statistics, getQueryId(), slaveQueryExecutionTree,
               parser.isBaseImplementationUsed());
       parser = null;
     }
     sendKeepAliveMessageToClient();
   }
 
+  /**
+   * @param queryExecutionTree
+   * @return the {@link GroupOperator} below the slice, distinct and projection
+   *         operators at the top of <code>queryExecutionTree</code> or
+   *         <code>null</code> if the query does not group
+   */
+  private GroupOperator getGroupOperator(WorkerTask queryExecutionTree) {
+    WorkerTask task = queryExecutionTree;
+    while ((task instanceof SliceOperator) || (task instanceof DistinctOperator)
+            || (task instanceof ProjectionOperator)) {
+      task = task.getPrecedingTasks().iterator().next();
+    }
+    return task instanceof GroupOperator ? (GroupOperator) task : null;
+  }
+
+  private boolean containsDistinct(WorkerTask queryExecutionTree) {
+    for (WorkerTask task = queryExecutionTree; !(task instanceof GroupOperator); task = task
+            .getPrecedingTasks().iterator().next()) {
+      if (task instanceof DistinctOperator) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   protected void executeOperationStep() {
     synchronized (numberOfUnprocessedFinishMessagesFromSlaves) {
@@ -278,8 +386,23 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
       numberOfMissingFinishNotificationsFromSlaves -= messages;
       numberOfUnprocessedFinishMessagesFromSlaves.addAndGet(-messages);
     }
+    if (groupResultMerger != null) {
+      mergeGroupResults();
+      return;
+    }
+    sendDecodedResultRowsToClient();
+    if (useBinaryResults && (numberOfUnacknowledgedResultMessages
+            .get() >= QueryExecutionCoordinator.MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES)) {
+      // wait until the client has processed the previous results. Until
+      // then, the mappings remain in the input queue that is swapped to
+      // disk if necessary
+      sendKeepAliveMessageToClient();
+      return;
+    }
     long firstSentResultMappingNumber = lastSentResultMappingNumber + 1;
-    StringBuilder result = new StringBuilder();
+    if (resultValues == null) {
+      resultValues = new long[emittedMappingsPerRound * resultVariables.length];
+    }
     int numberOfAlreadyEmittedMessages = 0;
     for (numberOfAlreadyEmittedMessages = 0; numberOfAlreadyEmittedMessages < emittedMappingsPerRound; numberOfAlreadyEmittedMessages++) {
       Mapping mapping = consumeMapping(0);
@@ -288,42 +411,32 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
       } else if (offset > 0) {
         offset--;
         numberOfAlreadyEmittedMessages--;
+        recycleCache.releaseMapping(mapping);
         continue;
       } else if ((offset <= 0) && ((length > 0) || (length < 0))) {
         lastSentResultMappingNumber++;
-        // the result has always to start with a new row, since the
-        // client already writes the header without row separator
-        result.append(Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR);
-        String delim = "";
-        for (long var : resultVariables) {
-          long varResult = mapping.getValue(var, resultVariables);
+        int firstValueIndex = numberOfAlreadyEmittedMessages * resultVariables.length;
+        for (int i = 0; i < resultVariables.length; i++) {
+          long varResult = mapping.getValue(resultVariables[i], resultVariables);
           if (varResult == -1) {
             throw new RuntimeException("The mapping " + mapping.toString(resultVariables)
-                    + " does not contain a mapping for variable " + var + ".");
-          }
-          Node resultNode = dictionary.decode(varResult);
-          if (resultNode == null) {
-            throw new RuntimeException("The value " + varResult + " of variable " + var
-                    + " could not be found in the dictionary.");
-          }
-          if (resultNode.isURI()
-                  && resultNode.getURI().startsWith(Configuration.BLANK_NODE_URI_PREFIX)) {
-            // this is a replacement of a blank node
-            resultNode = NodeFactory.createBlankNode(
-                    resultNode.getURI().substring(Configuration.BLANK_NODE_URI_PREFIX.length()));
+                    + " does not contain a mapping for variable " + resultVariables[i] + ".");
           }
-          String resultResourceString = DeSerializer.serializeNode(resultNode);
-          result.append(delim).append(resultResourceString);
-          delim = Configuration.QUERY_RESULT_COLUMN_SEPARATOR_CHAR;
+          resultValues[firstValueIndex + i] = varResult;
         }
+        recycleCache.releaseMapping(mapping);
         if (length > 0) {
           length--;
         }
       } else if (length == 0) {
+        recycleCache.releaseMapping(mapping);
         break;
       }
     }
-    if (result.length() > 0) {
+    if (numberOfAlreadyEmittedMessages > 0) {
+      byte[] message = useBinaryResults
+              ? createBinaryResultMessage(numberOfAlreadyEmittedMessages)
+              : createStringResultMessage(numberOfAlreadyEmittedMessages);
       if (measurementCollector != null) {
         measurementCollector.measureValue(
                 MeasurementType.QUERY_COORDINATOR_SEND_QUERY_RESULTS_TO_CLIENT,
@@ -331,18 +444,214 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
                 Long.toString(firstSentResultMappingNumber),
                 Long.toString(lastSentResultMappingNumber));
       }
-      clientConnections.send(clientId, MessageUtils.createStringMessage(MessageType.QUERY_RESULT,
-              result.toString(), logger));
-      lastContactWithClient = System.currentTimeMillis();
+      if (useBinaryResults) {
+        numberOfUnacknowledgedResultMessages.incrementAndGet();
+      }
+      sendMessageToClient(message);
     } else {
       sendKeepAliveMessageToClient();
     }
     if (length == 0) {
+      // all requested results have been sent to the client
+      if (numberOfMissingFinishNotificationsFromSlaves > 0) {
+        // stop the remaining computations on the slaves
+        messageSender.sendQueryCancellation(getQueryId());
+      }
       tidyUp();
-      closeInternal();
+      super.close();
     }
   }
 
+  /**
+   * Merges the received partial aggregation states. After all slaves have
+   * finished, the result rows are sent to the client. Thereby, offset and
+   * limit are applied. Like the other result messages, at most
+   * {@link #MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES} messages of result
+   * rows remain unacknowledged by the client.
+   */
+  private void mergeGroupResults() {
+    for (int i = 0; i < emittedMappingsPerRound; i++) {
+      Mapping mapping = consumeMapping(0);
+      if (mapping == null) {
+        break;
+      }
+      groupResultMerger.merge(mapping);
+      recycleCache.releaseMapping(mapping);
+    }
+    if (areGroupResultsSent || (numberOfMissingFinishNotificationsFromSlaves > 0)
+            || !isInputQueueEmpty(0)) {
+      sendKeepAliveMessageToClient();
+      return;
+    }
+    if (groupResultRows == null) {
+      groupResultRows = groupResultMerger.createResultRows(resultVariables);
+      nextGroupResultRow = (int) Math.min(offset, groupResultRows.size());
+      lastGroupResultRow = length < 0 ? groupResultRows.size()
+              : (int) Math.min(groupResultRows.size(), nextGroupResultRow + length);
+    }
+    while (nextGroupResultRow < lastGroupResultRow) {
+      if (useBinaryResults && (numberOfUnacknowledgedResultMessages
+              .get() >= QueryExecutionCoordinator.MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES)) {
+        // wait until the client has processed the previous results
+        sendKeepAliveMessageToClient();
+        return;
+      }
+      long firstSentResultMappingNumber = lastSentResultMappingNumber + 1;
+      StringBuilder result = new StringBuilder();
+      int endRow = Math.min(lastGroupResultRow, nextGroupResultRow + emittedMappingsPerRound);
+      for (String resultRow : groupResultRows.subList(nextGroupResultRow, endRow)) {
+        // the result has always to start with a new row, since the
+        // client already writes the header without row separator
+        result.append(Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR).append(resultRow);
+        lastSentResultMappingNumber++;
+      }
+      nextGroupResultRow = endRow;
+      if (measurementCollector != null) {
+        measurementCollector.measureValue(
+                MeasurementType.QUERY_COORDINATOR_SEND_QUERY_RESULTS_TO_CLIENT,
+                System.currentTimeMillis(), Integer.toString(getQueryId()),
+                Long.toString(firstSentResultMappingNumber),
+                Long.toString(lastSentResultMappingNumber));
+      }
+      if (useBinaryResults) {
+        // the client acknowledges these messages, too
+        numberOfUnacknowledgedResultMessages.incrementAndGet();
+      }
+      sendMessageToClient(MessageUtils.createStringMessage(MessageType.QUERY_RESULT,
+              result.toString(), logger));
+    }
+    groupResultRows = null;
+    areGroupResultsSent = true;
+  }
+
+  /**
+   * Forwards the rows that have already been decoded by the slaves. They only
+   * arrive if the query has no offset or limit. Thus, they are forwarded
+   * without counting them against the offset or length. Like the binary
+   * result messages, they count as unacknowledged result messages, so the
+   * rows remain queued while the client has not processed the previous
+   * results.
+   */
+  private void sendDecodedResultRowsToClient() {
+    if (decodedResultRows.isEmpty()) {
+      return;
+    }
+    if (useBinaryResults && (numberOfUnacknowledgedResultMessages
+            .get() >= QueryExecutionCoordinator.MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES)) {
+      return;
+    }
+    long firstSentResultMappingNumber = lastSentResultMappingNumber + 1;
+    StringBuilder rows = new StringBuilder();
+    for (DecodedResultRows decodedRows = decodedResultRows
+            .poll(); decodedRows != null; decodedRows = decodedResultRows.poll()) {
+      rows.append(decodedRows.rows);
+      lastSentResultMappingNumber += decodedRows.numberOfRows;
+    }
+    if (measurementCollector != null) {
+      measurementCollector.measureValue(
+              MeasurementType.QUERY_COORDINATOR_SEND_QUERY_RESULTS_TO_CLIENT,
+              System.currentTimeMillis(), Integer.toString(getQueryId()),
+              Long.toString(firstSentResultMappingNumber),
+              Long.toString(lastSentResultMappingNumber));
+    }
+    if (useBinaryResults) {
+      numberOfUnacknowledgedResultMessages.incrementAndGet();
+    }
+    sendMessageToClient(
+            MessageUtils.createStringMessage(MessageType.QUERY_RESULT, rows.toString(), logger));
+  }
+
+  private byte[] createStringResultMessage(int numberOfRows) {
+    // decode all values of this round at once
+    String[] resultResourceStrings = dictionary.decodeToSerializedNodes(
+            Arrays.copyOf(resultValues, numberOfRows * resultVariables.length));
+    StringBuilder result = new StringBuilder();
+    for (int row = 0; row < numberOfRows; row++) {
+      // the result has always to start with a new row, since the
+      // client already writes the header without row separator
+      result.append(Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR);
+      String delim = "";
+      for (int i = 0; i < resultVariables.length; i++) {
+        int valueIndex = (row * resultVariables.length) + i;
+        if (resultResourceStrings[valueIndex] == null) {
+          throw new RuntimeException("The value " + resultValues[valueIndex] + " of variable "
+                  + resultVariables[i] + " could not be found in the dictionary.");
+        }
+        result.append(delim).append(resultResourceStrings[valueIndex]);
+        delim = Configuration.QUERY_RESULT_COLUMN_SEPARATOR_CHAR;
+      }
+    }
+    return MessageUtils.createStringMessage(MessageType.QUERY_RESULT, result.toString(), logger);
+  }
+
+  /**
+   * Creates a {@link MessageType#QUERY_RESULT_BINARY} message. The rows only
+   * consist of ids. The serialized terms are only added for the ids that have
+   * not been sent to the client before. If too many terms have been sent, the
+   * client is told to forget all previously sent terms.
+   * 
+   * @param numberOfRows
+   * @return
+   */
+  private byte[] createBinaryResultMessage(int numberOfRows) {
+    int numberOfValues = numberOfRows * resultVariables.length;
+    byte flags = 0;
+    if ((idsSentToClient.size()
+            + numberOfValues) > QueryExecutionCoordinator.MAX_NUMBER_OF_TERMS_SENT_TO_CLIENT) {
+      idsSentToClient.clear();
+      flags |= QueryExecutionCoordinator.BINARY_RESULT_FLAG_FORGET_TERMS;
+    }
+    long[] newIds = new long[numberOfValues];
+    int numberOfNewIds = 0;
+    for (int i = 0; i < numberOfValues; i++) {
+      // ownership is irrelevant for the client
+      resultValues[i] &= 0x00_00_ff_ff_ff_ff_ff_ffL;
+      if (idsSentToClient.add(resultValues[i])) {
+        newIds[numberOfNewIds++] = resultValues[i];
+      }
+    }
+    String[] terms = dictionary.decodeToSerializedNodes(Arrays.copyOf(newIds, numberOfNewIds));
+    byte[][] termBytes = new byte[numberOfNewIds][];
+    int messageLength = Byte.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES
+            + (numberOfValues * Long.BYTES);
+    try {
+      for (int i = 0; i < numberOfNewIds; i++) {
+        if (terms[i] == null) {
+          throw new RuntimeException(
+                  "The value " + newIds[i] + " could not be found in the dictionary.");
+        }
+        termBytes[i] = terms[i].getBytes("UTF-8");
+        messageLength += Long.BYTES + Integer.BYTES + termBytes[i].length;
+      }
+    } catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+    ByteBuffer message = ByteBuffer.allocate(messageLength);
+    message.put(MessageType.QUERY_RESULT_BINARY.getValue());
+    message.put(flags);
+    message.putInt(numberOfNewIds);
+    for (int i = 0; i < numberOfNewIds; i++) {
+      message.putLong(newIds[i]);
+      message.putInt(termBytes[i].length);
+      message.put(termBytes[i]);
+    }
+    message.putInt(resultVariables.length);
+    message.putInt(numberOfRows);
+    for (int i = 0; i < numberOfValues; i++) {
+      message.putLong(resultValues[i]);
+    }
+    return message.array();
+  }
+
+  /**
+   * Called when the client has processed a
+   * {@link MessageType#QUERY_RESULT_BINARY} message or, if binary results are
+   * used, a {@link MessageType#QUERY_RESULT} message.
+   */
+  public void acknowledgeResultMessage() {
+    numberOfUnacknowledgedResultMessages.decrementAndGet();
+  }
+
   private void sendKeepAliveMessageToClient() {
     if ((System.currentTimeMillis()
             - lastContactWithClient) >= Configuration.CLIENT_KEEP_ALIVE_INTERVAL) {
@@ -375,7 +684,9 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
 
   @Override
   protected boolean isFinishedLocally() {
-    return (numberOfMissingFinishNotificationsFromSlaves == 0) && isInputQueueEmpty(0);
+    return (numberOfMissingFinishNotificationsFromSlaves == 0) && isInputQueueEmpty(0)
+            && decodedResultRows.isEmpty()
+            && ((groupResultMerger == null) || areGroupResultsSent);
   }
 
   @Override
@@ -397,4 +708,17 @@ public class QueryExecutionCoordinator extends QueryTaskBase {
     super.close();
   }
 
+  private static class DecodedResultRows {
+
+    private final int numberOfRows;
+
+    private final String rows;
+
+    public DecodedResultRows(int numberOfRows, String rows) {
+      this.numberOfRows = numberOfRows;
+      this.rows = rows;
+    }
+
+  }
+
 }
@@ -22,7 +22,9 @@ import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
 import de.uni_koblenz.west.koral.common.query.TriplePatternType;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationFunction;
 import de.uni_koblenz.west.koral.common.query.execution.operators.DefaultQueryOperatorTaskFactory;
+import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternMatchOperator;
 import de.uni_koblenz.west.koral.common.query.execution.operators.base_impl.QueryBaseOperatorTaskFactory;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 
@@ -97,6 +99,16 @@ public class QueryExecutionTreeDeserializer {
         return deserializeTriplePatternJoin(input);
       case TRIPLE_PATTERN_MATCH:
         return deserializeTriplePatternMatch(input);
+      case SLICE:
+        return deserializeSlice(input);
+      case MERGE_JOIN:
+        return deserializeMergeJoin(input);
+      case FILTER:
+        return deserializeFilter(input);
+      case DISTINCT:
+        return deserializeDistinct(input);
+      case GROUP:
+        return deserializeGroup(input);
       default:
         throw new RuntimeException("Unkonw query operator.");
     }
@@ -120,6 +132,21 @@ public class QueryExecutionTreeDeserializer {
     return result;
   }
 
+  private QueryOperatorTask deserializeSlice(DataInputStream input) throws IOException {
+    QueryOperatorTask child = deserializeQueryOperator(input);
+    long taskId = input.readLong();
+    int emittedMappingsPerRound = input.readInt();
+    long estimatedTaskLoad = input.readLong();
+    long offset = input.readLong();
+    long length = input.readLong();
+
+    QueryOperatorBase result = (QueryOperatorBase) taskFactory.createSlice(taskId,
+            emittedMappingsPerRound, child, offset, length);
+    result.setEstimatedWorkLoad(estimatedTaskLoad);
+    ((QueryOperatorBase) child).setParentTask(result);
+    return result;
+  }
+
   private QueryOperatorTask deserializeTriplePatternJoin(DataInputStream input) throws IOException {
     QueryOperatorTask leftChild = deserializeQueryOperator(input);
     QueryOperatorTask rightChild = deserializeQueryOperator(input);
@@ -136,23 +163,110 @@ public class QueryExecutionTreeDeserializer {
     return result;
   }
 
+  private QueryOperatorTask deserializeMergeJoin(DataInputStream input) throws IOException {
+    long taskId = input.readLong();
+    int emittedMappingsPerRound = input.readInt();
+    long estimatedTaskLoad = input.readLong();
+    TriplePattern leftPattern = deserializeTriplePattern(input);
+    TriplePattern rightPattern = deserializeTriplePattern(input);
+
+    QueryOperatorBase result = (QueryOperatorBase) taskFactory.createMergeJoin(taskId,
+            emittedMappingsPerRound, leftPattern, rightPattern, tripleStore);
+    result.setEstimatedWorkLoad(estimatedTaskLoad);
+    return result;
+  }
+
   private QueryOperatorTask deserializeTriplePatternMatch(DataInputStream input)
           throws IOException {
     long taskId = input.readLong();
     int emittedMappingsPerRound = input.readInt();
     long estimatedTaskLoad = input.readLong();
-
-    int patternType = input.readInt();
-    long subject = input.readLong();
-    long property = input.readLong();
-    long object = input.readLong();
-    TriplePattern pattern = new TriplePattern(TriplePatternType.valueOf(patternType), subject,
-            property, object);
+    TriplePattern pattern = deserializeTriplePattern(input);
+    int numberOfLookupPatterns = input.readInt();
+    TriplePattern[] lookupPatterns = null;
+    if (numberOfLookupPatterns >= 0) {
+      lookupPatterns = new TriplePattern[numberOfLookupPatterns];
+      for (int i = 0; i < lookupPatterns.length; i++) {
+        lookupPatterns[i] = deserializeTriplePattern(input);
+      }
+    }
 
     QueryOperatorBase result = (QueryOperatorBase) taskFactory.createTriplePatternMatch(taskId,
             emittedMappingsPerRound, pattern, tripleStore);
     result.setEstimatedWorkLoad(estimatedTaskLoad);
+    ((TriplePatternMatchOperator) result).setLookupPatterns(lookupPatterns);
     return result;
   }
 
+  private QueryOperatorTask deserializeFilter(DataInputStream input) throws IOException {
+    QueryOperatorTask child = deserializeQueryOperator(input);
+    long taskId = input.readLong();
+    int emittedMappingsPerRound = input.readInt();
+    long estimatedTaskLoad = input.readLong();
+    String expression = input.readUTF();
+    int numberOfFilterVars = input.readInt();
+    long[] filterVars = new long[numberOfFilterVars];
+    String[] filterVarNames = new String[numberOfFilterVars];
+    for (int i = 0; i < filterVars.length; i++) {
+      filterVars[i] = input.readLong();
+      filterVarNames[i] = input.readUTF();
+    }
+
+    QueryOperatorBase result = (QueryOperatorBase) taskFactory.createFilter(taskId,
+            emittedMappingsPerRound, child, expression, filterVars, filterVarNames);
+    result.setEstimatedWorkLoad(estimatedTaskLoad);
+    ((QueryOperatorBase) child).setParentTask(result);
+    return result;
+  }
+
+  private QueryOperatorTask deserializeDistinct(DataInputStream input) throws IOException {
+    QueryOperatorTask child = deserializeQueryOperator(input);
+    long taskId = input.readLong();
+    int emittedMappingsPerRound = input.readInt();
+    long estimatedTaskLoad = input.readLong();
+
+    QueryOperatorBase result = (QueryOperatorBase) taskFactory.createDistinct(taskId,
+            emittedMappingsPerRound, child, storageType, useTransactions, writeAsynchronously,
+            cacheType);
+    result.setEstimatedWorkLoad(estimatedTaskLoad);
+    ((QueryOperatorBase) child).setParentTask(result);
+    return result;
+  }
+
+  private QueryOperatorTask deserializeGroup(DataInputStream input) throws IOException {
+    QueryOperatorTask child = deserializeQueryOperator(input);
+    long taskId = input.readLong();
+    int emittedMappingsPerRound = input.readInt();
+    long estimatedTaskLoad = input.readLong();
+    long[] groupVars = new long[input.readInt()];
+    for (int i = 0; i < groupVars.length; i++) {
+      groupVars[i] = input.readLong();
+    }
+    int numberOfAggregates = input.readInt();
+    AggregationFunction[] functions = new AggregationFunction[numberOfAggregates];
+    long[] aggregatedVars = new long[numberOfAggregates];
+    long[] aggregateVars = new long[numberOfAggregates];
+    for (int i = 0; i < numberOfAggregates; i++) {
+      functions[i] = AggregationFunction.values()[input.readInt()];
+      aggregatedVars[i] = input.readLong();
+      aggregateVars[i] = input.readLong();
+    }
+    long partitioningVar = input.readLong();
+
+    QueryOperatorBase result = (QueryOperatorBase) taskFactory.createGroup(taskId,
+            emittedMappingsPerRound, child, groupVars, functions, aggregatedVars, aggregateVars,
+            partitioningVar);
+    result.setEstimatedWorkLoad(estimatedTaskLoad);
+    ((QueryOperatorBase) child).setParentTask(result);
+    return result;
+  }
+
+  private TriplePattern deserializeTriplePattern(DataInputStream input) throws IOException {
+    int patternType = input.readInt();
+    long subject = input.readLong();
+    long property = input.readLong();
+    long object = input.readLong();
+    return new TriplePattern(TriplePatternType.valueOf(patternType), subject, property, object);
+  }
+
 }
@@ -18,19 +18,25 @@
  */
 package de.uni_koblenz.west.koral.common.query.execution;
 
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
 import de.uni_koblenz.west.koral.common.executor.WorkerTask;
 import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.execution.operators.GroupOperator;
 import de.uni_koblenz.west.koral.common.query.execution.operators.ProjectionOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.SliceOperator;
 import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 /**
@@ -65,6 +71,19 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
    */
   protected long[] numberOfEmittedMappings;
 
+  /**
+   * receivers of the rows of the currently emitted {@link MappingBatch}
+   */
+  private long[] receiverTaskIDs;
+
+  /**
+   * if set, the root operator decodes its results before sending them to the
+   * coordinator
+   */
+  private DictionaryShard dictionaryShard;
+
+  private long[] valuesToDecode;
+
   public QueryOperatorBase(short slaveId, int queryId, short taskId, long coordinatorId,
           int numberOfSlaves, int cacheSize, File cacheDirectory, int emittedMappingsPerRound) {
     super((((((long) slaveId) << Integer.SIZE)
@@ -107,6 +126,16 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
     computeEstimatedLoad(statistics, slave, true);
   }
 
+  /**
+   * Called for the root operator and for
+   * {@link de.uni_koblenz.west.koral.common.query.execution.operators.FilterOperator}s.
+   * 
+   * @param dictionaryShard
+   */
+  public void setDictionaryShard(DictionaryShard dictionaryShard) {
+    this.dictionaryShard = dictionaryShard;
+  }
+
   @Override
   public long getCoordinatorID() {
     return coordinatorId;
@@ -147,10 +176,11 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
   }
 
   @Override
-  protected void handleMappingReception(long sender, byte[] message, int firstIndex, int length) {
+  protected void handleMappingReception(long sender, byte[] message, int firstIndex, int length,
+          boolean isHandedOver) {
     long taskId = (sender & 0x00_00_ff_ff_ff_ff_ff_ffl) | (getID() & 0xff_ff_00_00_00_00_00_00l);
     int childIndex = getIndexOfChild(taskId);
-    enqueuMessage(childIndex, message, firstIndex, length);
+    enqueuMessage(childIndex, message, firstIndex, length, isHandedOver);
   }
 
   @Override
@@ -182,6 +212,19 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
   protected void executePreStartStep() {
   }
 
+  /**
+   * Stops this operator and all its descendants on this computer. Afterwards,
+   * they do not emit any mappings but still notify their parents when they
+   * have finished.
+   */
+  @Override
+  public void stop() {
+    super.stop();
+    for (WorkerTask child : getChildren()) {
+      ((QueryOperatorBase) child).stop();
+    }
+  }
+
   @Override
   protected void executeFinalStep() {
     messageSender.sendQueryTaskFinished(getID(), getParentTask() == null, getCoordinatorID(),
@@ -220,11 +263,12 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
    * @param mapping
    */
   protected void emitMapping(Mapping mapping) {
-    if (getParentTask() == null) {
+    if (isStopped()) {
+      recycleCache.releaseMapping(mapping);
+    } else if (getParentTask() == null) {
       messageSender.sendQueryMapping(mapping, getID(), getCoordinatorID(), recycleCache);
       numberOfEmittedMappings[0]++;
-    } else if (getParentTask() instanceof ProjectionOperator) {
-      // projection operator filters all mappings on the same computer
+    } else if (isParentOnSameComputer()) {
       messageSender.sendQueryMapping(mapping, getID(), getParentTask().getID(), recycleCache);
       numberOfEmittedMappings[(int) (getParentTask().getID() >>> (Integer.SIZE + Short.SIZE))]++;
     } else {
@@ -239,6 +283,8 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
           for (int i = 1; i < numberOfEmittedMappings.length; i++) {
             numberOfEmittedMappings[i]++;
           }
+        } else {
+          recycleCache.releaseMapping(mapping);
         }
       } else {
         long firstJoinVar = ((QueryOperatorTask) getParentTask()).getFirstJoinVar();
@@ -250,10 +296,15 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
                   parentBaseID | 0x00_01_00_00_00_00_00_00l, recycleCache);
           numberOfEmittedMappings[1]++;
         } else {
-          long ownerLong = mapping.getValue(firstJoinVar, getResultVariables())
-                  & 0xFF_FF_00_00_00_00_00_00l;
-          int owner = ((int) (ownerLong >>> (Short.SIZE + Integer.SIZE))) + 1;
-          ownerLong = ((long) owner) << (Integer.SIZE + Short.SIZE);
+          int owner;
+          if (firstJoinVar == QueryOperatorTask.ALL_VARIABLES) {
+            owner = getOwnerOfHash(hashValues(mapping));
+          } else {
+            long ownerLong = mapping.getValue(firstJoinVar, getResultVariables())
+                    & 0xFF_FF_00_00_00_00_00_00l;
+            owner = ((int) (ownerLong >>> (Short.SIZE + Integer.SIZE))) + 1;
+          }
+          long ownerLong = ((long) owner) << (Integer.SIZE + Short.SIZE);
           if (mapping.isKnownByComputer(owner)) {
             if (mapping.isKnownByComputer((int) (getID() >>> (Short.SIZE + Integer.SIZE)))) {
               // the owner also knows a replicate of this mapping,
@@ -262,6 +313,8 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
                       recycleCache);
               numberOfEmittedMappings[(int) (getParentTask()
                       .getID() >>> (Integer.SIZE + Short.SIZE))]++;
+            } else {
+              recycleCache.releaseMapping(mapping);
             }
           } else {
             if (mapping.getIdOfFirstComputerKnowingThisMapping() == thisComputerID) {
@@ -271,6 +324,8 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
               messageSender.sendQueryMapping(mapping, getID(), parentBaseID | ownerLong,
                       recycleCache);
               numberOfEmittedMappings[owner]++;
+            } else {
+              recycleCache.releaseMapping(mapping);
             }
           }
         }
@@ -278,6 +333,207 @@ public abstract class QueryOperatorBase extends QueryTaskBase implements QueryOp
     }
   }
 
+  /**
+   * Called by subclasses of {@link QueryOperatorBase}.<br>
+   * Sends all rows of <code>batch</code> like {@link #emitMapping(Mapping)}
+   * but determines the receivers of all rows in one loop. Afterwards,
+   * <code>batch</code> is cleared.
+   * 
+   * @param batch
+   *          its variables must be {@link #getResultVariables()}
+   */
+  protected void emitMappings(MappingBatch batch) {
+    int size = batch.size();
+    if (size == 0) {
+      return;
+    }
+    if (isStopped()) {
+      batch.clear();
+      return;
+    }
+    if ((batch.getVariables().length == 0) && (getParentTask() != null)
+            && !isParentOnSameComputer()) {
+      // empty mappings are broadcasted
+      emitMappingsSeparately(batch);
+      return;
+    }
+    if ((receiverTaskIDs == null) || (receiverTaskIDs.length < size)) {
+      receiverTaskIDs = new long[batch.getCapacity()];
+    }
+    if (getParentTask() == null) {
+      if (dictionaryShard != null) {
+        sendDecodedRows(batch);
+      } else {
+        Arrays.fill(receiverTaskIDs, 0, size, getCoordinatorID());
+      }
+      numberOfEmittedMappings[0] += size;
+    } else if (isParentOnSameComputer()) {
+      Arrays.fill(receiverTaskIDs, 0, size, getParentTask().getID());
+      numberOfEmittedMappings[(int) (getParentTask().getID() >>> (Integer.SIZE
+              + Short.SIZE))] += size;
+    } else {
+      int thisComputerID = (int) (getID() >>> (Short.SIZE + Integer.SIZE));
+      long parentBaseID = getParentTask().getID() & 0x00_00_FF_FF_FF_FF_FF_FFl;
+      long firstJoinVar = ((QueryOperatorTask) getParentTask()).getFirstJoinVar();
+      if (firstJoinVar == -1) {
+        // parent task has no join variables
+        // send to computer with smallest id
+        for (int row = 0; row < size; row++) {
+          batch.updateContainment(row, thisComputerID, 1);
+        }
+        Arrays.fill(receiverTaskIDs, 0, size, parentBaseID | 0x00_01_00_00_00_00_00_00l);
+        numberOfEmittedMappings[1] += size;
+      } else {
+        long[] joinValues = firstJoinVar == QueryOperatorTask.ALL_VARIABLES ? null
+                : batch.getColumn(batch.getIndexOfVariable(firstJoinVar));
+        for (int row = 0; row < size; row++) {
+          int owner = joinValues == null ? getOwnerOfHash(hashValues(batch, row))
+                  : ((int) (joinValues[row] >>> (Short.SIZE + Integer.SIZE))) + 1;
+          if (batch.isKnownByComputer(row, owner)) {
+            if (batch.isKnownByComputer(row, thisComputerID)) {
+              // the owner also knows a replicate of this mapping,
+              // forward it to parent task on this computer
+              receiverTaskIDs[row] = getParentTask().getID();
+              numberOfEmittedMappings[thisComputerID]++;
+            } else {
+              receiverTaskIDs[row] = -1;
+            }
+          } else if (batch.getIdOfFirstComputerKnowingRow(row) == thisComputerID) {
+            // first knowing computer sends mapping to owner
+            // which is a remote computer
+            batch.updateContainment(row, thisComputerID, owner);
+            receiverTaskIDs[row] = parentBaseID
+                    | (((long) owner) << (Integer.SIZE + Short.SIZE));
+            numberOfEmittedMappings[owner]++;
+          } else {
+            receiverTaskIDs[row] = -1;
+          }
+        }
+      }
+    }
+    messageSender.sendQueryMappings(batch, getID(), receiverTaskIDs, recycleCache);
+    batch.clear();
+  }
+
+  private long hashValues(Mapping mapping) {
+    long hash = 1;
+    for (long var : getResultVariables()) {
+      hash = (31 * hash) + mapping.getValue(var, getResultVariables());
+    }
+    return hash;
+  }
+
+  private long hashValues(MappingBatch batch, int row) {
+    long hash = 1;
+    for (int column = 0; column < batch.getVariables().length; column++) {
+      hash = (31 * hash) + batch.getValue(row, column);
+    }
+    return hash;
+  }
+
+  /**
+   * The hash is mixed first, since the upper bits of all values identify
+   * their owner and the lower bits are often dense.
+   * 
+   * @param hash
+   * @return the id of the slave that receives mappings with this hash
+   */
+  private int getOwnerOfHash(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdl;
+    hash ^= hash >>> 33;
+    return (int) ((hash & Long.MAX_VALUE) % messageSender.getNumberOfSlaves()) + 1;
+  }
+
+  /**
+   * Projection and slice operators filter all mappings on the same computer.
+   * Group operators aggregate them on the same computer, if they do not
+   * require the values to be decoded by their owner.
+   * 
+   * @return <code>true</code> if the mappings are sent to the parent operator
+   *         on this computer
+   */
+  private boolean isParentOnSameComputer() {
+    WorkerTask parent = getParentTask();
+    return (parent instanceof ProjectionOperator) || (parent instanceof SliceOperator)
+            || ((parent instanceof GroupOperator)
+                    && ((GroupOperator) parent).isAggregatedLocally());
+  }
+
+  /**
+   * Decodes all rows of <code>batch</code> with the local
+   * {@link DictionaryShard} and sends the rows whose values could all be
+   * decoded as text to the coordinator. The receiver of the remaining rows is
+   * set to the coordinator so that they are decoded by the master. Since the
+   * root operator only receives replicated dictionary shards, this fallback is
+   * only used for values that are missing in the shard.
+   * 
+   * @param batch
+   */
+  private void sendDecodedRows(MappingBatch batch) {
+    int size = batch.size();
+    int numberOfVars = batch.getVariables().length;
+    if ((valuesToDecode == null) || (valuesToDecode.length < (size * numberOfVars))) {
+      valuesToDecode = new long[batch.getCapacity() * numberOfVars];
+    }
+    for (int i = 0; i < numberOfVars; i++) {
+      long[] column = batch.getColumn(i);
+      for (int row = 0; row < size; row++) {
+        valuesToDecode[(row * numberOfVars) + i] = column[row];
+      }
+    }
+    String[] values = dictionaryShard.decode(valuesToDecode, size * numberOfVars);
+    StringBuilder rows = new StringBuilder();
+    int numberOfDecodedRows = 0;
+    for (int row = 0; row < size; row++) {
+      boolean isDecoded = true;
+      for (int i = 0; isDecoded && (i < numberOfVars); i++) {
+        isDecoded = values[(row * numberOfVars) + i] != null;
+      }
+      if (!isDecoded) {
+        receiverTaskIDs[row] = getCoordinatorID();
+        continue;
+      }
+      receiverTaskIDs[row] = -1;
+      numberOfDecodedRows++;
+      // each row starts with a new line, since the client writes the header
+      // without row separator
+      rows.append(Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR);
+      String delim = "";
+      for (int i = 0; i < numberOfVars; i++) {
+        rows.append(delim).append(values[(row * numberOfVars) + i]);
+        delim = Configuration.QUERY_RESULT_COLUMN_SEPARATOR_CHAR;
+      }
+    }
+    if (numberOfDecodedRows > 0) {
+      messageSender.sendQueryResultRows(
+              (int) (getCoordinatorID() >>> (Short.SIZE + Integer.SIZE)), getCoordinatorID(),
+              numberOfDecodedRows, rows.toString());
+    }
+  }
+
+  /**
+   * @param vars
+   * @return a new {@link MappingBatch} that can store the mappings emitted in
+   *         one round
+   */
+  protected MappingBatch createMappingBatch(long[] vars) {
+    return new MappingBatch(vars, messageSender.getNumberOfSlaves(), getEmittedMappingsPerRound());
+  }
+
+  /**
+   * Emits each row of <code>batch</code> by {@link #emitMapping(Mapping)}.
+   * Afterwards, <code>batch</code> is cleared.
+   * 
+   * @param batch
+   */
+  protected void emitMappingsSeparately(MappingBatch batch) {
+    for (int row = 0; row < batch.size(); row++) {
+      emitMapping(batch.createMapping(row, recycleCache));
+    }
+    batch.clear();
+  }
+
   protected void startTimeMeasurement() {
     startWorkTime = 0;
     totalWorkTime = 0;
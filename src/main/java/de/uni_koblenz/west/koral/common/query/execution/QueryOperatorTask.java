@@ -34,7 +34,14 @@ public interface QueryOperatorTask extends WorkerTask {
   public long[] getResultVariables();
 
   /**
-   * @return -1 iff no join var exists
+   * Returned by {@link #getFirstJoinVar()}, if the mappings are partitioned by
+   * a hash over the values of all their variables.
+   */
+  public static final long ALL_VARIABLES = -2;
+
+  /**
+   * @return -1 iff no join var exists or {@link #ALL_VARIABLES} iff the
+   *         mappings are partitioned by all their values
    */
   public long getFirstJoinVar();
 
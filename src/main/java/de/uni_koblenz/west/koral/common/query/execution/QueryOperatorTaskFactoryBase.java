@@ -21,6 +21,7 @@ package de.uni_koblenz.west.koral.common.query.execution;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationFunction;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 
 import java.io.File;
@@ -93,6 +94,16 @@ public abstract class QueryOperatorTaskFactoryBase {
           MapDBStorageOptions storageType, boolean useTransactions, boolean writeAsynchronously,
           MapDBCacheOptions cacheType);
 
+  public QueryOperatorTask createMergeJoin(short slaveId, int queryId,
+          int emittedMappingsPerRound, TriplePattern leftPattern, TriplePattern rightPattern,
+          TripleStoreAccessor tripleStore) {
+    return createMergeJoin(getNewTaskId(slaveId, queryId), emittedMappingsPerRound, leftPattern,
+            rightPattern, tripleStore);
+  }
+
+  public abstract QueryOperatorTask createMergeJoin(long taskId, int emittedMappingsPerRound,
+          TriplePattern leftPattern, TriplePattern rightPattern, TripleStoreAccessor tripleStore);
+
   public QueryOperatorTask createProjection(short slaveId, int queryId, int emittedMappingsPerRound,
           long[] resultVars, QueryOperatorTask subOperation) {
     return createProjection(getNewTaskId(slaveId, queryId), emittedMappingsPerRound, resultVars,
@@ -111,4 +122,37 @@ public abstract class QueryOperatorTaskFactoryBase {
   public abstract QueryOperatorTask createSlice(long taskId, int emittedMappingsPerRound,
           QueryOperatorTask subOperation, long offset, long length);
 
+  public QueryOperatorTask createFilter(short slaveId, int queryId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, String expression, long[] filterVars,
+          String[] filterVarNames) {
+    return createFilter(getNewTaskId(slaveId, queryId), emittedMappingsPerRound, subOperation,
+            expression, filterVars, filterVarNames);
+  }
+
+  public abstract QueryOperatorTask createFilter(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, String expression, long[] filterVars,
+          String[] filterVarNames);
+
+  public QueryOperatorTask createDistinct(short slaveId, int queryId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, MapDBStorageOptions storageType, boolean useTransactions,
+          boolean writeAsynchronously, MapDBCacheOptions cacheType) {
+    return createDistinct(getNewTaskId(slaveId, queryId), emittedMappingsPerRound, subOperation,
+            storageType, useTransactions, writeAsynchronously, cacheType);
+  }
+
+  public abstract QueryOperatorTask createDistinct(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, MapDBStorageOptions storageType, boolean useTransactions,
+          boolean writeAsynchronously, MapDBCacheOptions cacheType);
+
+  public QueryOperatorTask createGroup(short slaveId, int queryId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, long[] groupVars, AggregationFunction[] functions,
+          long[] aggregatedVars, long[] aggregateVars, long partitioningVar) {
+    return createGroup(getNewTaskId(slaveId, queryId), emittedMappingsPerRound, subOperation,
+            groupVars, functions, aggregatedVars, aggregateVars, partitioningVar);
+  }
+
+  public abstract QueryOperatorTask createGroup(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, long[] groupVars, AggregationFunction[] functions,
+          long[] aggregatedVars, long[] aggregateVars, long partitioningVar);
+
 }
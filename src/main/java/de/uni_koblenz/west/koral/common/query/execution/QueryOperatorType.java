@@ -20,7 +20,7 @@ package de.uni_koblenz.west.koral.common.query.execution;
 
 public enum QueryOperatorType {
 
-  PROJECTION, TRIPLE_PATTERN_JOIN, TRIPLE_PATTERN_MATCH;
+  PROJECTION, TRIPLE_PATTERN_JOIN, TRIPLE_PATTERN_MATCH, SLICE, MERGE_JOIN, FILTER, DISTINCT, GROUP;
 
   public static QueryOperatorType valueOf(int operatorType) {
     QueryOperatorType[] operatorTypes = QueryOperatorType.values();
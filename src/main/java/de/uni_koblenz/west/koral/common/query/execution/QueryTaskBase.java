@@ -23,6 +23,8 @@ import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuf
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.messages.MessageType;
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 
 import java.io.File;
@@ -49,6 +51,12 @@ public abstract class QueryTaskBase extends WorkerTaskBase {
 
   private final AtomicInteger numberOfUnprocessedFinishMessages;
 
+  /**
+   * if <code>true</code>, the received mappings are discarded instead of being
+   * processed
+   */
+  private volatile boolean isStopped;
+
   public QueryTaskBase(short slaveId, int queryId, short taskId, int numberOfSlaves, int cacheSize,
           File cacheDirectory) {
     this((((((long) slaveId) << Integer.SIZE)
@@ -100,18 +108,33 @@ public abstract class QueryTaskBase extends WorkerTaskBase {
         handleFinishNotification(sender, message, firstIndex, messageLength);
         break;
       case QUERY_MAPPING_BATCH:
-        handleMappingReception(sender, message, firstIndex, messageLength);
+        handleMappingReception(sender, message, firstIndex, messageLength, false);
         break;
       default:
         throw new RuntimeException("Unsupported message type " + mType);
     }
   }
 
+  @Override
+  public void enqueueMapping(long sender, byte[] pooledArray) {
+    handleMappingReception(sender, pooledArray, 0, pooledArray.length, true);
+  }
+
   protected abstract void handleFinishNotification(long sender, Object object, int firstIndex,
           int messageLength);
 
+  /**
+   * @param sender
+   * @param message
+   * @param firstIndex
+   * @param length
+   * @param isHandedOver
+   *          if <code>true</code>, <code>message</code> is an array of the
+   *          {@link MappingPayloadPool} that solely contains the mapping and
+   *          is taken over by this task
+   */
   protected abstract void handleMappingReception(long sender, byte[] message, int firstIndex,
-          int length);
+          int length, boolean isHandedOver);
 
   @Override
   public boolean hasToPerformFinalSteps() {
@@ -132,7 +155,11 @@ public abstract class QueryTaskBase extends WorkerTaskBase {
     if (state == QueryTaskState.CREATED) {
       executePreStartStep();
     } else if (state == QueryTaskState.STARTED) {
-      executeOperationStep();
+      if (isStopped) {
+        discardInput();
+      } else {
+        executeOperationStep();
+      }
       if (isSubQueryExecutionTreeFinished()) {
         numberOfMissingFinishedMessages--;
         state = QueryTaskState.WAITING_FOR_OTHERS_TO_FINISH;
@@ -147,6 +174,15 @@ public abstract class QueryTaskBase extends WorkerTaskBase {
     }
   }
 
+  private void discardInput() {
+    for (int child = 0; child < getChildren().length; child++) {
+      for (Mapping mapping = consumeMapping(child); mapping != null; mapping = consumeMapping(
+              child)) {
+        recycleCache.releaseMapping(mapping);
+      }
+    }
+  }
+
   protected abstract void executePreStartStep();
 
   protected abstract void executeOperationStep();
@@ -167,8 +203,34 @@ public abstract class QueryTaskBase extends WorkerTaskBase {
     return consumeMapping(child, recycleCache);
   }
 
+  /**
+   * Called by subclasses of {@link QueryOperatorBase}.
+   * 
+   * @param child
+   * @param batch
+   *          its variables must be the result variables of child operator
+   *          <code>child</code>
+   * @return the number of unprocessed received {@link Mapping}s of child
+   *         operator <code>child</code> that were added to <code>batch</code>
+   */
+  protected int consumeMappings(int child, MappingBatch batch) {
+    return consumeMappings(child, batch, recycleCache);
+  }
+
   private boolean isSubQueryExecutionTreeFinished() {
-    return areAllChildrenFinished() && isFinishedLocally();
+    return areAllChildrenFinished() && (isStopped ? !super.hasInput() : isFinishedLocally());
+  }
+
+  /**
+   * After this task is stopped, it discards all received mappings and
+   * finishes as soon as all its children have finished.
+   */
+  protected void stop() {
+    isStopped = true;
+  }
+
+  protected boolean isStopped() {
+    return isStopped;
   }
 
   /**
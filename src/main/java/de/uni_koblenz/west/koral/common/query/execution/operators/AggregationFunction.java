@@ -0,0 +1,77 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.execution.operators;
+
+/**
+ * The aggregate functions supported by the {@link GroupOperator}. Since the
+ * ordinals are used during serialization, new functions have to be appended.
+ */
+public enum AggregationFunction {
+
+  /**
+   * state: number of mappings
+   */
+  COUNT(1, false),
+
+  /**
+   * state: number of values, numeric type of the sum, scale, upper and lower 64
+   * bits of the unscaled exact sum of integer and decimal values, sum of float
+   * and double values
+   */
+  SUM(6, true),
+
+  /**
+   * state: id of the smallest value
+   */
+  MIN(1, true),
+
+  /**
+   * state: id of the largest value
+   */
+  MAX(1, true),
+
+  /**
+   * state: see {@link #SUM}
+   */
+  AVG(6, true);
+
+  private final int numberOfStateValues;
+
+  private final boolean requiresDecodedValues;
+
+  private AggregationFunction(int numberOfStateValues, boolean requiresDecodedValues) {
+    this.numberOfStateValues = numberOfStateValues;
+    this.requiresDecodedValues = requiresDecodedValues;
+  }
+
+  /**
+   * @return the number of values that represent the partial aggregation state
+   *         of this function in a mapping
+   */
+  public int getNumberOfStateValues() {
+    return numberOfStateValues;
+  }
+
+  /**
+   * @return <code>true</code> if the aggregated values have to be decoded,
+   *         i.e., the function does not only count the mappings
+   */
+  public boolean requiresDecodedValues() {
+    return requiresDecodedValues;
+  }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.execution.operators;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.expr.nodevalue.XSDFuncOp;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * <p>
+ * The partial aggregation state of all aggregates of one group. The state of
+ * each aggregate consists of {@link AggregationFunction#getNumberOfStateValues()}
+ * long values such that it can be sent as part of a mapping. Partial states of
+ * the same group that were computed on different computers are combined by
+ * {@link #merge(long[], int, Node[])}.
+ * </p>
+ *
+ * <p>
+ * Integer and decimal values are summed up exactly. In the partial state, their
+ * sum is represented by its scale and its unscaled value as 128 bit two's
+ * complement number. If the unscaled value of a partial sum exceeds 128 bits,
+ * the aggregate becomes unbound. Float and double values are summed up
+ * separately as doubles.
+ * </p>
+ */
+public class AggregationState {
+
+  private static final int TYPE_INTEGER = 0;
+
+  private static final int TYPE_DECIMAL = 1;
+
+  private static final int TYPE_FLOAT = 2;
+
+  private static final int TYPE_DOUBLE = 3;
+
+  private static final int TYPE_ERROR = 4;
+
+  // indices of the state values of a SUM or AVG aggregate
+
+  private static final int NUMBER_OF_VALUES = 0;
+
+  private static final int NUMERIC_TYPE = 1;
+
+  private static final int EXACT_SUM_SCALE = 2;
+
+  private static final int EXACT_SUM_HIGH_BITS = 3;
+
+  private static final int EXACT_SUM_LOW_BITS = 4;
+
+  private static final int DOUBLE_SUM = 5;
+
+  private static final BigInteger LOW_BITS_MASK = BigInteger.ONE.shiftLeft(Long.SIZE)
+          .subtract(BigInteger.ONE);
+
+  private final AggregationFunction[] functions;
+
+  private final long[] values;
+
+  /**
+   * the current minimum or maximum of each {@link AggregationFunction#MIN} or
+   * {@link AggregationFunction#MAX} aggregate
+   */
+  private final NodeValue[] extremes;
+
+  /**
+   * the exact sum of the integer and decimal values of each
+   * {@link AggregationFunction#SUM} or {@link AggregationFunction#AVG}
+   * aggregate
+   */
+  private final BigDecimal[] exactSums;
+
+  public AggregationState(AggregationFunction[] functions) {
+    this.functions = functions;
+    values = new long[AggregationState.getNumberOfStateValues(functions)];
+    extremes = new NodeValue[functions.length];
+    exactSums = new BigDecimal[functions.length];
+    for (int i = 0; i < functions.length; i++) {
+      if ((functions[i] == AggregationFunction.SUM) || (functions[i] == AggregationFunction.AVG)) {
+        exactSums[i] = BigDecimal.ZERO;
+      }
+    }
+  }
+
+  /**
+   * @param functions
+   * @return the number of long values of the partial aggregation state of all
+   *         <code>functions</code>
+   */
+  public static int getNumberOfStateValues(AggregationFunction[] functions) {
+    int numberOfValues = 0;
+    for (AggregationFunction function : functions) {
+      numberOfValues += function.getNumberOfStateValues();
+    }
+    return numberOfValues;
+  }
+
+  /**
+   * Adds a value of the aggregated variable to aggregate
+   * <code>aggregate</code>.
+   *
+   * @param aggregate
+   * @param id
+   *          the encoded value
+   * @param node
+   *          the decoded value or <code>null</code> if it is unknown. It is
+   *          only required, if
+   *          {@link AggregationFunction#requiresDecodedValues()}.
+   */
+  public void aggregate(int aggregate, long id, Node node) {
+    int offset = getOffset(aggregate);
+    switch (functions[aggregate]) {
+      case COUNT:
+        values[offset]++;
+        break;
+      case SUM:
+      case AVG:
+        if (node == null) {
+          // the value is unknown
+          values[offset + AggregationState.NUMERIC_TYPE] = AggregationState.TYPE_ERROR;
+        } else {
+          addToSum(aggregate, offset, NodeValue.makeNode(node));
+        }
+        break;
+      case MIN:
+      case MAX:
+        if (node == null) {
+          break;
+        }
+        NodeValue value = NodeValue.makeNode(node);
+        if (extremes[aggregate] == null) {
+          extremes[aggregate] = value;
+          values[offset] = id;
+        } else {
+          int comparison = NodeValue.compareAlways(value, extremes[aggregate]);
+          if (((functions[aggregate] == AggregationFunction.MIN) && (comparison < 0))
+                  || ((functions[aggregate] == AggregationFunction.MAX) && (comparison > 0))) {
+            extremes[aggregate] = value;
+            values[offset] = id;
+          }
+        }
+        break;
+    }
+  }
+
+  private void addToSum(int aggregate, int offset, NodeValue value) {
+    int type;
+    values[offset + AggregationState.NUMBER_OF_VALUES]++;
+    if (value.isInteger()) {
+      type = AggregationState.TYPE_INTEGER;
+      exactSums[aggregate] = exactSums[aggregate].add(new BigDecimal(value.getInteger()));
+    } else if (value.isDecimal()) {
+      type = AggregationState.TYPE_DECIMAL;
+      exactSums[aggregate] = exactSums[aggregate].add(value.getDecimal());
+    } else if (value.isFloat()) {
+      type = AggregationState.TYPE_FLOAT;
+      addToDoubleSum(offset, value.getDouble());
+    } else if (value.isDouble()) {
+      type = AggregationState.TYPE_DOUBLE;
+      addToDoubleSum(offset, value.getDouble());
+    } else {
+      type = AggregationState.TYPE_ERROR;
+    }
+    values[offset + AggregationState.NUMERIC_TYPE] = Math
+            .max(values[offset + AggregationState.NUMERIC_TYPE], type);
+  }
+
+  private void addToDoubleSum(int offset, double value) {
+    values[offset + AggregationState.DOUBLE_SUM] = Double.doubleToLongBits(
+            Double.longBitsToDouble(values[offset + AggregationState.DOUBLE_SUM]) + value);
+  }
+
+  /**
+   * Combines this state with a partial state of the same group that was
+   * written by {@link #writeStateValues(long[], int)}.
+   *
+   * @param partialState
+   * @param offset
+   *          the index of the first state value in <code>partialState</code>
+   * @param decodedExtremes
+   *          the decoded values of the ids stored in the states of the
+   *          {@link AggregationFunction#MIN} and {@link AggregationFunction#MAX}
+   *          aggregates
+   */
+  public void merge(long[] partialState, int offset, Node[] decodedExtremes) {
+    int stateOffset = 0;
+    for (int i = 0; i < functions.length; i++) {
+      switch (functions[i]) {
+        case COUNT:
+          values[stateOffset] += partialState[offset + stateOffset];
+          break;
+        case SUM:
+        case AVG:
+          values[stateOffset + AggregationState.NUMBER_OF_VALUES] += partialState[offset
+                  + stateOffset + AggregationState.NUMBER_OF_VALUES];
+          values[stateOffset + AggregationState.NUMERIC_TYPE] = Math.max(
+                  values[stateOffset + AggregationState.NUMERIC_TYPE],
+                  partialState[offset + stateOffset + AggregationState.NUMERIC_TYPE]);
+          exactSums[i] = exactSums[i]
+                  .add(AggregationState.readExactSum(partialState, offset + stateOffset));
+          addToDoubleSum(stateOffset, Double.longBitsToDouble(
+                  partialState[offset + stateOffset + AggregationState.DOUBLE_SUM]));
+          break;
+        case MIN:
+        case MAX:
+          aggregate(i, partialState[offset + stateOffset], decodedExtremes[i]);
+          break;
+      }
+      stateOffset += functions[i].getNumberOfStateValues();
+    }
+  }
+
+  /**
+   * Writes the partial aggregation state to <code>destination</code>.
+   *
+   * @param destination
+   * @param offset
+   */
+  public void writeStateValues(long[] destination, int offset) {
+    System.arraycopy(values, 0, destination, offset, values.length);
+    int stateOffset = offset;
+    for (int i = 0; i < functions.length; i++) {
+      if (exactSums[i] != null) {
+        AggregationState.writeExactSum(exactSums[i], destination, stateOffset);
+      }
+      stateOffset += functions[i].getNumberOfStateValues();
+    }
+  }
+
+  private static void writeExactSum(BigDecimal exactSum, long[] destination, int offset) {
+    BigInteger unscaledValue = exactSum.unscaledValue();
+    if (unscaledValue.bitLength() >= (2 * Long.SIZE)) {
+      // the sum cannot be represented in the state
+      destination[offset + AggregationState.NUMERIC_TYPE] = AggregationState.TYPE_ERROR;
+      return;
+    }
+    destination[offset + AggregationState.EXACT_SUM_SCALE] = exactSum.scale();
+    destination[offset + AggregationState.EXACT_SUM_HIGH_BITS] = unscaledValue
+            .shiftRight(Long.SIZE).longValue();
+    destination[offset + AggregationState.EXACT_SUM_LOW_BITS] = unscaledValue.longValue();
+  }
+
+  private static BigDecimal readExactSum(long[] state, int offset) {
+    BigInteger unscaledValue = BigInteger
+            .valueOf(state[offset + AggregationState.EXACT_SUM_HIGH_BITS]).shiftLeft(Long.SIZE)
+            .or(BigInteger.valueOf(state[offset + AggregationState.EXACT_SUM_LOW_BITS])
+                    .and(AggregationState.LOW_BITS_MASK));
+    return new BigDecimal(unscaledValue, (int) state[offset + AggregationState.EXACT_SUM_SCALE]);
+  }
+
+  /**
+   * @param aggregate
+   * @return the value of aggregate <code>aggregate</code> or <code>null</code>
+   *         if it is unbound because of an error or because no value was
+   *         aggregated
+   */
+  public Node getResult(int aggregate) {
+    int offset = getOffset(aggregate);
+    switch (functions[aggregate]) {
+      case COUNT:
+        return NodeValue.makeInteger(values[offset]).asNode();
+      case SUM:
+        NodeValue sum = getSum(aggregate, offset);
+        return sum == null ? null : sum.asNode();
+      case AVG:
+        long numberOfValues = values[offset + AggregationState.NUMBER_OF_VALUES];
+        if (numberOfValues == 0) {
+          return NodeValue.makeInteger(0).asNode();
+        }
+        NodeValue total = getSum(aggregate, offset);
+        if (total == null) {
+          return null;
+        }
+        return XSDFuncOp.numDivide(total, NodeValue.makeInteger(numberOfValues)).asNode();
+      case MIN:
+      case MAX:
+        return extremes[aggregate] == null ? null : extremes[aggregate].asNode();
+    }
+    return null;
+  }
+
+  private NodeValue getSum(int aggregate, int offset) {
+    BigDecimal exactSum = exactSums[aggregate];
+    double otherSum = Double.longBitsToDouble(values[offset + AggregationState.DOUBLE_SUM]);
+    switch ((int) values[offset + AggregationState.NUMERIC_TYPE]) {
+      case TYPE_INTEGER:
+        return NodeValue.makeInteger(exactSum.toBigIntegerExact());
+      case TYPE_DECIMAL:
+        return NodeValue.makeDecimal(exactSum);
+      case TYPE_FLOAT:
+        return NodeValue.makeFloat((float) (exactSum.doubleValue() + otherSum));
+      case TYPE_DOUBLE:
+        return NodeValue.makeDouble(exactSum.doubleValue() + otherSum);
+      default:
+        return null;
+    }
+  }
+
+  private int getOffset(int aggregate) {
+    int offset = 0;
+    for (int i = 0; i < aggregate; i++) {
+      offset += functions[i].getNumberOfStateValues();
+    }
+    return offset;
+  }
+
+}
@@ -61,6 +61,13 @@ public class DefaultQueryOperatorTaskFactory extends QueryOperatorTaskFactoryBas
             useTransactions, writeAsynchronously, cacheType);
   }
 
+  @Override
+  public QueryOperatorTask createMergeJoin(long taskId, int emittedMappingsPerRound,
+          TriplePattern leftPattern, TriplePattern rightPattern, TripleStoreAccessor tripleStore) {
+    return new MergeJoinOperator(taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound, leftPattern, rightPattern, tripleStore);
+  }
+
   @Override
   public QueryOperatorTask createProjection(long taskId, int emittedMappingsPerRound,
           long[] resultVars, QueryOperatorTask subOperation) {
@@ -75,4 +82,30 @@ public class DefaultQueryOperatorTaskFactory extends QueryOperatorTaskFactoryBas
             emittedMappingsPerRound, subOperation, offset, length);
   }
 
+  @Override
+  public QueryOperatorTask createFilter(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, String expression, long[] filterVars,
+          String[] filterVarNames) {
+    return new FilterOperator(taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound, subOperation, expression, filterVars, filterVarNames);
+  }
+
+  @Override
+  public QueryOperatorTask createDistinct(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, MapDBStorageOptions storageType, boolean useTransactions,
+          boolean writeAsynchronously, MapDBCacheOptions cacheType) {
+    return new DistinctOperator(taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound, subOperation, storageType, useTransactions,
+            writeAsynchronously, cacheType);
+  }
+
+  @Override
+  public QueryOperatorTask createGroup(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, long[] groupVars, AggregationFunction[] functions,
+          long[] aggregatedVars, long[] aggregateVars, long partitioningVar) {
+    return new GroupOperator(taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound, subOperation, groupVars, functions, aggregatedVars,
+            aggregateVars, partitioningVar);
+  }
+
 }
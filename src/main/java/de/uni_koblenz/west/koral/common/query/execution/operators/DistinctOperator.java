@@ -0,0 +1,186 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.execution.operators;
+
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
+import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
+import de.uni_koblenz.west.koral.common.utils.DistinctMappingSet;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * Performs the distinct operation. Since all mappings are sent to the slave
+ * determined by a hash over the values of all result variables, all
+ * duplicates of a mapping are received by the same slave. Each slave only
+ * emits those mappings it has not received before. Thus, the coordinator only
+ * receives unique mappings.
+ */
+public class DistinctOperator extends QueryOperatorBase {
+
+  private final MapDBStorageOptions storageType;
+
+  private final boolean useTransactions;
+
+  private final boolean writeAsynchronously;
+
+  private final MapDBCacheOptions cacheType;
+
+  private DistinctMappingSet emittedMappings;
+
+  private MappingBatch inputBatch;
+
+  private MappingBatch outputBatch;
+
+  public DistinctOperator(long id, long coordinatorId, int numberOfSlaves, int cacheSize,
+          File cacheDirectory, int emittedMappingsPerRound, QueryOperatorTask subOperation,
+          MapDBStorageOptions storageType, boolean useTransactions, boolean writeAsynchronously,
+          MapDBCacheOptions cacheType) {
+    super(id, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory, emittedMappingsPerRound);
+    addChildTask(subOperation);
+    this.storageType = storageType;
+    this.useTransactions = useTransactions;
+    this.writeAsynchronously = writeAsynchronously;
+    this.cacheType = cacheType;
+  }
+
+  public DistinctOperator(short slaveId, int queryId, short taskId, long coordinatorId,
+          int numberOfSlaves, int cacheSize, File cacheDirectory, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, MapDBStorageOptions storageType,
+          boolean useTransactions, boolean writeAsynchronously, MapDBCacheOptions cacheType) {
+    super(slaveId, queryId, taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound);
+    addChildTask(subOperation);
+    this.storageType = storageType;
+    this.useTransactions = useTransactions;
+    this.writeAsynchronously = writeAsynchronously;
+    this.cacheType = cacheType;
+  }
+
+  @Override
+  public void setUp(MessageSenderBuffer messageSender, MappingRecycleCache recycleCache,
+          Logger logger, MeasurementCollector measurementCollector) {
+    super.setUp(messageSender, recycleCache, logger, measurementCollector);
+    emittedMappings = new DistinctMappingSet(storageType, useTransactions, writeAsynchronously,
+            cacheType, getCacheDirectory(), getClass().getSimpleName() + getID());
+  }
+
+  @Override
+  public long computeEstimatedLoad(GraphStatistics statistics, int slave, boolean setLoads) {
+    QueryOperatorBase subOp = (QueryOperatorBase) getChildTask(0);
+    long load = subOp.computeEstimatedLoad(statistics, slave, setLoads);
+    if (setLoads) {
+      setEstimatedWorkLoad(load);
+    }
+    return load;
+  }
+
+  @Override
+  public long computeTotalEstimatedLoad(GraphStatistics statistics) {
+    QueryOperatorBase subOp = (QueryOperatorBase) getChildTask(0);
+    return subOp.computeTotalEstimatedLoad(statistics);
+  }
+
+  @Override
+  public long[] getResultVariables() {
+    return ((QueryOperatorTask) getChildTask(0)).getResultVariables();
+  }
+
+  /**
+   * @return {@link QueryOperatorTask#ALL_VARIABLES}, since partitioning by a
+   *         single variable would send all mappings to one slave, if its
+   *         values have the same owner
+   */
+  @Override
+  public long getFirstJoinVar() {
+    return getResultVariables().length == 0 ? -1 : QueryOperatorTask.ALL_VARIABLES;
+  }
+
+  @Override
+  public long getCurrentTaskLoad() {
+    return getSizeOfInputQueue(0);
+  }
+
+  @Override
+  protected void closeInternal() {
+    if (emittedMappings != null) {
+      emittedMappings.close();
+    }
+  }
+
+  @Override
+  protected void executeOperationStep() {
+    startWorkTime();
+    if (inputBatch == null) {
+      inputBatch = createMappingBatch(getResultVariables());
+      outputBatch = createMappingBatch(getResultVariables());
+    }
+    if (consumeMappings(0, inputBatch) > 0) {
+      for (int row = 0; row < inputBatch.size(); row++) {
+        if (emittedMappings.add(inputBatch, row)) {
+          outputBatch.addRow(inputBatch, row);
+        }
+      }
+      inputBatch.clear();
+      emitMappings(outputBatch);
+    }
+    startIdleTime();
+  }
+
+  @Override
+  public void serialize(DataOutputStream output, boolean useBaseImplementation, int slaveId)
+          throws IOException {
+    if (getParentTask() == null) {
+      output.writeBoolean(useBaseImplementation);
+      output.writeLong(getCoordinatorID());
+    }
+    output.writeInt(QueryOperatorType.DISTINCT.ordinal());
+    ((QueryOperatorTask) getChildTask(0)).serialize(output, useBaseImplementation, slaveId);
+    output.writeLong(getIdOnSlave(slaveId));
+    output.writeInt(getEmittedMappingsPerRound());
+    output.writeLong(getEstimatedTaskLoad());
+  }
+
+  @Override
+  public void toString(StringBuilder sb, int indention) {
+    indent(sb, indention);
+    sb.append(getClass().getSimpleName());
+    sb.append(" estimatedWorkLoad: ").append(getEstimatedTaskLoad());
+    sb.append("\n");
+    ((QueryOperatorBase) getChildTask(0)).toString(sb, indention + 1);
+  }
+
+  @Override
+  public String toAlgebraicString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("distinct(");
+    sb.append(getChildTask(0).getID() & 0xff_ffL);
+    sb.append(")");
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.execution.operators;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.apache.jena.sparql.function.FunctionEnv;
+import org.apache.jena.sparql.function.FunctionEnvBase;
+import org.apache.jena.sparql.util.ExprUtils;
+
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.master.utils.DeSerializer;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Performs the filter operation. The values of the filter variables are
+ * decoded with the {@link DictionaryShard} of the slave and the SPARQL filter
+ * expression is evaluated on the decoded values. Mappings for which the
+ * expression is not satisfied or cannot be evaluated are discarded.
+ * </p>
+ *
+ * <p>
+ * The mappings are sent to the owner of the value of the first filter
+ * variable. Thus, a filter over a single variable can be evaluated with
+ * partitioned dictionary shards. Filters over several variables require
+ * replicated dictionary shards.
+ * </p>
+ */
+public class FilterOperator extends QueryOperatorBase {
+
+  private final String expression;
+
+  /**
+   * the variables of the expression that are bound by the child operator
+   */
+  private final long[] filterVars;
+
+  private final String[] filterVarNames;
+
+  private DictionaryShard dictionaryShard;
+
+  private Expr expr;
+
+  private Var[] vars;
+
+  private FunctionEnv functionEnvironment;
+
+  private MappingBatch inputBatch;
+
+  private MappingBatch outputBatch;
+
+  private long[] valuesToDecode;
+
+  public FilterOperator(long id, long coordinatorId, int numberOfSlaves, int cacheSize,
+          File cacheDirectory, int emittedMappingsPerRound, QueryOperatorTask subOperation,
+          String expression, long[] filterVars, String[] filterVarNames) {
+    super(id, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory, emittedMappingsPerRound);
+    this.expression = expression;
+    this.filterVars = filterVars;
+    this.filterVarNames = filterVarNames;
+    addChildTask(subOperation);
+  }
+
+  public FilterOperator(short slaveId, int queryId, short taskId, long coordinatorId,
+          int numberOfSlaves, int cacheSize, File cacheDirectory, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, String expression, long[] filterVars,
+          String[] filterVarNames) {
+    super(slaveId, queryId, taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound);
+    this.expression = expression;
+    this.filterVars = filterVars;
+    this.filterVarNames = filterVarNames;
+    addChildTask(subOperation);
+  }
+
+  /**
+   * Sets the {@link DictionaryShard} that decodes the values of the filter
+   * variables. If this is the root operator, it additionally decodes the
+   * results.
+   */
+  @Override
+  public void setDictionaryShard(DictionaryShard dictionaryShard) {
+    super.setDictionaryShard(dictionaryShard);
+    this.dictionaryShard = dictionaryShard;
+  }
+
+  public String getExpression() {
+    return expression;
+  }
+
+  @Override
+  public long computeEstimatedLoad(GraphStatistics statistics, int slave, boolean setLoads) {
+    QueryOperatorBase subOp = (QueryOperatorBase) getChildTask(0);
+    long load = subOp.computeEstimatedLoad(statistics, slave, setLoads);
+    if (setLoads) {
+      setEstimatedWorkLoad(load);
+    }
+    return load;
+  }
+
+  @Override
+  public long computeTotalEstimatedLoad(GraphStatistics statistics) {
+    QueryOperatorBase subOp = (QueryOperatorBase) getChildTask(0);
+    return subOp.computeTotalEstimatedLoad(statistics);
+  }
+
+  @Override
+  public long[] getResultVariables() {
+    return ((QueryOperatorTask) getChildTask(0)).getResultVariables();
+  }
+
+  @Override
+  public long getFirstJoinVar() {
+    return filterVars.length == 0 ? -1 : filterVars[0];
+  }
+
+  @Override
+  public long getCurrentTaskLoad() {
+    return getSizeOfInputQueue(0);
+  }
+
+  @Override
+  protected void closeInternal() {
+  }
+
+  @Override
+  protected void executeOperationStep() {
+    startWorkTime();
+    if (inputBatch == null) {
+      inputBatch = createMappingBatch(getResultVariables());
+      outputBatch = createMappingBatch(getResultVariables());
+      expr = ExprUtils.parse(expression);
+      vars = new Var[filterVarNames.length];
+      for (int i = 0; i < vars.length; i++) {
+        vars[i] = Var.alloc(filterVarNames[i]);
+      }
+      functionEnvironment = new FunctionEnvBase();
+    }
+    if (consumeMappings(0, inputBatch) > 0) {
+      String[] values = decodeFilterVariables(inputBatch);
+      for (int row = 0; row < inputBatch.size(); row++) {
+        if (isSatisfied(values, row)) {
+          outputBatch.addRow(inputBatch, row);
+        }
+      }
+      inputBatch.clear();
+      emitMappings(outputBatch);
+    }
+    startIdleTime();
+  }
+
+  /**
+   * @param batch
+   * @return the decoded values of the filter variables of all rows. The value
+   *         of the i-th filter variable in row r has the index
+   *         <code>r*filterVars.length+i</code>.
+   */
+  private String[] decodeFilterVariables(MappingBatch batch) {
+    int size = batch.size();
+    if ((filterVars.length == 0) || (dictionaryShard == null)) {
+      return new String[size * filterVars.length];
+    }
+    if ((valuesToDecode == null) || (valuesToDecode.length < (size * filterVars.length))) {
+      valuesToDecode = new long[batch.getCapacity() * filterVars.length];
+    }
+    for (int i = 0; i < filterVars.length; i++) {
+      long[] column = batch.getColumn(batch.getIndexOfVariable(filterVars[i]));
+      for (int row = 0; row < size; row++) {
+        valuesToDecode[(row * filterVars.length) + i] = column[row];
+      }
+    }
+    return dictionaryShard.decode(valuesToDecode, size * filterVars.length);
+  }
+
+  private boolean isSatisfied(String[] values, int row) {
+    BindingMap binding = BindingFactory.create();
+    for (int i = 0; i < vars.length; i++) {
+      String value = values[(row * vars.length) + i];
+      if (value == null) {
+        // the value is unknown on this slave
+        return false;
+      }
+      Node node = DeSerializer.deserializeNode(value);
+      binding.add(vars[i], node);
+    }
+    try {
+      return expr.isSatisfied(binding, functionEnvironment);
+    } catch (ExprEvalException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void serialize(DataOutputStream output, boolean useBaseImplementation, int slaveId)
+          throws IOException {
+    if (getParentTask() == null) {
+      output.writeBoolean(useBaseImplementation);
+      output.writeLong(getCoordinatorID());
+    }
+    output.writeInt(QueryOperatorType.FILTER.ordinal());
+    ((QueryOperatorTask) getChildTask(0)).serialize(output, useBaseImplementation, slaveId);
+    output.writeLong(getIdOnSlave(slaveId));
+    output.writeInt(getEmittedMappingsPerRound());
+    output.writeLong(getEstimatedTaskLoad());
+    output.writeUTF(expression);
+    output.writeInt(filterVars.length);
+    for (int i = 0; i < filterVars.length; i++) {
+      output.writeLong(filterVars[i]);
+      output.writeUTF(filterVarNames[i]);
+    }
+  }
+
+  @Override
+  public void toString(StringBuilder sb, int indention) {
+    indent(sb, indention);
+    sb.append(getClass().getSimpleName());
+    sb.append(" expression: ").append(expression);
+    sb.append(" filterVars: [");
+    String delim = "";
+    for (long var : filterVars) {
+      sb.append(delim).append("?").append(var);
+      delim = ",";
+    }
+    sb.append("]");
+    sb.append(" estimatedWorkLoad: ").append(getEstimatedTaskLoad());
+    sb.append("\n");
+    ((QueryOperatorBase) getChildTask(0)).toString(sb, indention + 1);
+  }
+
+  @Override
+  public String toAlgebraicString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("filter(");
+    sb.append(getChildTask(0).getID() & 0xff_ffL);
+    sb.append(",").append(expression);
+    sb.append(")");
+    return sb.toString();
+  }
+
+}
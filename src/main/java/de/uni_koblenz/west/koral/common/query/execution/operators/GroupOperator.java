@@ -0,0 +1,390 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.execution.operators;
+
+import org.apache.jena.graph.Node;
+
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.master.utils.DeSerializer;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * <p>
+ * Performs the partial aggregation of the group operation. Each slave
+ * aggregates the mappings it receives per group and emits one mapping per
+ * group that consists of the values of the group variables and the partial
+ * {@link AggregationState}. These mappings are merged by the query
+ * coordinator, since the aggregated values, e.g., counts, are not contained in
+ * the dictionary. Thus, this operator is always the root of the query
+ * execution tree executed by the slaves.
+ * </p>
+ *
+ * <p>
+ * If no aggregated values have to be decoded or the dictionary shards are
+ * replicated, the mappings are aggregated on the computer where they were
+ * created. Otherwise, they are sent to the owner of the value of the
+ * partitioning variable such that its value can be decoded with the local
+ * {@link DictionaryShard}.
+ * </p>
+ */
+public class GroupOperator extends QueryOperatorBase {
+
+  /**
+   * If more groups are aggregated, their partial states are emitted in order
+   * to bound the memory consumption.
+   */
+  private static final int MAX_NUMBER_OF_GROUPS_IN_MEMORY = 100_000;
+
+  private final long[] groupVars;
+
+  private final AggregationFunction[] functions;
+
+  /**
+   * the variable aggregated by each aggregate or -1 if all mappings are
+   * counted
+   */
+  private final long[] aggregatedVars;
+
+  /**
+   * the variable that is bound to the result of each aggregate
+   */
+  private final long[] aggregateVars;
+
+  /**
+   * -1 if the mappings are aggregated locally
+   */
+  private final long partitioningVar;
+
+  private DictionaryShard dictionaryShard;
+
+  private long[] resultVars;
+
+  private Map<ByteBuffer, AggregationState> groups;
+
+  private MappingBatch inputBatch;
+
+  private MappingBatch outputBatch;
+
+  public GroupOperator(long id, long coordinatorId, int numberOfSlaves, int cacheSize,
+          File cacheDirectory, int emittedMappingsPerRound, QueryOperatorTask subOperation,
+          long[] groupVars, AggregationFunction[] functions, long[] aggregatedVars,
+          long[] aggregateVars, long partitioningVar) {
+    super(id, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory, emittedMappingsPerRound);
+    this.groupVars = groupVars;
+    this.functions = functions;
+    this.aggregatedVars = aggregatedVars;
+    this.aggregateVars = aggregateVars;
+    this.partitioningVar = partitioningVar;
+    addChildTask(subOperation);
+  }
+
+  public GroupOperator(short slaveId, int queryId, short taskId, long coordinatorId,
+          int numberOfSlaves, int cacheSize, File cacheDirectory, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, long[] groupVars, AggregationFunction[] functions,
+          long[] aggregatedVars, long[] aggregateVars, long partitioningVar) {
+    super(slaveId, queryId, taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound);
+    this.groupVars = groupVars;
+    this.functions = functions;
+    this.aggregatedVars = aggregatedVars;
+    this.aggregateVars = aggregateVars;
+    this.partitioningVar = partitioningVar;
+    addChildTask(subOperation);
+  }
+
+  /**
+   * Sets the {@link DictionaryShard} that decodes the aggregated values. The
+   * results are not decoded, since they are merged by the coordinator.
+   */
+  @Override
+  public void setDictionaryShard(DictionaryShard dictionaryShard) {
+    this.dictionaryShard = dictionaryShard;
+  }
+
+  public long[] getGroupVariables() {
+    return groupVars;
+  }
+
+  public AggregationFunction[] getAggregationFunctions() {
+    return functions;
+  }
+
+  public long[] getAggregatedVariables() {
+    return aggregatedVars;
+  }
+
+  public long[] getAggregateVariables() {
+    return aggregateVars;
+  }
+
+  /**
+   * Binds the result of the aggregate that is currently bound to
+   * <code>aggregateVar</code> to <code>newVar</code> instead.
+   *
+   * @param aggregateVar
+   * @param newVar
+   * @return <code>true</code> if <code>aggregateVar</code> is bound to the
+   *         result of an aggregate
+   */
+  public boolean renameAggregateVariable(long aggregateVar, long newVar) {
+    for (int i = 0; i < aggregateVars.length; i++) {
+      if (aggregateVars[i] == aggregateVar) {
+        aggregateVars[i] = newVar;
+        resultVars = null;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return <code>true</code> if the mappings are aggregated on the computer
+   *         where they were created
+   */
+  public boolean isAggregatedLocally() {
+    return partitioningVar == -1;
+  }
+
+  @Override
+  public long computeEstimatedLoad(GraphStatistics statistics, int slave, boolean setLoads) {
+    QueryOperatorBase subOp = (QueryOperatorBase) getChildTask(0);
+    long load = subOp.computeEstimatedLoad(statistics, slave, setLoads);
+    if (setLoads) {
+      setEstimatedWorkLoad(load);
+    }
+    return load;
+  }
+
+  @Override
+  public long computeTotalEstimatedLoad(GraphStatistics statistics) {
+    QueryOperatorBase subOp = (QueryOperatorBase) getChildTask(0);
+    return subOp.computeTotalEstimatedLoad(statistics);
+  }
+
+  /**
+   * @return the group variables followed by the variables of the partial
+   *         aggregation states. The first state value of each aggregate is
+   *         bound to its aggregate variable. The further state values are
+   *         bound to the aggregate variable with the index of the state value
+   *         in the upper four bytes.
+   */
+  @Override
+  public long[] getResultVariables() {
+    if (resultVars == null) {
+      long[] vars = new long[groupVars.length + AggregationState.getNumberOfStateValues(functions)];
+      System.arraycopy(groupVars, 0, vars, 0, groupVars.length);
+      int index = groupVars.length;
+      for (int i = 0; i < functions.length; i++) {
+        for (int j = 0; j < functions[i].getNumberOfStateValues(); j++) {
+          vars[index++] = (((long) j) << Integer.SIZE) | aggregateVars[i];
+        }
+      }
+      resultVars = vars;
+    }
+    return resultVars;
+  }
+
+  @Override
+  public long getFirstJoinVar() {
+    return partitioningVar;
+  }
+
+  @Override
+  public long getCurrentTaskLoad() {
+    return getSizeOfInputQueue(0);
+  }
+
+  @Override
+  protected void closeInternal() {
+    if (groups != null) {
+      groups.clear();
+    }
+  }
+
+  @Override
+  protected void executeOperationStep() {
+    startWorkTime();
+    if (inputBatch == null) {
+      inputBatch = createMappingBatch(((QueryOperatorTask) getChildTask(0)).getResultVariables());
+      groups = new HashMap<>();
+    }
+    if (consumeMappings(0, inputBatch) > 0) {
+      aggregate(inputBatch);
+      inputBatch.clear();
+      if (groups.size() >= GroupOperator.MAX_NUMBER_OF_GROUPS_IN_MEMORY) {
+        // the coordinator merges several partial states of the same group
+        emitGroups();
+      }
+    }
+    startIdleTime();
+  }
+
+  private void aggregate(MappingBatch batch) {
+    int[] groupColumns = new int[groupVars.length];
+    for (int i = 0; i < groupVars.length; i++) {
+      groupColumns[i] = batch.getIndexOfVariable(groupVars[i]);
+    }
+    long[][] aggregatedColumns = new long[functions.length][];
+    Node[][] decodedValues = new Node[functions.length][];
+    for (int i = 0; i < functions.length; i++) {
+      if (aggregatedVars[i] != -1) {
+        aggregatedColumns[i] = batch.getColumn(batch.getIndexOfVariable(aggregatedVars[i]));
+        if (functions[i].requiresDecodedValues()) {
+          decodedValues[i] = decode(aggregatedColumns[i], batch.size());
+        }
+      }
+    }
+    for (int row = 0; row < batch.size(); row++) {
+      ByteBuffer key = ByteBuffer.allocate(groupVars.length * Long.BYTES);
+      for (int i = 0; i < groupColumns.length; i++) {
+        key.putLong(batch.getValue(row, groupColumns[i]));
+      }
+      key.flip();
+      AggregationState state = groups.get(key);
+      if (state == null) {
+        state = new AggregationState(functions);
+        groups.put(key, state);
+      }
+      for (int i = 0; i < functions.length; i++) {
+        state.aggregate(i, aggregatedColumns[i] == null ? 0 : aggregatedColumns[i][row],
+                decodedValues[i] == null ? null : decodedValues[i][row]);
+      }
+    }
+  }
+
+  private Node[] decode(long[] ids, int length) {
+    Node[] nodes = new Node[length];
+    if (dictionaryShard == null) {
+      return nodes;
+    }
+    String[] values = dictionaryShard.decode(ids, length);
+    for (int i = 0; i < length; i++) {
+      if (values[i] != null) {
+        nodes[i] = DeSerializer.deserializeNode(values[i]);
+      }
+    }
+    return nodes;
+  }
+
+  private void emitGroups() {
+    if (outputBatch == null) {
+      outputBatch = createMappingBatch(getResultVariables());
+    }
+    int thisComputerID = (int) (getID() >>> (Short.SIZE + Integer.SIZE));
+    long[] row = new long[getResultVariables().length];
+    for (Entry<ByteBuffer, AggregationState> group : groups.entrySet()) {
+      for (int i = 0; i < groupVars.length; i++) {
+        row[i] = group.getKey().getLong(i * Long.BYTES);
+      }
+      group.getValue().writeStateValues(row, groupVars.length);
+      outputBatch.addRow(row, thisComputerID);
+      if (outputBatch.isFull()) {
+        emitMappings(outputBatch);
+      }
+    }
+    emitMappings(outputBatch);
+    groups.clear();
+  }
+
+  @Override
+  protected void executeFinalStep() {
+    if (groups != null) {
+      emitGroups();
+    }
+    super.executeFinalStep();
+  }
+
+  @Override
+  public void serialize(DataOutputStream output, boolean useBaseImplementation, int slaveId)
+          throws IOException {
+    if (getParentTask() == null) {
+      output.writeBoolean(useBaseImplementation);
+      output.writeLong(getCoordinatorID());
+    }
+    output.writeInt(QueryOperatorType.GROUP.ordinal());
+    ((QueryOperatorTask) getChildTask(0)).serialize(output, useBaseImplementation, slaveId);
+    output.writeLong(getIdOnSlave(slaveId));
+    output.writeInt(getEmittedMappingsPerRound());
+    output.writeLong(getEstimatedTaskLoad());
+    output.writeInt(groupVars.length);
+    for (long var : groupVars) {
+      output.writeLong(var);
+    }
+    output.writeInt(functions.length);
+    for (int i = 0; i < functions.length; i++) {
+      output.writeInt(functions[i].ordinal());
+      output.writeLong(aggregatedVars[i]);
+      output.writeLong(aggregateVars[i]);
+    }
+    output.writeLong(partitioningVar);
+  }
+
+  @Override
+  public void toString(StringBuilder sb, int indention) {
+    indent(sb, indention);
+    sb.append(getClass().getSimpleName());
+    sb.append(" groupVars: [");
+    String delim = "";
+    for (long var : groupVars) {
+      sb.append(delim).append("?").append(var);
+      delim = ",";
+    }
+    sb.append("] aggregates: [");
+    delim = "";
+    for (int i = 0; i < functions.length; i++) {
+      sb.append(delim).append(functions[i].name()).append("(");
+      sb.append(aggregatedVars[i] == -1 ? "*" : "?" + aggregatedVars[i]);
+      sb.append(") AS ?").append(aggregateVars[i]);
+      delim = ",";
+    }
+    sb.append("]");
+    sb.append(" partitioningVar: ").append(partitioningVar);
+    sb.append(" estimatedWorkLoad: ").append(getEstimatedTaskLoad());
+    sb.append("\n");
+    ((QueryOperatorBase) getChildTask(0)).toString(sb, indention + 1);
+  }
+
+  @Override
+  public String toAlgebraicString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("group(");
+    sb.append(getChildTask(0).getID() & 0xff_ffL);
+    for (long var : groupVars) {
+      sb.append(",?").append(var);
+    }
+    for (int i = 0; i < functions.length; i++) {
+      sb.append(",").append(functions[i].name().toLowerCase()).append("(");
+      sb.append(aggregatedVars[i] == -1 ? "*" : "?" + aggregatedVars[i]);
+      sb.append(")=?").append(aggregateVars[i]);
+    }
+    sb.append(")");
+    return sb.toString();
+  }
+
+}
@@ -19,6 +19,7 @@
 package de.uni_koblenz.west.koral.common.query.execution.operators;
 
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 
 import java.util.Iterator;
@@ -40,6 +41,10 @@ public class JoinIterator implements Iterator<Mapping> {
 
   private final long[] varsOfJoinCandidates;
 
+  /**
+   * the next join candidate that matches {@link #joiningMapping}. The join
+   * result is only created when it is requested.
+   */
   private Mapping next;
 
   private long numberOfComparisons = 0;
@@ -68,9 +73,25 @@ public class JoinIterator implements Iterator<Mapping> {
     if (next == null) {
       throw new NoSuchElementException();
     }
-    Mapping n = next;
+    Mapping joinCandidate = next;
+    next = getNext();
+    return recycleCache.mergeMappings(resultVars, joiningMapping, varsOfJoiningMapping,
+            joinCandidate, varsOfJoinCandidates);
+  }
+
+  /**
+   * Adds the next join result to <code>batch</code> without creating a
+   * {@link Mapping} for it.
+   *
+   * @param batch
+   *          its variables must be the result variables of this join
+   */
+  public void addNextTo(MappingBatch batch) {
+    if (next == null) {
+      throw new NoSuchElementException();
+    }
+    batch.add(joiningMapping, varsOfJoiningMapping, next, varsOfJoinCandidates);
     next = getNext();
-    return n;
   }
 
   private Mapping getNext() {
@@ -78,8 +99,7 @@ public class JoinIterator implements Iterator<Mapping> {
       Mapping joinCandidate = joinCandidates.next();
       if (areJoinVarValuesEqual(joiningMapping, varsOfJoiningMapping, joinCandidate,
               varsOfJoinCandidates)) {
-        return recycleCache.mergeMappings(resultVars, joiningMapping, varsOfJoiningMapping,
-                joinCandidate, varsOfJoinCandidates);
+        return joinCandidate;
       }
     }
     return null;
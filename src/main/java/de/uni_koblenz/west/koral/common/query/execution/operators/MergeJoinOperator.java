@@ -0,0 +1,442 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.execution.operators;
+
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
+import de.uni_koblenz.west.koral.slave.triple_store.impl.MappingIteratorWrapper;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>
+ * Joins two triple patterns that share their subject variable by iterating
+ * over both index ranges of the local triple store in lockstep. In contrast to
+ * {@link TriplePatternJoinOperator}, no join cache is required. Only the
+ * mappings of the left triple pattern with the current subject are buffered.
+ * </p>
+ *
+ * <p>
+ * This operator may only be used, if
+ * <ul>
+ * <li>both index ranges are sorted by the subject (see
+ * {@link #isApplicable(QueryOperatorTask, QueryOperatorTask)}),</li>
+ * <li>the triple store sorts its keys as unsigned byte arrays, i.e., it is not
+ * persisted in memory and</li>
+ * <li>all triples with the same subject are stored on the owner of the
+ * subject, e.g., if the graph is loaded with the hash cover.</li>
+ * </ul>
+ * Each slave only emits the joined mappings of those subjects it owns. Thereby,
+ * replicated triples do not result in duplicates.
+ * </p>
+ */
+public class MergeJoinOperator extends QueryOperatorBase {
+
+  private final TriplePattern leftPattern;
+
+  private final TriplePattern rightPattern;
+
+  private final TripleStoreAccessor tripleStore;
+
+  private final long[] resultVars;
+
+  private final long[] joinVars;
+
+  private Iterator<Mapping> leftIterator;
+
+  private Iterator<Mapping> rightIterator;
+
+  /**
+   * all left mappings with the subject {@link #currentSubject}
+   */
+  private final List<Mapping> leftGroup;
+
+  private long currentSubject;
+
+  /**
+   * the first left mapping that is not part of {@link #leftGroup}
+   */
+  private Mapping nextLeftMapping;
+
+  private Mapping nextRightMapping;
+
+  private boolean isFinished;
+
+  public MergeJoinOperator(long id, long coordinatorId, int numberOfSlaves, int cacheSize,
+          File cacheDirectory, int emittedMappingsPerRound, TriplePattern leftPattern,
+          TriplePattern rightPattern, TripleStoreAccessor tripleStore) {
+    super(id, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory, emittedMappingsPerRound);
+    this.leftPattern = leftPattern;
+    this.rightPattern = rightPattern;
+    this.tripleStore = tripleStore;
+    leftGroup = new ArrayList<>();
+    joinVars = MergeJoinOperator.computeJoinVars(leftPattern, rightPattern);
+    resultVars = MergeJoinOperator.computeResultVars(leftPattern, rightPattern);
+  }
+
+  public MergeJoinOperator(short slaveId, int queryId, short taskId, long coordinatorId,
+          int numberOfSlaves, int cacheSize, File cacheDirectory, int emittedMappingsPerRound,
+          TriplePattern leftPattern, TriplePattern rightPattern, TripleStoreAccessor tripleStore) {
+    super(slaveId, queryId, taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound);
+    this.leftPattern = leftPattern;
+    this.rightPattern = rightPattern;
+    this.tripleStore = tripleStore;
+    leftGroup = new ArrayList<>();
+    joinVars = MergeJoinOperator.computeJoinVars(leftPattern, rightPattern);
+    resultVars = MergeJoinOperator.computeResultVars(leftPattern, rightPattern);
+  }
+
+  /**
+   * @param left
+   * @param right
+   * @return <code>true</code> if both operators are triple pattern matches with
+   *         the same subject variable whose index ranges are sorted by the
+   *         subject and that are looked up in a single index range
+   */
+  public static boolean isApplicable(QueryOperatorTask left, QueryOperatorTask right) {
+    if (!(left instanceof TriplePatternMatchOperator)
+            || !(right instanceof TriplePatternMatchOperator)
+            || (((TriplePatternMatchOperator) left).getLookupPatterns() != null)
+            || (((TriplePatternMatchOperator) right).getLookupPatterns() != null)) {
+      return false;
+    }
+    TriplePattern leftPattern = ((TriplePatternMatchOperator) left).getTriplePattern();
+    TriplePattern rightPattern = ((TriplePatternMatchOperator) right).getTriplePattern();
+    return leftPattern.isSubjectVariable() && rightPattern.isSubjectVariable()
+            && (leftPattern.getSubject() == rightPattern.getSubject())
+            && MergeJoinOperator.isSortedBySubject(leftPattern)
+            && MergeJoinOperator.isSortedBySubject(rightPattern);
+  }
+
+  /**
+   * @param pattern
+   * @return <code>true</code> if the subject is the first unbound position of
+   *         the index used to look up <code>pattern</code>
+   */
+  private static boolean isSortedBySubject(TriplePattern pattern) {
+    switch (pattern.getType()) {
+      case ___:
+        // spo
+      case __O:
+        // osp
+      case _PO:
+        // pos
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static long[] computeJoinVars(TriplePattern leftPattern, TriplePattern rightPattern) {
+    long[] leftVars = leftPattern.getVariables();
+    long[] rightVars = rightPattern.getVariables();
+    long[] joinVars = new long[Math.min(leftVars.length, rightVars.length)];
+    int numberOfJoinVars = 0;
+    for (long leftVar : leftVars) {
+      for (long rightVar : rightVars) {
+        if (leftVar == rightVar) {
+          joinVars[numberOfJoinVars++] = leftVar;
+          break;
+        }
+      }
+    }
+    joinVars = Arrays.copyOf(joinVars, numberOfJoinVars);
+    Arrays.sort(joinVars);
+    return joinVars;
+  }
+
+  private static long[] computeResultVars(TriplePattern leftPattern, TriplePattern rightPattern) {
+    long[] leftVars = leftPattern.getVariables();
+    long[] rightVars = rightPattern.getVariables();
+    long[] allVars = new long[leftVars.length + rightVars.length];
+    System.arraycopy(leftVars, 0, allVars, 0, leftVars.length);
+    System.arraycopy(rightVars, 0, allVars, leftVars.length, rightVars.length);
+    Arrays.sort(allVars);
+    int numberOfResultVars = 0;
+    for (int i = 0; i < allVars.length; i++) {
+      if ((i == 0) || (allVars[i - 1] != allVars[i])) {
+        allVars[numberOfResultVars++] = allVars[i];
+      }
+    }
+    return Arrays.copyOf(allVars, numberOfResultVars);
+  }
+
+  @Override
+  public long computeEstimatedLoad(GraphStatistics statistics, int slave, boolean setLoads) {
+    long load = 0;
+    if ((TriplePatternMatchOperator.computeEstimatedLoad(statistics, leftPattern, slave) != 0)
+            && (TriplePatternMatchOperator.computeEstimatedLoad(statistics, rightPattern,
+                    slave) != 0)) {
+      // estimated like the corresponding TriplePatternJoinOperator
+      load = computeTotalEstimatedLoad(statistics) / statistics.getNumberOfChunks();
+      if (load == 0) {
+        load = 1;
+      }
+    }
+    if (setLoads) {
+      setEstimatedWorkLoad(load);
+    }
+    return load;
+  }
+
+  @Override
+  public long computeTotalEstimatedLoad(GraphStatistics statistics) {
+    long leftLoad = TriplePatternMatchOperator.computeEstimatedLoad(statistics, leftPattern, -1);
+    if (leftLoad == 0) {
+      return 0;
+    }
+    long rightLoad = TriplePatternMatchOperator.computeEstimatedLoad(statistics, rightPattern,
+            -1);
+    if (rightLoad == 0) {
+      return 0;
+    }
+    double selectivity =
+            statistics.estimateJoinSelectivity(leftPattern, rightPattern, leftPattern.getSubject());
+    if (selectivity >= 0) {
+      return Math.round(selectivity * leftLoad * rightLoad);
+    }
+    // the subjects are assumed to be distinct in the larger input
+    return Math.min(leftLoad, rightLoad);
+  }
+
+  @Override
+  public long[] getResultVariables() {
+    return resultVars;
+  }
+
+  @Override
+  public long getFirstJoinVar() {
+    return leftPattern.getSubject();
+  }
+
+  @Override
+  public long getCurrentTaskLoad() {
+    if ((tripleStore == null) || (getEstimatedTaskLoad() == 0) || isFinished) {
+      return 0;
+    } else {
+      return getEmittedMappingsPerRound();
+    }
+  }
+
+  @Override
+  protected void executeOperationStep() {
+    startWorkTime();
+    if ((getEstimatedTaskLoad() == 0) || (tripleStore == null)) {
+      return;
+    }
+    if (leftIterator == null) {
+      leftIterator = tripleStore.lookup(recycleCache, leftPattern).iterator();
+      rightIterator = tripleStore.lookup(recycleCache, rightPattern).iterator();
+    }
+    long[] leftVars = leftPattern.getVariables();
+    long[] rightVars = rightPattern.getVariables();
+    long subjectVar = leftPattern.getSubject();
+    int numberOfEmittedMappings = 0;
+    while (!isFinished && (numberOfEmittedMappings < getEmittedMappingsPerRound())) {
+      if (nextRightMapping == null) {
+        if (!rightIterator.hasNext()) {
+          isFinished = true;
+          break;
+        }
+        nextRightMapping = rightIterator.next();
+      }
+      long rightSubject = nextRightMapping.getValue(subjectVar, rightVars);
+      int comparison = leftGroup.isEmpty() ? -1
+              : Long.compareUnsigned(currentSubject, rightSubject);
+      if (comparison == 0) {
+        if (isOwner(rightSubject)) {
+          for (Mapping leftMapping : leftGroup) {
+            if (areJoinVarValuesEqual(leftMapping, leftVars, nextRightMapping, rightVars)) {
+              emitMapping(recycleCache.mergeMappings(resultVars, leftMapping, leftVars,
+                      nextRightMapping, rightVars));
+              numberOfEmittedMappings++;
+            }
+          }
+        }
+        recycleCache.releaseMapping(nextRightMapping);
+        nextRightMapping = null;
+      } else if (comparison > 0) {
+        // there is no left mapping with this subject
+        recycleCache.releaseMapping(nextRightMapping);
+        nextRightMapping = null;
+      } else if (!fillLeftGroup(rightSubject, leftVars, subjectVar)) {
+        isFinished = true;
+      }
+    }
+    startIdleTime();
+  }
+
+  /**
+   * Replaces {@link #leftGroup} by all left mappings with the smallest subject
+   * that is not smaller than <code>minSubject</code>.
+   *
+   * @param minSubject
+   * @param leftVars
+   * @param subjectVar
+   * @return <code>false</code> if no such left mapping exists
+   */
+  private boolean fillLeftGroup(long minSubject, long[] leftVars, long subjectVar) {
+    releaseLeftGroup();
+    if ((nextLeftMapping == null) && leftIterator.hasNext()) {
+      nextLeftMapping = leftIterator.next();
+    }
+    // skip all left mappings with a smaller subject
+    while ((nextLeftMapping != null) && (Long
+            .compareUnsigned(nextLeftMapping.getValue(subjectVar, leftVars), minSubject) < 0)) {
+      recycleCache.releaseMapping(nextLeftMapping);
+      nextLeftMapping = leftIterator.hasNext() ? leftIterator.next() : null;
+    }
+    if (nextLeftMapping == null) {
+      return false;
+    }
+    currentSubject = nextLeftMapping.getValue(subjectVar, leftVars);
+    while ((nextLeftMapping != null)
+            && (nextLeftMapping.getValue(subjectVar, leftVars) == currentSubject)) {
+      leftGroup.add(nextLeftMapping);
+      nextLeftMapping = leftIterator.hasNext() ? leftIterator.next() : null;
+    }
+    return true;
+  }
+
+  private boolean isOwner(long subject) {
+    int owner = ((int) (subject >>> (Short.SIZE + Integer.SIZE))) + 1;
+    return owner == (int) (getID() >>> (Short.SIZE + Integer.SIZE));
+  }
+
+  private boolean areJoinVarValuesEqual(Mapping mapping1, long[] vars1, Mapping mapping2,
+          long[] vars2) {
+    for (long var : joinVars) {
+      if (mapping1.getValue(var, vars1) != mapping2.getValue(var, vars2)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void releaseLeftGroup() {
+    for (Mapping mapping : leftGroup) {
+      recycleCache.releaseMapping(mapping);
+    }
+    leftGroup.clear();
+  }
+
+  @Override
+  protected boolean isFinishedLocally() {
+    return (getEstimatedTaskLoad() == 0) || (tripleStore == null) || isFinished;
+  }
+
+  @Override
+  protected void closeInternal() {
+    if (recycleCache != null) {
+      releaseLeftGroup();
+      if (nextLeftMapping != null) {
+        recycleCache.releaseMapping(nextLeftMapping);
+        nextLeftMapping = null;
+      }
+      if (nextRightMapping != null) {
+        recycleCache.releaseMapping(nextRightMapping);
+        nextRightMapping = null;
+      }
+    }
+    if (leftIterator instanceof MappingIteratorWrapper) {
+      ((MappingIteratorWrapper) leftIterator).close();
+    }
+    if (rightIterator instanceof MappingIteratorWrapper) {
+      ((MappingIteratorWrapper) rightIterator).close();
+    }
+  }
+
+  @Override
+  public void serialize(DataOutputStream output, boolean useBaseImplementation, int slaveId)
+          throws IOException {
+    if (getParentTask() == null) {
+      output.writeBoolean(useBaseImplementation);
+      output.writeLong(getCoordinatorID());
+    }
+    output.writeInt(QueryOperatorType.MERGE_JOIN.ordinal());
+    output.writeLong(getIdOnSlave(slaveId));
+    output.writeInt(getEmittedMappingsPerRound());
+    output.writeLong(getEstimatedTaskLoad());
+    for (TriplePattern pattern : new TriplePattern[] { leftPattern, rightPattern }) {
+      output.writeInt(pattern.getType().ordinal());
+      output.writeLong(pattern.getSubject());
+      output.writeLong(pattern.getProperty());
+      output.writeLong(pattern.getObject());
+    }
+  }
+
+  @Override
+  public void toString(StringBuilder sb, int indention) {
+    indent(sb, indention);
+    sb.append(getClass().getSimpleName());
+    sb.append(" left: ");
+    appendPattern(sb, leftPattern);
+    sb.append(" right: ");
+    appendPattern(sb, rightPattern);
+    sb.append(" resultVars: [");
+    String delim = "";
+    for (long var : resultVars) {
+      sb.append(delim).append(var);
+      delim = ",";
+    }
+    sb.append("]");
+    sb.append(" estimatedWorkLoad: ").append(getEstimatedTaskLoad());
+    sb.append("\n");
+  }
+
+  private void appendPattern(StringBuilder sb, TriplePattern pattern) {
+    sb.append("<");
+    sb.append(pattern.isSubjectVariable() ? "?" : "").append(pattern.getSubject());
+    sb.append(" ").append(pattern.isPropertyVariable() ? "?" : "").append(pattern.getProperty());
+    sb.append(" ").append(pattern.isObjectVariable() ? "?" : "").append(pattern.getObject());
+    sb.append(">");
+  }
+
+  @Override
+  public String toAlgebraicString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("mergeJoin(");
+    appendAlgebraicPattern(sb, leftPattern);
+    sb.append(",");
+    appendAlgebraicPattern(sb, rightPattern);
+    sb.append(")");
+    return sb.toString();
+  }
+
+  private void appendAlgebraicPattern(StringBuilder sb, TriplePattern pattern) {
+    sb.append("match(");
+    sb.append(pattern.isSubjectVariable() ? "?" : "").append(pattern.getSubject());
+    sb.append(",");
+    sb.append(pattern.isPropertyVariable() ? "?" : "").append(pattern.getProperty());
+    sb.append(",");
+    sb.append(pattern.isObjectVariable() ? "?" : "").append(pattern.getObject());
+    sb.append(")");
+  }
+
+}
@@ -18,7 +18,7 @@
  */
 package de.uni_koblenz.west.koral.common.query.execution.operators;
 
-import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
@@ -38,6 +38,10 @@ public class ProjectionOperator extends QueryOperatorBase {
 
   private final long[] resultVars;
 
+  private MappingBatch inputBatch;
+
+  private MappingBatch outputBatch;
+
   public ProjectionOperator(long id, long coordinatorId, int numberOfSlaves, int cacheSize,
           File cacheDirectory, int emittedMappingsPerRound, long[] resultVars,
           QueryOperatorTask subOperation) {
@@ -99,14 +103,14 @@ public class ProjectionOperator extends QueryOperatorBase {
   @Override
   protected void executeOperationStep() {
     startWorkTime();
-    for (int i = 0; (i < getEmittedMappingsPerRound()) && !isInputQueueEmpty(0); i++) {
-      Mapping mapping = consumeMapping(0);
-      if (mapping != null) {
-        Mapping result = recycleCache.getMappingWithRestrictedVariables(mapping,
-                ((QueryOperatorBase) getChildTask(0)).getResultVariables(), resultVars);
-        emitMapping(result);
-        recycleCache.releaseMapping(mapping);
-      }
+    if (inputBatch == null) {
+      inputBatch = createMappingBatch(((QueryOperatorBase) getChildTask(0)).getResultVariables());
+      outputBatch = createMappingBatch(resultVars);
+    }
+    if (consumeMappings(0, inputBatch) > 0) {
+      outputBatch.addProjection(inputBatch);
+      inputBatch.clear();
+      emitMappings(outputBatch);
     }
     startIdleTime();
   }
@@ -18,9 +18,11 @@
  */
 package de.uni_koblenz.west.koral.common.query.execution.operators;
 
+import de.uni_koblenz.west.koral.common.query.Mapping;
 import de.uni_koblenz.west.koral.common.query.execution.QueryExecutionCoordinator;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
 import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
 
 import java.io.DataOutputStream;
@@ -28,9 +30,13 @@ import java.io.File;
 import java.io.IOException;
 
 /**
- * This class represents the result modifier offset and limit. This class is
- * only used for parsing purposes. During the execution this is done by
- * {@link QueryExecutionCoordinator}. Offset is quite useless, since the
+ * This class represents the result modifier offset and limit. The exact offset
+ * and limit are applied by the {@link QueryExecutionCoordinator}. If a limit is
+ * given, each slave executes this operator as root of its query execution tree
+ * and forwards at most offset+limit mappings to the coordinator, since no more
+ * mappings of a single slave can be part of the result. Afterwards, the
+ * operators below it on this slave are stopped. Without limit, this
+ * class is only used for parsing purposes. Offset is quite useless, since the
  * ordering of results cannot be guaranteed to be the same for different
  * executions.
  * 
@@ -43,6 +49,11 @@ public class SliceOperator extends QueryOperatorBase {
 
   private final long length;
 
+  /**
+   * number of mappings that may still be emitted on this computer
+   */
+  private long numberOfRemainingMappings;
+
   public SliceOperator(short slaveId, int queryId, short taskId, long coordinatorId,
           int numberOfSlaves, int cacheSize, File cacheDirectory, int emittedMappingsPerRound,
           QueryOperatorTask subOperation, long offset, long length) {
@@ -51,6 +62,7 @@ public class SliceOperator extends QueryOperatorBase {
     addChildTask(subOperation);
     this.offset = offset;
     this.length = length;
+    numberOfRemainingMappings = (offset > 0 ? offset : 0) + length;
   }
 
   public SliceOperator(long id, long coordinatorId, int numberOfSlaves, int cacheSize,
@@ -60,6 +72,7 @@ public class SliceOperator extends QueryOperatorBase {
     addChildTask(subOperation);
     this.offset = offset;
     this.length = length;
+    numberOfRemainingMappings = (offset > 0 ? offset : 0) + length;
   }
 
   public long getOffset() {
@@ -86,6 +99,14 @@ public class SliceOperator extends QueryOperatorBase {
     return min;
   }
 
+  /**
+   * @return <code>true</code> if the slaves can stop emitting mappings after a
+   *         fixed number of mappings
+   */
+  public boolean isLimited() {
+    return length >= 0;
+  }
+
   @Override
   public void serialize(DataOutputStream output, boolean useBaseImplementation, int slaveId)
           throws IOException {
@@ -93,9 +114,19 @@ public class SliceOperator extends QueryOperatorBase {
       output.writeBoolean(useBaseImplementation);
       output.writeLong(getCoordinatorID());
     }
-    // this class is only used during the parsing process
     QueryOperatorBase subOp = (QueryOperatorBase) getChildTask(0);
+    if (!isLimited()) {
+      // without limit this class is only used during the parsing process
+      subOp.serialize(output, useBaseImplementation, slaveId);
+      return;
+    }
+    output.writeInt(QueryOperatorType.SLICE.ordinal());
     subOp.serialize(output, useBaseImplementation, slaveId);
+    output.writeLong(getIdOnSlave(slaveId));
+    output.writeInt(getEmittedMappingsPerRound());
+    output.writeLong(getEstimatedTaskLoad());
+    output.writeLong(offset);
+    output.writeLong(length);
   }
 
   @Override
@@ -143,8 +174,31 @@ public class SliceOperator extends QueryOperatorBase {
 
   @Override
   protected void executeOperationStep() {
-    throw new UnsupportedOperationException(
-            "The slice operation is performed by the query execution coordinator.");
+    if (!isLimited()) {
+      throw new UnsupportedOperationException(
+              "The slice operation is performed by the query execution coordinator.");
+    }
+    startWorkTime();
+    for (int i = 0; (i < getEmittedMappingsPerRound()) && !isInputQueueEmpty(0); i++) {
+      Mapping mapping = consumeMapping(0);
+      if (mapping == null) {
+        continue;
+      }
+      if (numberOfRemainingMappings > 0) {
+        numberOfRemainingMappings--;
+        emitMapping(mapping);
+        if (numberOfRemainingMappings == 0) {
+          // the local limit is reached, the subtree does not need to compute
+          // further mappings
+          ((QueryOperatorBase) getChildTask(0)).stop();
+        }
+      } else {
+        // the local limit is reached, the remaining mappings are discarded
+        recycleCache.releaseMapping(mapping);
+        i--;
+      }
+    }
+    startIdleTime();
   }
 
   @Override
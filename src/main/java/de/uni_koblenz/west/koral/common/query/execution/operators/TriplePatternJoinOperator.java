@@ -24,12 +24,13 @@ import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
-import de.uni_koblenz.west.koral.common.utils.InMemoryJoinMappingCache;
 import de.uni_koblenz.west.koral.common.utils.JoinMappingCache;
+import de.uni_koblenz.west.koral.common.utils.LongKeyJoinMappingCache;
 import de.uni_koblenz.west.koral.common.utils.MapDBJoinMappingCache;
 import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
 
@@ -67,6 +68,8 @@ public class TriplePatternJoinOperator extends QueryOperatorBase {
 
   private JoinIterator iterator;
 
+  private MappingBatch outputBatch;
+
   /*
    * variables for measurement
    */
@@ -136,10 +139,10 @@ public class TriplePatternJoinOperator extends QueryOperatorBase {
     long[] leftVars = ((QueryOperatorTask) getChildTask(0)).getResultVariables();
     long[] rightVars = ((QueryOperatorTask) getChildTask(1)).getResultVariables();
     if (storageType == MapDBStorageOptions.MEMORY) {
-      leftMappingCache = new InMemoryJoinMappingCache(leftVars, createComparisonOrder(leftVars),
-              joinVars.length);
-      rightMappingCache = new InMemoryJoinMappingCache(rightVars, createComparisonOrder(rightVars),
-              joinVars.length);
+      leftMappingCache = new LongKeyJoinMappingCache(recycleCache, leftVars,
+              createComparisonOrder(leftVars), joinVars.length);
+      rightMappingCache = new LongKeyJoinMappingCache(recycleCache, rightVars,
+              createComparisonOrder(rightVars), joinVars.length);
     } else {
       leftMappingCache = new MapDBJoinMappingCache(storageType, useTransactions,
               writeAsynchronously, cacheType, getCacheDirectory(), recycleCache,
@@ -241,6 +244,23 @@ public class TriplePatternJoinOperator extends QueryOperatorBase {
     if (rightLoad == 0) {
       return 0;
     }
+    if (joinVars.length > 0) {
+      if ((leftChild instanceof TriplePatternMatchOperator)
+              && (rightChild instanceof TriplePatternMatchOperator)) {
+        double selectivity = statistics.estimateJoinSelectivity(
+                ((TriplePatternMatchOperator) leftChild).getTriplePattern(),
+                ((TriplePatternMatchOperator) rightChild).getTriplePattern(), joinVars[0]);
+        if (selectivity >= 0) {
+          return Math.round(selectivity * leftLoad * rightLoad);
+        }
+      }
+      // the values of the join variables are assumed to be distinct in the
+      // larger input, i.e., |left|*|right|/max(|left|,|right|)
+      return Math.min(leftLoad, rightLoad);
+    }
+    if (leftLoad > (Long.MAX_VALUE / rightLoad)) {
+      return Long.MAX_VALUE;
+    }
     return leftLoad * rightLoad;
   }
 
@@ -286,10 +306,15 @@ public class TriplePatternJoinOperator extends QueryOperatorBase {
   }
 
   private void executeJoinStep() {
+    if (outputBatch == null) {
+      outputBatch = createMappingBatch(getResultVariables());
+    }
     for (int i = 0; i < getEmittedMappingsPerRound(); i++) {
       if ((iterator == null) || !iterator.hasNext()) {
         if (iterator != null) {
           numberOfComparisons += iterator.getNumberOfComparisons();
+          // the join caches store copies of the mapping
+          recycleCache.releaseMapping(iterator.getJoiningMapping());
           iterator = null;
         }
         if (shouldConsumefromLeftChild()) {
@@ -335,10 +360,10 @@ public class TriplePatternJoinOperator extends QueryOperatorBase {
         }
         i--;
       } else {
-        Mapping resultMapping = iterator.next();
-        emitMapping(resultMapping);
+        iterator.addNextTo(outputBatch);
       }
     }
+    emitMappings(outputBatch);
   }
 
   private boolean shouldConsumefromLeftChild() {
@@ -430,6 +455,10 @@ public class TriplePatternJoinOperator extends QueryOperatorBase {
 
   @Override
   protected void closeInternal() {
+    if (iterator != null) {
+      recycleCache.releaseMapping(iterator.getJoiningMapping());
+      iterator = null;
+    }
     leftMappingCache.close();
     rightMappingCache.close();
   }
@@ -19,6 +19,7 @@
 package de.uni_koblenz.west.koral.common.query.execution.operators;
 
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorType;
@@ -29,10 +30,15 @@ import de.uni_koblenz.west.koral.slave.triple_store.impl.MappingIteratorWrapper;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
 
 /**
- * Performs the match of a triple pattern.
+ * Performs the match of a triple pattern. If some variables of the triple
+ * pattern are restricted to constants, e.g., by a filter, the triple pattern
+ * is matched by looking up each of its lookup patterns in which these
+ * variables are replaced by one of their constants (see
+ * {@link #setLookupPatterns(TriplePattern[])}).
  * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
@@ -43,8 +49,17 @@ public class TriplePatternMatchOperator extends QueryOperatorBase {
 
   private final TripleStoreAccessor tripleStore;
 
+  /**
+   * if <code>null</code>, {@link #pattern} is looked up
+   */
+  private TriplePattern[] lookupPatterns;
+
+  private int nextLookupPattern;
+
   private Iterator<Mapping> iterator;
 
+  private MappingBatch batch;
+
   public TriplePatternMatchOperator(long id, long coordinatorId, int numberOfSlaves, int cacheSize,
           File cacheDirectory, TriplePattern pattern, int emittedMappingsPerRound,
           TripleStoreAccessor tripleStore) {
@@ -62,9 +77,49 @@ public class TriplePatternMatchOperator extends QueryOperatorBase {
     this.tripleStore = tripleStore;
   }
 
+  /**
+   * @param lookupPatterns
+   *          the patterns whose matches are the matches of this triple
+   *          pattern. They are derived from the triple pattern by replacing
+   *          variables with constants (see
+   *          {@link TriplePattern#bind(long, long)}). An empty array means that
+   *          there is no match. If <code>null</code>, the triple pattern itself
+   *          is looked up.
+   */
+  public void setLookupPatterns(TriplePattern[] lookupPatterns) {
+    this.lookupPatterns = lookupPatterns;
+  }
+
+  public TriplePattern[] getLookupPatterns() {
+    return lookupPatterns;
+  }
+
   @Override
   public long computeEstimatedLoad(GraphStatistics statistics, int slave, boolean setLoads) {
     long load = 0;
+    if (lookupPatterns == null) {
+      load = TriplePatternMatchOperator.computeEstimatedLoad(statistics, pattern, slave);
+    } else {
+      for (TriplePattern lookupPattern : lookupPatterns) {
+        load += TriplePatternMatchOperator.computeEstimatedLoad(statistics, lookupPattern, slave);
+      }
+    }
+    if (setLoads) {
+      setEstimatedWorkLoad(load);
+    }
+    return load;
+  }
+
+  /**
+   * @param statistics
+   * @param pattern
+   * @param slave
+   *          the first slave has id 0, &lt;0 = all slaves
+   * @return the number of triples matching <code>pattern</code>
+   */
+  static long computeEstimatedLoad(GraphStatistics statistics, TriplePattern pattern,
+          int slave) {
+    long load = 0;
     switch (pattern.getType()) {
       case ___:
         long[] loads = statistics.getChunkSizes();
@@ -150,9 +205,6 @@ public class TriplePatternMatchOperator extends QueryOperatorBase {
         }
         break;
     }
-    if (setLoads) {
-      setEstimatedWorkLoad(load);
-    }
     return load;
   }
 
@@ -161,6 +213,10 @@ public class TriplePatternMatchOperator extends QueryOperatorBase {
     return computeEstimatedLoad(statistics, -1);
   }
 
+  public TriplePattern getTriplePattern() {
+    return pattern;
+  }
+
   @Override
   public long[] getResultVariables() {
     return pattern.getVariables();
@@ -202,15 +258,42 @@ public class TriplePatternMatchOperator extends QueryOperatorBase {
       return;
     }
     if (iterator == null) {
-      iterator = tripleStore.lookup(recycleCache, pattern).iterator();
+      if (lookupPatterns == null) {
+        iterator = tripleStore.lookup(recycleCache, pattern).iterator();
+      } else {
+        iterator = Collections.emptyIterator();
+        startNextLookup();
+      }
     }
-    for (int i = 0; (i < getEmittedMappingsPerRound()) && iterator.hasNext(); i++) {
-      Mapping mapping = iterator.next();
-      emitMapping(mapping);
+    if (iterator instanceof MappingIteratorWrapper) {
+      if (batch == null) {
+        batch = createMappingBatch(pattern.getVariables());
+      }
+      ((MappingIteratorWrapper) iterator).next(batch);
+      emitMappings(batch);
+    } else {
+      for (int i = 0; (i < getEmittedMappingsPerRound()) && iterator.hasNext(); i++) {
+        Mapping mapping = iterator.next();
+        emitMapping(mapping);
+      }
     }
+    startNextLookup();
     startIdleTime();
   }
 
+  /**
+   * If the current lookup is finished, the next lookup pattern with matches
+   * is looked up.
+   */
+  private void startNextLookup() {
+    while (!iterator.hasNext() && (lookupPatterns != null)
+            && (nextLookupPattern < lookupPatterns.length)) {
+      closeInternal();
+      TriplePattern lookupPattern = lookupPatterns[nextLookupPattern++];
+      iterator = tripleStore.lookup(recycleCache, lookupPattern, pattern).iterator();
+    }
+  }
+
   @Override
   protected boolean isFinishedLocally() {
     return (getEstimatedTaskLoad() == 0) || (tripleStore == null)
@@ -232,6 +315,17 @@ public class TriplePatternMatchOperator extends QueryOperatorBase {
     output.writeLong(pattern.getSubject());
     output.writeLong(pattern.getProperty());
     output.writeLong(pattern.getObject());
+    if (lookupPatterns == null) {
+      output.writeInt(-1);
+    } else {
+      output.writeInt(lookupPatterns.length);
+      for (TriplePattern lookupPattern : lookupPatterns) {
+        output.writeInt(lookupPattern.getType().ordinal());
+        output.writeLong(lookupPattern.getSubject());
+        output.writeLong(lookupPattern.getProperty());
+        output.writeLong(lookupPattern.getObject());
+      }
+    }
   }
 
   @Override
@@ -243,6 +337,9 @@ public class TriplePatternMatchOperator extends QueryOperatorBase {
     sb.append(" ").append(pattern.isPropertyVariable() ? "?" : "").append(pattern.getProperty());
     sb.append(" ").append(pattern.isObjectVariable() ? "?" : "").append(pattern.getObject());
     sb.append(">");
+    if (lookupPatterns != null) {
+      sb.append(" lookupPatterns: ").append(lookupPatterns.length);
+    }
     sb.append(" estimatedWorkLoad: ").append(getEstimatedTaskLoad());
     sb.append("\n");
   }
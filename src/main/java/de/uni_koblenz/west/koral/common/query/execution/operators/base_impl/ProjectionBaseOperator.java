@@ -19,6 +19,7 @@
 package de.uni_koblenz.west.koral.common.query.execution.operators.base_impl;
 
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
 import de.uni_koblenz.west.koral.common.query.execution.operators.ProjectionOperator;
 
@@ -54,4 +55,9 @@ public class ProjectionBaseOperator extends ProjectionOperator {
     }
   }
 
+  @Override
+  protected void emitMappings(MappingBatch batch) {
+    emitMappingsSeparately(batch);
+  }
+
 }
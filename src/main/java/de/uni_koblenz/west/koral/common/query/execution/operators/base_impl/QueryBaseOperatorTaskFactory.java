@@ -23,6 +23,10 @@ import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTaskFactoryBase;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationFunction;
+import de.uni_koblenz.west.koral.common.query.execution.operators.DistinctOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.FilterOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.GroupOperator;
 import de.uni_koblenz.west.koral.common.query.execution.operators.SliceOperator;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 
@@ -56,6 +60,13 @@ public class QueryBaseOperatorTaskFactory extends QueryOperatorTaskFactoryBase {
             useTransactions, writeAsynchronously, cacheType);
   }
 
+  @Override
+  public QueryOperatorTask createMergeJoin(long taskId, int emittedMappingsPerRound,
+          TriplePattern leftPattern, TriplePattern rightPattern, TripleStoreAccessor tripleStore) {
+    throw new UnsupportedOperationException(
+            "The base implementation does not provide merge joins.");
+  }
+
   @Override
   public QueryOperatorTask createProjection(long taskId, int emittedMappingsPerRound,
           long[] resultVars, QueryOperatorTask subOperation) {
@@ -70,4 +81,30 @@ public class QueryBaseOperatorTaskFactory extends QueryOperatorTaskFactoryBase {
             emittedMappingsPerRound, subOperation, offset, length);
   }
 
+  @Override
+  public QueryOperatorTask createFilter(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, String expression, long[] filterVars,
+          String[] filterVarNames) {
+    return new FilterOperator(taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound, subOperation, expression, filterVars, filterVarNames);
+  }
+
+  @Override
+  public QueryOperatorTask createDistinct(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, MapDBStorageOptions storageType, boolean useTransactions,
+          boolean writeAsynchronously, MapDBCacheOptions cacheType) {
+    return new DistinctOperator(taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound, subOperation, storageType, useTransactions,
+            writeAsynchronously, cacheType);
+  }
+
+  @Override
+  public QueryOperatorTask createGroup(long taskId, int emittedMappingsPerRound,
+          QueryOperatorTask subOperation, long[] groupVars, AggregationFunction[] functions,
+          long[] aggregatedVars, long[] aggregateVars, long partitioningVar) {
+    return new GroupOperator(taskId, coordinatorId, numberOfSlaves, cacheSize, cacheDirectory,
+            emittedMappingsPerRound, subOperation, groupVars, functions, aggregatedVars,
+            aggregateVars, partitioningVar);
+  }
+
 }
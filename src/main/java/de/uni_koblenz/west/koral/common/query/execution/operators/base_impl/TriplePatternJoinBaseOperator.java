@@ -21,6 +21,7 @@ package de.uni_koblenz.west.koral.common.query.execution.operators.base_impl;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
 import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternJoinOperator;
 
@@ -61,4 +62,9 @@ public class TriplePatternJoinBaseOperator extends TriplePatternJoinOperator {
     }
   }
 
+  @Override
+  protected void emitMappings(MappingBatch batch) {
+    emitMappingsSeparately(batch);
+  }
+
 }
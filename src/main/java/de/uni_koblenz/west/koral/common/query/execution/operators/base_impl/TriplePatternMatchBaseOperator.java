@@ -19,6 +19,7 @@
 package de.uni_koblenz.west.koral.common.query.execution.operators.base_impl;
 
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
 import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternMatchOperator;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
@@ -55,4 +56,9 @@ public class TriplePatternMatchBaseOperator extends TriplePatternMatchOperator {
     }
   }
 
+  @Override
+  protected void emitMappings(MappingBatch batch) {
+    emitMappingsSeparately(batch);
+  }
+
 }
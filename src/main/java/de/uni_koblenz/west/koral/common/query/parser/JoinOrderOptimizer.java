@@ -0,0 +1,306 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.query.parser;
+
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.TriplePatternType;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternMatchOperator;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+
+/**
+ * <p>
+ * Determines the order in which the triple patterns of a BGP are joined such
+ * that the sum of the estimated sizes of all intermediate results is minimal.
+ * BGPs with up to {@link #MAX_NUMBER_OF_TRIPLE_PATTERNS_FOR_DYNAMIC_PROGRAMMING}
+ * triple patterns are ordered by dynamic programming over all (bushy) join
+ * trees. Larger BGPs are ordered greedily by always joining the two subtrees
+ * with the smallest estimated join result.
+ * </p>
+ *
+ * <p>
+ * The size of a triple pattern match is estimated by the
+ * {@link GraphStatistics}. If join statistics are available, the size of a
+ * join is estimated by the selectivity of the joined property pairs and the
+ * size of a subject star by the characteristic sets. Otherwise, the number of
+ * distinct values of a variable is estimated by the size of the smallest
+ * triple pattern match that binds it and the size of a join is estimated as
+ * |left|*|right|/max(distinct(v)) for each join variable v. Cartesian products
+ * are only created, if the BGP is not connected.
+ * </p>
+ */
+class JoinOrderOptimizer {
+
+  static final int MAX_NUMBER_OF_TRIPLE_PATTERNS_FOR_DYNAMIC_PROGRAMMING = 10;
+
+  private final GraphStatistics statistics;
+
+  public JoinOrderOptimizer(GraphStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * @param triplePatternMatches
+   * @param joinCreator
+   *          creates the join of its two arguments
+   * @return the root of the join tree
+   */
+  public QueryOperatorTask createJoinTree(List<QueryOperatorTask> triplePatternMatches,
+          BinaryOperator<QueryOperatorTask> joinCreator) {
+    Plan[] leaves = new Plan[triplePatternMatches.size()];
+    for (int i = 0; i < leaves.length; i++) {
+      QueryOperatorTask match = triplePatternMatches.get(i);
+      leaves[i] = new Plan(i, ((TriplePatternMatchOperator) match).getTriplePattern(),
+              ((QueryOperatorBase) match).computeTotalEstimatedLoad(statistics));
+    }
+    Plan plan = null;
+    if (leaves.length <= JoinOrderOptimizer.MAX_NUMBER_OF_TRIPLE_PATTERNS_FOR_DYNAMIC_PROGRAMMING) {
+      plan = orderByDynamicProgramming(leaves);
+    } else {
+      plan = orderGreedily(leaves);
+    }
+    return plan.createTree(triplePatternMatches, joinCreator);
+  }
+
+  private Plan orderByDynamicProgramming(Plan[] leaves) {
+    int[] neighbours = new int[leaves.length];
+    for (int i = 0; i < leaves.length; i++) {
+      for (int j = 0; j < leaves.length; j++) {
+        if ((i != j) && leaves[i].isJoinableWith(leaves[j])) {
+          neighbours[i] |= 1 << j;
+        }
+      }
+    }
+    Plan[] bestPlans = new Plan[1 << leaves.length];
+    boolean[] isConnected = new boolean[bestPlans.length];
+    for (int set = 1; set < bestPlans.length; set++) {
+      isConnected[set] = isConnected(set, neighbours);
+      if (Integer.bitCount(set) == 1) {
+        bestPlans[set] = leaves[Integer.numberOfTrailingZeros(set)];
+        continue;
+      }
+      // each split is considered once, since the lowest pattern is always left
+      int lowestPattern = set & -set;
+      for (int left = (set - 1) & set; left > 0; left = (left - 1) & set) {
+        if ((left & lowestPattern) == 0) {
+          continue;
+        }
+        int right = set ^ left;
+        if (isConnected[set] && (!isConnected[left] || !isConnected[right]
+                || !bestPlans[left].isJoinableWith(bestPlans[right]))) {
+          // avoid cartesian products
+          continue;
+        }
+        Plan plan = new Plan(bestPlans[left], bestPlans[right]);
+        if ((bestPlans[set] == null) || (plan.cost < bestPlans[set].cost)) {
+          bestPlans[set] = plan;
+        }
+      }
+    }
+    return bestPlans[bestPlans.length - 1];
+  }
+
+  private boolean isConnected(int set, int[] neighbours) {
+    int reached = set & -set;
+    int previouslyReached = 0;
+    while (reached != previouslyReached) {
+      previouslyReached = reached;
+      for (int remaining = reached; remaining != 0; remaining &= remaining - 1) {
+        reached |= neighbours[Integer.numberOfTrailingZeros(remaining)] & set;
+      }
+    }
+    return reached == set;
+  }
+
+  private Plan orderGreedily(Plan[] leaves) {
+    List<Plan> plans = new ArrayList<>();
+    for (Plan leaf : leaves) {
+      plans.add(leaf);
+    }
+    while (plans.size() > 1) {
+      Plan bestJoin = null;
+      int bestLeft = -1;
+      int bestRight = -1;
+      for (int i = 0; i < plans.size(); i++) {
+        for (int j = i + 1; j < plans.size(); j++) {
+          Plan left = plans.get(i);
+          Plan right = plans.get(j);
+          if ((bestJoin != null) && !bestJoin.isCartesianProduct
+                  && !left.isJoinableWith(right)) {
+            // avoid cartesian products
+            continue;
+          }
+          Plan join = new Plan(left, right);
+          if ((bestJoin == null) || (bestJoin.isCartesianProduct && !join.isCartesianProduct)
+                  || (join.cardinality < bestJoin.cardinality)) {
+            bestJoin = join;
+            bestLeft = i;
+            bestRight = j;
+          }
+        }
+      }
+      plans.remove(bestRight);
+      plans.set(bestLeft, bestJoin);
+    }
+    return plans.get(0);
+  }
+
+  /**
+   * A (partial) join tree together with its estimated result size.
+   */
+  private class Plan {
+
+    private final int triplePattern;
+
+    private final List<TriplePattern> triplePatterns;
+
+    private final Plan left;
+
+    private final Plan right;
+
+    private final boolean isCartesianProduct;
+
+    private final double cardinality;
+
+    private final double cost;
+
+    private final Map<Long, Double> numberOfDistinctValues;
+
+    public Plan(int triplePattern, TriplePattern pattern, long cardinality) {
+      this.triplePattern = triplePattern;
+      triplePatterns = Collections.singletonList(pattern);
+      left = null;
+      right = null;
+      isCartesianProduct = false;
+      this.cardinality = cardinality;
+      cost = cardinality;
+      numberOfDistinctValues = new HashMap<>();
+      for (long var : pattern.getVariables()) {
+        numberOfDistinctValues.put(var, this.cardinality);
+      }
+    }
+
+    public Plan(Plan left, Plan right) {
+      triplePattern = -1;
+      this.left = left;
+      this.right = right;
+      triplePatterns = new ArrayList<>(left.triplePatterns);
+      triplePatterns.addAll(right.triplePatterns);
+      numberOfDistinctValues = new HashMap<>(left.numberOfDistinctValues);
+      double cardinality = left.cardinality * right.cardinality;
+      boolean isCartesianProduct = true;
+      for (Map.Entry<Long, Double> entry : right.numberOfDistinctValues.entrySet()) {
+        Double leftDistinctValues = numberOfDistinctValues.get(entry.getKey());
+        if (leftDistinctValues == null) {
+          numberOfDistinctValues.put(entry.getKey(), entry.getValue());
+        } else {
+          isCartesianProduct = false;
+          double selectivity = estimateSelectivity(left, right, entry.getKey());
+          if (selectivity >= 0) {
+            cardinality *= selectivity;
+          } else {
+            cardinality /= Math.max(1, Math.max(leftDistinctValues, entry.getValue()));
+          }
+          numberOfDistinctValues.put(entry.getKey(),
+                  Math.min(leftDistinctValues, entry.getValue()));
+        }
+      }
+      double starSize = estimateStarSize();
+      if (starSize >= 0) {
+        cardinality = starSize;
+      }
+      for (Map.Entry<Long, Double> entry : numberOfDistinctValues.entrySet()) {
+        if (entry.getValue() > cardinality) {
+          entry.setValue(cardinality);
+        }
+      }
+      this.isCartesianProduct = isCartesianProduct;
+      this.cardinality = cardinality;
+      cost = left.cost + right.cost + cardinality;
+    }
+
+    /**
+     * @return the smallest selectivity of the property pairs of both plans
+     *         joined on joinVar or -1 if it cannot be estimated
+     */
+    private double estimateSelectivity(Plan left, Plan right, long joinVar) {
+      double selectivity = -1;
+      for (TriplePattern leftPattern : left.triplePatterns) {
+        for (TriplePattern rightPattern : right.triplePatterns) {
+          double pairSelectivity = statistics.estimateJoinSelectivity(leftPattern, rightPattern,
+                  joinVar);
+          if ((pairSelectivity >= 0)
+                  && ((selectivity < 0) || (pairSelectivity < selectivity))) {
+            selectivity = pairSelectivity;
+          }
+        }
+      }
+      return selectivity;
+    }
+
+    /**
+     * @return the size of the plan estimated by the characteristic sets, if it
+     *         is a subject star with constant properties and distinct object
+     *         variables, or -1 otherwise
+     */
+    private double estimateStarSize() {
+      long[] properties = new long[triplePatterns.size()];
+      Set<Long> objects = new HashSet<>();
+      for (int i = 0; i < properties.length; i++) {
+        TriplePattern pattern = triplePatterns.get(i);
+        if ((pattern.getType() != TriplePatternType._P_)
+                || (pattern.getSubject() != triplePatterns.get(0).getSubject())
+                || (pattern.getObject() == pattern.getSubject())
+                || !objects.add(pattern.getObject())) {
+          return -1;
+        }
+        properties[i] = pattern.getProperty();
+      }
+      return statistics.estimateSubjectStarSize(properties);
+    }
+
+    public boolean isJoinableWith(Plan other) {
+      for (Long var : other.numberOfDistinctValues.keySet()) {
+        if (numberOfDistinctValues.containsKey(var)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    public QueryOperatorTask createTree(List<QueryOperatorTask> triplePatternMatches,
+            BinaryOperator<QueryOperatorTask> joinCreator) {
+      if (triplePattern >= 0) {
+        return triplePatternMatches.get(triplePattern);
+      }
+      return joinCreator.apply(left.createTree(triplePatternMatches, joinCreator),
+              right.createTree(triplePatternMatches, joinCreator));
+    }
+
+  }
+
+}
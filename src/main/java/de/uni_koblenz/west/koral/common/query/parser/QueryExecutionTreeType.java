@@ -26,6 +26,12 @@ package de.uni_koblenz.west.koral.common.query.parser;
  */
 public enum QueryExecutionTreeType {
 
-  LEFT_LINEAR, RIGHT_LINEAR, BUSHY;
+  LEFT_LINEAR, RIGHT_LINEAR, BUSHY,
+
+  /**
+   * The join order is determined by a {@link JoinOrderOptimizer} based on the
+   * graph statistics.
+   */
+  COST_BASED;
 
 }
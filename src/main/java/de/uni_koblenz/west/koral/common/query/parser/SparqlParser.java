@@ -60,7 +60,30 @@ import org.apache.jena.sparql.algebra.op.OpTopN;
 import org.apache.jena.sparql.algebra.op.OpTriple;
 import org.apache.jena.sparql.algebra.op.OpUnion;
 import org.apache.jena.sparql.core.Var;
-
+import org.apache.jena.sparql.core.VarExprList;
+import org.apache.jena.sparql.expr.E_Equals;
+import org.apache.jena.sparql.expr.E_LogicalAnd;
+import org.apache.jena.sparql.expr.E_LogicalOr;
+import org.apache.jena.sparql.expr.E_OneOf;
+import org.apache.jena.sparql.expr.E_SameTerm;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprAggregator;
+import org.apache.jena.sparql.expr.ExprFunction;
+import org.apache.jena.sparql.expr.ExprFunction2;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.expr.ExprVars;
+import org.apache.jena.sparql.expr.aggregate.AggAvg;
+import org.apache.jena.sparql.expr.aggregate.AggCount;
+import org.apache.jena.sparql.expr.aggregate.AggCountVar;
+import org.apache.jena.sparql.expr.aggregate.AggMax;
+import org.apache.jena.sparql.expr.aggregate.AggMaxDistinct;
+import org.apache.jena.sparql.expr.aggregate.AggMin;
+import org.apache.jena.sparql.expr.aggregate.AggMinDistinct;
+import org.apache.jena.sparql.expr.aggregate.AggSum;
+import org.apache.jena.sparql.expr.aggregate.Aggregator;
+import org.apache.jena.sparql.util.ExprUtils;
+
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
@@ -68,7 +91,11 @@ import de.uni_koblenz.west.koral.common.query.TriplePatternType;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTaskFactoryBase;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationFunction;
 import de.uni_koblenz.west.koral.common.query.execution.operators.DefaultQueryOperatorTaskFactory;
+import de.uni_koblenz.west.koral.common.query.execution.operators.GroupOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.MergeJoinOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternMatchOperator;
 import de.uni_koblenz.west.koral.common.query.execution.operators.base_impl.QueryBaseOperatorTaskFactory;
 import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
 import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
@@ -76,11 +103,17 @@ import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 
 import java.io.File;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 /**
  * Checks whether the query only consists of the supported operations and
@@ -119,6 +152,22 @@ public class SparqlParser implements OpVisitor {
 
   private final GraphStatistics statistics;
 
+  private boolean useMergeJoins;
+
+  private DictionaryShardType dictionaryShardType;
+
+  /**
+   * the constants to which the variables of the currently visited BGP are
+   * restricted by equality or IN filters
+   */
+  private Map<Long, long[]> variableBindings;
+
+  /**
+   * the filter expressions of the currently visited BGP that have not been
+   * applied, yet
+   */
+  private List<Expr> bgpFilters;
+
   public SparqlParser(DictionaryEncoder dictionary, GraphStatistics statistics,
           TripleStoreAccessor tripleStore, short slaveId, int queryId, long coordinatorId,
           int numberOfSlaves, int cacheSize, File cacheDirectory, int emittedMappingsPerRound,
@@ -166,6 +215,27 @@ public class SparqlParser implements OpVisitor {
     return taskFactory instanceof QueryBaseOperatorTaskFactory;
   }
 
+  /**
+   * @param useMergeJoins
+   *          if <code>true</code>, joins of two triple patterns whose index
+   *          ranges are sorted by their common subject are performed by a
+   *          {@link MergeJoinOperator}
+   */
+  public void setUseMergeJoins(boolean useMergeJoins) {
+    this.useMergeJoins = useMergeJoins;
+  }
+
+  /**
+   * @param dictionaryShardType
+   *          the type of the dictionary shards of the slaves. Filters that
+   *          cannot be rewritten into constants of the triple patterns are
+   *          only supported if the slaves can decode the values of the filter
+   *          variables. If <code>null</code>, this is not checked.
+   */
+  public void setDictionaryShardType(DictionaryShardType dictionaryShardType) {
+    this.dictionaryShardType = dictionaryShardType;
+  }
+
   /*
    * http://www.w3.org/TR/sparql11-query/#sparqlDefinition
    * https://jena.apache.org/documentation/query/algebra.html
@@ -220,8 +290,16 @@ public class SparqlParser implements OpVisitor {
             createBushyTree(numberOfTriplePattern);
           }
           break;
+        case COST_BASED:
+          if (!tripleIter.hasNext()) {
+            createCostBasedTree(numberOfTriplePattern);
+          }
+          break;
       }
     }
+    if (bgpFilters != null) {
+      stack.push(applyFilters(stack.pop()));
+    }
   }
 
   private void createBushyTree(int numberOfTriplePattern) {
@@ -247,14 +325,88 @@ public class SparqlParser implements OpVisitor {
     stack.push(nextWorkingQueue.poll());
   }
 
+  /**
+   * Joins the triple patterns in the order estimated to be cheapest by the
+   * {@link JoinOrderOptimizer}. Without statistics, e.g., when the query is
+   * only checked by the client, a left linear tree is created.
+   * 
+   * @param numberOfTriplePattern
+   */
+  private void createCostBasedTree(int numberOfTriplePattern) {
+    LinkedList<QueryOperatorTask> triplePatternMatches = new LinkedList<>();
+    for (int i = 0; i < numberOfTriplePattern; i++) {
+      triplePatternMatches.addFirst(stack.pop());
+    }
+    if (statistics == null) {
+      QueryOperatorTask tree = triplePatternMatches.poll();
+      while (!triplePatternMatches.isEmpty()) {
+        tree = createTriplePatternJoin(tree, triplePatternMatches.poll());
+      }
+      stack.push(tree);
+    } else {
+      stack.push(new JoinOrderOptimizer(statistics).createJoinTree(triplePatternMatches,
+              this::createTriplePatternJoin));
+    }
+  }
+
   private QueryOperatorTask createTriplePatternJoin(QueryOperatorTask left,
           QueryOperatorTask right) {
+    if (useMergeJoins && !isBaseImplementationUsed()
+            && MergeJoinOperator.isApplicable(left, right)) {
+      // the already created triple pattern matches are replaced
+      return applyFilters(taskFactory.createMergeJoin(slaveId, queryId, emittedMappingsPerRound,
+              ((TriplePatternMatchOperator) left).getTriplePattern(),
+              ((TriplePatternMatchOperator) right).getTriplePattern(), tripleStore));
+    }
+    left = applyFilters(left);
+    right = applyFilters(right);
     QueryOperatorTask join = taskFactory.createTriplePatternJoin(slaveId, queryId,
             emittedMappingsPerRound, left, right, storageType, useTransactions, writeAsynchronously,
             cacheType);
     ((QueryOperatorBase) left).setParentTask(join);
     ((QueryOperatorBase) right).setParentTask(join);
-    return join;
+    return applyFilters(join);
+  }
+
+  /**
+   * Evaluates the filters of the currently visited BGP as early as possible,
+   * i.e., directly on top of the first operator that binds all of their
+   * variables.
+   * 
+   * @param task
+   * @return <code>task</code> or the filters applied on <code>task</code>
+   */
+  private QueryOperatorTask applyFilters(QueryOperatorTask task) {
+    if (bgpFilters == null) {
+      return task;
+    }
+    long[] vars = task.getResultVariables();
+    for (Iterator<Expr> iterator = bgpFilters.iterator(); iterator.hasNext();) {
+      Expr filter = iterator.next();
+      if (areAllVariablesBound(filter, vars)) {
+        task = createFilter(task, filter);
+        iterator.remove();
+      }
+    }
+    return task;
+  }
+
+  private boolean areAllVariablesBound(Expr expr, long[] vars) {
+    for (Var var : ExprVars.getVarsMentioned(expr)) {
+      if (!contains(vars, varDictionary.encode(var.getName()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean contains(long[] values, long value) {
+    for (long v : values) {
+      if (v == value) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public void visit(Triple triple) {
@@ -304,9 +456,46 @@ public class SparqlParser implements OpVisitor {
     TriplePattern pattern = new TriplePattern(type, subject, property, object);
     QueryOperatorTask task = taskFactory.createTriplePatternMatch(slaveId, queryId,
             emittedMappingsPerRound, pattern, tripleStore);
+    if (variableBindings != null) {
+      ((TriplePatternMatchOperator) task).setLookupPatterns(createLookupPatterns(pattern));
+    }
     stack.push(task);
   }
 
+  /**
+   * @param pattern
+   * @return the patterns in which each variable restricted by a filter is
+   *         replaced by each of its constants or <code>null</code> if no
+   *         variable of <code>pattern</code> is restricted
+   */
+  private TriplePattern[] createLookupPatterns(TriplePattern pattern) {
+    List<TriplePattern> lookupPatterns = null;
+    for (long var : pattern.getVariables()) {
+      long[] values = variableBindings.get(var);
+      if (values == null) {
+        continue;
+      }
+      if (lookupPatterns == null) {
+        lookupPatterns = new ArrayList<>();
+        lookupPatterns.add(pattern);
+      }
+      List<TriplePattern> boundPatterns = new ArrayList<>();
+      for (TriplePattern lookupPattern : lookupPatterns) {
+        if (!contains(lookupPattern.getVariables(), var)) {
+          // the variable occurs twice in the pattern and is already bound
+          boundPatterns.add(lookupPattern);
+          continue;
+        }
+        for (long value : values) {
+          boundPatterns.add(lookupPattern.bind(var, value));
+        }
+      }
+      lookupPatterns = boundPatterns;
+    }
+    return lookupPatterns == null ? null
+            : lookupPatterns.toArray(new TriplePattern[lookupPatterns.size()]);
+  }
+
   @Override
   public void visit(OpQuadPattern quadPattern) {
     throw new UnsupportedOperationException(
@@ -361,10 +550,204 @@ public class SparqlParser implements OpVisitor {
             "Currently, Koral does not support prop func. Cause:\n" + opPropFunc.toString());
   }
 
+  /**
+   * Equality and IN filters that restrict a variable of a BGP to IRIs are
+   * rewritten into lookups of the triple patterns in which the variable is
+   * replaced by the IRIs. All other filters are evaluated by
+   * {@link de.uni_koblenz.west.koral.common.query.execution.operators.FilterOperator}s
+   * as early as possible.
+   */
   @Override
   public void visit(OpFilter opFilter) {
-    throw new UnsupportedOperationException(
-            "Currently, Koral does not support filter. Cause:\n" + opFilter.toString());
+    List<Expr> filters = new ArrayList<>();
+    for (Expr expr : opFilter.getExprs()) {
+      splitConjunction(expr, filters);
+    }
+    for (Expr filter : filters) {
+      checkIfExpressionIsSupported(filter, opFilter);
+    }
+    if ((opFilter.getSubOp() instanceof OpBGP) && (dictionary != null)) {
+      Set<Long> bgpVars = new HashSet<>();
+      for (Triple triple : ((OpBGP) opFilter.getSubOp()).getPattern().getList()) {
+        for (Node node : new Node[] { triple.getSubject(), triple.getPredicate(),
+                triple.getObject() }) {
+          if (node.isVariable()) {
+            bgpVars.add(varDictionary.encode(node.getName()));
+          }
+        }
+      }
+      variableBindings = extractVariableBindings(filters, bgpVars);
+      bgpFilters = filters;
+      opFilter.getSubOp().visit(this);
+      variableBindings = null;
+      bgpFilters = null;
+    } else {
+      opFilter.getSubOp().visit(this);
+    }
+    // the remaining filters contain variables that are not bound by the BGP
+    QueryOperatorTask task = stack.pop();
+    if (task instanceof GroupOperator) {
+      throw new UnsupportedOperationException(
+              "Currently, Koral does not support having. Cause:\n" + opFilter.toString());
+    }
+    for (Expr filter : filters) {
+      task = createFilter(task, filter);
+    }
+    stack.push(task);
+  }
+
+  private void splitConjunction(Expr expr, List<Expr> conjuncts) {
+    if (expr instanceof E_LogicalAnd) {
+      splitConjunction(((E_LogicalAnd) expr).getArg1(), conjuncts);
+      splitConjunction(((E_LogicalAnd) expr).getArg2(), conjuncts);
+    } else {
+      conjuncts.add(expr);
+    }
+  }
+
+  private void checkIfExpressionIsSupported(Expr expr, OpFilter opFilter) {
+    if (expr instanceof ExprFunctionOp) {
+      throw new UnsupportedOperationException(
+              "Currently, Koral does not support exists in filters. Cause:\n"
+                      + opFilter.toString());
+    } else if (expr instanceof ExprFunction) {
+      for (Expr arg : ((ExprFunction) expr).getArgs()) {
+        checkIfExpressionIsSupported(arg, opFilter);
+      }
+    }
+  }
+
+  /**
+   * Removes all filters from <code>filters</code> that restrict a variable of
+   * the BGP to IRIs.
+   * 
+   * @param filters
+   * @param bgpVars
+   * @return the ids of the IRIs to which each restricted variable is bound
+   */
+  private Map<Long, long[]> extractVariableBindings(List<Expr> filters, Set<Long> bgpVars) {
+    Map<Long, Set<Long>> bindings = new HashMap<>();
+    for (Iterator<Expr> iterator = filters.iterator(); iterator.hasNext();) {
+      Expr filter = iterator.next();
+      Set<Var> mentionedVars = ExprVars.getVarsMentioned(filter);
+      if (mentionedVars.size() != 1) {
+        continue;
+      }
+      Var var = mentionedVars.iterator().next();
+      long varId = varDictionary.encode(var.getName());
+      Set<Node> iris = getBoundIRIs(filter, var);
+      if ((iris == null) || !bgpVars.contains(varId)) {
+        continue;
+      }
+      Set<Long> ids = new HashSet<>();
+      for (Node iri : iris) {
+        long id = dictionary.encode(iri, false, statistics);
+        if (id != 0) {
+          // unknown IRIs have no match
+          ids.add(id);
+        }
+      }
+      Set<Long> previousIds = bindings.get(varId);
+      if (previousIds != null) {
+        ids.retainAll(previousIds);
+      }
+      bindings.put(varId, ids);
+      iterator.remove();
+    }
+    Map<Long, long[]> variableBindings = new HashMap<>();
+    for (Map.Entry<Long, Set<Long>> entry : bindings.entrySet()) {
+      long[] ids = new long[entry.getValue().size()];
+      int i = 0;
+      for (Long id : entry.getValue()) {
+        ids[i++] = id;
+      }
+      Arrays.sort(ids);
+      variableBindings.put(entry.getKey(), ids);
+    }
+    return variableBindings;
+  }
+
+  /**
+   * @param expr
+   * @param var
+   * @return the IRIs to which <code>expr</code> restricts <code>var</code>, if
+   *         it is an equality or IN filter or a disjunction of them and
+   *         <code>null</code> otherwise
+   */
+  private Set<Node> getBoundIRIs(Expr expr, Var var) {
+    if ((expr instanceof E_Equals) || (expr instanceof E_SameTerm)) {
+      Expr arg1 = ((ExprFunction2) expr).getArg1();
+      Expr arg2 = ((ExprFunction2) expr).getArg2();
+      if (arg2.isVariable()) {
+        Expr tmp = arg1;
+        arg1 = arg2;
+        arg2 = tmp;
+      }
+      if (arg1.isVariable() && var.equals(arg1.asVar()) && isIRI(arg2)) {
+        Set<Node> iris = new HashSet<>();
+        iris.add(arg2.getConstant().asNode());
+        return iris;
+      }
+    } else if (expr instanceof E_OneOf) {
+      E_OneOf oneOf = (E_OneOf) expr;
+      if (!oneOf.getLHS().isVariable() || !var.equals(oneOf.getLHS().asVar())) {
+        return null;
+      }
+      Set<Node> iris = new HashSet<>();
+      for (Expr value : oneOf.getRHS()) {
+        if (!isIRI(value)) {
+          return null;
+        }
+        iris.add(value.getConstant().asNode());
+      }
+      return iris;
+    } else if (expr instanceof E_LogicalOr) {
+      Set<Node> iris = getBoundIRIs(((E_LogicalOr) expr).getArg1(), var);
+      Set<Node> otherIris = getBoundIRIs(((E_LogicalOr) expr).getArg2(), var);
+      if ((iris == null) || (otherIris == null)) {
+        return null;
+      }
+      iris.addAll(otherIris);
+      return iris;
+    }
+    return null;
+  }
+
+  private boolean isIRI(Expr expr) {
+    return expr.isConstant() && expr.getConstant().asNode().isURI();
+  }
+
+  private QueryOperatorTask createFilter(QueryOperatorTask subTask, Expr expr) {
+    long[] varsOfChild = subTask.getResultVariables();
+    List<Long> filterVars = new ArrayList<>();
+    List<String> filterVarNames = new ArrayList<>();
+    for (Var var : ExprVars.getVarsMentioned(expr)) {
+      long varId = varDictionary.encode(var.getName());
+      if (contains(varsOfChild, varId)) {
+        filterVars.add(varId);
+        filterVarNames.add(var.getName());
+      }
+    }
+    String expression = ExprUtils.fmtSPARQL(expr);
+    if ((dictionaryShardType != null) && !filterVars.isEmpty()) {
+      if (dictionaryShardType == DictionaryShardType.NONE) {
+        throw new UnsupportedOperationException("The filter " + expression
+                + " can only be evaluated if dictionary shards are sent to the slaves.");
+      } else if ((dictionaryShardType == DictionaryShardType.PARTITIONED)
+              && ((filterVars.size() > 1) || isBaseImplementationUsed())) {
+        throw new UnsupportedOperationException("The filter " + expression
+                + " can only be evaluated with replicated dictionary shards.");
+      }
+    }
+    long[] filterVarIds = new long[filterVars.size()];
+    for (int i = 0; i < filterVarIds.length; i++) {
+      filterVarIds[i] = filterVars.get(i);
+    }
+    QueryOperatorTask filter = taskFactory.createFilter(slaveId, queryId,
+            emittedMappingsPerRound, subTask, expression, filterVarIds,
+            filterVarNames.toArray(new String[filterVarNames.size()]));
+    ((QueryOperatorBase) subTask).setParentTask(filter);
+    return filter;
   }
 
   @Override
@@ -397,10 +780,25 @@ public class SparqlParser implements OpVisitor {
             "Currently, Koral does not support assign. Cause:\n" + opAssign.toString());
   }
 
+  /**
+   * Only extensions that bind the result of an aggregate to a variable of the
+   * select clause are supported.
+   */
   @Override
   public void visit(OpExtend opExtend) {
-    throw new UnsupportedOperationException(
-            "Currently, Koral does not support extend. Cause:\n" + opExtend.toString());
+    opExtend.getSubOp().visit(this);
+    QueryOperatorTask subTask = stack.peek();
+    VarExprList extensions = opExtend.getVarExprList();
+    for (Var var : extensions.getVars()) {
+      Expr expr = extensions.getExpr(var);
+      if (!(subTask instanceof GroupOperator) || !expr.isVariable()
+              || !((GroupOperator) subTask).renameAggregateVariable(
+                      varDictionary.encode(expr.getVarName()),
+                      varDictionary.encode(var.getName()))) {
+        throw new UnsupportedOperationException(
+                "Currently, Koral does not support extend. Cause:\n" + opExtend.toString());
+      }
+    }
   }
 
   @Override
@@ -484,7 +882,11 @@ public class SparqlParser implements OpVisitor {
     QueryOperatorTask subTask = stack.pop();
     QueryOperatorTask projection = taskFactory.createProjection(slaveId, queryId,
             emittedMappingsPerRound, resultVars, subTask);
-    ((QueryOperatorBase) subTask).setParentTask(projection);
+    if (!(subTask instanceof GroupOperator)) {
+      // the operations above the group operation are performed by the
+      // coordinator
+      ((QueryOperatorBase) subTask).setParentTask(projection);
+    }
     long[] varsOfChild = subTask.getResultVariables();
     long[] resultVarsOfProjection = projection.getResultVariables();
     checkIfAllProjectedVariablesAreBound(resultVarsOfProjection, varsOfChild);
@@ -509,16 +911,28 @@ public class SparqlParser implements OpVisitor {
     return true;
   }
 
+  /**
+   * Reduced is performed like distinct.
+   */
   @Override
   public void visit(OpReduced opReduced) {
-    throw new UnsupportedOperationException(
-            "Currently, Koral does not support reduced. Cause:\n" + opReduced.toString());
+    opReduced.getSubOp().visit(this);
+    createDistinct();
   }
 
   @Override
   public void visit(OpDistinct opDistinct) {
-    throw new UnsupportedOperationException(
-            "Currently, Koral does not support distinct. Cause:\n" + opDistinct.toString());
+    opDistinct.getSubOp().visit(this);
+    createDistinct();
+  }
+
+  private void createDistinct() {
+    QueryOperatorTask subTask = stack.pop();
+    QueryOperatorTask distinct = taskFactory.createDistinct(slaveId, queryId,
+            emittedMappingsPerRound, subTask, storageType, useTransactions, writeAsynchronously,
+            cacheType);
+    ((QueryOperatorBase) subTask).setParentTask(distinct);
+    stack.push(distinct);
   }
 
   @Override
@@ -534,10 +948,102 @@ public class SparqlParser implements OpVisitor {
     stack.push(slice);
   }
 
+  /**
+   * The slaves aggregate the mappings of each group partially and the
+   * coordinator merges the partial aggregation states. Only variables can be
+   * grouped and aggregated.
+   */
   @Override
   public void visit(OpGroup opGroup) {
-    throw new UnsupportedOperationException(
-            "Currently, Koral does not support group. Cause:\n" + opGroup.toString());
+    VarExprList groupVarList = opGroup.getGroupVars();
+    for (Var var : groupVarList.getVars()) {
+      if (groupVarList.hasExpr(var)) {
+        throw new UnsupportedOperationException(
+                "Currently, Koral does not support expressions in group by. Cause:\n"
+                        + opGroup.toString());
+      }
+    }
+    opGroup.getSubOp().visit(this);
+    QueryOperatorTask subTask = stack.pop();
+    long[] varsOfChild = subTask.getResultVariables();
+
+    long[] groupVars = new long[groupVarList.size()];
+    int index = 0;
+    for (Var var : groupVarList.getVars()) {
+      groupVars[index++] = encodeBoundVariable(var.getName(), varsOfChild);
+    }
+
+    List<ExprAggregator> aggregators = opGroup.getAggregators();
+    AggregationFunction[] functions = new AggregationFunction[aggregators.size()];
+    long[] aggregatedVars = new long[aggregators.size()];
+    long[] aggregateVars = new long[aggregators.size()];
+    Set<Long> decodedVars = new HashSet<>();
+    for (int i = 0; i < functions.length; i++) {
+      Aggregator aggregator = aggregators.get(i).getAggregator();
+      functions[i] = getAggregationFunction(aggregator, opGroup);
+      aggregateVars[i] = varDictionary.encode(aggregators.get(i).getVar().getName());
+      if (aggregator instanceof AggCount) {
+        aggregatedVars[i] = -1;
+        continue;
+      }
+      Expr arg = aggregator.getExprList().get(0);
+      if (!arg.isVariable()) {
+        throw new UnsupportedOperationException(
+                "Currently, Koral only supports aggregates over variables. Cause:\n"
+                        + opGroup.toString());
+      }
+      aggregatedVars[i] = encodeBoundVariable(arg.getVarName(), varsOfChild);
+      if (functions[i].requiresDecodedValues()) {
+        decodedVars.add(aggregatedVars[i]);
+      }
+    }
+
+    long partitioningVar = -1;
+    if ((dictionaryShardType != null) && !decodedVars.isEmpty()) {
+      if (dictionaryShardType == DictionaryShardType.NONE) {
+        throw new UnsupportedOperationException("The aggregates of " + opGroup.toString()
+                + " can only be computed if dictionary shards are sent to the slaves.");
+      } else if (dictionaryShardType == DictionaryShardType.PARTITIONED) {
+        if ((decodedVars.size() > 1) || isBaseImplementationUsed()) {
+          throw new UnsupportedOperationException("The aggregates of " + opGroup.toString()
+                  + " can only be computed with replicated dictionary shards.");
+        }
+        // the values are decoded by their owner
+        partitioningVar = decodedVars.iterator().next();
+      }
+    }
+
+    QueryOperatorTask group = taskFactory.createGroup(slaveId, queryId, emittedMappingsPerRound,
+            subTask, groupVars, functions, aggregatedVars, aggregateVars, partitioningVar);
+    ((QueryOperatorBase) subTask).setParentTask(group);
+    stack.push(group);
+  }
+
+  private long encodeBoundVariable(String varName, long[] boundVars) {
+    long var = varDictionary.encode(varName);
+    if (!contains(boundVars, var)) {
+      throw new RuntimeException(
+              "The variable ?" + varName + " of the group operation is unbound.");
+    }
+    return var;
+  }
+
+  private AggregationFunction getAggregationFunction(Aggregator aggregator, OpGroup opGroup) {
+    if ((aggregator instanceof AggCount) || (aggregator instanceof AggCountVar)) {
+      // all variables of a BGP are bound
+      return AggregationFunction.COUNT;
+    } else if (aggregator instanceof AggSum) {
+      return AggregationFunction.SUM;
+    } else if ((aggregator instanceof AggMin) || (aggregator instanceof AggMinDistinct)) {
+      // duplicates do not change the minimum
+      return AggregationFunction.MIN;
+    } else if ((aggregator instanceof AggMax) || (aggregator instanceof AggMaxDistinct)) {
+      return AggregationFunction.MAX;
+    } else if (aggregator instanceof AggAvg) {
+      return AggregationFunction.AVG;
+    }
+    throw new UnsupportedOperationException("Currently, Koral does not support the aggregate "
+            + aggregator.toPrefixString() + ". Cause:\n" + opGroup.toString());
   }
 
   @Override
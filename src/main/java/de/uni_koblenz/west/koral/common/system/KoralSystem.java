@@ -34,6 +34,7 @@ import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.messages.MessageListener;
 import de.uni_koblenz.west.koral.common.messages.MessageNotifier;
 import de.uni_koblenz.west.koral.common.networManager.NetworkManager;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 
 import java.io.File;
@@ -141,6 +142,10 @@ public abstract class KoralSystem extends Thread implements MessageNotifier {
     workerManager.setTripleStore(tripleStore);
   }
 
+  protected void setDictionaryShard(DictionaryShard dictionaryShard) {
+    workerManager.setDictionaryShard(dictionaryShard);
+  }
+
   @Override
   public void run() {
     try {
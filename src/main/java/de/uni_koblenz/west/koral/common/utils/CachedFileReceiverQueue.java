@@ -19,6 +19,8 @@
 package de.uni_koblenz.west.koral.common.utils;
 
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 
 import java.io.BufferedInputStream;
@@ -34,7 +36,11 @@ import java.io.IOException;
 
 /**
  * Caches received mappings until a limit is reached. Thereafter, mappings are
- * written to files.
+ * written to files.<br>
+ * Mappings cached in memory are copied into arrays of the
+ * {@link MappingPayloadPool}, unless such an array is handed over to this
+ * queue. Thus, the enqueued byte array can be reused by the caller and the
+ * dequeued {@link Mapping}s own their byte arrays.
  * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
@@ -47,10 +53,6 @@ public class CachedFileReceiverQueue implements Closeable {
 
   private final byte[][] messageCache;
 
-  private final int[] firstIndexCache;
-
-  private final int[] lengthCache;
-
   private int nextWriteIndex;
 
   private int nextReadIndex;
@@ -71,12 +73,12 @@ public class CachedFileReceiverQueue implements Closeable {
 
   private QueueStatus status;
 
+  private MappingPayloadPool payloadPool;
+
   public CachedFileReceiverQueue(int maxCacheSize, File cacheDirectory, int queueId) {
     this.maxCacheSize = maxCacheSize;
     this.cacheDirectory = cacheDirectory;
     messageCache = new byte[this.maxCacheSize][];
-    firstIndexCache = new int[this.maxCacheSize];
-    lengthCache = new int[this.maxCacheSize];
     nextReadIndex = -1;
     nextWriteIndex = 0;
     if (!this.cacheDirectory.exists()) {
@@ -90,6 +92,10 @@ public class CachedFileReceiverQueue implements Closeable {
     size = 0;
   }
 
+  public synchronized void setPayloadPool(MappingPayloadPool payloadPool) {
+    this.payloadPool = payloadPool;
+  }
+
   public synchronized boolean isEmpty() {
     return size <= 0;
   }
@@ -98,7 +104,8 @@ public class CachedFileReceiverQueue implements Closeable {
     return size;
   }
 
-  private void enqueueInMemory(byte[] message, int firstIndex, int length) {
+  private void enqueueInMemory(byte[] message, int firstIndex, int length,
+          boolean isHandedOver) {
     if (!status.name().startsWith("MEMORY_")) {
       throw new IllegalStateException(
               "Illegal attempt to write to memory while being in state " + status.name());
@@ -107,9 +114,13 @@ public class CachedFileReceiverQueue implements Closeable {
       throw new RuntimeException(
               "Enqueuing in memory not possible because memory cache has reached its limit.");
     }
-    messageCache[nextWriteIndex] = message;
-    firstIndexCache[nextWriteIndex] = firstIndex;
-    lengthCache[nextWriteIndex] = length;
+    if (isHandedOver) {
+      messageCache[nextWriteIndex] = message;
+    } else {
+      byte[] copy = payloadPool != null ? payloadPool.allocate(length) : new byte[length];
+      System.arraycopy(message, firstIndex, copy, 0, length);
+      messageCache[nextWriteIndex] = copy;
+    }
     if (nextReadIndex == -1) {
       // this was the first written entry.
       nextReadIndex = nextWriteIndex;
@@ -149,11 +160,8 @@ public class CachedFileReceiverQueue implements Closeable {
       // this cache is empty
       return null;
     }
-    Mapping result = recycleCache.createMapping(messageCache[nextReadIndex],
-            firstIndexCache[nextReadIndex], lengthCache[nextReadIndex]);
+    Mapping result = recycleCache.createMapping(messageCache[nextReadIndex]);
     messageCache[nextReadIndex] = null;
-    firstIndexCache[nextReadIndex] = -1;
-    lengthCache[nextReadIndex] = -1;
     nextReadIndex = (nextReadIndex + 1) % maxCacheSize;
     if (nextReadIndex == nextWriteIndex) {
       nextReadIndex = -1;
@@ -287,12 +295,27 @@ public class CachedFileReceiverQueue implements Closeable {
   private Mapping dequeueFromFile(DataInputStream fileInput, MappingRecycleCache recycleCache)
           throws IOException {
     int length = fileInput.readInt();
-    byte[] content = new byte[length];
+    byte[] content = recycleCache.getPayloadPool().allocate(length);
     fileInput.readFully(content);
-    return recycleCache.createMapping(content, 0, content.length);
+    return recycleCache.createMapping(content);
   }
 
   public synchronized void enqueue(byte[] message, int firstIndex, int length) {
+    enqueue(message, firstIndex, length, false);
+  }
+
+  /**
+   * @param message
+   * @param firstIndex
+   * @param length
+   * @param isHandedOver
+   *          if <code>true</code>, <code>message</code> is an array of the
+   *          {@link MappingPayloadPool} that solely contains the mapping. It
+   *          is cached without copying it or it is returned to the pool after
+   *          it has been written to a file.
+   */
+  public synchronized void enqueue(byte[] message, int firstIndex, int length,
+          boolean isHandedOver) {
     try {
       switch (status) {
         case CLOSED:
@@ -300,15 +323,17 @@ public class CachedFileReceiverQueue implements Closeable {
         case MEMORY_MEMORY:
         case MEMORY_FILE1:
         case MEMORY_FILE2:
-          enqueueInMemory(message, firstIndex, length);
+          enqueueInMemory(message, firstIndex, length, isHandedOver);
           break;
         case FILE1_MEMORY:
         case FILE1_FILE2:
           enqueueInFile1(message, firstIndex, length);
+          releaseHandedOverArray(message, isHandedOver);
           break;
         case FILE2_MEMORY:
         case FILE2_FILE1:
           enqueueInFile2(message, firstIndex, length);
+          releaseHandedOverArray(message, isHandedOver);
           break;
       }
       size++;
@@ -317,6 +342,12 @@ public class CachedFileReceiverQueue implements Closeable {
     }
   }
 
+  private void releaseHandedOverArray(byte[] message, boolean isHandedOver) {
+    if (isHandedOver && (payloadPool != null)) {
+      payloadPool.release(message);
+    }
+  }
+
   public synchronized Mapping dequeue(MappingRecycleCache recycleCache) {
     try {
       Mapping result = null;
@@ -346,6 +377,29 @@ public class CachedFileReceiverQueue implements Closeable {
     }
   }
 
+  /**
+   * Dequeues mappings until <code>batch</code> is full or this queue is empty.
+   * The variables of <code>batch</code> must be the variables of the enqueued
+   * mappings.
+   * 
+   * @param batch
+   * @param recycleCache
+   * @return number of dequeued mappings
+   */
+  public synchronized int dequeue(MappingBatch batch, MappingRecycleCache recycleCache) {
+    int numberOfDequeuedMappings = 0;
+    while (!batch.isFull()) {
+      Mapping mapping = dequeue(recycleCache);
+      if (mapping == null) {
+        break;
+      }
+      batch.add(mapping, batch.getVariables());
+      recycleCache.releaseMapping(mapping);
+      numberOfDequeuedMappings++;
+    }
+    return numberOfDequeuedMappings;
+  }
+
   public synchronized boolean isClosed() {
     return status == QueueStatus.CLOSED;
   }
@@ -353,6 +407,12 @@ public class CachedFileReceiverQueue implements Closeable {
   @Override
   public synchronized void close() {
     status = QueueStatus.CLOSED;
+    for (int i = 0; i < messageCache.length; i++) {
+      if ((messageCache[i] != null) && (payloadPool != null)) {
+        payloadPool.release(messageCache[i]);
+      }
+      messageCache[i] = null;
+    }
     try {
       if (fileInput1 != null) {
         fileInput1.close();
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.utils;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Hasher;
+import org.mapdb.Serializer;
+
+import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hash set of the variable values of mappings that is used to eliminate
+ * duplicate mappings. The containment information of the mappings is ignored.
+ * If the storage type is {@link MapDBStorageOptions#MEMORY}, the values are
+ * stored in a {@link HashSet}. Otherwise, they are stored in a MapDB hash set
+ * that is swapped to disk.
+ */
+public class DistinctMappingSet implements Closeable {
+
+  private final Set<ByteBuffer> inMemorySet;
+
+  private final File mapFolder;
+
+  private final DB database;
+
+  private final Set<byte[]> persistentSet;
+
+  private long size;
+
+  public DistinctMappingSet(MapDBStorageOptions storageType, boolean useTransactions,
+          boolean writeAsynchronously, MapDBCacheOptions cacheType, File cacheDirectory,
+          String uniqueFileNameSuffix) {
+    if (storageType == MapDBStorageOptions.MEMORY) {
+      inMemorySet = new HashSet<>();
+      mapFolder = null;
+      database = null;
+      persistentSet = null;
+      return;
+    }
+    inMemorySet = null;
+    mapFolder = new File(cacheDirectory.getAbsolutePath() + File.separator + uniqueFileNameSuffix);
+    if (!mapFolder.exists()) {
+      mapFolder.mkdirs();
+    }
+    DBMaker<?> dbmaker = storageType
+            .getDBMaker(mapFolder.getAbsolutePath() + File.separator + uniqueFileNameSuffix);
+    if (!useTransactions) {
+      dbmaker = dbmaker.transactionDisable().closeOnJvmShutdown();
+    }
+    if (writeAsynchronously) {
+      dbmaker = dbmaker.asyncWriteEnable();
+    }
+    dbmaker = cacheType.setCaching(dbmaker);
+    database = dbmaker.make();
+    persistentSet = database.createHashSet(uniqueFileNameSuffix).serializer(Serializer.BYTE_ARRAY)
+            .hasher(Hasher.BYTE_ARRAY).makeOrGet();
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @param batch
+   * @param row
+   * @return <code>true</code> if no mapping with the same values as
+   *         <code>row</code> has been added before
+   */
+  public synchronized boolean add(MappingBatch batch, int row) {
+    int numberOfVars = batch.getVariables().length;
+    byte[] values = new byte[numberOfVars * Long.BYTES];
+    for (int i = 0; i < numberOfVars; i++) {
+      NumberConversion.long2bytes(batch.getValue(row, i), values, i * Long.BYTES);
+    }
+    boolean isNew;
+    if (inMemorySet != null) {
+      isNew = inMemorySet.add(ByteBuffer.wrap(values));
+    } else {
+      if (database.isClosed()) {
+        throw new RuntimeException("Adding a mapping not possible because the "
+                + DistinctMappingSet.class.getSimpleName() + " is already closed.");
+      }
+      isNew = persistentSet.add(values);
+    }
+    if (isNew) {
+      size++;
+    }
+    return isNew;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (inMemorySet != null) {
+      inMemorySet.clear();
+      return;
+    }
+    if (!database.isClosed()) {
+      database.close();
+    }
+    if (mapFolder.exists()) {
+      for (File file : mapFolder.listFiles()) {
+        file.delete();
+      }
+      mapFolder.delete();
+    }
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Sorts byte arrays that do not fit into main memory in
+ * {@link SortedRunMerger#UNSIGNED_LEXICOGRAPHICAL_ORDER} and removes
+ * duplicates. The added arrays are buffered in memory. Full buffers are sorted
+ * and written as runs to the temporary directory. Finally, the runs are merged.
+ * The arrays must not be modified after they have been added.
+ */
+public class ExternalByteArraySorter implements Closeable, AutoCloseable {
+
+  private static final int MAX_NUMBER_OF_MERGED_RUNS = 64;
+
+  private final File tmpDir;
+
+  private final byte[][] buffer;
+
+  private int bufferSize;
+
+  private List<File> runs;
+
+  private SortedRunMerger merger;
+
+  /**
+   * @param tmpDir
+   * @param maxNumberOfArraysInMemory
+   */
+  public ExternalByteArraySorter(File tmpDir, int maxNumberOfArraysInMemory) {
+    this.tmpDir = tmpDir;
+    if (!tmpDir.exists()) {
+      tmpDir.mkdirs();
+    }
+    buffer = new byte[maxNumberOfArraysInMemory][];
+    bufferSize = 0;
+    runs = new ArrayList<>();
+  }
+
+  public void add(byte[] array) {
+    if (merger != null) {
+      throw new IllegalStateException(
+              "No arrays can be added after the sorted arrays have been requested.");
+    }
+    buffer[bufferSize++] = array;
+    if (bufferSize == buffer.length) {
+      writeBuffer();
+    }
+  }
+
+  private void writeBuffer() {
+    try {
+      runs.add(SortedRunMerger.writeRun(buffer, bufferSize, tmpDir));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    for (int i = 0; i < bufferSize; i++) {
+      buffer[i] = null;
+    }
+    bufferSize = 0;
+  }
+
+  /**
+   * May only be called once. The returned iterator is valid until
+   * {@link #close()} is called.
+   *
+   * @return the distinct added arrays in sorted order
+   */
+  public Iterator<byte[]> getSortedArrays() {
+    if (merger != null) {
+      throw new IllegalStateException("The sorted arrays can only be requested once.");
+    }
+    if ((bufferSize > 0) || runs.isEmpty()) {
+      writeBuffer();
+    }
+    try {
+      while (runs.size() > ExternalByteArraySorter.MAX_NUMBER_OF_MERGED_RUNS) {
+        List<File> mergedRuns = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i += ExternalByteArraySorter.MAX_NUMBER_OF_MERGED_RUNS) {
+          mergedRuns.add(SortedRunMerger.mergeRuns(runs.subList(i,
+                  Math.min(runs.size(), i + ExternalByteArraySorter.MAX_NUMBER_OF_MERGED_RUNS)),
+                  tmpDir));
+        }
+        runs = mergedRuns;
+      }
+      merger = new SortedRunMerger(runs);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return merger;
+  }
+
+  @Override
+  public void close() {
+    if (merger != null) {
+      merger.close();
+    }
+    for (File run : runs) {
+      run.delete();
+    }
+    runs.clear();
+    tmpDir.delete();
+  }
+
+}
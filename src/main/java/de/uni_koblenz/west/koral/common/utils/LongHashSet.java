@@ -0,0 +1,123 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.utils;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive long values that is stored in an open addressing hash
+ * table with linear probing. Thus, no objects are created per value. 0 marks
+ * an empty slot, so the value 0 is stored in a separate flag. Instances are
+ * not thread-safe.
+ */
+public class LongHashSet {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] slots;
+
+  private boolean containsZero;
+
+  private int size;
+
+  public LongHashSet() {
+    slots = new long[LongHashSet.INITIAL_CAPACITY];
+    containsZero = false;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(long value) {
+    if (value == 0) {
+      return containsZero;
+    }
+    return slots[findSlot(value, slots)] == value;
+  }
+
+  /**
+   * @param value
+   * @return <code>true</code> if <code>value</code> was not contained before
+   */
+  public boolean add(long value) {
+    if (value == 0) {
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size++;
+      return true;
+    }
+    int slot = findSlot(value, slots);
+    if (slots[slot] == value) {
+      return false;
+    }
+    slots[slot] = value;
+    size++;
+    if ((size << 1) > slots.length) {
+      resize();
+    }
+    return true;
+  }
+
+  /**
+   * Removes all values but keeps the allocated table.
+   */
+  public void clear() {
+    Arrays.fill(slots, 0);
+    containsZero = false;
+    size = 0;
+  }
+
+  private void resize() {
+    long[] newSlots = new long[slots.length << 1];
+    for (long value : slots) {
+      if (value != 0) {
+        newSlots[findSlot(value, newSlots)] = value;
+      }
+    }
+    slots = newSlots;
+  }
+
+  /**
+   * @param value
+   * @param table
+   * @return the slot that contains value or the empty slot where value has to
+   *         be inserted
+   */
+  private static int findSlot(long value, long[] table) {
+    int mask = table.length - 1;
+    int slot = LongHashSet.hash(value) & mask;
+    while ((table[slot] != 0) && (table[slot] != value)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int hash(long value) {
+    long hash = value * 0x9e_37_79_b9_7f_4a_7c_15l;
+    hash ^= hash >>> 32;
+    return (int) (hash ^ (hash >>> 29));
+  }
+
+}
@@ -0,0 +1,308 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.utils;
+
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * In-memory {@link JoinMappingCache} that uses an open addressing hash table
+ * which is keyed directly on the values of the join variables. The byte
+ * arrays of the cached mappings are copied into large pages. Mappings with
+ * the same join variable values are chained by their entry index. Thus, no
+ * objects are created per cached mapping.<br>
+ * The returned {@link Mapping}s are views on the pages and remain valid until
+ * {@link #close()} is called. Instances are not thread-safe, since each join
+ * operator is executed by a single {@link de.uni_koblenz.west.koral.common.executor.WorkerThread}.
+ */
+public class LongKeyJoinMappingCache implements JoinMappingCache {
+
+  private static final int MAX_PAGE_SIZE = 1 << 20;
+
+  private static final int INITIAL_PAGE_SIZE = 1 << 12;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final MappingRecycleCache recycleCache;
+
+  private final long[] variables;
+
+  private final int[] joinVarIndices;
+
+  private final long[] probeKey;
+
+  /**
+   * length of each cached mapping in bytes
+   */
+  private int entrySize;
+
+  private int entriesPerPage;
+
+  private byte[][] pages;
+
+  /**
+   * nextEntry[i] contains the index+1 of the next entry with the same join
+   * variable values as entry i. 0 marks the end of the chain.
+   */
+  private int[] nextEntry;
+
+  private int numberOfEntries;
+
+  /**
+   * the join variable values of slot i are stored at
+   * slotKeys[i*joinVarIndices.length] to
+   * slotKeys[(i+1)*joinVarIndices.length-1]
+   */
+  private long[] slotKeys;
+
+  /**
+   * slotHeads[i] contains the index+1 of the most recently added entry of slot
+   * i. 0 marks an empty slot.
+   */
+  private int[] slotHeads;
+
+  private int numberOfUsedSlots;
+
+  /**
+   * @param recycleCache
+   * @param mappingVariables
+   * @param variableComparisonOrder
+   *          must contain all variables of the mapping. First variable has
+   *          index 0. The join variables must occur first!
+   * @param numberOfJoinVars
+   */
+  public LongKeyJoinMappingCache(MappingRecycleCache recycleCache, long[] mappingVariables,
+          int[] variableComparisonOrder, int numberOfJoinVars) {
+    this.recycleCache = recycleCache;
+    variables = mappingVariables;
+    joinVarIndices = new int[numberOfJoinVars];
+    for (int i = 0; i < numberOfJoinVars; i++) {
+      joinVarIndices[i] = variableComparisonOrder[i];
+    }
+    probeKey = new long[numberOfJoinVars];
+    entrySize = -1;
+    pages = new byte[0][];
+    nextEntry = new int[LongKeyJoinMappingCache.INITIAL_CAPACITY];
+    numberOfEntries = 0;
+    slotKeys = new long[LongKeyJoinMappingCache.INITIAL_CAPACITY * numberOfJoinVars];
+    slotHeads = new int[LongKeyJoinMappingCache.INITIAL_CAPACITY];
+    numberOfUsedSlots = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return numberOfEntries == 0;
+  }
+
+  @Override
+  public long size() {
+    return numberOfEntries;
+  }
+
+  @Override
+  public void add(Mapping mapping) {
+    if (pages == null) {
+      throw new IllegalStateException("Adding a mapping not possible because the "
+              + LongKeyJoinMappingCache.class.getSimpleName() + " is already closed.");
+    }
+    int entry = appendToPages(mapping);
+    for (int i = 0; i < joinVarIndices.length; i++) {
+      probeKey[i] = mapping.getValue(variables[joinVarIndices[i]], variables);
+    }
+    if (((numberOfUsedSlots + 1) << 1) > slotHeads.length) {
+      resizeTable();
+    }
+    int slot = findSlot(probeKey, slotKeys, slotHeads);
+    if (slotHeads[slot] == 0) {
+      System.arraycopy(probeKey, 0, slotKeys, slot * probeKey.length, probeKey.length);
+      numberOfUsedSlots++;
+    }
+    nextEntry[entry] = slotHeads[slot];
+    slotHeads[slot] = entry + 1;
+  }
+
+  private int appendToPages(Mapping mapping) {
+    int length = mapping.getLengthOfMappingInByteArray();
+    if (entrySize == -1) {
+      entrySize = length;
+      entriesPerPage = Math.max(1, LongKeyJoinMappingCache.MAX_PAGE_SIZE / entrySize);
+    } else if (entrySize != length) {
+      throw new IllegalArgumentException("All cached mappings must have a length of " + entrySize
+              + " bytes but the added mapping has a length of " + length + " bytes.");
+    }
+    if (numberOfEntries == Integer.MAX_VALUE) {
+      throw new IllegalStateException("The "
+              + LongKeyJoinMappingCache.class.getSimpleName() + " cannot store more than "
+              + Integer.MAX_VALUE + " mappings.");
+    }
+    int entry = numberOfEntries;
+    int pageIndex = entry / entriesPerPage;
+    int offset = (entry % entriesPerPage) * entrySize;
+    if (pageIndex == pages.length) {
+      pages = Arrays.copyOf(pages, pageIndex + 1);
+      pages[pageIndex] = new byte[pageIndex == 0
+              ? Math.min(entriesPerPage * entrySize,
+                      Math.max(entrySize, LongKeyJoinMappingCache.INITIAL_PAGE_SIZE))
+              : entriesPerPage * entrySize];
+    } else if ((offset + entrySize) > pages[pageIndex].length) {
+      // only the first page grows on demand
+      pages[pageIndex] = Arrays.copyOf(pages[pageIndex],
+              Math.min(entriesPerPage * entrySize, pages[pageIndex].length << 1));
+    }
+    System.arraycopy(mapping.getByteArray(), mapping.getFirstIndexOfMappingInByteArray(),
+            pages[pageIndex], offset, entrySize);
+    if (entry == nextEntry.length) {
+      nextEntry = Arrays.copyOf(nextEntry, Math.max(entry + 1, entry << 1));
+    }
+    numberOfEntries++;
+    return entry;
+  }
+
+  private void resizeTable() {
+    int newCapacity = slotHeads.length << 1;
+    long[] newSlotKeys = new long[newCapacity * joinVarIndices.length];
+    int[] newSlotHeads = new int[newCapacity];
+    long[] key = new long[joinVarIndices.length];
+    for (int slot = 0; slot < slotHeads.length; slot++) {
+      if (slotHeads[slot] != 0) {
+        System.arraycopy(slotKeys, slot * key.length, key, 0, key.length);
+        int newSlot = findSlot(key, newSlotKeys, newSlotHeads);
+        System.arraycopy(key, 0, newSlotKeys, newSlot * key.length, key.length);
+        newSlotHeads[newSlot] = slotHeads[slot];
+      }
+    }
+    slotKeys = newSlotKeys;
+    slotHeads = newSlotHeads;
+  }
+
+  /**
+   * @param key
+   * @param keys
+   * @param heads
+   * @return the slot that contains key or the empty slot where key has to be
+   *         inserted
+   */
+  private int findSlot(long[] key, long[] keys, int[] heads) {
+    int mask = heads.length - 1;
+    int slot = LongKeyJoinMappingCache.hash(key) & mask;
+    while ((heads[slot] != 0) && !isKeyEqual(key, keys, slot * key.length)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static boolean isKeyEqual(long[] key, long[] keys, int offset) {
+    for (int i = 0; i < key.length; i++) {
+      if (key[i] != keys[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(long[] key) {
+    long hash = 0;
+    for (long value : key) {
+      hash = (hash ^ value) * 0x9e_37_79_b9_7f_4a_7c_15l;
+      hash ^= hash >>> 32;
+    }
+    return (int) (hash ^ (hash >>> 29));
+  }
+
+  private Mapping getMapping(int entry) {
+    return recycleCache.createMapping(pages[entry / entriesPerPage],
+            (entry % entriesPerPage) * entrySize, entrySize);
+  }
+
+  @Override
+  public Iterator<Mapping> getMatchCandidates(Mapping mapping, long[] mappingVars) {
+    if (isEmpty()) {
+      return new EntryChainIterator(0);
+    }
+    for (int i = 0; i < joinVarIndices.length; i++) {
+      probeKey[i] = mapping.getValue(variables[joinVarIndices[i]], mappingVars);
+    }
+    return new EntryChainIterator(slotHeads[findSlot(probeKey, slotKeys, slotHeads)]);
+  }
+
+  @Override
+  public Iterator<Mapping> iterator() {
+    return new Iterator<Mapping>() {
+
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < numberOfEntries;
+      }
+
+      @Override
+      public Mapping next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return getMapping(next++);
+      }
+
+    };
+  }
+
+  @Override
+  public void close() {
+    pages = null;
+    nextEntry = null;
+    slotKeys = null;
+    slotHeads = null;
+  }
+
+  /**
+   * Iterates over all entries with the same join variable values.
+   */
+  private class EntryChainIterator implements Iterator<Mapping> {
+
+    private int next;
+
+    /**
+     * @param head
+     *          index+1 of the first entry, 0 if the chain is empty
+     */
+    public EntryChainIterator(int head) {
+      next = head;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != 0;
+    }
+
+    @Override
+    public Mapping next() {
+      if (next == 0) {
+        throw new NoSuchElementException();
+      }
+      int entry = next - 1;
+      next = nextEntry[entry];
+      return getMapping(entry);
+    }
+
+  }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License along with Koral. If not,
+ * see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.utils;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.ErrorHandlerFactory;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * Parses a line-based graph file, i.e., N-Triples or N-Quads, with several
+ * threads. One thread reads the (possibly gzip compressed) file and splits it
+ * into blocks of complete lines. The blocks are parsed by a pool of worker
+ * threads. The parsed statements are returned in the order of the file.
+ * </p>
+ * 
+ * <p>
+ * Since each block is parsed by its own Jena parser, blank node labels are
+ * kept as given and prefixed with an id that is unique for each parsed file.
+ * If a block contains a syntax error, it is parsed line by line and the
+ * erroneous lines are skipped.
+ * </p>
+ */
+class ParallelLineParser implements Iterator<Node[]>, Closeable {
+
+  private static final int BLOCK_SIZE = 4 * 1024 * 1024;
+
+  private static final Future<List<Node[]>> END_OF_FILE = CompletableFuture.completedFuture(null);
+
+  private final Logger logger;
+
+  private final File file;
+
+  private final Lang lang;
+
+  private final String blankNodePrefix;
+
+  private final ExecutorService reader;
+
+  private final ExecutorService parsers;
+
+  private final BlockingQueue<Future<List<Node[]>>> parsedBlocks;
+
+  private volatile IOException readException;
+
+  private List<Node[]> currentBlock;
+
+  private int nextIndex;
+
+  private boolean isFinished;
+
+  public ParallelLineParser(File file, Lang lang, int numberOfThreads, Logger logger) {
+    this.logger = logger;
+    this.file = file;
+    this.lang = lang;
+    blankNodePrefix = UUID.randomUUID().toString().replace("-", "") + "_";
+    parsedBlocks = new ArrayBlockingQueue<>(2 * numberOfThreads);
+    parsers = Executors.newFixedThreadPool(numberOfThreads);
+    reader = Executors.newSingleThreadExecutor();
+    reader.submit(this::readBlocks);
+  }
+
+  private void readBlocks() {
+    try (InputStream input = file.getName().toLowerCase().endsWith(".gz")
+            ? new GZIPInputStream(new FileInputStream(file), 64 * 1024)
+            : new FileInputStream(file);) {
+      byte[] buffer = new byte[ParallelLineParser.BLOCK_SIZE];
+      int length = 0;
+      long offset = 0;
+      for (int read = input.read(buffer, length, buffer.length - length); read != -1; read = input
+              .read(buffer, length, buffer.length - length)) {
+        length += read;
+        if (length < buffer.length) {
+          continue;
+        }
+        int endOfLastLine = length - 1;
+        while ((endOfLastLine >= 0) && (buffer[endOfLastLine] != '\n')) {
+          endOfLastLine--;
+        }
+        if (endOfLastLine < 0) {
+          // the line is longer than the buffer
+          buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+          continue;
+        }
+        submit(Arrays.copyOf(buffer, endOfLastLine + 1), offset);
+        offset += endOfLastLine + 1;
+        length -= endOfLastLine + 1;
+        System.arraycopy(buffer, endOfLastLine + 1, buffer, 0, length);
+      }
+      if (length > 0) {
+        submit(Arrays.copyOf(buffer, length), offset);
+      }
+    } catch (IOException e) {
+      readException = e;
+    } catch (InterruptedException e) {
+      // the parser has been closed
+      return;
+    }
+    try {
+      parsedBlocks.put(ParallelLineParser.END_OF_FILE);
+    } catch (InterruptedException e) {
+    }
+  }
+
+  private void submit(byte[] block, long offset) throws InterruptedException {
+    parsedBlocks.put(parsers.submit(() -> parse(block, offset)));
+  }
+
+  private List<Node[]> parse(byte[] block, long offset) {
+    StatementCollector collector = new StatementCollector();
+    try {
+      parse(block, 0, block.length, collector);
+    } catch (RiotException e) {
+      collector.statements.clear();
+      int lineNumber = 1;
+      for (int start = 0; start < block.length; lineNumber++) {
+        int end = start;
+        while ((end < block.length) && (block[end] != '\n')) {
+          end++;
+        }
+        try {
+          parse(block, start, end - start, collector);
+        } catch (RiotException e1) {
+          if (logger != null) {
+            logger.finer("Skipping line " + lineNumber + " of the block starting at byte "
+                    + offset + " of file " + file.getAbsolutePath()
+                    + " because of the following error: " + e1.getMessage());
+          }
+        }
+        start = end + 1;
+      }
+    }
+    return collector.statements;
+  }
+
+  private void parse(byte[] block, int offset, int length, StatementCollector collector) {
+    RDFParser.create().lang(lang).base(file.getAbsolutePath())
+            .labelToNode(LabelToNode.createUseLabelAsGiven())
+            .errorHandler(ErrorHandlerFactory.errorHandlerWarn)
+            .source(new ByteArrayInputStream(block, offset, length)).build().parse(collector);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!isFinished && ((currentBlock == null) || (nextIndex >= currentBlock.size()))) {
+      try {
+        currentBlock = parsedBlocks.take().get();
+      } catch (InterruptedException | ExecutionException e) {
+        throw new RuntimeException(e);
+      }
+      nextIndex = 0;
+      if (currentBlock == null) {
+        isFinished = true;
+        if (readException != null) {
+          throw new RuntimeException(readException);
+        }
+      }
+    }
+    return !isFinished;
+  }
+
+  @Override
+  public Node[] next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Node[] next = currentBlock.get(nextIndex);
+    currentBlock.set(nextIndex++, null);
+    return next;
+  }
+
+  @Override
+  public void close() {
+    isFinished = true;
+    reader.shutdownNow();
+    parsers.shutdownNow();
+    parsedBlocks.clear();
+  }
+
+  private class StatementCollector extends StreamRDFBase {
+
+    private final List<Node[]> statements = new ArrayList<>();
+
+    @Override
+    public void triple(Triple triple) {
+      statements.add(new Node[] { transformBlankNode(triple.getSubject()),
+              triple.getPredicate(), transformBlankNode(triple.getObject()) });
+    }
+
+    @Override
+    public void quad(Quad quad) {
+      Node[] statement;
+      if (Quad.isDefaultGraphGenerated(quad.getGraph())) {
+        statement = new Node[3];
+      } else {
+        statement = new Node[4];
+        statement[3] = transformBlankNode(quad.getGraph());
+      }
+      statement[0] = transformBlankNode(quad.getSubject());
+      statement[1] = quad.getPredicate();
+      statement[2] = transformBlankNode(quad.getObject());
+      statements.add(statement);
+    }
+
+    private Node transformBlankNode(Node node) {
+      if (node.isBlank()) {
+        return NodeFactory.createBlankNode(blankNodePrefix + node.getBlankNodeLabel());
+      }
+      return node;
+    }
+
+  }
+
+}
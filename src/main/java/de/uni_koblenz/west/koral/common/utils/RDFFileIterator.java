@@ -68,6 +68,12 @@ import java.util.zip.GZIPInputStream;
  * an syntax error is found.
  * </p>
  * 
+ * <p>
+ * If more than one parser thread is requested, N-Triples and N-Quads files are
+ * parsed by a {@link ParallelLineParser}. All other formats are parsed by a
+ * single Jena parser.
+ * </p>
+ * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
  */
@@ -98,10 +104,20 @@ public class RDFFileIterator
 
   private SortedMap<Integer, Long> lineNumber2Offset;
 
+  private final int numberOfParserThreads;
+
+  private ParallelLineParser lineParser;
+
   public RDFFileIterator(File file, boolean deleteFiles, Logger logger) {
+    this(file, deleteFiles, logger, 1);
+  }
+
+  public RDFFileIterator(File file, boolean deleteFiles, Logger logger,
+          int numberOfParserThreads) {
     ARQ.init();
     this.logger = logger;
     deleteReadFiles = deleteFiles;
+    this.numberOfParserThreads = numberOfParserThreads;
     GraphFileFilter filter = new GraphFileFilter();
     if (file.exists() && file.isFile() && filter.accept(file)) {
       rdfFiles = new File[] { file };
@@ -117,7 +133,7 @@ public class RDFFileIterator
   public RDFFileIterator(RDFFileIterator iterator, boolean deleteReadFiles) {
     this(iterator.rdfFiles.length == 1 ? iterator.rdfFiles[0]
             : iterator.rdfFiles.length == 0 ? null : iterator.rdfFiles[0].getParentFile(),
-            deleteReadFiles, iterator.logger);
+            deleteReadFiles, iterator.logger, iterator.numberOfParserThreads);
   }
 
   private boolean isCurrentFileSkippable() {
@@ -236,6 +252,12 @@ public class RDFFileIterator
     }
   }
 
+  private boolean isCurrentFileLineBased() {
+    Lang lang = RDFLanguages.filenameToLang(rdfFiles[currentFile].getName());
+    return (lang == Lang.NQ) || (lang == Lang.NQUADS) || (lang == Lang.NT)
+            || (lang == Lang.NTRIPLES);
+  }
+
   private void getNextIterator() {
     lineNumber2Offset = null;
     if (deleteReadFiles && (currentFile > 0) && (currentFile <= rdfFiles.length)) {
@@ -245,6 +267,18 @@ public class RDFFileIterator
       iterator = null;
       return;
     }
+    if ((numberOfParserThreads > 1) && isCurrentFileLineBased()) {
+      iterator = null;
+      if (readerRunner != null) {
+        readerRunner.close();
+        readerRunner = null;
+      }
+      lineParser = new ParallelLineParser(rdfFiles[currentFile],
+              RDFLanguages.filenameToLang(rdfFiles[currentFile].getName()),
+              numberOfParserThreads, logger);
+      currentFile++;
+      return;
+    }
     skippedLineNumbers = 0;
     String baseIRI = rdfFiles[currentFile].getAbsolutePath();
     TypedInputStream in = RDFDataMgr.open(baseIRI);
@@ -273,6 +307,15 @@ public class RDFFileIterator
 
   @Override
   public boolean hasNext() {
+    if (lineParser != null) {
+      if (lineParser.hasNext()) {
+        return true;
+      }
+      lineParser.close();
+      lineParser = null;
+      getNextIterator();
+      return hasNext();
+    }
     boolean hasNext = (iterator != null) && iterator.hasNext();
     if (!hasNext && (readerRunner != null)) {
       if (parserFuture != null) {
@@ -300,7 +343,9 @@ public class RDFFileIterator
       throw new NoSuchElementException();
     }
     Node[] next = null;
-    if (isQuad) {
+    if (lineParser != null) {
+      next = lineParser.next();
+    } else if (isQuad) {
       Quad quad = (Quad) iterator.next();
       if (Quad.isDefaultGraphGenerated(quad.getGraph())) {
         next = new Node[3];
@@ -327,6 +372,10 @@ public class RDFFileIterator
   @Override
   public void close() {
     executor.shutdown();
+    if (lineParser != null) {
+      lineParser.close();
+      lineParser = null;
+    }
     if (readerRunner != null) {
       readerRunner.close();
     }
@@ -0,0 +1,201 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.common.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges runs of byte arrays that are sorted in
+ * {@link #UNSIGNED_LEXICOGRAPHICAL_ORDER} and removes duplicates. Each array of
+ * a run is stored as its length followed by its content.
+ */
+public class SortedRunMerger implements Iterator<byte[]>, Closeable {
+
+  /**
+   * The order of keys in RocksDB with the default comparator.
+   */
+  public static final Comparator<byte[]> UNSIGNED_LEXICOGRAPHICAL_ORDER = (array1, array2) -> {
+    int length = Math.min(array1.length, array2.length);
+    for (int i = 0; i < length; i++) {
+      int comparison = (array1[i] & 0xff) - (array2[i] & 0xff);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return array1.length - array2.length;
+  };
+
+  private final DataInputStream[] inputs;
+
+  private final PriorityQueue<Head> heads;
+
+  private byte[] next;
+
+  public SortedRunMerger(List<File> runs) throws IOException {
+    inputs = new DataInputStream[runs.size()];
+    heads = new PriorityQueue<>(Math.max(1, runs.size()),
+            (head1, head2) -> SortedRunMerger.UNSIGNED_LEXICOGRAPHICAL_ORDER
+                    .compare(head1.array, head2.array));
+    try {
+      for (int i = 0; i < inputs.length; i++) {
+        inputs[i] = new DataInputStream(new BufferedInputStream(new FileInputStream(runs.get(i))));
+        addNextHead(i);
+      }
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+    next = getNextDistinctArray();
+  }
+
+  private void addNextHead(int input) throws IOException {
+    int length;
+    try {
+      length = inputs[input].readInt();
+    } catch (EOFException e) {
+      return;
+    }
+    byte[] array = new byte[length];
+    inputs[input].readFully(array);
+    heads.add(new Head(array, input));
+  }
+
+  private byte[] getNextDistinctArray() throws IOException {
+    Head head = heads.poll();
+    if (head == null) {
+      return null;
+    }
+    addNextHead(head.input);
+    while (!heads.isEmpty() && Arrays.equals(heads.peek().array, head.array)) {
+      addNextHead(heads.poll().input);
+    }
+    return head.array;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return next != null;
+  }
+
+  @Override
+  public byte[] next() {
+    if (next == null) {
+      throw new NoSuchElementException();
+    }
+    byte[] result = next;
+    try {
+      next = getNextDistinctArray();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return result;
+  }
+
+  @Override
+  public void close() {
+    for (DataInputStream input : inputs) {
+      if (input != null) {
+        try {
+          input.close();
+        } catch (IOException e) {
+        }
+      }
+    }
+  }
+
+  /**
+   * Sorts the first <code>length</code> arrays and writes them without
+   * duplicates into a new run in <code>tmpDir</code>.
+   *
+   * @param arrays
+   * @param length
+   * @param tmpDir
+   * @return the run file
+   * @throws IOException
+   */
+  public static File writeRun(byte[][] arrays, int length, File tmpDir) throws IOException {
+    Arrays.sort(arrays, 0, length, SortedRunMerger.UNSIGNED_LEXICOGRAPHICAL_ORDER);
+    File run = File.createTempFile("run-", "", tmpDir);
+    try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));) {
+      byte[] previous = null;
+      for (int i = 0; i < length; i++) {
+        if ((previous == null) || !Arrays.equals(previous, arrays[i])) {
+          out.writeInt(arrays[i].length);
+          out.write(arrays[i]);
+          previous = arrays[i];
+        }
+      }
+    }
+    return run;
+  }
+
+  /**
+   * Merges <code>runs</code> into a single new run in <code>tmpDir</code>.
+   * Afterwards, <code>runs</code> are deleted.
+   *
+   * @param runs
+   * @param tmpDir
+   * @return the merged run
+   * @throws IOException
+   */
+  public static File mergeRuns(List<File> runs, File tmpDir) throws IOException {
+    File run = File.createTempFile("run-", "", tmpDir);
+    try (SortedRunMerger merger = new SortedRunMerger(runs);
+            DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));) {
+      while (merger.hasNext()) {
+        byte[] array = merger.next();
+        out.writeInt(array.length);
+        out.write(array);
+      }
+    }
+    for (File mergedRun : runs) {
+      mergedRun.delete();
+    }
+    return run;
+  }
+
+  private static class Head {
+
+    private final byte[] array;
+
+    private final int input;
+
+    public Head(byte[] array, int input) {
+      this.array = array;
+      this.input = input;
+    }
+
+  }
+
+}
@@ -109,10 +109,8 @@ public class KoralMaster extends KoralSystem {
       }
     }
     if (!isInterrupted() && !messageReceived) {
-      try {
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-      }
+      // wake up as soon as a slave message arrives
+      getNetworkManager().waitForMessage(100);
     }
   }
 
@@ -133,6 +131,7 @@ public class KoralMaster extends KoralSystem {
         case QUERY_MAPPING_BATCH:
         case QUERY_TASK_FINISHED:
         case QUERY_TASK_FAILED:
+        case QUERY_RESULT_ROWS:
           senderID = NumberConversion.bytes2short(receivedMessage, 1);
           notifyMessageListener(MessageReceiverListener.class, senderID, receivedMessage);
           break;
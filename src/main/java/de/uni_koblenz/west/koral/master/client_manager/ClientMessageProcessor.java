@@ -17,6 +17,8 @@
 package de.uni_koblenz.west.koral.master.client_manager;
 
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
@@ -83,8 +85,18 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
 
   private final MapDBCacheOptions cacheType;
 
+  private final boolean useMergeJoins;
+
   private final boolean contactSlaves;
 
+  private final DictionaryShardType dictionaryShardType;
+
+  private final FileCompression fileCompression;
+
+  private final boolean isGraphChunkStreamingEnabled;
+
+  private final int maxNumberOfParallelGraphFileUploads;
+
   public ClientMessageProcessor(Configuration conf, ClientConnectionManager clientConnections,
           KoralMaster master, boolean contactSlaves, Logger logger,
           MeasurementCollector measurementCollector) {
@@ -113,6 +125,23 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
     storageType = conf.getJoinCacheStorageType();
     useTransactions = conf.useTransactionsForJoinCache();
     writeAsynchronously = conf.isJoinCacheAsynchronouslyWritten();
+    useMergeJoins = ClientMessageProcessor.areMergeJoinsApplicable(conf);
+    dictionaryShardType = conf.getDictionaryShardType();
+    fileCompression = conf.getEncodedFileCompression();
+    isGraphChunkStreamingEnabled = conf.isGraphChunkStreamingEnabled();
+    maxNumberOfParallelGraphFileUploads = conf.getMaxNumberOfParallelGraphFileUploads();
+  }
+
+  /**
+   * Merge joins rely on the unsigned key ordering of the persistent triple
+   * store. Thus, they are not used if the triple store is kept in memory.
+   * 
+   * @param conf
+   * @return <code>true</code> if merge joins are enabled and applicable
+   */
+  static boolean areMergeJoinsApplicable(Configuration conf) {
+    return conf.useMergeJoins()
+            && (conf.getTripleStoreStorageType() != MapDBStorageOptions.MEMORY);
   }
 
   /**
@@ -137,6 +166,9 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
           case CLIENT_FILES_SENT:
             processFilesSent(message);
             break;
+          case CLIENT_QUERY_RESULT_RECEIVED:
+            processQueryResultReceived(message);
+            break;
           case CLIENT_COMMAND_ABORTED:
             processAbortCommand(message);
             break;
@@ -251,6 +283,7 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
     try {
       switch (command) {
         case "load":
+        case "append":
           // if (graphHasBeenLoaded) {
           // String errorMessage = "Loading of graph rejected: Koral is
           // currently loading a graph or it has already loaded a graph.";
@@ -269,7 +302,9 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
           GraphLoaderTask loaderTask = new GraphLoaderTask(clientID.intValue(), clientConnections,
                   master.getNetworkManager(), ftpServer[0], internalFtpIpAddress, ftpServer[1],
                   master.getDictionary(), master.getStatistics(), tmpDir, master, logger,
-                  measurementCollector, contactSlaves);
+                  measurementCollector, contactSlaves, dictionaryShardType, fileCompression,
+                  isGraphChunkStreamingEnabled, maxNumberOfParallelGraphFileUploads,
+                  command.equals("append"));
           clientAddress2GraphLoaderTask.put(address, loaderTask);
           loaderTask.loadGraph(arguments, numberOfChunks);
           break;
@@ -294,7 +329,7 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
                   master.getNumberOfSlaves(), mappingReceiverQueueSize, tmpDir, clientID.intValue(),
                   clientConnections, master.getDictionary(), master.getStatistics(),
                   emittedMappingsPerRound, storageType, useTransactions, writeAsynchronously,
-                  cacheType, logger, measurementCollector);
+                  cacheType, useMergeJoins, dictionaryShardType, logger, measurementCollector);
           coordinator.processQueryRequest(arguments);
           clientAddress2queryExecutionCoordinator.put(address, coordinator);
           master.executeTask(coordinator);
@@ -324,7 +359,7 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
                               + " arguments:\n" + e.getClass().getName() + ": " + e.getMessage(),
                       logger));
       // remove started graph loader tasks
-      if (command.equals("load") || command.equals("query")) {
+      if (command.equals("load") || command.equals("append") || command.equals("query")) {
         terminateTask(address);
       }
     }
@@ -381,6 +416,19 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
     task.receiveFilesSent();
   }
 
+  private void processQueryResultReceived(byte[] message) {
+    String address = MessageUtils.extractMessageString(message, logger);
+    QueryExecutionCoordinator coordinator = clientAddress2queryExecutionCoordinator.get(address);
+    if (coordinator == null) {
+      if (logger != null) {
+        logger.finest("Client " + address
+                + " has received query results but there is no query that has sent them.");
+      }
+      return;
+    }
+    coordinator.acknowledgeResultMessage();
+  }
+
   private void processAbortCommand(byte[] message) {
     String abortionContext = MessageUtils.extractMessageString(message, logger);
     String[] parts = abortionContext.split(Pattern.quote("|"));
@@ -389,6 +437,7 @@ public class ClientMessageProcessor implements Closeable, ClosedConnectionListen
     }
     switch (parts[1].toLowerCase()) {
       case "load":
+      case "append":
         terminateTask(parts[0]);
         break;
       case "query":
@@ -19,6 +19,7 @@
 package de.uni_koblenz.west.koral.master.dictionary;
 
 import java.io.Closeable;
+import java.util.function.ObjLongConsumer;
 
 /**
  * Declares all methods required by {@link DictionaryEncoder}.
@@ -48,6 +49,32 @@ public interface Dictionary extends Closeable {
    */
   public String decode(long id);
 
+  /**
+   * Decodes several ids with one access to the underlying storage.
+   * 
+   * @param ids
+   * @return an array of the same length as <code>ids</code>. Its i-th entry is
+   *         <code>null</code> if no String has been encoded to
+   *         <code>ids[i]</code>, yet.
+   */
+  public String[] decode(long[] ids);
+
+  /**
+   * Passes each encoded String together with its id to <code>consumer</code>.
+   * 
+   * @param consumer
+   */
+  public void forEach(ObjLongConsumer<String> consumer);
+
+  /**
+   * Passes each encoded String whose id is at least <code>firstID</code>
+   * together with its id to <code>consumer</code>.
+   * 
+   * @param firstID
+   * @param consumer
+   */
+  public void forEach(long firstID, ObjLongConsumer<String> consumer);
+
   public void flush();
 
   public boolean isEmpty();
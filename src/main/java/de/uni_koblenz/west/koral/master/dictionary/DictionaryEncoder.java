@@ -16,18 +16,26 @@
  */
 package de.uni_koblenz.west.koral.master.dictionary;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
 
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
+import de.uni_koblenz.west.koral.common.io.RawStatementFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
@@ -35,6 +43,7 @@ import de.uni_koblenz.west.koral.common.utils.NumberConversion;
 import de.uni_koblenz.west.koral.common.utils.RDFFileIterator;
 import de.uni_koblenz.west.koral.master.dictionary.impl.RocksDBDictionary;
 import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.master.statisticsDB.impl.multi_file.storage.caching.LRUCache;
 import de.uni_koblenz.west.koral.master.utils.DeSerializer;
 
 /**
@@ -64,31 +73,99 @@ public class DictionaryEncoder implements Closeable {
 
   private final Dictionary dictionary;
 
+  /**
+   * maps ids without ownership to the serialized form of their resources as
+   * it is sent to the client. It is <code>null</code> if caching is disabled.
+   * Access has to be synchronized on the cache itself.
+   */
+  private final LRUCache<Long, String> decodingCache;
+
+  private final int numberOfEncodingThreads;
+
+  private final int numberOfParserThreads;
+
+  private final FileCompression fileCompression;
+
   public DictionaryEncoder(Configuration conf, Logger logger, MeasurementCollector collector) {
     this.logger = logger;
     measurementCollector = collector;
     if (conf != null) {
       dictionary =
           new RocksDBDictionary(conf.getDictionaryDir(true), conf.getMaxDictionaryWriteBatchSize());
+      decodingCache = conf.getSizeOfDictionaryDecodingCache() > 0
+          ? new LRUCache<>(conf.getSizeOfDictionaryDecodingCache()) : null;
+      numberOfEncodingThreads = conf.getNumberOfDictionaryEncodingThreads();
+      numberOfParserThreads = conf.getNumberOfGraphParserThreads();
+      fileCompression = conf.getEncodedFileCompression();
     } else {
       dictionary = null;
+      decodingCache = null;
+      numberOfEncodingThreads = 1;
+      numberOfParserThreads = 1;
+      fileCompression = FileCompression.GZIP;
     }
   }
 
   public File encodeOriginalGraphFiles(File[] plainGraphChunks, File workingDir,
       EncodingFileFormat outputFormat, int numberOfGraphChunks) {
-    clear();
+    return encodeOriginalGraphFiles(Arrays.asList(plainGraphChunks), workingDir, outputFormat,
+        numberOfGraphChunks);
+  }
+
+  /**
+   * @param plainGraphChunks
+   *          the iterator may block until the next file is available. Thus,
+   *          the encoding of the first files can start while the remaining
+   *          files are still uploaded.
+   * @param workingDir
+   * @param outputFormat
+   * @param numberOfGraphChunks
+   * @return the file containing the encoded statements of all graph files
+   */
+  public File encodeOriginalGraphFiles(Iterable<File> plainGraphChunks, File workingDir,
+      EncodingFileFormat outputFormat, int numberOfGraphChunks) {
+    return encodeOriginalGraphFiles(plainGraphChunks, workingDir, outputFormat,
+        numberOfGraphChunks, false);
+  }
+
+  /**
+   * @param plainGraphChunks
+   * @param workingDir
+   * @param outputFormat
+   * @param numberOfGraphChunks
+   * @param isAppended
+   *          if <code>true</code>, the graph is appended to the already loaded
+   *          graph. Thus, the dictionary is not cleared and new resources
+   *          receive the ids following the already assigned ones.
+   * @return the file containing the encoded statements of all graph files
+   */
+  public File encodeOriginalGraphFiles(Iterable<File> plainGraphChunks, File workingDir,
+      EncodingFileFormat outputFormat, int numberOfGraphChunks, boolean isAppended) {
+    if (!isAppended) {
+      clear();
+    }
     if (measurementCollector != null) {
       measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_INITIAL_ENCODING_ENCODING_START,
           System.currentTimeMillis());
     }
     File result = getSemiEncodedGraphFile(workingDir);
-    try (EncodedFileOutputStream out = new EncodedFileOutputStream(result);) {
-      for (int i = 0; i < plainGraphChunks.length; i++) {
-        if (plainGraphChunks[i] == null) {
+    if ((numberOfEncodingThreads > 1) && (dictionary instanceof RocksDBDictionary)) {
+      new ParallelGraphEncoder((RocksDBDictionary) dictionary, numberOfEncodingThreads,
+          numberOfParserThreads, fileCompression, logger)
+              .encode(plainGraphChunks, workingDir, outputFormat, numberOfGraphChunks, result);
+      if (measurementCollector != null) {
+        measurementCollector.measureValue(
+            MeasurementType.LOAD_GRAPH_INITIAL_ENCODING_ENCODING_END, System.currentTimeMillis());
+      }
+      return result;
+    }
+    try (EncodedFileOutputStream out = new EncodedFileOutputStream(result, fileCompression);) {
+      for (File plainGraphChunk : plainGraphChunks) {
+        if (plainGraphChunk == null) {
           continue;
         }
-        try (RDFFileIterator iter = new RDFFileIterator(plainGraphChunks[i], false, logger);) {
+        try (RDFFileIterator iter = new RDFFileIterator(plainGraphChunk, false, logger,
+            numberOfParserThreads);) {
           for (Node[] quad : iter) {
             transformBlankNodes(quad);
             byte[] subject;
@@ -140,7 +217,7 @@ public class DictionaryEncoder implements Closeable {
     return result;
   }
 
-  private void transformBlankNodes(Node[] statement) {
+  static void transformBlankNodes(Node[] statement) {
     for (int i = 0; i < statement.length; i++) {
       Node node = statement[i];
       if (node.isBlank()) {
@@ -178,7 +255,7 @@ public class DictionaryEncoder implements Closeable {
       try (
           EncodedFileInputStream in =
               new EncodedFileInputStream(inputFormat, semiEncodedGraphChunks[i]);
-          EncodedFileOutputStream out = new EncodedFileOutputStream(result[i]);) {
+          EncodedFileOutputStream out = new EncodedFileOutputStream(result[i], fileCompression);) {
         for (Statement statement : in) {
           byte[] subject;
           if (statement.isSubjectEncoded()) {
@@ -241,6 +318,100 @@ public class DictionaryEncoder implements Closeable {
     return chunkFiles;
   }
 
+  /**
+   * Encodes the graph chunks completely and counts the occurrences of the
+   * resources in <code>statistics</code> while the chunks are written. The
+   * result files are uncompressed so that the ownership can be adjusted by
+   * {@link GraphStatistics#adjustOwnershipOfRawChunks(File[], File)} without
+   * an additional decompression pass. In contrast to
+   * {@link #encodeGraphChunksCompletely(File[], File, EncodingFileFormat)},
+   * the input is read and rewritten even if it is already encoded completely.
+   *
+   * @param semiEncodedGraphChunks
+   * @param workingDir
+   * @param inputFormat
+   * @param statistics
+   *          is cleared before the first chunk is encoded
+   * @return the files written by {@link RawStatementFileOutputStream}
+   */
+  public File[] encodeGraphChunksCompletelyAndCollectStatistics(File[] semiEncodedGraphChunks,
+      File workingDir, EncodingFileFormat inputFormat, GraphStatistics statistics) {
+    statistics.clear();
+    return encodeGraphChunksCompletelyAndCollectStatistics(semiEncodedGraphChunks, workingDir,
+        inputFormat, statistics, 1);
+  }
+
+  /**
+   * Like
+   * {@link #encodeGraphChunksCompletelyAndCollectStatistics(File[], File, EncodingFileFormat, GraphStatistics)}
+   * but the occurrences are added to the existing counts of
+   * <code>statistics</code>.
+   *
+   * @param semiEncodedGraphChunks
+   * @param workingDir
+   * @param inputFormat
+   * @param statistics
+   * @param firstNewID
+   *          the resources with smaller ids belong to the already loaded graph.
+   *          Their owners are pinned by
+   *          {@link GraphStatistics#countAppended(long, long, long, int, long)}.
+   * @return the files written by {@link RawStatementFileOutputStream}
+   */
+  public File[] encodeGraphChunksCompletelyAndCollectStatistics(File[] semiEncodedGraphChunks,
+      File workingDir, EncodingFileFormat inputFormat, GraphStatistics statistics,
+      long firstNewID) {
+    if (measurementCollector != null) {
+      measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FINAL_ENCODING_ENCODING_START,
+          System.currentTimeMillis());
+    }
+    File[] result = getRawEncodedGraphChunks(workingDir, semiEncodedGraphChunks.length);
+    for (int i = 0; i < semiEncodedGraphChunks.length; i++) {
+      if (semiEncodedGraphChunks[i] == null) {
+        result[i] = null;
+        continue;
+      }
+      try (
+          EncodedFileInputStream in =
+              new EncodedFileInputStream(inputFormat, semiEncodedGraphChunks[i]);
+          RawStatementFileOutputStream out = new RawStatementFileOutputStream(result[i]);) {
+        for (Statement statement : in) {
+          long subject = statement.isSubjectEncoded() ? statement.getSubjectAsLong()
+              : dictionary.encode(statement.getSubjectAsString(), true);
+          long property = statement.isPropertyEncoded() ? statement.getPropertyAsLong()
+              : dictionary.encode(statement.getPropertyAsString(), true);
+          long object = statement.isObjectEncoded() ? statement.getObjectAsLong()
+              : dictionary.encode(statement.getObjectAsString(), true);
+          statistics.countAppended(subject, property, object, i, firstNewID);
+          out.writeStatement(subject, property, object, statement.getContainment());
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    dictionary.flush();
+    statistics.computeJoinStatistics();
+    if (measurementCollector != null) {
+      measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FINAL_ENCODING_ENCODING_END,
+          System.currentTimeMillis());
+    }
+
+    for (File file : semiEncodedGraphChunks) {
+      if (file != null) {
+        file.delete();
+      }
+    }
+    return result;
+  }
+
+  public File[] getRawEncodedGraphChunks(File workingDir, int numberOfGraphChunks) {
+    File[] chunkFiles = new File[numberOfGraphChunks];
+    for (int i = 0; i < chunkFiles.length; i++) {
+      chunkFiles[i] =
+          new File(workingDir.getAbsolutePath() + File.separatorChar + "chunk" + i + ".enc.raw");
+    }
+    return chunkFiles;
+  }
+
   public Node decode(long id) {
     id = id & 0x00_00_ff_ff_ff_ff_ff_ffL;
     String plainText = dictionary.decode(id);
@@ -250,6 +421,156 @@ public class DictionaryEncoder implements Closeable {
     return DeSerializer.deserializeNode(plainText);
   }
 
+  /**
+   * Decodes <code>ids</code> into the serialized form of their resources as it
+   * is sent to the client, i.e., replacements of blank nodes are transformed
+   * back into blank nodes. Recently decoded ids are answered from a LRU cache.
+   * All other ids are looked up in the dictionary with a single batched
+   * access.
+   * 
+   * @param ids
+   * @return an array of the same length as <code>ids</code>. Its i-th entry is
+   *         <code>null</code> if <code>ids[i]</code> is unknown.
+   */
+  public String[] decodeToSerializedNodes(long[] ids) {
+    String[] result = new String[ids.length];
+    long[] missingIds = new long[ids.length];
+    int[] missingPositions = new int[ids.length];
+    int numberOfMissingIds = 0;
+    if (decodingCache != null) {
+      synchronized (decodingCache) {
+        for (int i = 0; i < ids.length; i++) {
+          long id = ids[i] & 0x00_00_ff_ff_ff_ff_ff_ffL;
+          result[i] = decodingCache.get(id);
+          if (result[i] == null) {
+            missingIds[numberOfMissingIds] = id;
+            missingPositions[numberOfMissingIds] = i;
+            numberOfMissingIds++;
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < ids.length; i++) {
+        missingIds[i] = ids[i] & 0x00_00_ff_ff_ff_ff_ff_ffL;
+        missingPositions[i] = i;
+      }
+      numberOfMissingIds = ids.length;
+    }
+    if (numberOfMissingIds == 0) {
+      return result;
+    }
+    String[] plainTexts = dictionary.decode(Arrays.copyOf(missingIds, numberOfMissingIds));
+    for (int i = 0; i < numberOfMissingIds; i++) {
+      if (plainTexts[i] != null) {
+        result[missingPositions[i]] = transformToResultString(plainTexts[i]);
+      }
+    }
+    if (decodingCache != null) {
+      synchronized (decodingCache) {
+        for (int i = 0; i < numberOfMissingIds; i++) {
+          if (plainTexts[i] != null) {
+            // update also handles ids that occurred several times
+            decodingCache.update(missingIds[i], result[missingPositions[i]]);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private String transformToResultString(String plainText) {
+    Node node = DeSerializer.deserializeNode(plainText);
+    if (node.isURI() && node.getURI().startsWith(Configuration.BLANK_NODE_URI_PREFIX)) {
+      // this is a replacement of a blank node
+      node = NodeFactory.createBlankNode(
+          node.getURI().substring(Configuration.BLANK_NODE_URI_PREFIX.length()));
+    }
+    return DeSerializer.serializeNode(node);
+  }
+
+  /**
+   * Writes the dictionary entries that are sent to the slaves. Each entry
+   * consists of the id without ownership, the length of the UTF-8 encoded
+   * resource and the resource in the serialized form as it is sent to the
+   * client.
+   * 
+   * @param workingDir
+   * @param shardType
+   * @param statistics
+   *          is used to determine the owner of each resource if
+   *          <code>shardType</code> is {@link DictionaryShardType#PARTITIONED}
+   * @return the i-th entry is the shard file of the i-th graph chunk. If
+   *         <code>shardType</code> is {@link DictionaryShardType#NONE}, all
+   *         entries are <code>null</code>.
+   */
+  public File[] createDictionaryShards(File workingDir, DictionaryShardType shardType,
+      GraphStatistics statistics) {
+    return createDictionaryShards(workingDir, shardType, statistics, 1);
+  }
+
+  /**
+   * Writes only the dictionary entries whose ids are at least
+   * <code>firstID</code>, e.g., the resources of an appended graph.
+   * 
+   * @param workingDir
+   * @param shardType
+   * @param statistics
+   * @param firstID
+   * @return see
+   *         {@link #createDictionaryShards(File, DictionaryShardType, GraphStatistics)}
+   */
+  public File[] createDictionaryShards(File workingDir, DictionaryShardType shardType,
+      GraphStatistics statistics, long firstID) {
+    int numberOfChunks = statistics.getNumberOfChunks();
+    File[] shards = new File[numberOfChunks];
+    if (shardType == DictionaryShardType.NONE) {
+      return shards;
+    }
+    DataOutputStream[] outputs = new DataOutputStream[numberOfChunks];
+    try {
+      for (int i = 0; i < numberOfChunks; i++) {
+        if ((shardType == DictionaryShardType.REPLICATED) && (i > 0)) {
+          shards[i] = shards[0];
+          outputs[i] = outputs[0];
+        } else {
+          shards[i] = new File(workingDir.getAbsolutePath() + File.separatorChar
+              + (shardType == DictionaryShardType.REPLICATED ? "dictionary.gz"
+                  : ("dictionary" + i + ".gz")));
+          outputs[i] = new DataOutputStream(new BufferedOutputStream(
+              new GZIPOutputStream(new FileOutputStream(shards[i]))));
+        }
+      }
+      dictionary.forEach(firstID, (plainText, id) -> {
+        int chunk = shardType == DictionaryShardType.REPLICATED ? 0
+            : (int) (statistics.getIDWithOwner(id) >>> 48);
+        try {
+          byte[] resource = transformToResultString(plainText).getBytes("UTF-8");
+          outputs[chunk].writeLong(id);
+          outputs[chunk].writeInt(resource.length);
+          outputs[chunk].write(resource);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      });
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      for (int i = 0; i < numberOfChunks; i++) {
+        if ((outputs[i] != null) && ((i == 0) || (outputs[i] != outputs[0]))) {
+          try {
+            outputs[i].close();
+          } catch (IOException e) {
+            if (logger != null) {
+              logger.throwing(e.getStackTrace()[0].getClassName(),
+                  e.getStackTrace()[0].getMethodName(), e);
+            }
+          }
+        }
+      }
+    }
+    return shards;
+  }
+
   public long encodeWithoutOwnership(Node node, boolean createNewEncodingForUnknownNodes) {
     long id = dictionary.encode(DeSerializer.serializeNode(node), createNewEncodingForUnknownNodes);
     return id;
@@ -274,6 +595,11 @@ public class DictionaryEncoder implements Closeable {
 
   public void clear() {
     dictionary.clear();
+    if (decodingCache != null) {
+      synchronized (decodingCache) {
+        decodingCache.clear();
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,305 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License along with Koral. If not,
+ * see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.master.dictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import org.apache.jena.graph.Node;
+
+import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
+import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
+import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
+import de.uni_koblenz.west.koral.common.io.Statement;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.common.utils.RDFFileIterator;
+import de.uni_koblenz.west.koral.common.utils.SortedRunMerger;
+import de.uni_koblenz.west.koral.master.dictionary.impl.RocksDBDictionary;
+import de.uni_koblenz.west.koral.master.statisticsDB.impl.multi_file.storage.caching.LRUCache;
+import de.uni_koblenz.west.koral.master.utils.DeSerializer;
+
+/**
+ * <p>
+ * Performs the initial encoding of the original graph files with several
+ * threads. Instead of looking up each resource of each statement in the
+ * dictionary, the encoding is sort based:
+ * </p>
+ * <ol>
+ * <li>The graph files are parsed in parallel. Each statement is written
+ * unencoded into a temporary file. The resources that have to be encoded are
+ * written in sorted runs without duplicates.</li>
+ * <li>The runs are merged. The resulting sorted distinct resources receive
+ * their ids in bulk and are ingested into the {@link RocksDBDictionary} as SST
+ * files.</li>
+ * <li>The temporary files are encoded in parallel. The encoded files are
+ * concatenated afterwards.</li>
+ * </ol>
+ * 
+ * <p>
+ * Each graph file is parsed only once, since the parser assigns different
+ * labels to blank nodes each time a file is parsed.
+ * </p>
+ */
+public class ParallelGraphEncoder {
+
+  private static final int MAX_NUMBER_OF_RESOURCES_PER_RUN = 500_000;
+
+  private static final int MAX_NUMBER_OF_MERGED_RUNS = 64;
+
+  private static final int ENCODING_CACHE_SIZE = 100_000;
+
+  private final RocksDBDictionary dictionary;
+
+  private final int numberOfThreads;
+
+  private final int numberOfParserThreads;
+
+  private final FileCompression fileCompression;
+
+  private final Logger logger;
+
+  public ParallelGraphEncoder(RocksDBDictionary dictionary, int numberOfThreads,
+      int numberOfParserThreads, FileCompression fileCompression, Logger logger) {
+    this.dictionary = dictionary;
+    this.numberOfThreads = numberOfThreads;
+    this.numberOfParserThreads = numberOfParserThreads;
+    this.fileCompression = fileCompression;
+    this.logger = logger;
+  }
+
+  /**
+   * @param plainGraphFiles
+   *          each file is parsed as soon as the iterator returns it
+   * @param workingDir
+   * @param outputFormat
+   * @param numberOfGraphChunks
+   * @param outputFile
+   *          the file to which all encoded statements are written
+   */
+  public void encode(Iterable<File> plainGraphFiles, File workingDir,
+      EncodingFileFormat outputFormat, int numberOfGraphChunks, File outputFile) {
+    File tmpDir = new File(workingDir.getAbsolutePath() + File.separator + "parallelEncoding");
+    tmpDir.mkdirs();
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+    try {
+      // parse graph files
+      List<Future<File[]>> parsedFiles = new ArrayList<>();
+      for (File plainGraphFile : plainGraphFiles) {
+        if (plainGraphFile != null) {
+          parsedFiles.add(executor.submit(() -> parse(plainGraphFile, tmpDir, outputFormat,
+              numberOfGraphChunks)));
+        }
+      }
+      List<File> unencodedFiles = new ArrayList<>();
+      List<File> runs = new ArrayList<>();
+      for (File[] result : ParallelGraphEncoder.getResults(parsedFiles)) {
+        unencodedFiles.add(result[0]);
+        runs.addAll(Arrays.asList(result).subList(1, result.length));
+      }
+
+      // build dictionary
+      runs = mergeRuns(runs, tmpDir, executor);
+      try (SortedRunMerger merger = new SortedRunMerger(runs);) {
+        dictionary.ingestSortedValues(merger);
+      }
+      for (File run : runs) {
+        run.delete();
+      }
+      if (logger != null) {
+        logger.finer("ingested " + dictionary.size() + " resources into the dictionary");
+      }
+
+      // encode statements
+      List<Future<File>> encodedFiles = new ArrayList<>();
+      for (File unencodedFile : unencodedFiles) {
+        encodedFiles.add(executor.submit(() -> encode(unencodedFile, tmpDir, outputFormat)));
+      }
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile));) {
+        // a concatenation of gzip files or of Snappy block files is valid
+        byte[] buffer = new byte[64 * 1024];
+        for (File encodedFile : ParallelGraphEncoder.getResults(encodedFiles)) {
+          try (InputStream in = new FileInputStream(encodedFile);) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+              out.write(buffer, 0, read);
+            }
+          }
+          encodedFile.delete();
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdownNow();
+      for (File file : tmpDir.listFiles()) {
+        file.delete();
+      }
+      tmpDir.delete();
+    }
+  }
+
+  private static <T> List<T> getResults(List<Future<T>> futures) {
+    List<T> results = new ArrayList<>();
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+    return results;
+  }
+
+  /**
+   * @param plainGraphFile
+   * @param tmpDir
+   * @param outputFormat
+   * @param numberOfGraphChunks
+   * @return the file containing the unencoded statements followed by the
+   *         sorted runs of resources
+   * @throws IOException
+   */
+  private File[] parse(File plainGraphFile, File tmpDir, EncodingFileFormat outputFormat,
+      int numberOfGraphChunks) throws IOException {
+    List<File> result = new ArrayList<>();
+    File unencodedFile = File.createTempFile("unencoded-", ".gz", tmpDir);
+    result.add(unencodedFile);
+    int bitsetSize = numberOfGraphChunks / Byte.SIZE;
+    if ((numberOfGraphChunks % Byte.SIZE) != 0) {
+      bitsetSize += 1;
+    }
+    Set<String> resources = new HashSet<>();
+    try (RDFFileIterator iter = new RDFFileIterator(plainGraphFile, false, logger,
+        numberOfParserThreads);
+        EncodedFileOutputStream out = new EncodedFileOutputStream(unencodedFile, fileCompression);) {
+      for (Node[] quad : iter) {
+        DictionaryEncoder.transformBlankNodes(quad);
+        String subject = DeSerializer.serializeNode(quad[0]);
+        String property = DeSerializer.serializeNode(quad[1]);
+        String object = DeSerializer.serializeNode(quad[2]);
+        if (outputFormat.isSubjectEncoded()) {
+          resources.add(subject);
+        }
+        if (outputFormat.isPropertyEncoded()) {
+          resources.add(property);
+        }
+        if (outputFormat.isObjectEncoded()) {
+          resources.add(object);
+        }
+        out.writeStatement(Statement.getStatement(EncodingFileFormat.UUU,
+            subject.getBytes("UTF-8"), property.getBytes("UTF-8"), object.getBytes("UTF-8"),
+            new byte[bitsetSize]));
+        if (resources.size() >= ParallelGraphEncoder.MAX_NUMBER_OF_RESOURCES_PER_RUN) {
+          result.add(writeRun(resources, tmpDir));
+          resources.clear();
+        }
+      }
+    }
+    if (!resources.isEmpty()) {
+      result.add(writeRun(resources, tmpDir));
+    }
+    return result.toArray(new File[result.size()]);
+  }
+
+  private File writeRun(Set<String> resources, File tmpDir) throws IOException {
+    byte[][] arrays = new byte[resources.size()][];
+    int i = 0;
+    for (String resource : resources) {
+      arrays[i++] = resource.getBytes("UTF-8");
+    }
+    return SortedRunMerger.writeRun(arrays, arrays.length, tmpDir);
+  }
+
+  /**
+   * Merges the runs in parallel until at most
+   * {@link #MAX_NUMBER_OF_MERGED_RUNS} runs are left.
+   * 
+   * @param runs
+   * @param tmpDir
+   * @param executor
+   * @return
+   */
+  private List<File> mergeRuns(List<File> runs, File tmpDir, ExecutorService executor) {
+    while (runs.size() > ParallelGraphEncoder.MAX_NUMBER_OF_MERGED_RUNS) {
+      List<Future<File>> mergedRuns = new ArrayList<>();
+      for (int i = 0; i < runs.size(); i += ParallelGraphEncoder.MAX_NUMBER_OF_MERGED_RUNS) {
+        List<File> mergedInputs = runs.subList(i,
+            Math.min(runs.size(), i + ParallelGraphEncoder.MAX_NUMBER_OF_MERGED_RUNS));
+        mergedRuns.add(executor.submit(new Callable<File>() {
+          @Override
+          public File call() throws Exception {
+            return SortedRunMerger.mergeRuns(mergedInputs, tmpDir);
+          }
+        }));
+      }
+      runs = ParallelGraphEncoder.getResults(mergedRuns);
+    }
+    return runs;
+  }
+
+  private File encode(File unencodedFile, File tmpDir, EncodingFileFormat outputFormat)
+      throws IOException {
+    File encodedFile = File.createTempFile("encoded-", ".gz", tmpDir);
+    // properties and frequent resources are looked up only once
+    LRUCache<String, byte[]> cache = new LRUCache<>(ParallelGraphEncoder.ENCODING_CACHE_SIZE);
+    try (EncodedFileInputStream in =
+        new EncodedFileInputStream(EncodingFileFormat.UUU, unencodedFile);
+        EncodedFileOutputStream out = new EncodedFileOutputStream(encodedFile, fileCompression);) {
+      for (Statement statement : in) {
+        byte[] subject = outputFormat.isSubjectEncoded()
+            ? encode(statement.getSubjectAsString(), cache) : statement.getSubject();
+        byte[] property = outputFormat.isPropertyEncoded()
+            ? encode(statement.getPropertyAsString(), cache) : statement.getProperty();
+        byte[] object = outputFormat.isObjectEncoded()
+            ? encode(statement.getObjectAsString(), cache) : statement.getObject();
+        out.writeStatement(Statement.getStatement(outputFormat, subject, property, object,
+            statement.getContainment()));
+      }
+    }
+    unencodedFile.delete();
+    return encodedFile;
+  }
+
+  private byte[] encode(String resource, LRUCache<String, byte[]> cache) {
+    byte[] id = cache.get(resource);
+    if (id == null) {
+      long longId = dictionary.encode(resource, false);
+      if (longId == 0) {
+        throw new IllegalStateException(
+            "The resource " + resource + " has not been added to the dictionary.");
+      }
+      id = NumberConversion.long2bytes(longId);
+      cache.put(resource, id);
+    }
+    return id;
+  }
+
+}
@@ -30,6 +30,8 @@ import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.master.dictionary.Dictionary;
 
 import java.io.File;
+import java.util.Map.Entry;
+import java.util.function.ObjLongConsumer;
 
 /**
  * Implements {@link Dictionary} with MapDB.
@@ -146,6 +148,34 @@ public class MapDBDictionary implements Dictionary {
     }
   }
 
+  @Override
+  public String[] decode(long[] ids) {
+    String[] values = new String[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      values[i] = decode(ids[i]);
+    }
+    return values;
+  }
+
+  @Override
+  public void forEach(ObjLongConsumer<String> consumer) {
+    forEach(1, consumer);
+  }
+
+  @Override
+  public void forEach(long firstID, ObjLongConsumer<String> consumer) {
+    try {
+      for (Entry<Long, String> entry : decoder.entrySet()) {
+        if (entry.getKey().longValue() >= firstID) {
+          consumer.accept(entry.getValue(), entry.getKey().longValue());
+        }
+      }
+    } catch (Throwable e) {
+      close();
+      throw e;
+    }
+  }
+
   @Override
   public boolean isEmpty() {
     return nextID == 1;
@@ -20,14 +20,22 @@ package de.uni_koblenz.west.koral.master.dictionary.impl;
 
 import java.io.File;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.ObjLongConsumer;
 
+import org.rocksdb.EnvOptions;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
+import org.rocksdb.SstFileWriter;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
@@ -90,6 +98,19 @@ public class RocksDBDictionary implements Dictionary, LongDictionary {
 			close();
 			throw new RuntimeException(e);
 		}
+		resetNextId();
+	}
+
+	/**
+	 * The ids are stored in big endian. Thus, the last key of the decoder is the largest assigned id.
+	 */
+	private void resetNextId() {
+		try (RocksIterator iterator = decoder.newIterator();) {
+			iterator.seekToLast();
+			if (iterator.isValid()) {
+				nextID = NumberConversion.bytes2long(iterator.key()) + 1;
+			}
+		}
 	}
 
 	private Options getOptions(int maxOpenFiles) {
@@ -164,6 +185,68 @@ public class RocksDBDictionary implements Dictionary, LongDictionary {
 		}
 	}
 
+	/**
+	 * Creates the dictionary from values that are already sorted. The ids are
+	 * assigned in the order of the values. Instead of inserting each entry, the
+	 * encoder and decoder entries are written to SST files that are ingested
+	 * directly into the databases. Thereby, the memtables, the write ahead log
+	 * and a later compaction are skipped. If the dictionary is not empty, e.g.,
+	 * because a graph is appended, the values that are not encoded yet are
+	 * inserted in write batches, instead.
+	 * 
+	 * @param sortedValues
+	 *            UTF-8 encoded values in ascending unsigned lexicographical
+	 *            order without duplicates
+	 */
+	public void ingestSortedValues(Iterator<byte[]> sortedValues) {
+		if (!isEmpty()) {
+			while (sortedValues.hasNext()) {
+				internalEncode(sortedValues.next(), true);
+			}
+			internalFlush();
+			return;
+		}
+		internalFlush();
+		File ingestionDir = new File(storageDir + File.separator + "ingestion");
+		ingestionDir.mkdirs();
+		File encoderFile = new File(ingestionDir.getAbsolutePath() + File.separator + "encoder.sst");
+		File decoderFile = new File(ingestionDir.getAbsolutePath() + File.separator + "decoder.sst");
+		long id = nextID;
+		Options options = getOptions(maxOpenFiles);
+		try (EnvOptions envOptions = new EnvOptions();
+				SstFileWriter encoderWriter = new SstFileWriter(envOptions, options);
+				SstFileWriter decoderWriter = new SstFileWriter(envOptions, options);) {
+			encoderWriter.open(encoderFile.getAbsolutePath());
+			decoderWriter.open(decoderFile.getAbsolutePath());
+			while (sortedValues.hasNext()) {
+				if (id > maxID) {
+					throw new RuntimeException("The maximum number of Strings have been encoded.");
+				}
+				byte[] value = sortedValues.next();
+				byte[] idBytes = NumberConversion.long2bytes(id);
+				// the slices copy the arrays into native memory
+				try (Slice valueSlice = new Slice(value); Slice idSlice = new Slice(idBytes);) {
+					encoderWriter.add(valueSlice, idSlice);
+					// the big endian ids are ascending in unsigned lexicographical order, too
+					decoderWriter.add(idSlice, valueSlice);
+				}
+				id++;
+			}
+			if (id > nextID) {
+				encoderWriter.finish();
+				decoderWriter.finish();
+				encoder.addFileWithFilePath(encoderFile.getAbsolutePath(), true);
+				decoder.addFileWithFilePath(decoderFile.getAbsolutePath(), true);
+			}
+		} catch (RocksDBException e) {
+			close();
+			throw new RuntimeException(e);
+		} finally {
+			deleteFile(ingestionDir);
+		}
+		nextID = id;
+	}
+
 	@Override
 	public String decode(long id) {
 		try {
@@ -178,6 +261,48 @@ public class RocksDBDictionary implements Dictionary, LongDictionary {
 		}
 	}
 
+	@Override
+	public String[] decode(long[] ids) {
+		List<byte[]> keys = new ArrayList<>(ids.length);
+		for (long id : ids) {
+			keys.add(NumberConversion.long2bytes(id));
+		}
+		try {
+			// the returned map uses the identical key arrays
+			Map<byte[], byte[]> valueBytes = decoder.multiGet(keys);
+			String[] values = new String[ids.length];
+			for (int i = 0; i < values.length; i++) {
+				byte[] value = valueBytes.get(keys.get(i));
+				if (value != null) {
+					values[i] = new String(value, "UTF-8");
+				}
+			}
+			return values;
+		} catch (RocksDBException | UnsupportedEncodingException e) {
+			close();
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void forEach(ObjLongConsumer<String> consumer) {
+		forEach(1, consumer);
+	}
+
+	@Override
+	public void forEach(long firstID, ObjLongConsumer<String> consumer) {
+		internalFlush();
+		try (RocksIterator iterator = decoder.newIterator();) {
+			for (iterator.seek(NumberConversion.long2bytes(firstID)); iterator.isValid(); iterator.next()) {
+				consumer.accept(new String(iterator.value(), "UTF-8"),
+						NumberConversion.bytes2long(iterator.key()));
+			}
+		} catch (UnsupportedEncodingException e) {
+			close();
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	public long decodeLong(long id) {
 		try {
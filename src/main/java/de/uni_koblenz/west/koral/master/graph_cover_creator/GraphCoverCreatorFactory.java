@@ -18,6 +18,7 @@
  */
 package de.uni_koblenz.west.koral.master.graph_cover_creator;
 
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.master.graph_cover_creator.impl.GreedyEdgeColoringCoverCreator;
 import de.uni_koblenz.west.koral.master.graph_cover_creator.impl.HashCoverCreator;
@@ -39,22 +40,22 @@ import java.util.logging.Logger;
 public class GraphCoverCreatorFactory {
 
   public static GraphCoverCreator getGraphCoverCreator(CoverStrategyType strategy, Logger logger,
-          MeasurementCollector measurementCollector) {
+          MeasurementCollector measurementCollector, FileCompression fileCompression) {
     switch (strategy) {
       case HASH:
-        return new HashCoverCreator(logger, measurementCollector);
+        return new HashCoverCreator(logger, measurementCollector, fileCompression);
       case HIERARCHICAL:
-        return new HierarchicalCoverCreator(logger, measurementCollector);
+        return new HierarchicalCoverCreator(logger, measurementCollector, fileCompression);
       case MIN_EDGE_CUT:
-        return new MinimalEdgeCutCover(logger, measurementCollector);
+        return new MinimalEdgeCutCover(logger, measurementCollector, fileCompression);
       case VERTICAL:
-        return new VerticalCoverCreator(logger, measurementCollector);
+        return new VerticalCoverCreator(logger, measurementCollector, fileCompression);
       case EDGE_COLORING:
-        return new GreedyEdgeColoringCoverCreator(logger, measurementCollector);
+        return new GreedyEdgeColoringCoverCreator(logger, measurementCollector, fileCompression);
       case MOLECULE_HASH:
-        return new MoleculeHashCoverCreator(logger, measurementCollector);
+        return new MoleculeHashCoverCreator(logger, measurementCollector, fileCompression);
       case MEC_OVER:
-        return new MinimalEdgeCutOverCover(logger, measurementCollector);
+        return new MinimalEdgeCutOverCover(logger, measurementCollector, fileCompression);
       default:
         return null;
 
@@ -24,6 +24,7 @@ import org.mapdb.DBMaker;
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
@@ -50,9 +51,13 @@ public class NHopReplicator {
 
   private final MeasurementCollector measurementCollector;
 
-  public NHopReplicator(Logger logger, MeasurementCollector measurementCollector) {
+  private final FileCompression fileCompression;
+
+  public NHopReplicator(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
     this.logger = logger;
     this.measurementCollector = measurementCollector;
+    this.fileCompression = fileCompression;
   }
 
   public File[] createNHopReplication(File[] graphCover, File workingDir, int numberOfHops) {
@@ -255,7 +260,7 @@ public class NHopReplicator {
       logger.finer("Converting chunk " + chunkIndex + " into a file.");
     }
     File chunkFile = getFile(chunkIndex, workingDir);
-    try (EncodedFileOutputStream output = new EncodedFileOutputStream(chunkFile);) {
+    try (EncodedFileOutputStream output = new EncodedFileOutputStream(chunkFile, fileCompression);) {
       for (Long subject : subjects) {
         MoleculeListIterator iterator = moleculeLists.iterator(subject, true);
         while (iterator.hasNext()) {
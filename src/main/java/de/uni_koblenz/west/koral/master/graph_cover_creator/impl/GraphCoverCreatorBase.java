@@ -22,6 +22,7 @@ import org.apache.jena.graph.Node;
 
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
@@ -45,11 +46,15 @@ public abstract class GraphCoverCreatorBase implements GraphCoverCreator {
 
   protected final MeasurementCollector measurementCollector;
 
+  protected final FileCompression fileCompression;
+
   protected long[] numberOfTriplesPerChunk;
 
-  public GraphCoverCreatorBase(Logger logger, MeasurementCollector measurementCollector) {
+  public GraphCoverCreatorBase(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
     this.logger = logger;
     this.measurementCollector = measurementCollector;
+    this.fileCompression = fileCompression;
   }
 
   @Override
@@ -173,7 +178,7 @@ public abstract class GraphCoverCreatorBase implements GraphCoverCreator {
     EncodedFileOutputStream[] outputs = new EncodedFileOutputStream[chunkFiles.length];
     for (int i = 0; i < outputs.length; i++) {
       try {
-        outputs[i] = new EncodedFileOutputStream(chunkFiles[i]);
+        outputs[i] = new EncodedFileOutputStream(chunkFiles[i], fileCompression);
       } catch (IOException e) {
         for (int j = i; i >= 0; j--) {
           if (outputs[j] != null) {
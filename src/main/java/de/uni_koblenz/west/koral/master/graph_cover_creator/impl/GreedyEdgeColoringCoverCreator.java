@@ -7,6 +7,7 @@ import de.uni_koblenz.west.koral.common.io.EncodedLongFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedRandomAccessLongFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedRandomAccessLongFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.LongOutputWriter;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
@@ -63,8 +64,9 @@ public class GreedyEdgeColoringCoverCreator extends GraphCoverCreatorBase {
 
   private long numberOfEdges = 0;
 
-  public GreedyEdgeColoringCoverCreator(Logger logger, MeasurementCollector measurementCollector) {
-    super(logger, measurementCollector);
+  public GreedyEdgeColoringCoverCreator(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
+    super(logger, measurementCollector, fileCompression);
   }
 
   @Override
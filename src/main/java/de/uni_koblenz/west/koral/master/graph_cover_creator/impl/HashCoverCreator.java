@@ -21,6 +21,7 @@ package de.uni_koblenz.west.koral.master.graph_cover_creator.impl;
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
@@ -47,8 +48,9 @@ public class HashCoverCreator extends GraphCoverCreatorBase {
     return EncodingFileFormat.UEE;
   }
 
-  public HashCoverCreator(Logger logger, MeasurementCollector measurementCollector) {
-    super(logger, measurementCollector);
+  public HashCoverCreator(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
+    super(logger, measurementCollector, fileCompression);
     try {
       digest = MessageDigest.getInstance("MD5");
     } catch (NoSuchAlgorithmException e) {
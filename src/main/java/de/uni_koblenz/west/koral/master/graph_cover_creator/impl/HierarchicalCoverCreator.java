@@ -25,6 +25,7 @@ import de.uni_koblenz.west.koral.common.config.impl.Configuration;
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
@@ -43,8 +44,9 @@ import java.util.regex.Pattern;
  */
 public class HierarchicalCoverCreator extends HashCoverCreator {
 
-  public HierarchicalCoverCreator(Logger logger, MeasurementCollector measurementCollector) {
-    super(logger, measurementCollector);
+  public HierarchicalCoverCreator(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
+    super(logger, measurementCollector, fileCompression);
   }
 
   @Override
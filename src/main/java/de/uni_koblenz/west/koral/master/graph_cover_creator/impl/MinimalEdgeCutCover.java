@@ -24,6 +24,7 @@ import org.rocksdb.RocksDBException;
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
@@ -42,8 +43,9 @@ import java.util.logging.Logger;
  */
 public class MinimalEdgeCutCover extends MinimalEdgeCutOverCover {
 
-  public MinimalEdgeCutCover(Logger logger, MeasurementCollector measurementCollector) {
-    super(logger, measurementCollector);
+  public MinimalEdgeCutCover(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
+    super(logger, measurementCollector, fileCompression);
   }
 
   @Override
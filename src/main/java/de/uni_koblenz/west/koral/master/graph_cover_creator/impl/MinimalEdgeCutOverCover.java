@@ -27,6 +27,7 @@ import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedLongFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedLongFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.LongOutputWriter;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
@@ -82,8 +83,9 @@ public class MinimalEdgeCutOverCover extends GraphCoverCreatorBase {
 
   private long numberOfVertices;
 
-  public MinimalEdgeCutOverCover(Logger logger, MeasurementCollector measurementCollector) {
-    super(logger, measurementCollector);
+  public MinimalEdgeCutOverCover(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
+    super(logger, measurementCollector, fileCompression);
   }
 
   @Override
@@ -187,9 +189,9 @@ public class MinimalEdgeCutOverCover extends GraphCoverCreatorBase {
     // create adjacency lists
     try {
       try (EncodedFileOutputStream encodedGraphOutput = new EncodedFileOutputStream(
-              encodedRDFGraph);
+              encodedRDFGraph, fileCompression);
               EncodedFileOutputStream ignoredTriplesOutput = new EncodedFileOutputStream(
-                      ignoredTriples);) {
+                      ignoredTriples, fileCompression);) {
         for (Statement statement : input) {
           if (Arrays.equals(statement.getSubject(), statement.getObject())
                   || (statement.getPropertyAsLong() == encodedRdfTypeLabel)) {
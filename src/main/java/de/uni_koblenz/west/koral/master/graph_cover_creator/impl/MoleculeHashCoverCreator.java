@@ -5,6 +5,7 @@ import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedLongFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedLongFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.LongOutputWriter;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
@@ -43,13 +44,15 @@ public class MoleculeHashCoverCreator extends GraphCoverCreatorBase {
 
   private int maxMoleculeDiameter;
 
-  public MoleculeHashCoverCreator(Logger logger, MeasurementCollector measurementCollector) {
-    this(logger, measurementCollector, MoleculeHashCoverCreator.DEFAULT_MAX_MOLECULE_DIAMETER);
+  public MoleculeHashCoverCreator(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
+    this(logger, measurementCollector, fileCompression,
+            MoleculeHashCoverCreator.DEFAULT_MAX_MOLECULE_DIAMETER);
   }
 
   public MoleculeHashCoverCreator(Logger logger, MeasurementCollector measurementCollector,
-          int maxMoleculeDiameter) {
-    super(logger, measurementCollector);
+          FileCompression fileCompression, int maxMoleculeDiameter) {
+    super(logger, measurementCollector, fileCompression);
     this.maxMoleculeDiameter = maxMoleculeDiameter;
   }
 
@@ -20,6 +20,7 @@ package de.uni_koblenz.west.koral.master.graph_cover_creator.impl;
 
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 
@@ -35,8 +36,9 @@ import java.util.logging.Logger;
  */
 public class VerticalCoverCreator extends HashCoverCreator {
 
-  public VerticalCoverCreator(Logger logger, MeasurementCollector measurementCollector) {
-    super(logger, measurementCollector);
+  public VerticalCoverCreator(Logger logger, MeasurementCollector measurementCollector,
+          FileCompression fileCompression) {
+    super(logger, measurementCollector, fileCompression);
   }
 
   @Override
@@ -0,0 +1,456 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License along with Koral. If not,
+ * see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.master.statisticsDB;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.common.utils.SortedRunMerger;
+
+/**
+ * <p>
+ * Collects statistics about the co-occurrence of properties that are required to estimate join sizes:
+ * </p>
+ * <ul>
+ * <li>The characteristic sets, i.e., the distinct sets of properties of the subjects. For each characteristic set,
+ * the number of subjects and the number of occurrences of each property is stored.</li>
+ * <li>For each pair of properties p1 and p2, the number of results of the subject-subject join (?x p1 ?y. ?x p2
+ * ?z), the subject-object join (?x p1 ?y. ?z p2 ?x) and the object-object join (?y p1 ?x. ?z p2 ?x).</li>
+ * </ul>
+ *
+ * <p>
+ * The counted statements are sorted externally once by subject and once by object. Afterwards, both sorted runs
+ * are scanned in parallel, so that all statements of a resource are available at once. Duplicate statements are
+ * counted only once. The results are persisted in the statistics directory. When a graph is appended, the
+ * statistics of the appended statements are added to the existing ones, i.e., joins between the already loaded and
+ * the appended statements are not reflected.
+ * </p>
+ */
+public class CharacteristicSetStatistics {
+
+	private static final int MAX_NUMBER_OF_STATEMENTS_PER_RUN = 500_000;
+
+	private static final int MAX_NUMBER_OF_MERGED_RUNS = 64;
+
+	private final File characteristicSetsFile;
+
+	private final File propertyPairsFile;
+
+	private final File tmpDir;
+
+	/**
+	 * sorted properties of the characteristic set -&gt; number of subjects followed by the number of occurrences of
+	 * each property
+	 */
+	private final Map<List<Long>, long[]> characteristicSets;
+
+	private final Map<Long, Map<Long, Long>> subjectSubjectJoinSizes;
+
+	private final Map<Long, Map<Long, Long>> subjectObjectJoinSizes;
+
+	private final Map<Long, Map<Long, Long>> objectObjectJoinSizes;
+
+	private byte[][] subjectRun;
+
+	private byte[][] objectRun;
+
+	private int runLength;
+
+	private final List<File> subjectRuns;
+
+	private final List<File> objectRuns;
+
+	public CharacteristicSetStatistics(File statisticsDir) {
+		characteristicSetsFile = new File(statisticsDir.getAbsolutePath() + File.separatorChar + "characteristicSets");
+		propertyPairsFile = new File(statisticsDir.getAbsolutePath() + File.separatorChar + "propertyPairs");
+		tmpDir = new File(statisticsDir.getAbsolutePath() + File.separatorChar + "characteristicSetRuns");
+		characteristicSets = new HashMap<>();
+		subjectSubjectJoinSizes = new HashMap<>();
+		subjectObjectJoinSizes = new HashMap<>();
+		objectObjectJoinSizes = new HashMap<>();
+		subjectRuns = new ArrayList<>();
+		objectRuns = new ArrayList<>();
+		load();
+	}
+
+	/**
+	 * @param subject
+	 *            without ownership bits
+	 * @param property
+	 *            without ownership bits
+	 * @param object
+	 *            without ownership bits
+	 */
+	public synchronized void count(long subject, long property, long object) {
+		if (subjectRun == null) {
+			subjectRun = new byte[CharacteristicSetStatistics.MAX_NUMBER_OF_STATEMENTS_PER_RUN][];
+			objectRun = new byte[CharacteristicSetStatistics.MAX_NUMBER_OF_STATEMENTS_PER_RUN][];
+		}
+		subjectRun[runLength] = CharacteristicSetStatistics.toBytes(subject, property, object);
+		objectRun[runLength] = CharacteristicSetStatistics.toBytes(object, property, subject);
+		runLength++;
+		if (runLength == subjectRun.length) {
+			writeRuns();
+		}
+	}
+
+	private static byte[] toBytes(long resource, long property, long otherResource) {
+		byte[] statement = new byte[3 * Long.BYTES];
+		NumberConversion.long2bytes(resource, statement, 0);
+		NumberConversion.long2bytes(property, statement, Long.BYTES);
+		NumberConversion.long2bytes(otherResource, statement, 2 * Long.BYTES);
+		return statement;
+	}
+
+	private void writeRuns() {
+		tmpDir.mkdirs();
+		try {
+			subjectRuns.add(SortedRunMerger.writeRun(subjectRun, runLength, tmpDir));
+			objectRuns.add(SortedRunMerger.writeRun(objectRun, runLength, tmpDir));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		Arrays.fill(subjectRun, 0, runLength, null);
+		Arrays.fill(objectRun, 0, runLength, null);
+		runLength = 0;
+	}
+
+	/**
+	 * Computes the statistics of all statements counted since the last call and persists the updated statistics.
+	 */
+	public synchronized void finish() {
+		if (runLength > 0) {
+			writeRuns();
+		}
+		subjectRun = null;
+		objectRun = null;
+		if (subjectRuns.isEmpty()) {
+			return;
+		}
+		try {
+			mergeRuns(subjectRuns);
+			mergeRuns(objectRuns);
+			try (SortedRunMerger subjects = new SortedRunMerger(subjectRuns);
+					SortedRunMerger objects = new SortedRunMerger(objectRuns);) {
+				Map<Long, Long> subjectProperties = new TreeMap<>();
+				Map<Long, Long> objectProperties = new TreeMap<>();
+				byte[] nextSubjectStatement = subjects.hasNext() ? subjects.next() : null;
+				byte[] nextObjectStatement = objects.hasNext() ? objects.next() : null;
+				while ((nextSubjectStatement != null) || (nextObjectStatement != null)) {
+					long resource = Long.MAX_VALUE;
+					if (nextSubjectStatement != null) {
+						resource = NumberConversion.bytes2long(nextSubjectStatement, 0);
+					}
+					if (nextObjectStatement != null) {
+						resource = Math.min(resource, NumberConversion.bytes2long(nextObjectStatement, 0));
+					}
+					while ((nextSubjectStatement != null)
+							&& (NumberConversion.bytes2long(nextSubjectStatement, 0) == resource)) {
+						subjectProperties.merge(NumberConversion.bytes2long(nextSubjectStatement, Long.BYTES), 1L,
+								Long::sum);
+						nextSubjectStatement = subjects.hasNext() ? subjects.next() : null;
+					}
+					while ((nextObjectStatement != null)
+							&& (NumberConversion.bytes2long(nextObjectStatement, 0) == resource)) {
+						objectProperties.merge(NumberConversion.bytes2long(nextObjectStatement, Long.BYTES), 1L,
+								Long::sum);
+						nextObjectStatement = objects.hasNext() ? objects.next() : null;
+					}
+					countResource(subjectProperties, objectProperties);
+					subjectProperties.clear();
+					objectProperties.clear();
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			deleteRuns();
+		}
+		save();
+	}
+
+	private void mergeRuns(List<File> runs) throws IOException {
+		while (runs.size() > CharacteristicSetStatistics.MAX_NUMBER_OF_MERGED_RUNS) {
+			List<File> mergedRuns = new ArrayList<>();
+			for (int i = 0; i < runs.size(); i += CharacteristicSetStatistics.MAX_NUMBER_OF_MERGED_RUNS) {
+				mergedRuns.add(SortedRunMerger.mergeRuns(
+						runs.subList(i, Math.min(runs.size(), i + CharacteristicSetStatistics.MAX_NUMBER_OF_MERGED_RUNS)),
+						tmpDir));
+			}
+			runs.clear();
+			runs.addAll(mergedRuns);
+		}
+	}
+
+	/**
+	 * @param subjectProperties
+	 *            property -&gt; number of statements in which the resource is the subject, sorted by property
+	 * @param objectProperties
+	 *            property -&gt; number of statements in which the resource is the object, sorted by property
+	 */
+	private void countResource(Map<Long, Long> subjectProperties, Map<Long, Long> objectProperties) {
+		if (!subjectProperties.isEmpty()) {
+			List<Long> properties = new ArrayList<>(subjectProperties.keySet());
+			long[] counts = characteristicSets.computeIfAbsent(properties, k -> new long[k.size() + 1]);
+			counts[0]++;
+			int i = 1;
+			for (Long occurrences : subjectProperties.values()) {
+				counts[i++] += occurrences;
+			}
+		}
+		countSymmetricPairs(subjectProperties, subjectSubjectJoinSizes);
+		countSymmetricPairs(objectProperties, objectObjectJoinSizes);
+		for (Entry<Long, Long> subjectProperty : subjectProperties.entrySet()) {
+			for (Entry<Long, Long> objectProperty : objectProperties.entrySet()) {
+				CharacteristicSetStatistics.add(subjectObjectJoinSizes, subjectProperty.getKey(),
+						objectProperty.getKey(), subjectProperty.getValue() * objectProperty.getValue());
+			}
+		}
+	}
+
+	private void countSymmetricPairs(Map<Long, Long> properties, Map<Long, Map<Long, Long>> joinSizes) {
+		List<Entry<Long, Long>> entries = new ArrayList<>(properties.entrySet());
+		for (int i = 0; i < entries.size(); i++) {
+			Entry<Long, Long> entry1 = entries.get(i);
+			for (int j = i; j < entries.size(); j++) {
+				Entry<Long, Long> entry2 = entries.get(j);
+				CharacteristicSetStatistics.add(joinSizes, entry1.getKey(), entry2.getKey(),
+						entry1.getValue() * entry2.getValue());
+			}
+		}
+	}
+
+	private static void add(Map<Long, Map<Long, Long>> joinSizes, long property1, long property2, long joinSize) {
+		joinSizes.computeIfAbsent(property1, k -> new HashMap<>()).merge(property2, joinSize, Long::sum);
+	}
+
+	private static long get(Map<Long, Map<Long, Long>> joinSizes, long property1, long property2) {
+		Map<Long, Long> sizes = joinSizes.get(property1);
+		if (sizes == null) {
+			return 0;
+		}
+		Long size = sizes.get(property2);
+		return size == null ? 0 : size.longValue();
+	}
+
+	public synchronized boolean isEmpty() {
+		return characteristicSets.isEmpty() && objectObjectJoinSizes.isEmpty();
+	}
+
+	/**
+	 * @param property1
+	 * @param property2
+	 * @return number of results of (?x property1 ?y. ?x property2 ?z)
+	 */
+	public synchronized long getSubjectSubjectJoinSize(long property1, long property2) {
+		return CharacteristicSetStatistics.get(subjectSubjectJoinSizes, Math.min(property1, property2),
+				Math.max(property1, property2));
+	}
+
+	/**
+	 * @param subjectProperty
+	 * @param objectProperty
+	 * @return number of results of (?x subjectProperty ?y. ?z objectProperty ?x)
+	 */
+	public synchronized long getSubjectObjectJoinSize(long subjectProperty, long objectProperty) {
+		return CharacteristicSetStatistics.get(subjectObjectJoinSizes, subjectProperty, objectProperty);
+	}
+
+	/**
+	 * @param property1
+	 * @param property2
+	 * @return number of results of (?y property1 ?x. ?z property2 ?x)
+	 */
+	public synchronized long getObjectObjectJoinSize(long property1, long property2) {
+		return CharacteristicSetStatistics.get(objectObjectJoinSizes, Math.min(property1, property2),
+				Math.max(property1, property2));
+	}
+
+	/**
+	 * @param properties
+	 * @return number of subjects that have all <code>properties</code>
+	 */
+	public synchronized long getNumberOfSubjects(long... properties) {
+		long numberOfSubjects = 0;
+		for (Entry<List<Long>, long[]> characteristicSet : characteristicSets.entrySet()) {
+			if (CharacteristicSetStatistics.containsAll(characteristicSet.getKey(), properties)) {
+				numberOfSubjects += characteristicSet.getValue()[0];
+			}
+		}
+		return numberOfSubjects;
+	}
+
+	/**
+	 * Estimates the number of results of the star join (?x properties[0] ?y0. ... ?x properties[n] ?yn). Within a
+	 * characteristic set, the occurrences of a property are assumed to be distributed uniformly over its subjects.
+	 *
+	 * @param properties
+	 *            may contain the same property several times
+	 * @return estimated number of results
+	 */
+	public synchronized double estimateSubjectStarSize(long... properties) {
+		double size = 0;
+		for (Entry<List<Long>, long[]> characteristicSet : characteristicSets.entrySet()) {
+			List<Long> setProperties = characteristicSet.getKey();
+			long[] counts = characteristicSet.getValue();
+			double setSize = counts[0];
+			for (long property : properties) {
+				int index = Collections.binarySearch(setProperties, property);
+				if (index < 0) {
+					setSize = 0;
+					break;
+				}
+				setSize *= counts[index + 1] / (double) counts[0];
+			}
+			size += setSize;
+		}
+		return size;
+	}
+
+	private static boolean containsAll(List<Long> sortedProperties, long[] properties) {
+		for (long property : properties) {
+			if (Collections.binarySearch(sortedProperties, property) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void load() {
+		if (characteristicSetsFile.exists()) {
+			try (DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(characteristicSetsFile)));) {
+				int numberOfCharacteristicSets = in.readInt();
+				for (int i = 0; i < numberOfCharacteristicSets; i++) {
+					int numberOfProperties = in.readInt();
+					List<Long> properties = new ArrayList<>(numberOfProperties);
+					for (int j = 0; j < numberOfProperties; j++) {
+						properties.add(in.readLong());
+					}
+					long[] counts = new long[numberOfProperties + 1];
+					for (int j = 0; j < counts.length; j++) {
+						counts[j] = in.readLong();
+					}
+					characteristicSets.put(properties, counts);
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (propertyPairsFile.exists()) {
+			try (DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(propertyPairsFile)));) {
+				CharacteristicSetStatistics.readJoinSizes(in, subjectSubjectJoinSizes);
+				CharacteristicSetStatistics.readJoinSizes(in, subjectObjectJoinSizes);
+				CharacteristicSetStatistics.readJoinSizes(in, objectObjectJoinSizes);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private static void readJoinSizes(DataInputStream in, Map<Long, Map<Long, Long>> joinSizes) throws IOException {
+		int numberOfProperties = in.readInt();
+		for (int i = 0; i < numberOfProperties; i++) {
+			long property1 = in.readLong();
+			int numberOfPairs = in.readInt();
+			Map<Long, Long> sizes = new HashMap<>();
+			for (int j = 0; j < numberOfPairs; j++) {
+				sizes.put(in.readLong(), in.readLong());
+			}
+			joinSizes.put(property1, sizes);
+		}
+	}
+
+	private void save() {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(characteristicSetsFile)));) {
+			out.writeInt(characteristicSets.size());
+			for (Entry<List<Long>, long[]> characteristicSet : characteristicSets.entrySet()) {
+				out.writeInt(characteristicSet.getKey().size());
+				for (Long property : characteristicSet.getKey()) {
+					out.writeLong(property);
+				}
+				for (long count : characteristicSet.getValue()) {
+					out.writeLong(count);
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(propertyPairsFile)));) {
+			CharacteristicSetStatistics.writeJoinSizes(out, subjectSubjectJoinSizes);
+			CharacteristicSetStatistics.writeJoinSizes(out, subjectObjectJoinSizes);
+			CharacteristicSetStatistics.writeJoinSizes(out, objectObjectJoinSizes);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void writeJoinSizes(DataOutputStream out, Map<Long, Map<Long, Long>> joinSizes)
+			throws IOException {
+		out.writeInt(joinSizes.size());
+		for (Entry<Long, Map<Long, Long>> entry : joinSizes.entrySet()) {
+			out.writeLong(entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (Entry<Long, Long> size : entry.getValue().entrySet()) {
+				out.writeLong(size.getKey());
+				out.writeLong(size.getValue());
+			}
+		}
+	}
+
+	private void deleteRuns() {
+		for (File run : subjectRuns) {
+			run.delete();
+		}
+		subjectRuns.clear();
+		for (File run : objectRuns) {
+			run.delete();
+		}
+		objectRuns.clear();
+		tmpDir.delete();
+	}
+
+	public synchronized void clear() {
+		subjectRun = null;
+		objectRun = null;
+		runLength = 0;
+		deleteRuns();
+		characteristicSets.clear();
+		subjectSubjectJoinSizes.clear();
+		subjectObjectJoinSizes.clear();
+		objectObjectJoinSizes.clear();
+		characteristicSetsFile.delete();
+		propertyPairsFile.delete();
+	}
+
+}
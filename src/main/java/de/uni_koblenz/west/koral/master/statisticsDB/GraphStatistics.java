@@ -16,17 +16,31 @@
  */
 package de.uni_koblenz.west.koral.master.statisticsDB;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
+import de.uni_koblenz.west.koral.common.io.RawStatementFileInputStream;
 import de.uni_koblenz.west.koral.common.io.Statement;
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
 import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
 import de.uni_koblenz.west.koral.master.statisticsDB.impl.multi_file.MultiFileGraphStatisticsDatabase;
@@ -43,6 +57,8 @@ import playground.StatisticsDBTest;
  */
 public class GraphStatistics implements Closeable {
 
+	private static final int NUMBER_OF_STATEMENTS_PER_TURN = 10_000;
+
 	@SuppressWarnings("unused")
 	private final Logger logger;
 
@@ -50,6 +66,24 @@ public class GraphStatistics implements Closeable {
 
 	private final int numberOfChunks;
 
+	private final FileCompression fileCompression;
+
+	/**
+	 * Owners of resources that differ from the owners derived from the current counts. They are kept, since the
+	 * resources have already been sent to the slaves with these owners before a graph was appended.
+	 */
+	private final Map<Long, Short> pinnedOwners;
+
+	/**
+	 * <code>null</code> if the pinned owners are not persisted
+	 */
+	private final File pinnedOwnersFile;
+
+	/**
+	 * <code>null</code> if no join statistics are collected
+	 */
+	private final CharacteristicSetStatistics joinStatistics;
+
 	public GraphStatistics(Configuration conf, short numberOfChunks, Logger logger) {
 		this.logger = logger;
 		this.numberOfChunks = numberOfChunks;
@@ -57,12 +91,54 @@ public class GraphStatistics implements Closeable {
 		// database = new SQLiteGraphStatisticsDatabase(conf.getStatisticsDir(),
 		// numberOfChunks);
 		database = new MultiFileGraphStatisticsDatabase(conf.getStatisticsDir(true), numberOfChunks, logger);
+		fileCompression = conf.getEncodedFileCompression();
+		pinnedOwners = new ConcurrentHashMap<>();
+		pinnedOwnersFile = new File(conf.getStatisticsDir(true) + File.separatorChar + "pinnedOwners");
+		loadPinnedOwners();
+		joinStatistics = conf.isJoinStatisticsCollectionEnabled()
+				? new CharacteristicSetStatistics(new File(conf.getStatisticsDir(true)))
+				: null;
 	}
 
 	public GraphStatistics(GraphStatisticsDatabase database, short numberOfChunks, Logger logger) {
 		this.logger = logger;
 		this.numberOfChunks = numberOfChunks;
 		this.database = database;
+		fileCompression = FileCompression.GZIP;
+		pinnedOwners = new ConcurrentHashMap<>();
+		pinnedOwnersFile = null;
+		joinStatistics = null;
+	}
+
+	private void loadPinnedOwners() {
+		if (!pinnedOwnersFile.exists()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(pinnedOwnersFile)));) {
+			while (true) {
+				long id = in.readLong();
+				pinnedOwners.put(id, in.readShort());
+			}
+		} catch (EOFException e) {
+			// all pinned owners are read
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void savePinnedOwners() {
+		if (pinnedOwnersFile == null) {
+			return;
+		}
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(pinnedOwnersFile)));) {
+			for (Entry<Long, Short> entry : pinnedOwners.entrySet()) {
+				out.writeLong(entry.getKey());
+				out.writeShort(entry.getValue());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	public void collectStatistics(File[] encodedChunks) {
@@ -70,6 +146,7 @@ public class GraphStatistics implements Closeable {
 		for (int i = 0; i < encodedChunks.length; i++) {
 			collectStatistics(i, encodedChunks[i]);
 		}
+		computeJoinStatistics();
 	}
 
 	private void collectStatistics(int chunkIndex, File chunk) {
@@ -99,6 +176,60 @@ public class GraphStatistics implements Closeable {
 		database.incrementPropertyCount(property & 0x00_00_FF_FF_FF_FF_FF_FFL, chunk);
 		database.incrementObjectCount(object & 0x00_00_FF_FF_FF_FF_FF_FFL, chunk);
 		database.incrementNumberOfTriplesPerChunk(chunk);
+		if (joinStatistics != null) {
+			joinStatistics.count(subject & 0x00_00_FF_FF_FF_FF_FF_FFL, property & 0x00_00_FF_FF_FF_FF_FF_FFL,
+					object & 0x00_00_FF_FF_FF_FF_FF_FFL);
+		}
+	}
+
+	/**
+	 * Computes the characteristic sets and the join sizes of property pairs of all statements counted since the last
+	 * call. It has to be called after the last statement is counted.
+	 */
+	public void computeJoinStatistics() {
+		if (joinStatistics != null) {
+			joinStatistics.finish();
+		}
+	}
+
+	/**
+	 * Counts a statement of a graph that is appended to the already loaded graph. Before the counts of a resource
+	 * of the already loaded graph change, its current owner is pinned so that the ids stored on the slaves remain
+	 * valid. {@link #finishAppending()} has to be called after the last statement is counted.
+	 *
+	 * @param subject
+	 * @param property
+	 * @param object
+	 * @param chunk
+	 * @param firstNewID
+	 *            resources with smaller ids belong to the already loaded graph
+	 */
+	public void countAppended(long subject, long property, long object, int chunk, long firstNewID) {
+		pinOwner(subject & 0x00_00_FF_FF_FF_FF_FF_FFL, firstNewID);
+		pinOwner(property & 0x00_00_FF_FF_FF_FF_FF_FFL, firstNewID);
+		pinOwner(object & 0x00_00_FF_FF_FF_FF_FF_FFL, firstNewID);
+		count(subject, property, object, chunk);
+	}
+
+	private void pinOwner(long id, long firstNewID) {
+		if ((id < firstNewID) && !pinnedOwners.containsKey(id)) {
+			pinnedOwners.put(id, computeOwner(id));
+		}
+	}
+
+	/**
+	 * Removes the pinned owners that are equal to the owners derived from the updated counts and persists the
+	 * remaining ones.
+	 */
+	public void finishAppending() {
+		Iterator<Entry<Long, Short>> iterator = pinnedOwners.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<Long, Short> entry = iterator.next();
+			if (computeOwner(entry.getKey()) == entry.getValue().shortValue()) {
+				iterator.remove();
+			}
+		}
+		savePinnedOwners();
 	}
 
 	public long[] getChunkSizes() {
@@ -113,7 +244,7 @@ public class GraphStatistics implements Closeable {
 				continue;
 			}
 			try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE, encodedChunks[i]);
-					EncodedFileOutputStream out = new EncodedFileOutputStream(result[i]);) {
+					EncodedFileOutputStream out = new EncodedFileOutputStream(result[i], fileCompression);) {
 				for (Statement statement : in) {
 					Statement newStatement = Statement.getStatement(EncodingFileFormat.EEE,
 							NumberConversion.long2bytes(getIDWithOwner(statement.getSubjectAsLong())),
@@ -135,6 +266,99 @@ public class GraphStatistics implements Closeable {
 		return result;
 	}
 
+	/**
+	 * Adjusts the ownership of the uncompressed chunks created by
+	 * {@link DictionaryEncoder#encodeGraphChunksCompletelyAndCollectStatistics(File[], File, EncodingFileFormat, GraphStatistics)}.
+	 * The raw chunks are memory-mapped so that only the adjusted chunks have to be compressed.
+	 *
+	 * @param rawChunks
+	 * @param workingDir
+	 * @return the files returned by {@link #getAdjustedFiles(File)}
+	 */
+	public File[] adjustOwnershipOfRawChunks(File[] rawChunks, File workingDir) {
+		File[] result = getAdjustedFiles(workingDir);
+		EncodedFileOutputStream[] outputs = new EncodedFileOutputStream[rawChunks.length];
+		try {
+			for (int i = 0; i < rawChunks.length; i++) {
+				if (rawChunks[i] == null) {
+					result[i] = null;
+				} else {
+					outputs[i] = new EncodedFileOutputStream(result[i], fileCompression);
+				}
+			}
+			adjustOwnershipOfRawChunks(rawChunks, outputs);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			for (EncodedFileOutputStream output : outputs) {
+				if (output != null) {
+					try {
+						output.close();
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+		}
+
+		for (File file : rawChunks) {
+			if (file != null) {
+				file.delete();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the statements of <code>rawChunks[i]</code> with adjusted ownership into <code>outputs[i]</code>. The
+	 * chunks are processed in turns of {@value #NUMBER_OF_STATEMENTS_PER_TURN} statements so that all outputs are
+	 * written concurrently, e.g., if they stream the chunks to the slaves. Neither the raw chunks are deleted nor the
+	 * outputs are closed.
+	 *
+	 * @param rawChunks
+	 * @param outputs
+	 * @throws IOException
+	 */
+	public void adjustOwnershipOfRawChunks(File[] rawChunks, EncodedFileOutputStream[] outputs) throws IOException {
+		RawStatementFileInputStream[] inputs = new RawStatementFileInputStream[rawChunks.length];
+		try {
+			int numberOfUnfinishedChunks = 0;
+			for (int i = 0; i < rawChunks.length; i++) {
+				if (rawChunks[i] != null) {
+					inputs[i] = new RawStatementFileInputStream(rawChunks[i]);
+					numberOfUnfinishedChunks++;
+				}
+			}
+			while (numberOfUnfinishedChunks > 0) {
+				for (int i = 0; i < inputs.length; i++) {
+					if (inputs[i] == null) {
+						continue;
+					}
+					for (int j = 0; j < NUMBER_OF_STATEMENTS_PER_TURN; j++) {
+						if (!inputs[i].next()) {
+							inputs[i].close();
+							inputs[i] = null;
+							numberOfUnfinishedChunks--;
+							break;
+						}
+						Statement newStatement = Statement.getStatement(EncodingFileFormat.EEE,
+								NumberConversion.long2bytes(getIDWithOwner(inputs[i].getSubject())),
+								NumberConversion.long2bytes(getIDWithOwner(inputs[i].getProperty())),
+								NumberConversion.long2bytes(getIDWithOwner(inputs[i].getObject())),
+								inputs[i].getContainment());
+						outputs[i].writeStatement(newStatement);
+					}
+				}
+			}
+		} finally {
+			for (RawStatementFileInputStream input : inputs) {
+				if (input != null) {
+					input.close();
+				}
+			}
+		}
+	}
+
 	public File[] getAdjustedFiles(File workingDir) {
 		File[] chunkFiles = new File[numberOfChunks];
 		for (int i = 0; i < chunkFiles.length; i++) {
@@ -155,9 +379,17 @@ public class GraphStatistics implements Closeable {
 		if (owner != 0) {
 			return owner;
 		}
+		Short pinnedOwner = pinnedOwners.get(id);
+		if (pinnedOwner != null) {
+			return pinnedOwner.shortValue();
+		}
+		return computeOwner(id);
+	}
+
+	private short computeOwner(long id) {
 		long[] statistics = database.getStatisticsForResource(id);
 		if (statistics == null) {
-			return owner;
+			return 0;
 		}
 
 		BitSet ownerCandidates = new BitSet(numberOfChunks);
@@ -274,12 +506,110 @@ public class GraphStatistics implements Closeable {
 		return totalFrequency;
 	}
 
+	public boolean hasJoinStatistics() {
+		return (joinStatistics != null) && !joinStatistics.isEmpty();
+	}
+
+	/**
+	 * Estimates the selectivity of joining two triple patterns with constant properties based on the join sizes of
+	 * property pairs, i.e., the estimated join size is |pattern1|*|pattern2|*selectivity.
+	 *
+	 * @param pattern1
+	 * @param pattern2
+	 * @param joinVar
+	 *            has to occur either as subject or as object in each pattern
+	 * @return the estimated selectivity or -1 if it cannot be estimated
+	 */
+	public double estimateJoinSelectivity(TriplePattern pattern1, TriplePattern pattern2, long joinVar) {
+		if (!hasJoinStatistics() || pattern1.isPropertyVariable() || pattern2.isPropertyVariable()) {
+			return -1;
+		}
+		Boolean isSubject1 = GraphStatistics.isSubjectJoin(pattern1, joinVar);
+		Boolean isSubject2 = GraphStatistics.isSubjectJoin(pattern2, joinVar);
+		if ((isSubject1 == null) || (isSubject2 == null)) {
+			return -1;
+		}
+		long property1 = pattern1.getProperty() & 0x00_00_FF_FF_FF_FF_FF_FFL;
+		long property2 = pattern2.getProperty() & 0x00_00_FF_FF_FF_FF_FF_FFL;
+		long frequency1 = getTotalPropertyFrequency(property1);
+		long frequency2 = getTotalPropertyFrequency(property2);
+		if ((frequency1 == 0) || (frequency2 == 0)) {
+			return 0;
+		}
+		long joinSize;
+		if (isSubject1 && isSubject2) {
+			joinSize = joinStatistics.getSubjectSubjectJoinSize(property1, property2);
+		} else if (isSubject1) {
+			joinSize = joinStatistics.getSubjectObjectJoinSize(property1, property2);
+		} else if (isSubject2) {
+			joinSize = joinStatistics.getSubjectObjectJoinSize(property2, property1);
+		} else {
+			joinSize = joinStatistics.getObjectObjectJoinSize(property1, property2);
+		}
+		return joinSize / ((double) frequency1 * frequency2);
+	}
+
+	/**
+	 * @param pattern
+	 * @param joinVar
+	 * @return <code>true</code>, if joinVar is only the subject, <code>false</code>, if it is only the object and
+	 *         <code>null</code> otherwise
+	 */
+	private static Boolean isSubjectJoin(TriplePattern pattern, long joinVar) {
+		boolean isSubject = pattern.isSubjectVariable() && (pattern.getSubject() == joinVar);
+		boolean isObject = pattern.isObjectVariable() && (pattern.getObject() == joinVar);
+		if (isSubject == isObject) {
+			return null;
+		}
+		return isSubject;
+	}
+
+	/**
+	 * Estimates the number of results of the star join (?x properties[0] ?y0. ... ?x properties[n] ?yn) based on
+	 * the characteristic sets.
+	 *
+	 * @param properties
+	 * @return the estimated number of results or -1 if it cannot be estimated
+	 */
+	public double estimateSubjectStarSize(long... properties) {
+		if (!hasJoinStatistics()) {
+			return -1;
+		}
+		long[] propertiesWithoutOwner = new long[properties.length];
+		for (int i = 0; i < properties.length; i++) {
+			propertiesWithoutOwner[i] = properties[i] & 0x00_00_FF_FF_FF_FF_FF_FFL;
+		}
+		return joinStatistics.estimateSubjectStarSize(propertiesWithoutOwner);
+	}
+
+	/**
+	 * @param properties
+	 * @return the number of subjects that have all properties or -1 if it is unknown
+	 */
+	public long getNumberOfSubjectsWithProperties(long... properties) {
+		if (!hasJoinStatistics()) {
+			return -1;
+		}
+		long[] propertiesWithoutOwner = new long[properties.length];
+		for (int i = 0; i < properties.length; i++) {
+			propertiesWithoutOwner[i] = properties[i] & 0x00_00_FF_FF_FF_FF_FF_FFL;
+		}
+		return joinStatistics.getNumberOfSubjects(propertiesWithoutOwner);
+	}
+
 	public int getNumberOfChunks() {
 		return numberOfChunks;
 	}
 
 	public void clear() {
 		database.clear();
+		pinnedOwners.clear();
+		if (pinnedOwnersFile != null) {
+			pinnedOwnersFile.delete();
+		}
+		if (joinStatistics != null) {
+			joinStatistics.clear();
+		}
 	}
 
 	@Override
@@ -0,0 +1,64 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License along with Koral. If not,
+ * see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.master.tasks;
+
+import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.networManager.NetworkManager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Sends each written byte sequence as one {@link MessageType#GRAPH_CHUNK_BLOCK}
+ * message to a slave. Used as output of an {@link EncodedFileOutputStream} so
+ * that each message contains only complete statements. If the send queue of
+ * the slave is full, writing blocks until the message could be sent. Thus, the
+ * slave throttles the master.
+ */
+class GraphChunkStreamOutputStream extends OutputStream {
+
+  private final NetworkManager slaveConnections;
+
+  private final int slaveID;
+
+  public GraphChunkStreamOutputStream(NetworkManager slaveConnections, int slaveID) {
+    this.slaveConnections = slaveConnections;
+    this.slaveID = slaveID;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return;
+    }
+    byte[] message = new byte[Byte.BYTES + len];
+    message[0] = MessageType.GRAPH_CHUNK_BLOCK.getValue();
+    System.arraycopy(b, off, message, Byte.BYTES, len);
+    while (!slaveConnections.send(slaveID, message)) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException(
+                "Streaming the graph chunk to slave " + slaveID + " has been interrupted.");
+      }
+    }
+  }
+
+}
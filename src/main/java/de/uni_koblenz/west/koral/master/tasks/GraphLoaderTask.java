@@ -16,8 +16,11 @@
  */
 package de.uni_koblenz.west.koral.master.tasks;
 
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
 import de.uni_koblenz.west.koral.common.ftp.FTPServer;
+import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
 import de.uni_koblenz.west.koral.common.messages.MessageNotifier;
@@ -44,6 +47,7 @@ import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -57,6 +61,14 @@ import java.util.logging.Logger;
  * <li>Waiting for loading finished messages off all {@link KoralSlave}s.</li>
  * </ol>
  * 
+ * <p>
+ * If the graph is appended to the already loaded graph, only the new
+ * statements are processed. The dictionary and the statistics are extended
+ * and the slaves add the new statements to their triple stores without
+ * clearing them. Since the cover is created for the new statements only, the
+ * same hash based cover strategy as for the loaded graph should be used.
+ * </p>
+ * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
  */
@@ -108,14 +120,40 @@ public class GraphLoaderTask extends Thread implements Closeable {
 
   private final boolean contactSlaves;
 
+  private final DictionaryShardType dictionaryShardType;
+
+  private final FileCompression fileCompression;
+
+  private final boolean isGraphChunkStreamingEnabled;
+
+  private final int maxNumberOfParallelUploads;
+
+  private UploadedGraphFileQueue uploadedGraphFiles;
+
+  private boolean isAppended;
+
+  /**
+   * resources with smaller ids belong to the graph that was loaded before the
+   * current graph is appended
+   */
+  private long firstNewResourceID;
+
   public GraphLoaderTask(int clientID, ClientConnectionManager clientConnections,
           NetworkManager slaveConnections, String externalFtpIpAddress, String internalFtpIpAddress,
           String ftpPort, DictionaryEncoder dictionary, GraphStatistics statistics, File tmpDir,
           MessageNotifier messageNotifier, Logger logger, MeasurementCollector collector,
-          boolean contactSlaves) {
+          boolean contactSlaves, DictionaryShardType dictionaryShardType,
+          FileCompression fileCompression, boolean isGraphChunkStreamingEnabled,
+          int maxNumberOfParallelUploads, boolean isAppended) {
     setDaemon(true);
     graphIsLoadingOrLoaded = true;
     this.contactSlaves = contactSlaves;
+    this.dictionaryShardType = dictionaryShardType;
+    this.fileCompression = fileCompression;
+    this.isGraphChunkStreamingEnabled = isGraphChunkStreamingEnabled;
+    this.maxNumberOfParallelUploads = maxNumberOfParallelUploads;
+    this.isAppended = isAppended;
+    firstNewResourceID = 1;
     isStarted = false;
     clientId = clientID;
     this.clientConnections = clientConnections;
@@ -135,6 +173,9 @@ public class GraphLoaderTask extends Thread implements Closeable {
       loadState();
       if (state == LoadingState.START) {
         deleteContent(workingDir);
+      } else {
+        // an interrupted loading is continued in its original mode
+        loadFirstNewResourceID();
       }
     } else {
       if (!workingDir.mkdirs()) {
@@ -171,6 +212,28 @@ public class GraphLoaderTask extends Thread implements Closeable {
     }
   }
 
+  private void saveFirstNewResourceID() {
+    try (FileWriter fw = new FileWriter(
+            workingDir.getAbsolutePath() + File.separator + "FirstNewResourceID.txt");) {
+      fw.write(Long.toString(firstNewResourceID));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void loadFirstNewResourceID() {
+    File idFile = new File(
+            workingDir.getAbsolutePath() + File.separator + "FirstNewResourceID.txt");
+    isAppended = idFile.exists();
+    if (isAppended) {
+      try (LineNumberReader reader = new LineNumberReader(new FileReader(idFile));) {
+        firstNewResourceID = Long.parseLong(reader.readLine());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
   private void deleteContent(File dir) {
     if (dir.exists()) {
       for (File file : dir.listFiles()) {
@@ -220,23 +283,32 @@ public class GraphLoaderTask extends Thread implements Closeable {
               Integer.valueOf(numberOfGraphChunks).toString());
     }
     coverCreator = GraphCoverCreatorFactory.getGraphCoverCreator(coverStrategy, logger,
-            measurementCollector);
+            measurementCollector, fileCompression);
     if (coverCreator instanceof MoleculeHashCoverCreator) {
       ((MoleculeHashCoverCreator) coverCreator).setMaxMoleculeDiameter(maxMoleculeDiameter);
     }
+    if (isAppended && (replicationPathLength != 0)) {
+      throw new IllegalArgumentException(
+              "A graph cannot be appended if n-hop replication is used.");
+    }
     this.replicationPathLength = replicationPathLength;
     this.numberOfGraphChunks = numberOfGraphChunks;
     if (state == LoadingState.START) {
-      ftpServer.start(externalFtpIpAddress, ftpPort, graphFilesDir, 1);
-      clientConnections.send(clientId, MessageUtils.createStringMessage(
-              MessageType.MASTER_SEND_FILES, externalFtpIpAddress + ":" + ftpPort, logger));
+      uploadedGraphFiles = new UploadedGraphFileQueue();
+      ftpServer.start(externalFtpIpAddress, ftpPort, graphFilesDir, maxNumberOfParallelUploads,
+              uploadedGraphFiles::fileUploaded);
+      clientConnections.send(clientId,
+              MessageUtils.createStringMessage(MessageType.MASTER_SEND_FILES,
+                      externalFtpIpAddress + ":" + ftpPort + ":" + maxNumberOfParallelUploads,
+                      logger));
       if (measurementCollector != null) {
         measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FILE_TRANSFER_TO_MASTER_START,
                 System.currentTimeMillis());
       }
-    } else {
-      receiveFilesSent();
     }
+    // the initial encoding of the uploaded files starts while the remaining
+    // files are still uploaded
+    start();
   }
 
   public void receiveFilesSent() {
@@ -246,8 +318,8 @@ public class GraphLoaderTask extends Thread implements Closeable {
         measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FILE_TRANSFER_TO_MASTER_END,
                 System.currentTimeMillis());
       }
+      uploadedGraphFiles.finish();
     }
-    start();
   }
 
   @Override
@@ -259,15 +331,22 @@ public class GraphLoaderTask extends Thread implements Closeable {
 
       File encodedGraphFile = encodeGraphFilesInitially();
       File[] chunks = createGraphChunks(encodedGraphFile);
-      File[] encodedFiles = encodeGraphChunks(chunks,
+      File[] encodedFiles = encodeGraphChunksAndCollectStatistics(chunks,
               replicationPathLength != 0 ? EncodingFileFormat.EEE
                       : coverCreator.getRequiredInputEncoding());
-      collectStatistis(encodedFiles);
-      encodedFiles = adjustOwnership(encodedFiles);
+      boolean isStreamed = contactSlaves && isGraphChunkStreamingEnabled;
+      if (isStreamed) {
+        if (state != LoadingState.FINISHED) {
+          streamGraphChunks(encodedFiles);
+        }
+      } else {
+        encodedFiles = adjustOwnership(encodedFiles);
+      }
 
-      if (state != LoadingState.FINISHED) {
+      if ((state != LoadingState.FINISHED) && !isStreamed) {
         setState(LoadingState.TRANSMITTING);
         if (contactSlaves) {
+          File[] dictionaryShards = createDictionaryShards();
           ftpServer.start(internalFtpIpAddress, ftpPort, workingDir, numberOfGraphChunks);
           numberOfBusySlaves = 0;
           List<GraphLoaderListener> listeners = new ArrayList<>();
@@ -281,24 +360,16 @@ public class GraphLoaderTask extends Thread implements Closeable {
             GraphLoaderListener listener = new GraphLoaderListener(this, i + 1);
             listeners.add(listener);
             messageNotifier.registerMessageListener(GraphLoaderListener.class, listener);
-            slaveConnections.sendMore(i + 1,
-                    new byte[] { MessageType.START_FILE_TRANSFER.getValue() });
+            slaveConnections.sendMore(i + 1, new byte[] {
+                    MessageType.START_FILE_TRANSFER.getValue(), (byte) (isAppended ? 1 : 0) });
             slaveConnections.sendMore(i + 1,
                     (internalFtpIpAddress + ":" + ftpPort).getBytes("UTF-8"));
-            slaveConnections.send(i + 1, file.getName().getBytes("UTF-8"));
+            slaveConnections.sendMore(i + 1, file.getName().getBytes("UTF-8"));
+            slaveConnections.send(i + 1, dictionaryShards[i] == null ? new byte[0]
+                    : dictionaryShards[i].getName().getBytes("UTF-8"));
           }
 
-          while (!isInterrupted() && (numberOfBusySlaves > 0)) {
-            long currentTime = System.currentTimeMillis();
-            long timeToSleep = 100 - (System.currentTimeMillis() - currentTime);
-            if (!isInterrupted() && (timeToSleep > 0)) {
-              try {
-                Thread.sleep(timeToSleep);
-              } catch (InterruptedException e) {
-                break;
-              }
-            }
-          }
+          waitForSlaves();
 
           for (GraphLoaderListener listener : listeners) {
             messageNotifier.unregisterMessageListener(GraphLoaderListener.class, listener);
@@ -333,6 +404,96 @@ public class GraphLoaderTask extends Thread implements Closeable {
     }
   }
 
+  private void waitForSlaves() {
+    while (!isInterrupted() && (numberOfBusySlaves > 0)) {
+      long currentTime = System.currentTimeMillis();
+      long timeToSleep = 100 - (System.currentTimeMillis() - currentTime);
+      if (!isInterrupted() && (timeToSleep > 0)) {
+        try {
+          Thread.sleep(timeToSleep);
+        } catch (InterruptedException e) {
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Streams the graph chunks to the slaves while their ownership is adjusted.
+   * Thereby, the slaves store the triples while the master is still sending.
+   * Afterwards, the dictionary shards are created and the slaves are informed
+   * where they can download them.
+   * 
+   * @param rawChunks
+   * @throws IOException
+   */
+  private void streamGraphChunks(File[] rawChunks) throws IOException {
+    setState(LoadingState.TRANSMITTING);
+    if (logger != null) {
+      logger.finer("streaming graph chunks to slaves");
+    }
+    clientConnections.send(clientId, MessageUtils.createStringMessage(
+            MessageType.MASTER_WORK_IN_PROGRESS, "Started streaming graph chunks to slaves.",
+            logger));
+    numberOfBusySlaves = 0;
+    List<GraphLoaderListener> listeners = new ArrayList<>();
+    try {
+      EncodedFileOutputStream[] outputs = new EncodedFileOutputStream[rawChunks.length];
+      for (int i = 0; i < rawChunks.length; i++) {
+        if (rawChunks[i] == null) {
+          continue;
+        }
+        numberOfBusySlaves++;
+        // slave ids start with 1!
+        GraphLoaderListener listener = new GraphLoaderListener(this, i + 1);
+        listeners.add(listener);
+        messageNotifier.registerMessageListener(GraphLoaderListener.class, listener);
+        slaveConnections.send(i + 1, new byte[] {
+                MessageType.START_GRAPH_CHUNK_STREAM.getValue(), (byte) (isAppended ? 1 : 0) });
+        outputs[i] =
+                new EncodedFileOutputStream(new GraphChunkStreamOutputStream(slaveConnections, i + 1));
+      }
+
+      if (measurementCollector != null) {
+        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_ADJUSTING_OWNERSHIP_START,
+                System.currentTimeMillis());
+      }
+      statistics.adjustOwnershipOfRawChunks(rawChunks, outputs);
+      for (EncodedFileOutputStream output : outputs) {
+        if (output != null) {
+          output.close();
+        }
+      }
+      if (measurementCollector != null) {
+        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_ADJUSTING_OWNERSHIP_END,
+                System.currentTimeMillis());
+      }
+
+      File[] dictionaryShards = createDictionaryShards();
+      ftpServer.start(internalFtpIpAddress, ftpPort, workingDir, numberOfGraphChunks);
+      for (int i = 0; i < rawChunks.length; i++) {
+        if (rawChunks[i] == null) {
+          continue;
+        }
+        slaveConnections.sendMore(i + 1,
+                new byte[] { MessageType.END_GRAPH_CHUNK_STREAM.getValue() });
+        slaveConnections.sendMore(i + 1,
+                (internalFtpIpAddress + ":" + ftpPort).getBytes("UTF-8"));
+        slaveConnections.send(i + 1, dictionaryShards[i] == null ? new byte[0]
+                : dictionaryShards[i].getName().getBytes("UTF-8"));
+      }
+      if (logger != null) {
+        logger.finer("streaming graph chunks to slaves finished");
+      }
+
+      waitForSlaves();
+    } finally {
+      for (GraphLoaderListener listener : listeners) {
+        messageNotifier.unregisterMessageListener(GraphLoaderListener.class, listener);
+      }
+    }
+  }
+
   public void processSlaveResponse(byte[] message) {
     MessageType messageType = MessageType.valueOf(message[0]);
     if (messageType == null) {
@@ -373,7 +534,6 @@ public class GraphLoaderTask extends Thread implements Closeable {
   private File encodeGraphFilesInitially() {
     File encodedFiles = null;
     if ((state == LoadingState.START) || (state == LoadingState.INITIAL_ENCODING)) {
-      setState(LoadingState.INITIAL_ENCODING);
       if (logger != null) {
         logger.finer("initial encoding of graph chunks");
       }
@@ -384,13 +544,19 @@ public class GraphLoaderTask extends Thread implements Closeable {
       clientConnections.send(clientId, MessageUtils.createStringMessage(
               MessageType.MASTER_WORK_IN_PROGRESS, "Started initial encoding of graph.", logger));
 
-      File[] graphFiles = graphFilesDir.isDirectory()
-              ? graphFilesDir.listFiles(new GraphFileFilter())
-              : new File[] { graphFilesDir };
+      // while the files are uploaded, the state remains START so that an
+      // interrupted loading does not continue with incompletely uploaded files
+      Iterable<File> graphFiles = state == LoadingState.START ? uploadedGraphFiles
+              : Arrays.asList(getGraphFiles());
+      if (isAppended && (state == LoadingState.START)) {
+        firstNewResourceID = dictionary.size() + 1;
+        saveFirstNewResourceID();
+      }
       encodedFiles = dictionary.encodeOriginalGraphFiles(graphFiles, workingDir,
-              coverCreator.getRequiredInputEncoding(), numberOfGraphChunks);
+              coverCreator.getRequiredInputEncoding(), numberOfGraphChunks, isAppended);
+      setState(LoadingState.INITIAL_ENCODING);
 
-      for (File file : graphFiles) {
+      for (File file : getGraphFiles()) {
         if (file != null) {
           file.delete();
         }
@@ -412,6 +578,11 @@ public class GraphLoaderTask extends Thread implements Closeable {
     return encodedFiles;
   }
 
+  private File[] getGraphFiles() {
+    return graphFilesDir.isDirectory() ? graphFilesDir.listFiles(new GraphFileFilter())
+            : new File[] { graphFilesDir };
+  }
+
   private File[] createGraphChunks(File encodedGraphFile) {
     File[] chunks = null;
     if ((state == LoadingState.INITIAL_ENCODING) || (state == LoadingState.GRAPH_COVER_CREATION)) {
@@ -444,7 +615,8 @@ public class GraphLoaderTask extends Thread implements Closeable {
       } else {
         chunks = dictionary.getFullyEncodedGraphChunks(workingDir, numberOfGraphChunks);
       }
-      NHopReplicator replicator = new NHopReplicator(logger, measurementCollector);
+      NHopReplicator replicator =
+              new NHopReplicator(logger, measurementCollector, fileCompression);
       if ((state == LoadingState.GRAPH_COVER_CREATION)
               || (state == LoadingState.N_HOP_REPLICATION)) {
         setState(LoadingState.N_HOP_REPLICATION);
@@ -508,35 +680,60 @@ public class GraphLoaderTask extends Thread implements Closeable {
     return encodedFiles;
   }
 
-  private void collectStatistis(File[] encodedChunks) {
-    if ((state == LoadingState.FINAL_ENCODING) || (state == LoadingState.STATISTIC_COLLECTION)) {
-      setState(LoadingState.STATISTIC_COLLECTION);
+  /**
+   * Encodes the graph chunks and collects the statistics in the same pass.
+   * The encoded chunks are written uncompressed since they are only read once
+   * again by {@link #adjustOwnership(File[])}.
+   */
+  private File[] encodeGraphChunksAndCollectStatistics(File[] plainGraphChunks,
+          EncodingFileFormat inputEncodingFormat) {
+    File[] encodedFiles = null;
+    if ((state == LoadingState.GRAPH_COVER_CREATION) || (state == LoadingState.N_HOP_REPLICATION)
+            || (state == LoadingState.FINAL_ENCODING)) {
+      setState(LoadingState.FINAL_ENCODING);
       if (logger != null) {
-        logger.finer("collecting statistics");
+        logger.finer("final encoding of graph chunks and collecting statistics");
       }
       if (measurementCollector != null) {
-        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_COLLECTING_STATISTICS_START,
+        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FINAL_ENCODING_START,
                 System.currentTimeMillis());
       }
-      clientConnections.send(clientId, MessageUtils.createStringMessage(
-              MessageType.MASTER_WORK_IN_PROGRESS, "Started collecting statistics.", logger));
-
-      statistics.collectStatistics(encodedChunks);
+      clientConnections.send(clientId,
+              MessageUtils.createStringMessage(MessageType.MASTER_WORK_IN_PROGRESS,
+                      "Started final encoding of graph chunks and collecting statistics.",
+                      logger));
+
+      if (isAppended) {
+        // an interrupted counting cannot be undone, since the statistics of
+        // the loaded graph are kept
+        encodedFiles = dictionary.encodeGraphChunksCompletelyAndCollectStatistics(
+                plainGraphChunks, workingDir, inputEncodingFormat, statistics,
+                firstNewResourceID);
+        statistics.finishAppending();
+      } else {
+        encodedFiles = dictionary.encodeGraphChunksCompletelyAndCollectStatistics(
+                plainGraphChunks, workingDir, inputEncodingFormat, statistics);
+      }
 
       if (measurementCollector != null) {
-        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_COLLECTING_STATISTICS_END,
+        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FINAL_ENCODING_END,
                 System.currentTimeMillis());
       }
       if (logger != null) {
-        logger.finer("collecting statistics finished");
+        logger.finer("final encoding of graph chunks and collecting statistics finished");
       }
-      clientConnections.send(clientId, MessageUtils.createStringMessage(
-              MessageType.MASTER_WORK_IN_PROGRESS, "Finished collecting statistics.", logger));
+      clientConnections.send(clientId,
+              MessageUtils.createStringMessage(MessageType.MASTER_WORK_IN_PROGRESS,
+                      "Finished final encoding of graph chunks and collecting statistics.",
+                      logger));
+    } else {
+      encodedFiles = dictionary.getRawEncodedGraphChunks(workingDir, numberOfGraphChunks);
     }
+    return encodedFiles;
   }
 
   private File[] adjustOwnership(File[] encodedChunks) {
-    if ((state == LoadingState.STATISTIC_COLLECTION) || (state == LoadingState.SETTING_OWNERSHIP)) {
+    if ((state == LoadingState.FINAL_ENCODING) || (state == LoadingState.SETTING_OWNERSHIP)) {
       setState(LoadingState.SETTING_OWNERSHIP);
       if (logger != null) {
         logger.finer("adjusting ownership");
@@ -548,7 +745,7 @@ public class GraphLoaderTask extends Thread implements Closeable {
       clientConnections.send(clientId, MessageUtils.createStringMessage(
               MessageType.MASTER_WORK_IN_PROGRESS, "Started adjusting ownership.", logger));
 
-      File[] result = statistics.adjustOwnership(encodedChunks, workingDir);
+      File[] result = statistics.adjustOwnershipOfRawChunks(encodedChunks, workingDir);
 
       if (measurementCollector != null) {
         measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_ADJUSTING_OWNERSHIP_END,
@@ -565,6 +762,26 @@ public class GraphLoaderTask extends Thread implements Closeable {
     }
   }
 
+  private File[] createDictionaryShards() {
+    if (dictionaryShardType == DictionaryShardType.NONE) {
+      return new File[numberOfGraphChunks];
+    }
+    if (logger != null) {
+      logger.finer("creating dictionary shards");
+    }
+    clientConnections.send(clientId, MessageUtils.createStringMessage(
+            MessageType.MASTER_WORK_IN_PROGRESS, "Started creating dictionary shards.", logger));
+    // if the graph is appended, the slaves only receive the new resources
+    File[] shards = dictionary.createDictionaryShards(workingDir, dictionaryShardType, statistics,
+            firstNewResourceID);
+    if (logger != null) {
+      logger.finer("creating dictionary shards finished");
+    }
+    clientConnections.send(clientId, MessageUtils.createStringMessage(
+            MessageType.MASTER_WORK_IN_PROGRESS, "Finished creating dictionary shards.", logger));
+    return shards;
+  }
+
   public boolean isGraphLoadingOrLoaded() {
     return graphIsLoadingOrLoaded;
   }
@@ -588,10 +805,14 @@ public class GraphLoaderTask extends Thread implements Closeable {
       ftpServer.close();
       if ((state == LoadingState.START) || (state == LoadingState.FINISHED)) {
         cleanWorkingDirs();
-      } else if (state == LoadingState.INITIAL_ENCODING) {
-        dictionary.clear();
-      } else if (state == LoadingState.STATISTIC_COLLECTION) {
-        statistics.clear();
+      } else if (!isAppended) {
+        // if the graph is appended, the dictionary and the statistics of the
+        // loaded graph are kept
+        if (state == LoadingState.INITIAL_ENCODING) {
+          dictionary.clear();
+        } else if (state == LoadingState.FINAL_ENCODING) {
+          statistics.clear();
+        }
       }
     } finally {
       if (measurementCollector != null) {
@@ -611,5 +832,5 @@ public class GraphLoaderTask extends Thread implements Closeable {
 }
 
 enum LoadingState {
-  START, GRAPH_COVER_CREATION, N_HOP_REPLICATION, INITIAL_ENCODING, FINAL_ENCODING, STATISTIC_COLLECTION, SETTING_OWNERSHIP, TRANSMITTING, FINISHED;
+  START, GRAPH_COVER_CREATION, N_HOP_REPLICATION, INITIAL_ENCODING, FINAL_ENCODING, SETTING_OWNERSHIP, TRANSMITTING, FINISHED;
 }
@@ -0,0 +1,95 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License along with Koral. If not,
+ * see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.master.tasks;
+
+import de.uni_koblenz.west.koral.common.ftp.FTPServer;
+import de.uni_koblenz.west.koral.common.utils.GraphFileFilter;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Collects the graph files whose upload to the {@link FTPServer} has
+ * completed. Its iterator returns the files in the order in which their
+ * uploads finished and blocks until the next file is uploaded or
+ * {@link #finish()} is called. Thus, the initial encoding can start while the
+ * client is still uploading further files. It can be iterated only once.
+ */
+class UploadedGraphFileQueue implements Iterable<File> {
+
+  private static final File END_OF_UPLOADS = new File("");
+
+  private final BlockingQueue<File> files;
+
+  private final GraphFileFilter filter;
+
+  public UploadedGraphFileQueue() {
+    files = new LinkedBlockingQueue<>();
+    filter = new GraphFileFilter();
+  }
+
+  /**
+   * Called by the threads of the {@link FTPServer}.
+   * 
+   * @param file
+   */
+  public void fileUploaded(File file) {
+    if (filter.accept(file)) {
+      files.add(file);
+    }
+  }
+
+  /**
+   * Called when the client has uploaded all files.
+   */
+  public void finish() {
+    files.add(UploadedGraphFileQueue.END_OF_UPLOADS);
+  }
+
+  @Override
+  public Iterator<File> iterator() {
+    return new Iterator<File>() {
+
+      private File next;
+
+      @Override
+      public boolean hasNext() {
+        if (next == null) {
+          try {
+            next = files.take();
+          } catch (InterruptedException e) {
+            throw new RuntimeException("Waiting for uploaded graph files has been interrupted.", e);
+          }
+        }
+        return next != UploadedGraphFileQueue.END_OF_UPLOADS;
+      }
+
+      @Override
+      public File next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        File result = next;
+        next = null;
+        return result;
+      }
+
+    };
+  }
+
+}
@@ -29,6 +29,7 @@ import de.uni_koblenz.west.koral.common.messages.MessageType;
 import de.uni_koblenz.west.koral.common.system.ConfigurationException;
 import de.uni_koblenz.west.koral.common.system.KoralSystem;
 import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
 import de.uni_koblenz.west.koral.slave.networkManager.SlaveNetworkManager;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 import de.uni_koblenz.west.koral.slave.triple_store.loader.GraphChunkListener;
@@ -42,10 +43,14 @@ import de.uni_koblenz.west.koral.slave.triple_store.loader.impl.GraphChunkLoader
  */
 public class KoralSlave extends KoralSystem {
 
+  private static final long MESSAGE_WAIT_TIMEOUT = 100;
+
   private final File tmpDir;
 
   private TripleStoreAccessor tripleStore;
 
+  private DictionaryShard dictionaryShard;
+
   public KoralSlave(Configuration conf) throws ConfigurationException {
     super(conf, conf.getCurrentSlave(), new SlaveNetworkManager(conf, conf.getCurrentSlave()),
         false);
@@ -55,6 +60,7 @@ public class KoralSlave extends KoralSystem {
         tmpDir.mkdirs();
       }
       setTripleStore(new TripleStoreAccessor(conf, logger));
+      setDictionaryShard(new DictionaryShard(conf, logger));
     } catch (Throwable t) {
       if (logger != null) {
         logger.throwing(t.getStackTrace()[0].getClassName(), t.getStackTrace()[0].getMethodName(),
@@ -74,10 +80,22 @@ public class KoralSlave extends KoralSystem {
     super.setTripleStore(tripleStore);
   }
 
+  @Override
+  protected void setDictionaryShard(DictionaryShard dictionaryShard) {
+    this.dictionaryShard = dictionaryShard;
+    super.setDictionaryShard(dictionaryShard);
+  }
+
   @Override
   public void runOneIteration() {
+    // block until a message arrives instead of sleeping between receives, the
+    // timeout only ensures that a shutdown is recognised
+    if (!getNetworkManager().waitForMessage(KoralSlave.MESSAGE_WAIT_TIMEOUT)) {
+      return;
+    }
+    // process all messages that are already pending
     byte[] receive = getNetworkManager().receive();
-    if (receive != null) {
+    while ((receive != null) && !isInterrupted()) {
       try {
         processMessage(receive);
       } catch (Exception e) {
@@ -86,12 +104,7 @@ public class KoralSlave extends KoralSystem {
               e);
         }
       }
-      if (!isInterrupted()) {
-        try {
-          Thread.sleep(100);
-        } catch (InterruptedException e) {
-        }
-      }
+      receive = getNetworkManager().receive();
     }
   }
 
@@ -109,20 +122,35 @@ public class KoralSlave extends KoralSystem {
             clear();
             break;
           case START_FILE_TRANSFER:
-            clear();
-            byte[][] message = new byte[3][];
+            if (!KoralSlave.isAppended(receivedMessage)) {
+              clear();
+            }
+            byte[][] message = new byte[4][];
             message[0] = new byte[] {receivedMessage[0]};
             message[1] = getNetworkManager().receive(true);
             message[2] = getNetworkManager().receive(true);
-            File workingDir =
-                new File(tmpDir.getAbsolutePath() + File.separatorChar + "graphLoader" + slaveID);
-            GraphChunkListener loader =
-                new GraphChunkLoader(slaveID, getNetworkManager().getNumberOfSlaves(), workingDir,
-                    (SlaveNetworkManager) getNetworkManager(), tripleStore, this, logger,
-                    measurementCollector);
-            registerMessageListener(GraphChunkListener.class, loader);
+            message[3] = getNetworkManager().receive(true);
+            registerGraphChunkLoader(slaveID);
             notifyMessageListener(messageType.getListenerType(), slaveID, message);
             break;
+          case START_GRAPH_CHUNK_STREAM:
+            if (!KoralSlave.isAppended(receivedMessage)) {
+              clear();
+            }
+            registerGraphChunkLoader(slaveID);
+            notifyMessageListener(messageType.getListenerType(), slaveID,
+                new byte[][] {receivedMessage});
+            break;
+          case GRAPH_CHUNK_BLOCK:
+            notifyMessageListener(messageType.getListenerType(), slaveID, receivedMessage);
+            break;
+          case END_GRAPH_CHUNK_STREAM:
+            byte[][] endMessage = new byte[3][];
+            endMessage[0] = receivedMessage;
+            endMessage[1] = getNetworkManager().receive(true);
+            endMessage[2] = getNetworkManager().receive(true);
+            notifyMessageListener(messageType.getListenerType(), slaveID, endMessage);
+            break;
           case QUERY_CREATE:
             getWorkerManager().createQuery(receivedMessage);
             break;
@@ -132,6 +160,9 @@ public class KoralSlave extends KoralSystem {
           case QUERY_ABORTION:
             getWorkerManager().abortQuery(receivedMessage);
             break;
+          case QUERY_CANCELLATION:
+            getWorkerManager().cancelQuery(receivedMessage);
+            break;
           case QUERY_MAPPING_BATCH:
           case QUERY_TASK_FINISHED:
             short senderID = NumberConversion.bytes2short(receivedMessage, 1);
@@ -164,16 +195,37 @@ public class KoralSlave extends KoralSystem {
     }
   }
 
+  /**
+   * @param startMessage
+   * @return <code>true</code> if the graph chunk has to be added to the
+   *         already loaded graph
+   */
+  private static boolean isAppended(byte[] startMessage) {
+    return (startMessage.length > 1) && (startMessage[1] != 0);
+  }
+
+  private void registerGraphChunkLoader(int slaveID) {
+    File workingDir =
+        new File(tmpDir.getAbsolutePath() + File.separatorChar + "graphLoader" + slaveID);
+    GraphChunkListener loader =
+        new GraphChunkLoader(slaveID, getNetworkManager().getNumberOfSlaves(), workingDir,
+            (SlaveNetworkManager) getNetworkManager(), tripleStore, dictionaryShard, this, logger,
+            measurementCollector);
+    registerMessageListener(GraphChunkListener.class, loader);
+  }
+
   @Override
   public void shutDown() {
     super.shutDown();
     tripleStore.close();
+    dictionaryShard.close();
   }
 
   @Override
   public void clear() {
     super.clear();
     tripleStore.clear();
+    dictionaryShard.clear();
     if (logger != null) {
       logger.info("slave " + getNetworkManager().getCurrentID() + " cleared.");
     }
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License along with Koral. If not,
+ * see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.slave.dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
+
+/**
+ * Stores the part of the dictionary that has been sent to this slave during
+ * graph loading (see
+ * {@link DictionaryEncoder#createDictionaryShards(File, de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType, de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics)}
+ * ). The stored resources already have the serialized form that is sent to
+ * the client. Thus, the root operators of a query can decode their results
+ * without involving the master.
+ */
+public class DictionaryShard implements Closeable {
+
+  private final Logger logger;
+
+  private final File storageDir;
+
+  private final int maxBatchEntries;
+
+  private RocksDB decoder;
+
+  private volatile boolean isEmpty;
+
+  public DictionaryShard(Configuration conf, Logger logger) {
+    this.logger = logger;
+    storageDir = new File(conf.getDictionaryDir(false) + File.separator + "shard");
+    maxBatchEntries = conf.getMaxDictionaryWriteBatchSize();
+    if (!storageDir.exists()) {
+      storageDir.mkdirs();
+    }
+    open();
+    try (RocksIterator iterator = decoder.newIterator();) {
+      iterator.seekToFirst();
+      isEmpty = !iterator.isValid();
+    }
+  }
+
+  private void open() {
+    Options options = new Options();
+    options.setCreateIfMissing(true);
+    options.setMaxFileOpeningThreads(1);
+    try {
+      decoder = RocksDB.open(options, storageDir.getAbsolutePath());
+    } catch (RocksDBException e) {
+      close();
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Stores all entries of a shard file created by the master.
+   * 
+   * @param shardFile
+   */
+  public void storeEntries(File shardFile) {
+    long numberOfEntries = 0;
+    WriteBatch batch = new WriteBatch();
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new GZIPInputStream(new FileInputStream(shardFile))));
+        WriteOptions writeOptions = new WriteOptions();) {
+      while (true) {
+        long id;
+        try {
+          id = in.readLong();
+        } catch (EOFException e) {
+          break;
+        }
+        byte[] resource = new byte[in.readInt()];
+        in.readFully(resource);
+        batch.put(NumberConversion.long2bytes(id), resource);
+        numberOfEntries++;
+        if (batch.count() >= maxBatchEntries) {
+          decoder.write(writeOptions, batch);
+          batch.close();
+          batch = new WriteBatch();
+        }
+      }
+      decoder.write(writeOptions, batch);
+      decoder.compactRange();
+    } catch (IOException | RocksDBException e) {
+      throw new RuntimeException(e);
+    } finally {
+      batch.close();
+    }
+    if (numberOfEntries > 0) {
+      isEmpty = false;
+    }
+    if (logger != null) {
+      logger.finer("stored " + numberOfEntries + " dictionary entries from file "
+          + shardFile.getAbsolutePath());
+    }
+  }
+
+  public boolean isEmpty() {
+    return isEmpty;
+  }
+
+  /**
+   * Decodes several ids with one access to the storage. The ownership of the
+   * ids is ignored.
+   * 
+   * @param ids
+   * @param length
+   *          only the first <code>length</code> ids are decoded
+   * @return an array of length <code>length</code>. Its i-th entry is
+   *         <code>null</code> if <code>ids[i]</code> is not contained in this
+   *         shard.
+   */
+  public String[] decode(long[] ids, int length) {
+    List<byte[]> keys = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      keys.add(NumberConversion.long2bytes(ids[i] & 0x00_00_ff_ff_ff_ff_ff_ffL));
+    }
+    try {
+      // the returned map uses the identical key arrays
+      Map<byte[], byte[]> valueBytes = decoder.multiGet(keys);
+      String[] values = new String[length];
+      for (int i = 0; i < length; i++) {
+        byte[] value = valueBytes.get(keys.get(i));
+        if (value != null) {
+          values[i] = new String(value, "UTF-8");
+        }
+      }
+      return values;
+    } catch (RocksDBException | UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public void clear() {
+    close();
+    deleteFile(storageDir);
+    storageDir.mkdirs();
+    open();
+    isEmpty = true;
+  }
+
+  private void deleteFile(File file) {
+    if (!file.exists()) {
+      return;
+    }
+    if (file.isDirectory()) {
+      for (File f : file.listFiles()) {
+        deleteFile(f);
+      }
+    }
+    file.delete();
+  }
+
+  @Override
+  public void close() {
+    if (decoder != null) {
+      decoder.close();
+      decoder = null;
+    }
+  }
+
+}
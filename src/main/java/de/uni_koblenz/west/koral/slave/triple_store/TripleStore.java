@@ -18,11 +18,13 @@
  */
 package de.uni_koblenz.west.koral.slave.triple_store;
 
+import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.query.Mapping;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
 
 import java.io.Closeable;
+import java.io.File;
 
 /**
  * Declares all methods required by {@link TripleStoreAccessor} to interact with
@@ -35,8 +37,35 @@ public interface TripleStore extends Closeable, AutoCloseable {
 
   public void storeTriple(long subject, long property, long object, byte[] containment);
 
+  /**
+   * Stores all encoded statements and flushes the triple store afterwards.
+   * 
+   * @param statements
+   * @param tmpDir
+   *          directory in which temporary files may be created
+   * @return the number of stored statements
+   */
+  public long storeTriples(Iterable<Statement> statements, File tmpDir);
+
   public Iterable<Mapping> lookup(MappingRecycleCache cache, TriplePattern triplePattern);
 
+  /**
+   * Looks up the triples matching <code>triplePattern</code> and returns them
+   * as mappings of the variables of <code>resultPattern</code>. This allows to
+   * look up a triple pattern in which some variables are bound to constants,
+   * e.g., by a filter, without losing these variable bindings.
+   *
+   * @param cache
+   * @param triplePattern
+   *          the pattern used for the index lookup
+   * @param resultPattern
+   *          the pattern from which <code>triplePattern</code> was derived by
+   *          binding variables
+   * @return
+   */
+  public Iterable<Mapping> lookup(MappingRecycleCache cache, TriplePattern triplePattern,
+          TriplePattern resultPattern);
+
   public void flush();
 
   public void clear();
@@ -42,6 +42,8 @@ public class TripleStoreAccessor implements Closeable, AutoCloseable {
   private final Logger logger;
 
   private final TripleStore tripleStore;
+
+  private final File tmpDir;
   
   private long size;
 
@@ -56,40 +58,47 @@ public class TripleStoreAccessor implements Closeable, AutoCloseable {
       tripleStore = new de.uni_koblenz.west.koral.slave.triple_store.impl.TripleStore(
           conf.getTripleStoreDir(false));
     }
+    tmpDir = new File(conf.getTmpDirByInstance(false) + File.separator + "tripleStoreLoading");
   }
 
   public void storeTriples(File file) {
     try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE, file);) {
-      long alreadyLoadedTriples = 0;
-      for (Statement statement : in) {
-        tripleStore.storeTriple(statement.getSubjectAsLong(), statement.getPropertyAsLong(),
-            statement.getObjectAsLong(), statement.getContainment());
-        alreadyLoadedTriples++;
-        if ((logger != null) && ((alreadyLoadedTriples % 10000) == 0)) {
-          logger.finer("loaded " + alreadyLoadedTriples + " triples");
-        }
-      }
-      tripleStore.flush();
-      size = alreadyLoadedTriples;
-      if (logger != null) {
-        logger.finer("finished loading of " + alreadyLoadedTriples + " triples from file "
-            + file.getAbsolutePath());
-      }
+      storeTriples(in, "file " + file.getAbsolutePath());
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * @param statements
+   * @param sourceDescription
+   *          describes the origin of the statements in log messages
+   */
+  public void storeTriples(Iterable<Statement> statements, String sourceDescription) {
+    long alreadyLoadedTriples = tripleStore.storeTriples(statements, tmpDir);
+    size += alreadyLoadedTriples;
+    if (logger != null) {
+      logger.finer("finished loading of " + alreadyLoadedTriples + " triples from "
+          + sourceDescription);
+    }
+  }
+
   public Iterable<Mapping> lookup(MappingRecycleCache cache, TriplePattern triplePattern) {
     return tripleStore.lookup(cache, triplePattern);
   }
 
+  public Iterable<Mapping> lookup(MappingRecycleCache cache, TriplePattern triplePattern,
+      TriplePattern resultPattern) {
+    return tripleStore.lookup(cache, triplePattern, resultPattern);
+  }
+
   public long size() {
 	  return size;
   }
   
   public void clear() {
     tripleStore.clear();
+    size = 0;
   }
 
   @Override
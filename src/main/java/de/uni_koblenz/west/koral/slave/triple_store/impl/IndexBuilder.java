@@ -0,0 +1,175 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.slave.triple_store.impl;
+
+import de.uni_koblenz.west.koral.common.utils.ExternalByteArraySorter;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a single triple index in its own thread. The triples are received in
+ * blocks of SPO ordered byte arrays which are shared by the builders of all
+ * indices. Thus, the received arrays must not be modified. If a
+ * <code>tmpDir</code> is given, the triples are sorted externally and added in
+ * bulk to the {@link MultiMap}. Otherwise, each triple is put individually.
+ */
+class IndexBuilder implements Callable<Void> {
+
+  private static final int MAX_NUMBER_OF_IN_MEMORY_TRIPLES = 500_000;
+
+  private static final byte[][] END_OF_TRIPLES = new byte[0][];
+
+  private static final long OFFER_TIMEOUT_IN_MILLIS = 100;
+
+  private final MultiMap index;
+
+  private final IndexType indexType;
+
+  private final File tmpDir;
+
+  private final BlockingQueue<byte[][]> blocks;
+
+  private Future<Void> future;
+
+  /**
+   * @param index
+   * @param indexType
+   * @param tmpDir
+   *          <code>null</code> if the triples should not be sorted externally
+   * @param maxNumberOfQueuedBlocks
+   */
+  public IndexBuilder(MultiMap index, IndexType indexType, File tmpDir,
+          int maxNumberOfQueuedBlocks) {
+    this.index = index;
+    this.indexType = indexType;
+    this.tmpDir = tmpDir;
+    blocks = new ArrayBlockingQueue<>(maxNumberOfQueuedBlocks);
+  }
+
+  /**
+   * @param future
+   *          the {@link Future} of the thread executing this builder
+   */
+  public void setFuture(Future<Void> future) {
+    this.future = future;
+  }
+
+  /**
+   * Blocks if the builder is too far behind.
+   * 
+   * @param spocTriples
+   * @throws InterruptedException
+   * @throws ExecutionException
+   *           if the builder thread has failed
+   */
+  public void addBlock(byte[][] spocTriples) throws InterruptedException, ExecutionException {
+    enqueue(spocTriples);
+  }
+
+  public void finish() throws InterruptedException, ExecutionException {
+    enqueue(IndexBuilder.END_OF_TRIPLES);
+  }
+
+  /**
+   * Waits until the block could be enqueued. While waiting, it is checked
+   * whether the builder thread has terminated. In this case, nobody would
+   * consume the queued blocks anymore.
+   * 
+   * @param block
+   * @throws InterruptedException
+   * @throws ExecutionException
+   */
+  private void enqueue(byte[][] block) throws InterruptedException, ExecutionException {
+    while (!blocks.offer(block, IndexBuilder.OFFER_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS)) {
+      if ((future != null) && future.isDone()) {
+        // throws the exception that has terminated the builder
+        future.get();
+        throw new IllegalStateException("The builder of index " + indexType
+                + " has terminated before receiving all triples.");
+      }
+    }
+  }
+
+  @Override
+  public Void call() throws Exception {
+    ExternalByteArraySorter sorter = tmpDir == null ? null
+            : new ExternalByteArraySorter(tmpDir, IndexBuilder.MAX_NUMBER_OF_IN_MEMORY_TRIPLES);
+    RuntimeException exception = null;
+    try {
+      for (byte[][] block = blocks.take(); block != IndexBuilder.END_OF_TRIPLES; block = blocks
+              .take()) {
+        if (exception != null) {
+          // consume the remaining blocks so that the sender does not block
+          continue;
+        }
+        try {
+          for (byte[] triple : block) {
+            byte[] entry = reorder(triple);
+            if (sorter != null) {
+              sorter.add(entry);
+            } else {
+              index.put(entry);
+            }
+          }
+        } catch (RuntimeException e) {
+          exception = e;
+        }
+      }
+      if (exception != null) {
+        throw exception;
+      }
+      if (sorter != null) {
+        index.putAllSorted(sorter.getSortedArrays());
+      } else {
+        index.flush();
+      }
+    } finally {
+      if (sorter != null) {
+        sorter.close();
+      }
+    }
+    return null;
+  }
+
+  private byte[] reorder(byte[] spocTriple) {
+    switch (indexType) {
+      case OSP:
+        return IndexBuilder.reorder(spocTriple, 2, 0, 1);
+      case POS:
+        return IndexBuilder.reorder(spocTriple, 1, 2, 0);
+      default:
+        return spocTriple;
+    }
+  }
+
+  private static byte[] reorder(byte[] spocTriple, int first, int second, int third) {
+    byte[] result = new byte[spocTriple.length];
+    System.arraycopy(spocTriple, first * Long.BYTES, result, 0, Long.BYTES);
+    System.arraycopy(spocTriple, second * Long.BYTES, result, Long.BYTES, Long.BYTES);
+    System.arraycopy(spocTriple, third * Long.BYTES, result, 2 * Long.BYTES, Long.BYTES);
+    System.arraycopy(spocTriple, 3 * Long.BYTES, result, 3 * Long.BYTES,
+            spocTriple.length - (3 * Long.BYTES));
+    return result;
+  }
+
+}
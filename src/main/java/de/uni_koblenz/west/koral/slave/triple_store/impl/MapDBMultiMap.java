@@ -138,6 +138,13 @@ public class MapDBMultiMap implements MultiMap {
     multiMap.add(content);
   }
 
+  @Override
+  public void putAllSorted(Iterator<byte[]> sortedContents) {
+    while (sortedContents.hasNext()) {
+      put(sortedContents.next());
+    }
+  }
+
   @Override
   public void removeAll(byte[] prefix) {
     NavigableSet<byte[]> subSet = multiMap.subSet(prefix, true, getMaxValue(prefix), true);
@@ -19,6 +19,7 @@
 package de.uni_koblenz.west.koral.slave.triple_store.impl;
 
 import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
 import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
 import de.uni_koblenz.west.koral.common.query.TriplePattern;
 
@@ -61,6 +62,24 @@ public class MappingIteratorWrapper implements Iterable<Mapping>, Iterator<Mappi
     return cache.createMapping(pattern, indexType, triple);
   }
 
+  /**
+   * Adds the mappings of the next matching triples to <code>batch</code> until
+   * it is full or no further triple matches. In contrast to {@link #next()}, no
+   * {@link Mapping} instances are created.
+   *
+   * @param batch
+   *          its variables must be the variables of the triple pattern
+   * @return the number of added mappings
+   */
+  public int next(MappingBatch batch) {
+    int numberOfAddedMappings = 0;
+    while (!batch.isFull() && iter.hasNext()) {
+      batch.add(pattern, indexType, iter.next());
+      numberOfAddedMappings++;
+    }
+    return numberOfAddedMappings;
+  }
+
   @Override
   public Iterator<Mapping> iterator() {
     return this;
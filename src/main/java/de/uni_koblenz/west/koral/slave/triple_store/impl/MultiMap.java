@@ -39,6 +39,14 @@ public interface MultiMap extends Closeable, AutoCloseable, Iterable<byte[]> {
 
   public void put(byte[] content);
 
+  /**
+   * Adds all contents of <code>sortedContents</code>.
+   * 
+   * @param sortedContents
+   *          in ascending unsigned lexicographical order without duplicates
+   */
+  public void putAllSorted(Iterator<byte[]> sortedContents);
+
   public void removeAll(byte[] prefix);
 
   public void remove(byte[] content);
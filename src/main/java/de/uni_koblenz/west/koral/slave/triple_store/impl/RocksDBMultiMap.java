@@ -26,10 +26,13 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
+import org.rocksdb.EnvOptions;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
+import org.rocksdb.SstFileWriter;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
@@ -78,17 +81,21 @@ public class RocksDBMultiMap implements MultiMap {
 
   private void initializeDB(String storageDir) {
     try {
-      Options options = new Options();
-      options.setCreateIfMissing(true);
-      options.setMaxOpenFiles(100);
-      options.setWriteBufferSize(64 * 1024 * 1024);
-      multiMap = RocksDB.open(options, storageDir);
+      multiMap = RocksDB.open(getOptions(), storageDir);
     } catch (RocksDBException e) {
       close();
       throw new RuntimeException(e);
     }
   }
 
+  private Options getOptions() {
+    Options options = new Options();
+    options.setCreateIfMissing(true);
+    options.setMaxOpenFiles(100);
+    options.setWriteBufferSize(64 * 1024 * 1024);
+    return options;
+  }
+
   private void loadNumberOfTriples() {
     try (DataInputStream in = new DataInputStream(new FileInputStream(numberOfTriplesFile))) {
       numberOfTriples = in.readLong();
@@ -148,6 +155,61 @@ public class RocksDBMultiMap implements MultiMap {
     }
   }
 
+  /**
+   * The sorted keys are written into an SST file that is ingested directly
+   * into the database. Thereby, the memtables, the write ahead log and a later
+   * compaction are skipped. If the database is not empty, e.g., because a
+   * graph is appended, the keys are inserted in write batches, instead.
+   */
+  @Override
+  public void putAllSorted(Iterator<byte[]> sortedContents) {
+    internalFlush();
+    if (containsAnyKey()) {
+      while (sortedContents.hasNext()) {
+        put(sortedContents.next());
+      }
+      internalFlush();
+      return;
+    }
+    File ingestionDir = new File(rocksDBFile.getParentFile(), "ingestion");
+    ingestionDir.mkdirs();
+    File sstFile = new File(ingestionDir, rocksDBFile.getName() + ".sst");
+    try (EnvOptions envOptions = new EnvOptions();
+        SstFileWriter writer = new SstFileWriter(envOptions, getOptions());
+        Slice emptyValue = new Slice(RocksDBMultiMap.EMPTY_BYTE_ARRAY);) {
+      writer.open(sstFile.getAbsolutePath());
+      boolean isEmpty = true;
+      while (sortedContents.hasNext()) {
+        // the slice copies the array into native memory
+        try (Slice key = new Slice(sortedContents.next());) {
+          writer.add(key, emptyValue);
+        }
+        isEmpty = false;
+      }
+      if (!isEmpty) {
+        writer.finish();
+        multiMap.addFileWithFilePath(sstFile.getAbsolutePath(), true);
+      }
+    } catch (RocksDBException e) {
+      close();
+      throw new RuntimeException(e);
+    } finally {
+      delete(ingestionDir);
+    }
+  }
+
+  /**
+   * In contrast to {@link #isEmpty()}, the database itself is checked.
+   * 
+   * @return <code>true</code> if the database contains at least one key
+   */
+  private boolean containsAnyKey() {
+    try (RocksIterator iterator = multiMap.newIterator();) {
+      iterator.seekToFirst();
+      return iterator.isValid();
+    }
+  }
+
   @Override
   public void removeAll(byte[] prefix) {
     for (byte[] key : get(prefix)) {
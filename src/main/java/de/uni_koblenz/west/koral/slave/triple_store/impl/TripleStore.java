@@ -18,6 +18,7 @@
  */
 package de.uni_koblenz.west.koral.slave.triple_store.impl;
 
+import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
 import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
 import de.uni_koblenz.west.koral.common.query.Mapping;
@@ -27,10 +28,20 @@ import de.uni_koblenz.west.koral.common.utils.NumberConversion;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A MapDB implementation of the local triple store. Each triple is stored in
  * the SPO, OSP, and POS index. Each index is realized by a {@link MultiMap}.
+ * When a whole graph chunk is stored, the three indices are built in parallel.
+ * If the indices are stored in RocksDB, the triples of the chunk are sorted
+ * externally per index and ingested in bulk.
  * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
@@ -43,6 +54,12 @@ public class TripleStore implements de.uni_koblenz.west.koral.slave.triple_store
 
   private final MultiMap pos;
 
+  private static final int BLOCK_SIZE = 10_000;
+
+  private static final int MAX_NUMBER_OF_QUEUED_BLOCKS = 16;
+
+  private final boolean isBulkLoadingUsed;
+
   public TripleStore(MapDBStorageOptions storageType, String tripleStoreDir,
           boolean useTransactions, boolean writeAsynchronously, MapDBCacheOptions cacheType) {
     File dir = new File(tripleStoreDir);
@@ -55,6 +72,7 @@ public class TripleStore implements de.uni_koblenz.west.koral.slave.triple_store
             useTransactions, writeAsynchronously, cacheType, "osp");
     pos = new MapDBMultiMap(storageType, tripleStoreDir + File.separatorChar + "pos",
             useTransactions, writeAsynchronously, cacheType, "pos");
+    isBulkLoadingUsed = false;
   }
 
   public TripleStore(String tripleStoreDir) {
@@ -65,6 +83,22 @@ public class TripleStore implements de.uni_koblenz.west.koral.slave.triple_store
     spo = new RocksDBMultiMap(tripleStoreDir + File.separatorChar + "spo");
     osp = new RocksDBMultiMap(tripleStoreDir + File.separatorChar + "osp");
     pos = new RocksDBMultiMap(tripleStoreDir + File.separatorChar + "pos");
+    isBulkLoadingUsed = true;
+  }
+
+  /**
+   * @param spo
+   * @param osp
+   * @param pos
+   * @param isBulkLoadingUsed
+   *          <code>true</code> if the indices support
+   *          {@link MultiMap#putAllSorted(java.util.Iterator)}
+   */
+  TripleStore(MultiMap spo, MultiMap osp, MultiMap pos, boolean isBulkLoadingUsed) {
+    this.spo = spo;
+    this.osp = osp;
+    this.pos = pos;
+    this.isBulkLoadingUsed = isBulkLoadingUsed;
   }
 
   @Override
@@ -74,6 +108,67 @@ public class TripleStore implements de.uni_koblenz.west.koral.slave.triple_store
     pos.put(createByteArray(property, object, subject, containment));
   }
 
+  /**
+   * The statements are read by the calling thread and passed in blocks to
+   * one {@link IndexBuilder} thread per index.
+   */
+  @Override
+  public long storeTriples(Iterable<Statement> statements, File tmpDir) {
+    IndexBuilder[] builders = new IndexBuilder[] {
+            new IndexBuilder(spo, IndexType.SPO,
+                    isBulkLoadingUsed ? new File(tmpDir, "spo") : null,
+                    TripleStore.MAX_NUMBER_OF_QUEUED_BLOCKS),
+            new IndexBuilder(osp, IndexType.OSP,
+                    isBulkLoadingUsed ? new File(tmpDir, "osp") : null,
+                    TripleStore.MAX_NUMBER_OF_QUEUED_BLOCKS),
+            new IndexBuilder(pos, IndexType.POS,
+                    isBulkLoadingUsed ? new File(tmpDir, "pos") : null,
+                    TripleStore.MAX_NUMBER_OF_QUEUED_BLOCKS) };
+    ExecutorService executor = Executors.newFixedThreadPool(builders.length);
+    long numberOfTriples = 0;
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (IndexBuilder builder : builders) {
+        Future<Void> future = executor.submit(builder);
+        builder.setFuture(future);
+        futures.add(future);
+      }
+      byte[][] block = new byte[TripleStore.BLOCK_SIZE][];
+      int blockSize = 0;
+      for (Statement statement : statements) {
+        block[blockSize++] = createByteArray(statement.getSubjectAsLong(),
+                statement.getPropertyAsLong(), statement.getObjectAsLong(),
+                statement.getContainment());
+        numberOfTriples++;
+        if (blockSize == block.length) {
+          for (IndexBuilder builder : builders) {
+            builder.addBlock(block);
+          }
+          block = new byte[TripleStore.BLOCK_SIZE][];
+          blockSize = 0;
+        }
+      }
+      if (blockSize > 0) {
+        block = Arrays.copyOf(block, blockSize);
+        for (IndexBuilder builder : builders) {
+          builder.addBlock(block);
+        }
+      }
+      for (IndexBuilder builder : builders) {
+        builder.finish();
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    } finally {
+      // interrupts the remaining builders if one builder has failed
+      executor.shutdownNow();
+    }
+    return numberOfTriples;
+  }
+
   private byte[] createByteArray(long value1, long value2, long value3, byte[] containment) {
     byte[] result = new byte[(3 * Long.BYTES) + containment.length];
     NumberConversion.long2bytes(value1, result, 0);
@@ -85,6 +180,12 @@ public class TripleStore implements de.uni_koblenz.west.koral.slave.triple_store
 
   @Override
   public Iterable<Mapping> lookup(MappingRecycleCache cache, TriplePattern triplePattern) {
+    return lookup(cache, triplePattern, triplePattern);
+  }
+
+  @Override
+  public Iterable<Mapping> lookup(MappingRecycleCache cache, TriplePattern triplePattern,
+          TriplePattern resultPattern) {
     byte[] queryPrefix = null;
     Iterable<byte[]> matches = null;
     IndexType indexType = null;
@@ -134,7 +235,7 @@ public class TripleStore implements de.uni_koblenz.west.koral.slave.triple_store
         indexType = IndexType.SPO;
         break;
     }
-    return new MappingIteratorWrapper(cache, triplePattern, indexType, matches.iterator());
+    return new MappingIteratorWrapper(cache, resultPattern, indexType, matches.iterator());
   }
 
   @Override
@@ -0,0 +1,278 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_koblenz.west.koral.slave.triple_store.loader.impl;
+
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Concatenates the payloads of the received
+ * {@link MessageType#GRAPH_CHUNK_BLOCK} messages. The messages are added by
+ * the thread that receives them and read by the thread that stores the
+ * triples. Adding a message never blocks the receiving thread, since it
+ * receives all other messages of the slave, too. If the triple store is
+ * slower than the network and the in-memory queue is full, further blocks are
+ * appended to a spool file until the reader has caught up.
+ */
+class GraphChunkBlockInputStream extends InputStream {
+
+  private static final byte[] END_OF_STREAM = new byte[0];
+
+  /**
+   * length written into the spool file to mark the end of the graph chunk
+   */
+  private static final int END_OF_STREAM_LENGTH = -1;
+
+  private final int maxNumberOfQueuedBlocks;
+
+  private final Queue<byte[]> blocks;
+
+  private final File spoolFile;
+
+  /**
+   * <code>null</code> if no blocks are spooled
+   */
+  private DataOutputStream spoolOutput;
+
+  /**
+   * <code>null</code> if no blocks are spooled
+   */
+  private DataInputStream spoolInput;
+
+  /**
+   * number of blocks in the spool file that have not been read yet. While it
+   * is greater than 0, new blocks are spooled, too, in order to preserve the
+   * order of the blocks.
+   */
+  private int numberOfSpooledBlocks;
+
+  /**
+   * the exception that occurred while spooling a block. It is thrown to the
+   * reader.
+   */
+  private IOException spoolException;
+
+  /**
+   * true while the reader reads a block from {@link #spoolInput} without
+   * holding the lock. In this case, {@link #close()} leaves closing the spool
+   * file to the reader.
+   */
+  private boolean isReadingSpoolFile;
+
+  private boolean isClosed;
+
+  private byte[] currentBlock;
+
+  private int nextIndex;
+
+  /**
+   * @param maxNumberOfQueuedBlocks
+   *          number of blocks that are kept in memory
+   * @param spoolFile
+   *          file to which further blocks are written
+   */
+  public GraphChunkBlockInputStream(int maxNumberOfQueuedBlocks, File spoolFile) {
+    this.maxNumberOfQueuedBlocks = maxNumberOfQueuedBlocks;
+    blocks = new ArrayDeque<>(maxNumberOfQueuedBlocks);
+    this.spoolFile = spoolFile;
+    numberOfSpooledBlocks = 0;
+    isClosed = false;
+    // the first byte of a message is the message type
+    currentBlock = new byte[Byte.BYTES];
+    nextIndex = Byte.BYTES;
+  }
+
+  /**
+   * Queues the message without blocking.
+   * 
+   * @param message
+   *          a {@link MessageType#GRAPH_CHUNK_BLOCK} message
+   */
+  public void addBlock(byte[] message) {
+    synchronized (this) {
+      if (isClosed || (spoolException != null)) {
+        return;
+      }
+      if ((numberOfSpooledBlocks == 0) && (blocks.size() < maxNumberOfQueuedBlocks)) {
+        blocks.offer(message);
+      } else {
+        try {
+          spool(message);
+          numberOfSpooledBlocks++;
+        } catch (IOException e) {
+          spoolException = e;
+        }
+      }
+      notifyAll();
+    }
+  }
+
+  private void spool(byte[] message) throws IOException {
+    if (spoolOutput == null) {
+      spoolOutput = new DataOutputStream(
+              new BufferedOutputStream(new FileOutputStream(spoolFile)));
+      spoolInput = new DataInputStream(new BufferedInputStream(new FileInputStream(spoolFile)));
+    }
+    if (message == GraphChunkBlockInputStream.END_OF_STREAM) {
+      spoolOutput.writeInt(GraphChunkBlockInputStream.END_OF_STREAM_LENGTH);
+    } else {
+      spoolOutput.writeInt(message.length);
+      spoolOutput.write(message);
+    }
+    // the reader may read the block immediately
+    spoolOutput.flush();
+  }
+
+  /**
+   * Marks the end of the graph chunk.
+   */
+  public void finish() {
+    addBlock(GraphChunkBlockInputStream.END_OF_STREAM);
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextBlock()) {
+      return -1;
+    }
+    return currentBlock[nextIndex++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextBlock()) {
+      return -1;
+    }
+    int length = Math.min(len, currentBlock.length - nextIndex);
+    System.arraycopy(currentBlock, nextIndex, b, off, length);
+    nextIndex += length;
+    return length;
+  }
+
+  /**
+   * @return <code>false</code> if the end of the stream is reached
+   * @throws IOException
+   */
+  private boolean nextBlock() throws IOException {
+    while (nextIndex >= currentBlock.length) {
+      if (currentBlock == GraphChunkBlockInputStream.END_OF_STREAM) {
+        return false;
+      }
+      currentBlock = takeBlock();
+      nextIndex = currentBlock == GraphChunkBlockInputStream.END_OF_STREAM ? 0 : Byte.BYTES;
+    }
+    return true;
+  }
+
+  private byte[] takeBlock() throws IOException {
+    DataInputStream input;
+    synchronized (this) {
+      try {
+        while (blocks.isEmpty() && (numberOfSpooledBlocks == 0) && (spoolException == null)
+                && !isClosed) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      }
+      if (!blocks.isEmpty()) {
+        // the blocks in memory precede the spooled blocks
+        return blocks.poll();
+      }
+      if (spoolException != null) {
+        throw spoolException;
+      }
+      if (isClosed) {
+        throw new IOException("The graph chunk stream has been closed.");
+      }
+      input = spoolInput;
+      isReadingSpoolFile = true;
+    }
+    byte[] block = GraphChunkBlockInputStream.END_OF_STREAM;
+    try {
+      // the spooled block has been flushed completely before it was counted
+      int length = input.readInt();
+      if (length != GraphChunkBlockInputStream.END_OF_STREAM_LENGTH) {
+        block = new byte[length];
+        input.readFully(block);
+      }
+    } finally {
+      synchronized (this) {
+        isReadingSpoolFile = false;
+        if (isClosed) {
+          // close() has been called while reading
+          closeSpoolFile();
+        }
+      }
+    }
+    synchronized (this) {
+      if (isClosed) {
+        throw new IOException("The graph chunk stream has been closed.");
+      }
+      numberOfSpooledBlocks--;
+      if (numberOfSpooledBlocks == 0) {
+        // the reader has caught up, thus, the next blocks are kept in memory
+        closeSpoolFile();
+      }
+    }
+    return block;
+  }
+
+  private void closeSpoolFile() {
+    if (spoolOutput == null) {
+      return;
+    }
+    try {
+      spoolOutput.close();
+      spoolInput.close();
+    } catch (IOException e) {
+      // the spool file is not required anymore
+    }
+    spoolOutput = null;
+    spoolInput = null;
+    spoolFile.delete();
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      isClosed = true;
+      blocks.clear();
+      numberOfSpooledBlocks = 0;
+      if (!isReadingSpoolFile) {
+        closeSpoolFile();
+      }
+      notifyAll();
+    }
+  }
+
+}
@@ -19,16 +19,20 @@
 package de.uni_koblenz.west.koral.slave.triple_store.loader.impl;
 
 import de.uni_koblenz.west.koral.common.ftp.FTPClient;
+import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
+import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
 import de.uni_koblenz.west.koral.common.measurement.MeasurementType;
 import de.uni_koblenz.west.koral.common.messages.MessageNotifier;
 import de.uni_koblenz.west.koral.common.messages.MessageType;
 import de.uni_koblenz.west.koral.master.KoralMaster;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
 import de.uni_koblenz.west.koral.slave.networkManager.SlaveNetworkManager;
 import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
 import de.uni_koblenz.west.koral.slave.triple_store.loader.GraphChunkListener;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.BufferUnderflowException;
 import java.util.logging.Logger;
@@ -36,13 +40,16 @@ import java.util.regex.Pattern;
 
 /**
  * Requests the corresponding graph chunk from {@link KoralMaster}. If the chunk
- * is received completely, it is loaded into the local triple store.
+ * is received completely, it is loaded into the local triple store. If the
+ * master streams the chunk, the triples are stored while they are received.
  * 
  * @author Daniel Janke &lt;danijankATuni-koblenz.de&gt;
  *
  */
 public class GraphChunkLoader extends Thread implements GraphChunkListener {
 
+  private static final int MAX_NUMBER_OF_QUEUED_BLOCKS = 64;
+
   private final Logger logger;
 
   private final MeasurementCollector measurementCollector;
@@ -55,20 +62,31 @@ public class GraphChunkLoader extends Thread implements GraphChunkListener {
 
   private final TripleStoreAccessor tripleStore;
 
+  private final DictionaryShard dictionaryShard;
+
   private final MessageNotifier messageNotifier;
 
   private String[] ftpServer;
 
   private String remoteGraphChunkFileName;
 
+  private String remoteDictionaryShardFileName;
+
+  /**
+   * <code>null</code> if the graph chunk is downloaded via FTP
+   */
+  private GraphChunkBlockInputStream streamedChunk;
+
   public GraphChunkLoader(int slaveID, int numberOfSlaves, File workingDir,
           SlaveNetworkManager networkManager, TripleStoreAccessor tripleStore,
-          MessageNotifier messageNotifier, Logger logger, MeasurementCollector collector) {
+          DictionaryShard dictionaryShard, MessageNotifier messageNotifier, Logger logger,
+          MeasurementCollector collector) {
     this.logger = logger;
     measurementCollector = collector;
     this.slaveID = slaveID;
     connection = networkManager;
     this.tripleStore = tripleStore;
+    this.dictionaryShard = dictionaryShard;
     this.workingDir = workingDir;
     this.messageNotifier = messageNotifier;
     if (workingDir.exists()) {
@@ -94,8 +112,26 @@ public class GraphChunkLoader extends Thread implements GraphChunkListener {
           case START_FILE_TRANSFER:
             ftpServer = new String(message[1], "UTF-8").split(Pattern.quote(":"));
             remoteGraphChunkFileName = new String(message[2], "UTF-8");
+            // an empty file name indicates that no dictionary shard is sent
+            remoteDictionaryShardFileName = (message.length > 3) && (message[3].length > 0)
+                    ? new String(message[3], "UTF-8") : null;
+            start();
+            break;
+          case START_GRAPH_CHUNK_STREAM:
+            streamedChunk = new GraphChunkBlockInputStream(
+                    GraphChunkLoader.MAX_NUMBER_OF_QUEUED_BLOCKS,
+                    new File(workingDir.getAbsolutePath() + File.separator + "graphChunk.spool"));
             start();
             break;
+          case END_GRAPH_CHUNK_STREAM:
+            ftpServer = new String(message[1], "UTF-8").split(Pattern.quote(":"));
+            // an empty file name indicates that no dictionary shard is sent
+            remoteDictionaryShardFileName =
+                    message[2].length > 0 ? new String(message[2], "UTF-8") : null;
+            if (streamedChunk != null) {
+              streamedChunk.finish();
+            }
+            break;
           default:
             if (logger != null) {
               logger.finer("Unsupported message type: " + mType.name());
@@ -126,42 +162,53 @@ public class GraphChunkLoader extends Thread implements GraphChunkListener {
 
   @Override
   public void processMessage(byte[] message) {
-    throw new UnsupportedOperationException();
+    if ((message == null) || (message.length == 0)) {
+      return;
+    }
+    MessageType mType = MessageType.valueOf(message[0]);
+    if ((mType == MessageType.GRAPH_CHUNK_BLOCK) && (streamedChunk != null)) {
+      streamedChunk.addBlock(message);
+    } else if (logger != null) {
+      logger.finer("Unsupported message type: " + mType);
+    }
   }
 
   @Override
   public void run() {
     try {
-      if (measurementCollector != null) {
-        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FILE_TRANSFER_TO_SLAVES_START,
-                System.currentTimeMillis());
-      }
-      File graphChunk = new File(
-              workingDir.getAbsolutePath() + File.separator + remoteGraphChunkFileName);
-      FTPClient ftpClient = new FTPClient(logger);
-      ftpClient.downloadFile(remoteGraphChunkFileName, graphChunk, ftpServer[0], ftpServer[1]);
-      if (measurementCollector != null) {
-        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FILE_TRANSFER_TO_SLAVES_END,
-                System.currentTimeMillis());
-      }
-
-      if (graphChunk.exists()) {
+      File shard = null;
+      if (streamedChunk != null) {
         if (measurementCollector != null) {
           measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_STORING_TRIPLES_START,
                   System.currentTimeMillis());
         }
-        tripleStore.storeTriples(graphChunk);
+        try (EncodedFileInputStream in =
+                new EncodedFileInputStream(EncodingFileFormat.EEE, streamedChunk);) {
+          tripleStore.storeTriples(in, "streamed graph chunk");
+        }
         if (measurementCollector != null) {
           measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_STORING_TRIPLES_END,
                   System.currentTimeMillis());
         }
+        if (remoteDictionaryShardFileName != null) {
+          shard = new File(
+                  workingDir.getAbsolutePath() + File.separator + remoteDictionaryShardFileName);
+          new FTPClient(logger).downloadFile(remoteDictionaryShardFileName, shard, ftpServer[0],
+                  ftpServer[1]);
+        }
+      } else {
+        shard = loadGraphChunkFile();
+      }
+
+      if ((shard != null) && shard.exists()) {
+        dictionaryShard.storeEntries(shard);
       }
 
       if (!isInterrupted()) {
         connection.sendFinish(slaveID);
       }
       close();
-    } catch (RuntimeException e) {
+    } catch (IOException | RuntimeException e) {
       if (logger != null) {
         logger.throwing(e.getStackTrace()[0].getClassName(), e.getStackTrace()[0].getMethodName(),
                 e);
@@ -171,6 +218,46 @@ public class GraphChunkLoader extends Thread implements GraphChunkListener {
     }
   }
 
+  /**
+   * Downloads the graph chunk and the dictionary shard from the master and
+   * stores the triples of the chunk.
+   * 
+   * @return the downloaded dictionary shard or <code>null</code>
+   */
+  private File loadGraphChunkFile() {
+    if (measurementCollector != null) {
+      measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FILE_TRANSFER_TO_SLAVES_START,
+              System.currentTimeMillis());
+    }
+    File graphChunk = new File(
+            workingDir.getAbsolutePath() + File.separator + remoteGraphChunkFileName);
+    FTPClient ftpClient = new FTPClient(logger);
+    ftpClient.downloadFile(remoteGraphChunkFileName, graphChunk, ftpServer[0], ftpServer[1]);
+    File shard = null;
+    if (remoteDictionaryShardFileName != null) {
+      shard = new File(
+              workingDir.getAbsolutePath() + File.separator + remoteDictionaryShardFileName);
+      ftpClient.downloadFile(remoteDictionaryShardFileName, shard, ftpServer[0], ftpServer[1]);
+    }
+    if (measurementCollector != null) {
+      measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_FILE_TRANSFER_TO_SLAVES_END,
+              System.currentTimeMillis());
+    }
+
+    if (graphChunk.exists()) {
+      if (measurementCollector != null) {
+        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_STORING_TRIPLES_START,
+                System.currentTimeMillis());
+      }
+      tripleStore.storeTriples(graphChunk);
+      if (measurementCollector != null) {
+        measurementCollector.measureValue(MeasurementType.LOAD_GRAPH_STORING_TRIPLES_END,
+                System.currentTimeMillis());
+      }
+    }
+    return shard;
+  }
+
   @Override
   public int getSlaveID() {
     return slaveID;
@@ -179,6 +266,9 @@ public class GraphChunkLoader extends Thread implements GraphChunkListener {
   @Override
   public void close() {
     messageNotifier.unregisterMessageListener(GraphChunkListener.class, this);
+    if (streamedChunk != null) {
+      streamedChunk.close();
+    }
     deleteContent(workingDir);
     workingDir.delete();
   }
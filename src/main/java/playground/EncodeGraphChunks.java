@@ -3,6 +3,7 @@ package playground;
 import java.io.File;
 
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.utils.GraphFileFilter;
 import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
 import de.uni_koblenz.west.koral.master.graph_cover_creator.GraphCoverCreator;
@@ -25,7 +26,7 @@ public class EncodeGraphChunks {
 
 		Configuration conf = new Configuration();
 
-		GraphCoverCreator coverCreator = new HashCoverCreator(null, null);
+		GraphCoverCreator coverCreator = new HashCoverCreator(null, null, FileCompression.GZIP);
 
 		try (DictionaryEncoder encoder = new DictionaryEncoder(conf, null, null);) {
 			System.out.println("Encoding...");
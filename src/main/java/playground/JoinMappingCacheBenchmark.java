@@ -0,0 +1,142 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package playground;
+
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.TriplePatternType;
+import de.uni_koblenz.west.koral.common.utils.InMemoryJoinMappingCache;
+import de.uni_koblenz.west.koral.common.utils.JoinMappingCache;
+import de.uni_koblenz.west.koral.common.utils.LongKeyJoinMappingCache;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.slave.triple_store.impl.IndexType;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Compares the build and probe times as well as the garbage collection
+ * activity of {@link InMemoryJoinMappingCache} and
+ * {@link LongKeyJoinMappingCache}. One cache is filled with mappings of
+ * (?0,?1,?2) and afterwards probed with mappings of (?0,?3,?4).
+ */
+public class JoinMappingCacheBenchmark {
+
+  private static final int NUMBER_OF_SLAVES = 4;
+
+  private static final int NUMBER_OF_MAPPINGS = 500_000;
+
+  private static final int NUMBER_OF_DISTINCT_JOIN_VALUES = 100_000;
+
+  private static final int NUMBER_OF_WARMUP_ROUNDS = 3;
+
+  private static final int NUMBER_OF_MEASURED_ROUNDS = 5;
+
+  private static final long[] BUILD_VARS = new long[] { 0, 1, 2 };
+
+  private static final long[] PROBE_VARS = new long[] { 0, 3, 4 };
+
+  public static void main(String[] args) {
+    MappingRecycleCache recycleCache = new MappingRecycleCache(1000,
+            JoinMappingCacheBenchmark.NUMBER_OF_SLAVES);
+    Random random = new Random(42);
+    Mapping[] buildMappings = JoinMappingCacheBenchmark.createMappings(recycleCache, random,
+            JoinMappingCacheBenchmark.BUILD_VARS);
+    Mapping[] probeMappings = JoinMappingCacheBenchmark.createMappings(recycleCache, random,
+            JoinMappingCacheBenchmark.PROBE_VARS);
+
+    for (int round = 0; round < (JoinMappingCacheBenchmark.NUMBER_OF_WARMUP_ROUNDS
+            + JoinMappingCacheBenchmark.NUMBER_OF_MEASURED_ROUNDS); round++) {
+      boolean isMeasured = round >= JoinMappingCacheBenchmark.NUMBER_OF_WARMUP_ROUNDS;
+      for (boolean useLongKeys : new boolean[] { false, true }) {
+        JoinMappingCache cache = useLongKeys
+                ? new LongKeyJoinMappingCache(recycleCache, JoinMappingCacheBenchmark.BUILD_VARS,
+                        new int[] { 0, 1, 2 }, 1)
+                : new InMemoryJoinMappingCache(JoinMappingCacheBenchmark.BUILD_VARS,
+                        new int[] { 0, 1, 2 }, 1);
+        System.gc();
+        long gcCountBefore = JoinMappingCacheBenchmark.getGarbageCollectionCount();
+        long gcTimeBefore = JoinMappingCacheBenchmark.getGarbageCollectionTime();
+
+        long start = System.nanoTime();
+        for (Mapping mapping : buildMappings) {
+          cache.add(mapping);
+        }
+        long buildTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long numberOfCandidates = 0;
+        for (Mapping mapping : probeMappings) {
+          Iterator<Mapping> candidates = cache.getMatchCandidates(mapping,
+                  JoinMappingCacheBenchmark.PROBE_VARS);
+          while (candidates.hasNext()) {
+            candidates.next();
+            numberOfCandidates++;
+          }
+        }
+        long probeTime = System.nanoTime() - start;
+
+        long gcCount = JoinMappingCacheBenchmark.getGarbageCollectionCount() - gcCountBefore;
+        long gcTime = JoinMappingCacheBenchmark.getGarbageCollectionTime() - gcTimeBefore;
+        cache.close();
+        if (isMeasured) {
+          System.out.println(cache.getClass().getSimpleName() + ": build="
+                  + (buildTime / 1_000_000) + "ms probe=" + (probeTime / 1_000_000)
+                  + "ms candidates=" + numberOfCandidates + " gcCount=" + gcCount + " gcTime="
+                  + gcTime + "ms");
+        }
+      }
+    }
+  }
+
+  private static Mapping[] createMappings(MappingRecycleCache recycleCache, Random random,
+          long[] vars) {
+    TriplePattern pattern = new TriplePattern(TriplePatternType.___, vars[0], vars[1], vars[2]);
+    Mapping[] mappings = new Mapping[JoinMappingCacheBenchmark.NUMBER_OF_MAPPINGS];
+    byte[] triple = new byte[(Long.BYTES * 3) + 1];
+    for (int i = 0; i < mappings.length; i++) {
+      NumberConversion.long2bytes(
+              random.nextInt(JoinMappingCacheBenchmark.NUMBER_OF_DISTINCT_JOIN_VALUES), triple,
+              0 * Long.BYTES);
+      NumberConversion.long2bytes(random.nextLong(), triple, 1 * Long.BYTES);
+      NumberConversion.long2bytes(random.nextLong(), triple, 2 * Long.BYTES);
+      mappings[i] = recycleCache.createMapping(pattern, IndexType.SPO, triple);
+      mappings[i].updateContainment(0, 1);
+    }
+    return mappings;
+  }
+
+  private static long getGarbageCollectionCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, bean.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static long getGarbageCollectionTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(0, bean.getCollectionTime());
+    }
+    return time;
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package playground;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.networManager.NetworkManager;
+
+import java.util.Arrays;
+
+/**
+ * Measures the round trip time of mapping batches between two
+ * {@link NetworkManager}s. The echoing side either uses the former message
+ * loop, i.e., a non-blocking receive followed by a sleep of 100 ms, or the
+ * poller based message loop of the slaves.
+ */
+public class MessageLoopLatencyBenchmark {
+
+  private static final int NUMBER_OF_ROUND_TRIPS = 200;
+
+  private static final int MAPPING_BATCH_SIZE = 100 * (1 + 8 + 8 + 4 + (3 * 8));
+
+  public static void main(String[] args) throws InterruptedException {
+    Configuration conf = new Configuration();
+    conf.setMaster("127.0.0.1", "4710");
+    conf.addSlave("127.0.0.1", "4711");
+
+    NetworkManager sender = new NetworkManager(conf, conf.getMaster());
+    NetworkManager echo = new NetworkManager(conf, conf.getSlave(0));
+
+    byte[] batch = new byte[MessageLoopLatencyBenchmark.MAPPING_BATCH_SIZE];
+    Arrays.fill(batch, (byte) 1);
+    batch[0] = (byte) MessageType.QUERY_MAPPING_BATCH.ordinal();
+
+    try {
+      for (boolean usePoller : new boolean[] { false, true }) {
+        Thread echoThread = MessageLoopLatencyBenchmark.createEchoThread(echo, usePoller);
+        echoThread.start();
+        long[] roundTripTimes = new long[MessageLoopLatencyBenchmark.NUMBER_OF_ROUND_TRIPS];
+        for (int i = 0; i < roundTripTimes.length; i++) {
+          long start = System.nanoTime();
+          sender.send(1, batch);
+          sender.receive(true);
+          roundTripTimes[i] = System.nanoTime() - start;
+        }
+        echoThread.interrupt();
+        echoThread.join();
+        Arrays.sort(roundTripTimes);
+        long sum = 0;
+        for (long time : roundTripTimes) {
+          sum += time;
+        }
+        System.out.println((usePoller ? "poller" : "receive+sleep") + ": mean="
+                + String.format("%,d", sum / roundTripTimes.length / 1000) + "us median="
+                + String.format("%,d", roundTripTimes[roundTripTimes.length / 2] / 1000)
+                + "us p99="
+                + String.format("%,d",
+                        roundTripTimes[(roundTripTimes.length * 99) / 100] / 1000)
+                + "us");
+      }
+    } finally {
+      echo.close();
+      sender.close();
+    }
+  }
+
+  private static Thread createEchoThread(NetworkManager echo, boolean usePoller) {
+    return new Thread() {
+      @Override
+      public void run() {
+        while (!isInterrupted()) {
+          if (usePoller) {
+            if (!echo.waitForMessage(100)) {
+              continue;
+            }
+            for (byte[] message = echo.receive(); message != null; message = echo.receive()) {
+              echo.send(0, message);
+            }
+          } else {
+            byte[] message = echo.receive();
+            if (message != null) {
+              echo.send(0, message);
+              try {
+                Thread.sleep(100);
+              } catch (InterruptedException e) {
+                break;
+              }
+            }
+          }
+        }
+      }
+    };
+  }
+
+}
@@ -1,6 +1,7 @@
 package playground;
 
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.utils.GraphFileFilter;
 import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
 import de.uni_koblenz.west.koral.master.graph_cover_creator.CoverStrategyType;
@@ -32,7 +33,7 @@ public class MoleculeHashTest {
     Configuration conf = new Configuration();
 
     GraphCoverCreator coverCreator = GraphCoverCreatorFactory
-            .getGraphCoverCreator(CoverStrategyType.MOLECULE_HASH, null, null);
+            .getGraphCoverCreator(CoverStrategyType.MOLECULE_HASH, null, null, FileCompression.GZIP);
 
     try (DictionaryEncoder encoder = new DictionaryEncoder(conf, null, null);) {
       File encodedInput = encoder.encodeOriginalGraphFiles(
@@ -27,6 +27,7 @@ import org.apache.jena.query.QueryFactory;
 import de.uni_koblenz.west.koral.common.config.impl.Configuration;
 import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
 import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
 import de.uni_koblenz.west.koral.common.io.Statement;
 import de.uni_koblenz.west.koral.common.query.execution.QueryExecutionTreeDeserializer;
 import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
@@ -63,7 +64,7 @@ public class Playground {
     File inputFile = new File(args[0]);
     Configuration conf = new Configuration();
 
-    GraphCoverCreator coverCreator = new HashCoverCreator(null, null);
+    GraphCoverCreator coverCreator = new HashCoverCreator(null, null, FileCompression.GZIP);
     // GraphCoverCreator coverCreator = new HierarchicalCoverCreator(null,
     // null);
     // GraphCoverCreator coverCreator = new MinimalEdgeCutCover(null, null);
@@ -80,7 +81,7 @@ public class Playground {
     cover = encoder.encodeGraphChunksCompletely(cover, workingDir,
         coverCreator.getRequiredInputEncoding());
 
-    NHopReplicator replicator = new NHopReplicator(null, null);
+    NHopReplicator replicator = new NHopReplicator(null, null, FileCompression.GZIP);
     cover = replicator.createNHopReplication(cover, workingDir, 0);
 
     // collect statistics
@@ -0,0 +1,147 @@
+/*
+ * This file is part of Koral.
+ *
+ * Koral is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Koral is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Leser General Public License
+ * along with Koral.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package playground;
+
+import org.apache.jena.graph.Node;
+
+import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
+import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
+import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
+import de.uni_koblenz.west.koral.common.io.Statement;
+import de.uni_koblenz.west.koral.common.io.VByteCodec;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.common.utils.RDFFileIterator;
+import de.uni_koblenz.west.koral.master.dictionary.Dictionary;
+import de.uni_koblenz.west.koral.master.dictionary.impl.RocksDBDictionary;
+import de.uni_koblenz.west.koral.master.utils.DeSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compares the time to write and read the statements of a graph with
+ * {@link EncodedFileOutputStream} and {@link EncodedFileInputStream} for each
+ * {@link FileCompression} with the time of the plain {@link VByteCodec} on
+ * blocks of statements in a {@link ByteBuffer}. The graph is encoded as in
+ * {@link EncoderTest}.
+ */
+public class VByteCodecBenchmark {
+
+  private static final int NUMBER_OF_WARMUP_ROUNDS = 3;
+
+  private static final int NUMBER_OF_MEASURED_ROUNDS = 5;
+
+  private static final int STATEMENTS_PER_BLOCK = 10_000;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: java " + VByteCodecBenchmark.class.getName()
+              + " <storageDir> <graphDataFileOrFolder>");
+      return;
+    }
+    File dir = new File(args[0]);
+    dir.mkdirs();
+    Dictionary dictionary = new RocksDBDictionary(
+            dir.getAbsolutePath() + File.separator + "dictionary");
+    long[] ids = VByteCodecBenchmark.encodeGraph(new File(args[1]), dictionary);
+    dictionary.close();
+    int numberOfStatements = ids.length / 3;
+    System.out.println("statements=" + numberOfStatements);
+
+    byte[] containment = new byte[] { 1 };
+    File file = new File(dir.getAbsolutePath() + File.separator + "encoded.bin");
+    ByteBuffer buffer = ByteBuffer
+            .allocate(VByteCodecBenchmark.STATEMENTS_PER_BLOCK * 3 * VByteCodec.MAX_ENCODED_LENGTH);
+    long[] decoded = new long[VByteCodecBenchmark.STATEMENTS_PER_BLOCK * 3];
+    for (int round = 0; round < (VByteCodecBenchmark.NUMBER_OF_WARMUP_ROUNDS
+            + VByteCodecBenchmark.NUMBER_OF_MEASURED_ROUNDS); round++) {
+      boolean isMeasured = round >= VByteCodecBenchmark.NUMBER_OF_WARMUP_ROUNDS;
+      for (FileCompression compression : FileCompression.values()) {
+        long start = System.nanoTime();
+        try (EncodedFileOutputStream out = new EncodedFileOutputStream(file, compression);) {
+          for (int i = 0; i < ids.length; i += 3) {
+            out.writeStatement(Statement.getStatement(EncodingFileFormat.EEE,
+                    NumberConversion.long2bytes(ids[i]), NumberConversion.long2bytes(ids[i + 1]),
+                    NumberConversion.long2bytes(ids[i + 2]), containment));
+          }
+        }
+        long writeTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        long checksum = 0;
+        try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE,
+                file);) {
+          for (Statement statement : in) {
+            checksum += statement.getSubjectAsLong() + statement.getPropertyAsLong()
+                    + statement.getObjectAsLong();
+          }
+        }
+        long readTime = System.nanoTime() - start;
+        if (isMeasured) {
+          System.out.println("stream " + compression.name() + ": write="
+                  + (writeTime / 1_000_000) + "ms read=" + (readTime / 1_000_000) + "ms size="
+                  + file.length() + " checksum=" + checksum);
+        }
+      }
+
+      long encodeTime = 0;
+      long decodeTime = 0;
+      long size = 0;
+      long checksum = 0;
+      for (int offset = 0; offset < ids.length; offset += decoded.length) {
+        int length = Math.min(decoded.length, ids.length - offset);
+        buffer.clear();
+        long start = System.nanoTime();
+        VByteCodec.encode(ids, offset, length, buffer);
+        encodeTime += System.nanoTime() - start;
+        size += buffer.position();
+        buffer.flip();
+        start = System.nanoTime();
+        VByteCodec.decode(buffer, decoded, 0, length);
+        decodeTime += System.nanoTime() - start;
+        for (int i = 0; i < length; i++) {
+          checksum += decoded[i];
+        }
+      }
+      if (isMeasured) {
+        System.out.println("codec: encode=" + (encodeTime / 1_000_000) + "ms decode="
+                + (decodeTime / 1_000_000) + "ms size=" + size + " checksum=" + checksum);
+      }
+    }
+    file.delete();
+  }
+
+  private static long[] encodeGraph(File graphFile, Dictionary dictionary) {
+    long[] ids = new long[3 * 1024];
+    int size = 0;
+    try (RDFFileIterator iter = new RDFFileIterator(graphFile, false, null);) {
+      for (Node[] quad : iter) {
+        if ((size + 3) > ids.length) {
+          ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        for (int i = 0; i < 3; i++) {
+          ids[size++] = dictionary.encode(DeSerializer.serializeNode(quad[i]), true);
+        }
+      }
+    }
+    dictionary.flush();
+    return Arrays.copyOf(ids, size);
+  }
+
+}
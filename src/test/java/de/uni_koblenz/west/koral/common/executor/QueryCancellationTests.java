@@ -0,0 +1,315 @@
+/**
+ *
+ */
+package de.uni_koblenz.west.koral.common.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageReceiverListener;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSender;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
+import de.uni_koblenz.west.koral.common.measurement.MeasurementCollector;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
+/**
+ * Tests the removal of the tasks and the buffered mappings of an aborted or
+ * cancelled query. The test is located in the package of {@link WorkerThread}
+ * since the neighbours of a {@link WorkerThread} can only be set within it.
+ */
+class QueryCancellationTests {
+
+	private static final int NUMBER_OF_SLAVES = 2;
+
+	private static final int BUNDLE_SIZE = 3;
+
+	/**
+	 * the received messages of each computer
+	 */
+	private List<List<byte[]>> sentMessages;
+
+	private MessageReceiverListener receiver;
+
+	private MessageSenderBuffer messageSender;
+
+	private MappingRecycleCache recycleCache;
+
+	private WorkerThread worker;
+
+	@BeforeEach
+	void setUp() {
+		sentMessages = new ArrayList<>();
+		for (int i = 0; i <= NUMBER_OF_SLAVES; i++) {
+			sentMessages.add(new ArrayList<>());
+		}
+		receiver = new MessageReceiverListener(null);
+		messageSender = new MessageSenderBuffer(NUMBER_OF_SLAVES, BUNDLE_SIZE, new MessageSender() {
+
+			@Override
+			public int getCurrentID() {
+				return 1;
+			}
+
+			@Override
+			public boolean send(int receiver, byte[] array) {
+				sentMessages.get(receiver).add(array);
+				return true;
+			}
+
+			@Override
+			public boolean sendToAllOtherSlaves(byte[] message) {
+				return send(2, message);
+			}
+
+			@Override
+			public boolean sendToAllSlaves(byte[] message) {
+				return send(1, message) && send(2, message);
+			}
+
+		}, receiver, null, null);
+		recycleCache = new MappingRecycleCache(10, NUMBER_OF_SLAVES);
+		worker = new WorkerThread(0, 10, null, 0.1, receiver, messageSender, NUMBER_OF_SLAVES, null,
+				null);
+		worker.setPrevious(worker);
+		worker.setNext(worker);
+	}
+
+	@AfterEach
+	void tearDown() {
+		worker.close();
+	}
+
+	private static long getTaskID(int computer, int query, int task) {
+		return (((long) computer) << 48) | (((long) query) << 16) | task;
+	}
+
+	private static byte[] createQueryMessage(MessageType type, int query) {
+		return ByteBuffer.allocate(Byte.BYTES + Integer.BYTES).put(type.getValue()).putInt(query)
+				.array();
+	}
+
+	private Mapping createMapping(long value) {
+		int headerSize = Byte.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+		byte[] mapping = new byte[headerSize + Long.BYTES + 1];
+		mapping[0] = MessageType.QUERY_MAPPING_BATCH.getValue();
+		NumberConversion.int2bytes(mapping.length, mapping, Byte.BYTES + Long.BYTES + Long.BYTES);
+		NumberConversion.long2bytes(value, mapping, headerSize);
+		mapping[mapping.length - 1] = (byte) 0x80;
+		return recycleCache.createMapping(mapping, 0, mapping.length);
+	}
+
+	/**
+	 * Buffers a mapping with value <code>value</code> that is sent to a task of
+	 * query <code>query</code> on computer 2.
+	 */
+	private void bufferMapping(int query, long value) {
+		messageSender.sendQueryMapping(createMapping(value), getTaskID(1, query, 1),
+				getTaskID(2, query, 1), recycleCache);
+	}
+
+	/**
+	 * @return the values of the mappings sent to computer 2 in the order of
+	 *         sending
+	 */
+	private List<Long> getValuesSentToComputer2() {
+		List<Long> values = new ArrayList<>();
+		for (byte[] message : sentMessages.get(2)) {
+			if (message[0] != MessageType.QUERY_MAPPING_BATCH.getValue()) {
+				continue;
+			}
+			int index = Byte.BYTES + Short.BYTES;
+			while (index < message.length) {
+				int length = NumberConversion.bytes2int(message,
+						index + Byte.BYTES + Long.BYTES + Long.BYTES);
+				Mapping mapping = recycleCache.createMapping(message, index, length);
+				values.add(mapping.getValue(1, new long[] { 1 }));
+				index += length;
+			}
+		}
+		return values;
+	}
+
+	private int countFailureNotices() {
+		int numberOfFailureNotices = 0;
+		for (List<byte[]> messages : sentMessages) {
+			for (byte[] message : messages) {
+				if (message[0] == MessageType.QUERY_TASK_FAILED.getValue()) {
+					numberOfFailureNotices++;
+				}
+			}
+		}
+		return numberOfFailureNotices;
+	}
+
+	private Set<WorkerTask> getTasksOfQuery(int query) {
+		return receiver.getAllTasksOfQuery(createQueryMessage(MessageType.QUERY_START, query), 1);
+	}
+
+	@Test
+	void discardBufferedMappingsTest() {
+		bufferMapping(1, 10);
+		bufferMapping(2, 20);
+		messageSender.discardBufferedMappings(1, recycleCache);
+		bufferMapping(1, 11);
+		// the buffer of computer 2 is full now
+		bufferMapping(2, 21);
+		assertEquals(1, sentMessages.get(2).size());
+		assertEquals(Arrays.asList(20l, 11l, 21l), getValuesSentToComputer2());
+
+		bufferMapping(1, 12);
+		bufferMapping(2, 22);
+		messageSender.discardBufferedMappings(1, recycleCache);
+		messageSender.discardBufferedMappings(3, recycleCache);
+		messageSender.sendAllBufferedMessages(recycleCache);
+		assertEquals(Arrays.asList(20l, 11l, 21l, 22l), getValuesSentToComputer2());
+	}
+
+	@Test
+	void cancelQueryTest() {
+		RecordingTask task1 = new RecordingTask(getTaskID(1, 1, 1));
+		RecordingTask task2 = new RecordingTask(getTaskID(1, 1, 2));
+		RecordingTask otherTask = new RecordingTask(getTaskID(1, 2, 1));
+		worker.addWorkerTask(task1);
+		worker.addWorkerTask(task2);
+		worker.addWorkerTask(otherTask);
+		bufferMapping(1, 10);
+		bufferMapping(2, 20);
+
+		worker.cancelQuery(createQueryMessage(MessageType.QUERY_CANCELLATION, 1));
+		assertTrue(task1.isClosed);
+		assertTrue(task2.isClosed);
+		assertFalse(otherTask.isClosed);
+		assertTrue(getTasksOfQuery(1).isEmpty());
+		assertEquals(Collections.singleton(otherTask), getTasksOfQuery(2));
+		// the buffered mappings of the cancelled query are not sent
+		messageSender.sendAllBufferedMessages(recycleCache);
+		assertEquals(Arrays.asList(20l), getValuesSentToComputer2());
+		assertEquals(0, countFailureNotices());
+	}
+
+	@Test
+	void abortQueryTest() {
+		RecordingTask task = new RecordingTask(getTaskID(1, 1, 1));
+		RecordingTask otherTask = new RecordingTask(getTaskID(1, 2, 1));
+		worker.addWorkerTask(task);
+		worker.addWorkerTask(otherTask);
+		bufferMapping(1, 10);
+		bufferMapping(2, 20);
+
+		worker.abortQuery(createQueryMessage(MessageType.QUERY_ABORTION, 1));
+		assertTrue(task.isClosed);
+		assertFalse(otherTask.isClosed);
+		assertTrue(getTasksOfQuery(1).isEmpty());
+		// the buffered mappings are sent before the tasks are removed
+		assertEquals(Arrays.asList(10l, 20l), getValuesSentToComputer2());
+	}
+
+	/**
+	 * Task without input that records whether it has been closed.
+	 */
+	private static class RecordingTask implements WorkerTask {
+
+		private final long id;
+
+		private volatile boolean isClosed;
+
+		public RecordingTask(long id) {
+			this.id = id;
+		}
+
+		@Override
+		public void setUp(MessageSenderBuffer messageSender, MappingRecycleCache recycleCache,
+				Logger logger, MeasurementCollector measurementCollector) {
+		}
+
+		@Override
+		public long getID() {
+			return id;
+		}
+
+		@Override
+		public long getCoordinatorID() {
+			return 0;
+		}
+
+		@Override
+		public long getEstimatedTaskLoad() {
+			return 0;
+		}
+
+		@Override
+		public long getCurrentTaskLoad() {
+			return 0;
+		}
+
+		@Override
+		public WorkerTask getParentTask() {
+			return null;
+		}
+
+		@Override
+		public Set<WorkerTask> getPrecedingTasks() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public void start() {
+		}
+
+		@Override
+		public boolean hasInput() {
+			return false;
+		}
+
+		@Override
+		public boolean hasToPerformFinalSteps() {
+			return false;
+		}
+
+		@Override
+		public void enqueueMessage(long sender, byte[] message, int firstIndex,
+				int lengthOfMessage) {
+		}
+
+		@Override
+		public void enqueueMapping(long sender, byte[] pooledArray) {
+		}
+
+		@Override
+		public void execute() {
+		}
+
+		@Override
+		public boolean isInFinalState() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+			isClosed = true;
+		}
+
+		@Override
+		public String toString() {
+			return Long.toString(id);
+		}
+
+	}
+
+}
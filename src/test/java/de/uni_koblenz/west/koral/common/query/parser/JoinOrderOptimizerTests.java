@@ -0,0 +1,202 @@
+/**
+ *
+ */
+package de.uni_koblenz.west.koral.common.query.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.TriplePatternType;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorTask;
+import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternMatchOperator;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatisticsDatabase;
+
+/**
+ * The test is located in the package of {@link JoinOrderOptimizer} since the
+ * optimizer is not visible outside of it.
+ */
+class JoinOrderOptimizerTests {
+
+	private Map<Long, Long> propertyFrequencies;
+
+	private GraphStatistics statistics;
+
+	/**
+	 * the textual representation of each leaf and join of the created tree
+	 */
+	private Map<QueryOperatorTask, String> trees;
+
+	/**
+	 * the variables bound by each leaf and join of the created tree
+	 */
+	private Map<QueryOperatorTask, Set<Long>> variables;
+
+	private int numberOfCartesianProducts;
+
+	@BeforeEach
+	void setUp() {
+		propertyFrequencies = new HashMap<>();
+		statistics = new GraphStatistics(new GraphStatisticsDatabase() {
+
+			@Override
+			public void incrementSubjectCount(long subject, int chunk) {
+			}
+
+			@Override
+			public void incrementPropertyCount(long property, int chunk) {
+			}
+
+			@Override
+			public void incrementObjectCount(long object, int chunk) {
+			}
+
+			@Override
+			public void incrementNumberOfTriplesPerChunk(int chunk) {
+			}
+
+			@Override
+			public long[] getChunkSizes() {
+				return new long[1];
+			}
+
+			@Override
+			public long[] getStatisticsForResource(long id) {
+				Long frequency = propertyFrequencies.get(id);
+				return frequency == null ? null : new long[] { 0, frequency, 0, frequency };
+			}
+
+			@Override
+			public void clear() {
+			}
+
+			@Override
+			public void close() {
+			}
+
+		}, (short) 1, null);
+		trees = new IdentityHashMap<>();
+		variables = new IdentityHashMap<>();
+		numberOfCartesianProducts = 0;
+	}
+
+	/**
+	 * Creates the match of the triple pattern (?subject property ?object) whose
+	 * estimated size is <code>frequency</code>.
+	 */
+	private QueryOperatorTask createMatch(long subject, long property, long object,
+			long frequency) {
+		propertyFrequencies.put(property, frequency);
+		TriplePattern pattern = new TriplePattern(TriplePatternType._P_, subject, property, object);
+		TriplePatternMatchOperator match = new TriplePatternMatchOperator(trees.size(), 0, 1, 10,
+				null, pattern, 10, null);
+		trees.put(match, Integer.toString(trees.size()));
+		variables.put(match, new HashSet<>(toList(match.getResultVariables())));
+		return match;
+	}
+
+	private QueryOperatorTask createJoin(QueryOperatorTask left, QueryOperatorTask right) {
+		if (Collections.disjoint(variables.get(left), variables.get(right))) {
+			numberOfCartesianProducts++;
+		}
+		// the join is represented by a dummy operator
+		QueryOperatorTask join = new TriplePatternMatchOperator(-1, 0, 1, 10, null,
+				new TriplePattern(TriplePatternType.___, 0, 0, 0), 10, null);
+		trees.put(join, "(" + trees.get(left) + " " + trees.get(right) + ")");
+		Set<Long> joinVariables = new HashSet<>(variables.get(left));
+		joinVariables.addAll(variables.get(right));
+		variables.put(join, joinVariables);
+		return join;
+	}
+
+	private static List<Long> toList(long[] array) {
+		List<Long> list = new ArrayList<>();
+		for (long value : array) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	private String optimize(List<QueryOperatorTask> matches) {
+		return trees.get(
+				new JoinOrderOptimizer(statistics).createJoinTree(matches, this::createJoin));
+	}
+
+	private static int countLeaves(String tree) {
+		return tree.replaceAll("[()]", "").trim().split(" +").length;
+	}
+
+	@Test
+	void singleTriplePatternTest() {
+		List<QueryOperatorTask> matches = new ArrayList<>();
+		matches.add(createMatch(1, 101, 2, 10));
+		assertEquals("0", optimize(matches));
+	}
+
+	@Test
+	void smallestJoinFirstTest() {
+		// star join on variable 1
+		List<QueryOperatorTask> matches = new ArrayList<>();
+		matches.add(createMatch(1, 101, 2, 1000));
+		matches.add(createMatch(1, 102, 3, 10));
+		matches.add(createMatch(1, 103, 4, 100));
+		assertEquals("((0 1) 2)", optimize(matches));
+	}
+
+	@Test
+	void avoidCartesianProductsTest() {
+		// path ?1 ?2 ?3 ?4 ?5 whose triple patterns are not given in path order
+		List<QueryOperatorTask> matches = new ArrayList<>();
+		matches.add(createMatch(1, 101, 2, 10));
+		matches.add(createMatch(3, 103, 4, 10));
+		matches.add(createMatch(2, 102, 3, 1000));
+		matches.add(createMatch(4, 104, 5, 1000));
+		String tree = optimize(matches);
+		assertEquals(4, countLeaves(tree));
+		assertEquals(0, numberOfCartesianProducts);
+	}
+
+	@Test
+	void disconnectedPatternsTest() {
+		List<QueryOperatorTask> matches = new ArrayList<>();
+		matches.add(createMatch(1, 101, 2, 10));
+		matches.add(createMatch(3, 102, 4, 10));
+		matches.add(createMatch(2, 103, 5, 10));
+		matches.add(createMatch(4, 104, 6, 10));
+		String tree = optimize(matches);
+		assertEquals(4, countLeaves(tree));
+		// only the two connected components are combined by a cartesian product
+		assertEquals(1, numberOfCartesianProducts);
+		assertTrue(tree.equals("((0 2) (1 3))") || tree.equals("((1 3) (0 2))"), tree);
+	}
+
+	@Test
+	void greedyOrderTest() {
+		// a path that is too long for dynamic programming
+		int numberOfTriplePatterns = 2
+				+ JoinOrderOptimizer.MAX_NUMBER_OF_TRIPLE_PATTERNS_FOR_DYNAMIC_PROGRAMMING;
+		List<QueryOperatorTask> matches = new ArrayList<>();
+		for (int i = 0; i < numberOfTriplePatterns; i++) {
+			// every second triple pattern of the path is added first
+			int position = (i * 2) % numberOfTriplePatterns + ((i * 2) / numberOfTriplePatterns);
+			matches.add(createMatch(position, 100 + position, position + 1, 10 + (i * 100)));
+		}
+		String tree = optimize(matches);
+		assertEquals(numberOfTriplePatterns, countLeaves(tree));
+		assertEquals(0, numberOfCartesianProducts);
+	}
+
+}
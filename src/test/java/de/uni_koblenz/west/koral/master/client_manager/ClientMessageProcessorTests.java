@@ -0,0 +1,33 @@
+/**
+ *
+ */
+package de.uni_koblenz.west.koral.master.client_manager;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
+
+/**
+ * Tests that merge joins are only used with a persistent triple store. The
+ * test is located in the package of {@link ClientMessageProcessor} since the
+ * check is package-private.
+ */
+class ClientMessageProcessorTests {
+
+	@Test
+	void mergeJoinsTest() {
+		Configuration conf = new Configuration();
+		assertFalse(ClientMessageProcessor.areMergeJoinsApplicable(conf));
+		conf.setUseMergeJoins(true);
+		assertTrue(ClientMessageProcessor.areMergeJoinsApplicable(conf));
+		conf.setTripleStoreStorageType(MapDBStorageOptions.MEMORY);
+		assertFalse(ClientMessageProcessor.areMergeJoinsApplicable(conf));
+		conf.setTripleStoreStorageType(MapDBStorageOptions.RANDOM_ACCESS_FILE);
+		assertTrue(ClientMessageProcessor.areMergeJoinsApplicable(conf));
+	}
+
+}
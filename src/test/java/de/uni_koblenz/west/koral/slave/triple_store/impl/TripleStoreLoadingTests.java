@@ -0,0 +1,249 @@
+/**
+ *
+ */
+package de.uni_koblenz.west.koral.slave.triple_store.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.Statement;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
+/**
+ * Tests that {@link TripleStore#storeTriples(Iterable, File)} fills all indices
+ * and fails instead of blocking if an index cannot be built. The test is
+ * located in the package of {@link TripleStore} since the indices can only be
+ * injected within it.
+ */
+class TripleStoreLoadingTests {
+
+	/**
+	 * more triples than fit into the queue of a builder
+	 */
+	private static final int MANY_TRIPLES = 300_000;
+
+	private static final long TIMEOUT_IN_MILLIS = 60_000;
+
+	private File tmpDir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("tripleStoreLoadingTests").toFile();
+	}
+
+	@AfterEach
+	void tearDown() {
+		delete(tmpDir);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static Iterable<Statement> createStatements(int numberOfStatements) {
+		return () -> new Iterator<Statement>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < numberOfStatements;
+			}
+
+			@Override
+			public Statement next() {
+				long subject = 3 * next++;
+				return Statement.getStatement(EncodingFileFormat.EEE,
+						NumberConversion.long2bytes(subject),
+						NumberConversion.long2bytes(subject + 1),
+						NumberConversion.long2bytes(subject + 2), new byte[] { (byte) 0x80 });
+			}
+
+		};
+	}
+
+	/**
+	 * @return the exception thrown by
+	 *         {@link TripleStore#storeTriples(Iterable, File)} or
+	 *         <code>null</code>
+	 */
+	private Throwable storeTriples(TripleStore tripleStore, int numberOfStatements)
+			throws InterruptedException {
+		AtomicReference<Throwable> exception = new AtomicReference<>();
+		Thread loader = new Thread(() -> {
+			try {
+				tripleStore.storeTriples(createStatements(numberOfStatements), tmpDir);
+			} catch (Throwable e) {
+				exception.set(e);
+			}
+		});
+		loader.start();
+		loader.join(TIMEOUT_IN_MILLIS);
+		assertFalse(loader.isAlive(), "storing the triples blocks");
+		return exception.get();
+	}
+
+	private static Throwable getBuilderException(Throwable exception) {
+		assertTrue(exception instanceof RuntimeException);
+		assertTrue(exception.getCause() instanceof ExecutionException);
+		return exception.getCause().getCause();
+	}
+
+	@Test
+	void storeTriplesTest() throws InterruptedException {
+		RecordingMultiMap spo = new RecordingMultiMap();
+		RecordingMultiMap osp = new RecordingMultiMap();
+		RecordingMultiMap pos = new RecordingMultiMap();
+		assertEquals(null, storeTriples(new TripleStore(spo, osp, pos, false), 25_000));
+		for (RecordingMultiMap index : new RecordingMultiMap[] { spo, osp, pos }) {
+			assertEquals(25_000, index.contents.size());
+			assertTrue(index.isFlushed);
+		}
+		// the triple 3 4 5
+		assertEquals(3, NumberConversion.bytes2long(spo.contents.get(1), 0));
+		assertEquals(5, NumberConversion.bytes2long(osp.contents.get(1), 0));
+		assertEquals(3, NumberConversion.bytes2long(osp.contents.get(1), Long.BYTES));
+		assertEquals(4, NumberConversion.bytes2long(pos.contents.get(1), 0));
+		assertEquals(5, NumberConversion.bytes2long(pos.contents.get(1), Long.BYTES));
+	}
+
+	@Test
+	void failingPutTest() throws InterruptedException {
+		RecordingMultiMap osp = new RecordingMultiMap();
+		osp.putFailure = new IllegalStateException("put failed");
+		Throwable exception = storeTriples(
+				new TripleStore(new RecordingMultiMap(), osp, new RecordingMultiMap(), false),
+				MANY_TRIPLES);
+		assertSame(osp.putFailure, getBuilderException(exception));
+	}
+
+	@Test
+	void terminatedBuilderTest() throws InterruptedException {
+		// errors terminate the builder immediately
+		RecordingMultiMap pos = new RecordingMultiMap();
+		pos.putFailure = new AssertionError("put failed");
+		Throwable exception = storeTriples(
+				new TripleStore(new RecordingMultiMap(), new RecordingMultiMap(), pos, false),
+				MANY_TRIPLES);
+		assertSame(pos.putFailure, getBuilderException(exception));
+		assertTrue(pos.contents.isEmpty());
+	}
+
+	@Test
+	void failingBulkLoadTest() throws InterruptedException {
+		RecordingMultiMap spo = new RecordingMultiMap();
+		spo.putFailure = new IllegalStateException("bulk load failed");
+		Throwable exception = storeTriples(
+				new TripleStore(spo, new RecordingMultiMap(), new RecordingMultiMap(), true),
+				25_000);
+		assertSame(spo.putFailure, getBuilderException(exception));
+	}
+
+	/**
+	 * Records the added contents in memory. If {@link #putFailure} is set, it is
+	 * thrown by each attempt to add contents.
+	 */
+	private static class RecordingMultiMap implements MultiMap {
+
+		private final List<byte[]> contents = new ArrayList<>();
+
+		private Throwable putFailure;
+
+		private boolean isFlushed;
+
+		private void throwPutFailure() {
+			if (putFailure instanceof RuntimeException) {
+				throw (RuntimeException) putFailure;
+			} else if (putFailure instanceof Error) {
+				throw (Error) putFailure;
+			}
+		}
+
+		@Override
+		public int size() {
+			return contents.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return contents.isEmpty();
+		}
+
+		@Override
+		public boolean containsKey(byte[] prefix) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Iterable<byte[]> get(byte[] prefix) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void put(byte[] content) {
+			throwPutFailure();
+			contents.add(content);
+		}
+
+		@Override
+		public void putAllSorted(Iterator<byte[]> sortedContents) {
+			throwPutFailure();
+			while (sortedContents.hasNext()) {
+				contents.add(sortedContents.next());
+			}
+		}
+
+		@Override
+		public void removeAll(byte[] prefix) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void remove(byte[] content) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Iterator<byte[]> iterator() {
+			return contents.iterator();
+		}
+
+		@Override
+		public void flush() {
+			isFlushed = true;
+		}
+
+		@Override
+		public void clear() {
+			contents.clear();
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
@@ -0,0 +1,246 @@
+/**
+ *
+ */
+package de.uni_koblenz.west.koral.slave.triple_store.loader.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+
+/**
+ * Tests that {@link GraphChunkBlockInputStream} returns the payloads of the
+ * blocks in the order of their reception, independent of whether they were
+ * queued in memory or spooled. The test is located in the package of
+ * {@link GraphChunkBlockInputStream} since the class is package-private.
+ */
+class GraphChunkBlockInputStreamTests {
+
+	private File tmpDir;
+
+	private File spoolFile;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("graphChunkBlockInputStreamTests").toFile();
+		spoolFile = new File(tmpDir, "spool");
+	}
+
+	@AfterEach
+	void tearDown() {
+		File[] files = tmpDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		tmpDir.delete();
+	}
+
+	private static byte[] createBlock(byte[] payload) {
+		byte[] message = new byte[Byte.BYTES + payload.length];
+		message[0] = MessageType.GRAPH_CHUNK_BLOCK.getValue();
+		System.arraycopy(payload, 0, message, Byte.BYTES, payload.length);
+		return message;
+	}
+
+	/**
+	 * @return a payload of 1 to 100 bytes whose bytes all have the value
+	 *         <code>blockNumber</code>
+	 */
+	private static byte[] createPayload(int blockNumber, Random random) {
+		byte[] payload = new byte[1 + random.nextInt(100)];
+		for (int i = 0; i < payload.length; i++) {
+			payload[i] = (byte) blockNumber;
+		}
+		return payload;
+	}
+
+	private static byte[] readAll(GraphChunkBlockInputStream input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[37];
+		for (int length = input.read(buffer); length != -1; length = input.read(buffer)) {
+			output.write(buffer, 0, length);
+		}
+		return output.toByteArray();
+	}
+
+	@Test
+	void queuedBlocksTest() throws IOException {
+		try (GraphChunkBlockInputStream input = new GraphChunkBlockInputStream(4, spoolFile);) {
+			input.addBlock(createBlock(new byte[] { 1, 2 }));
+			input.addBlock(createBlock(new byte[] {}));
+			input.addBlock(createBlock(new byte[] { 3 }));
+			input.finish();
+			assertFalse(spoolFile.exists());
+			assertEquals(1, input.read());
+			assertArrayEquals(new byte[] { 2, 3 }, readAll(input));
+			assertEquals(-1, input.read());
+		}
+	}
+
+	@Test
+	void spooledBlocksTest() throws IOException {
+		try (GraphChunkBlockInputStream input = new GraphChunkBlockInputStream(2, spoolFile);) {
+			for (byte i = 0; i < 5; i++) {
+				input.addBlock(createBlock(new byte[] { i, i }));
+			}
+			assertTrue(spoolFile.exists());
+			byte[] buffer = new byte[6];
+			assertEquals(2, input.read(buffer, 0, 6));
+			assertEquals(2, input.read(buffer, 2, 4));
+			assertEquals(2, input.read(buffer, 4, 2));
+			assertArrayEquals(new byte[] { 0, 0, 1, 1, 2, 2 }, buffer);
+			// the spooled blocks remain in the spool file until the reader has
+			// caught up
+			input.addBlock(createBlock(new byte[] { 5 }));
+			input.finish();
+			assertArrayEquals(new byte[] { 3, 3, 4, 4, 5 }, readAll(input));
+			assertFalse(spoolFile.exists());
+		}
+	}
+
+	@Test
+	void queueAfterCatchingUpTest() throws IOException {
+		try (GraphChunkBlockInputStream input = new GraphChunkBlockInputStream(1, spoolFile);) {
+			input.addBlock(createBlock(new byte[] { 1 }));
+			input.addBlock(createBlock(new byte[] { 2 }));
+			assertTrue(spoolFile.exists());
+			assertEquals(1, input.read());
+			assertEquals(2, input.read());
+			assertFalse(spoolFile.exists());
+			input.addBlock(createBlock(new byte[] { 3 }));
+			input.finish();
+			// the end of the stream is spooled behind the queued block
+			assertTrue(spoolFile.exists());
+			assertArrayEquals(new byte[] { 3 }, readAll(input));
+			assertFalse(spoolFile.exists());
+		}
+	}
+
+	@Test
+	void interleavedProducerTest() throws Exception {
+		int numberOfBlocks = 2000;
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		Random random = new Random(42);
+		byte[][] payloads = new byte[numberOfBlocks][];
+		for (int i = 0; i < numberOfBlocks; i++) {
+			payloads[i] = createPayload(i, random);
+			expected.write(payloads[i]);
+		}
+		try (GraphChunkBlockInputStream input = new GraphChunkBlockInputStream(8, spoolFile);) {
+			Thread producer = new Thread(() -> {
+				Random delays = new Random(7);
+				for (int i = 0; i < numberOfBlocks; i++) {
+					input.addBlock(createBlock(payloads[i]));
+					if (delays.nextInt(50) == 0) {
+						// let the consumer catch up sometimes
+						sleep(2);
+					}
+				}
+				input.finish();
+			});
+			producer.start();
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			Random delays = new Random(13);
+			byte[] buffer = new byte[64];
+			for (int length = input.read(buffer); length != -1; length = input.read(buffer)) {
+				actual.write(buffer, 0, length);
+				if (delays.nextInt(100) == 0) {
+					// let the producer overtake the consumer sometimes
+					sleep(5);
+				}
+			}
+			producer.join();
+			assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+			assertEquals(-1, input.read());
+			assertEquals(-1, input.read(buffer));
+			assertFalse(spoolFile.exists());
+		}
+	}
+
+	@Test
+	void closeWakesReaderTest() throws Exception {
+		GraphChunkBlockInputStream input = new GraphChunkBlockInputStream(2, spoolFile);
+		input.addBlock(createBlock(new byte[] { 1 }));
+		AtomicReference<Exception> readerException = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			try {
+				readAll(input);
+			} catch (IOException e) {
+				readerException.set(e);
+			}
+		});
+		reader.start();
+		reader.join(100);
+		// the reader waits for further blocks
+		assertTrue(reader.isAlive());
+		input.close();
+		reader.join();
+		assertTrue(readerException.get() instanceof IOException);
+	}
+
+	@Test
+	void closeDiscardsSpooledBlocksTest() throws IOException {
+		GraphChunkBlockInputStream input = new GraphChunkBlockInputStream(1, spoolFile);
+		input.addBlock(createBlock(new byte[] { 1 }));
+		input.addBlock(createBlock(new byte[] { 2 }));
+		assertTrue(spoolFile.exists());
+		assertEquals(1, input.read());
+		input.close();
+		assertFalse(spoolFile.exists());
+		// blocks received after closing are ignored
+		input.addBlock(createBlock(new byte[] { 3 }));
+		assertFalse(spoolFile.exists());
+		assertThrows(IOException.class, () -> input.read());
+	}
+
+	@Test
+	void closeWhileReadingSpoolFileTest() throws Exception {
+		for (int run = 0; run < 20; run++) {
+			GraphChunkBlockInputStream input = new GraphChunkBlockInputStream(1, spoolFile);
+			for (int i = 0; i < 20000; i++) {
+				input.addBlock(createBlock(new byte[10]));
+			}
+			AtomicReference<Throwable> readerException = new AtomicReference<>();
+			Thread reader = new Thread(() -> {
+				try {
+					readAll(input);
+				} catch (Throwable e) {
+					readerException.set(e);
+				}
+			});
+			reader.start();
+			// close the stream while the reader is reading spooled blocks
+			sleep(1 + (run % 5));
+			input.close();
+			reader.join();
+			assertTrue(readerException.get() instanceof IOException,
+					"unexpected exception " + readerException.get());
+			assertFalse(spoolFile.exists());
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,233 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationFunction;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationState;
+
+class AggregationStateTests {
+
+	private static Node integer(long value) {
+		return NodeFactory.createLiteral(Long.toString(value), XSDDatatype.XSDinteger);
+	}
+
+	private static Node integer(BigInteger value) {
+		return NodeFactory.createLiteral(value.toString(), XSDDatatype.XSDinteger);
+	}
+
+	private static Node decimal(String value) {
+		return NodeFactory.createLiteral(value, XSDDatatype.XSDdecimal);
+	}
+
+	/**
+	 * Transfers the partial state of <code>partialState</code> into
+	 * <code>state</code> like the query coordinator does.
+	 */
+	private static void merge(AggregationState state, AggregationState partialState,
+			AggregationFunction[] functions, Node[] decodedExtremes) {
+		long[] values = new long[AggregationState.getNumberOfStateValues(functions) + 2];
+		partialState.writeStateValues(values, 2);
+		state.merge(values, 2, decodedExtremes);
+	}
+
+	private static NodeValue result(AggregationState state, int aggregate) {
+		Node result = state.getResult(aggregate);
+		return result == null ? null : NodeValue.makeNode(result);
+	}
+
+	@Test
+	void numberOfStateValuesTest() {
+		assertEquals(15, AggregationState.getNumberOfStateValues(new AggregationFunction[] {
+				AggregationFunction.COUNT, AggregationFunction.SUM, AggregationFunction.MIN,
+				AggregationFunction.AVG, AggregationFunction.MAX }));
+	}
+
+	@Test
+	void countMergeTest() {
+		AggregationFunction[] functions = { AggregationFunction.COUNT };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		state1.aggregate(0, 1, null);
+		state1.aggregate(0, 2, null);
+		state2.aggregate(0, 3, null);
+		merge(state1, state2, functions, new Node[1]);
+		assertEquals(3, result(state1, 0).getInteger().longValue());
+	}
+
+	@Test
+	void countWithoutValuesTest() {
+		AggregationState state = new AggregationState(
+				new AggregationFunction[] { AggregationFunction.COUNT });
+		assertEquals(0, result(state, 0).getInteger().longValue());
+	}
+
+	@Test
+	void integerSumAndAverageTest() {
+		AggregationFunction[] functions = { AggregationFunction.SUM, AggregationFunction.AVG };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		for (long value = 1; value <= 3; value++) {
+			state1.aggregate(0, value, integer(value));
+			state1.aggregate(1, value, integer(value));
+		}
+		state2.aggregate(0, 6, integer(6));
+		state2.aggregate(1, 6, integer(6));
+		merge(state1, state2, functions, new Node[2]);
+		NodeValue sum = result(state1, 0);
+		assertEquals(true, sum.isInteger());
+		assertEquals(12, sum.getInteger().longValue());
+		assertEquals(0, new BigDecimal(3).compareTo(result(state1, 1).getDecimal()));
+	}
+
+	@Test
+	void mixedSumTest() {
+		AggregationFunction[] functions = { AggregationFunction.SUM };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		state1.aggregate(0, 1, integer(2));
+		state2.aggregate(0, 2, decimal("0.5"));
+		merge(state1, state2, functions, new Node[1]);
+		NodeValue sum = result(state1, 0);
+		assertEquals(true, sum.isDecimal());
+		assertEquals(0, new BigDecimal("2.5").compareTo(sum.getDecimal()));
+	}
+
+	@Test
+	void exactDecimalSumTest() {
+		AggregationFunction[] functions = { AggregationFunction.SUM, AggregationFunction.AVG };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		for (int i = 0; i < 10; i++) {
+			AggregationState state = (i % 2) == 0 ? state1 : state2;
+			state.aggregate(0, i, decimal("0.1"));
+			state.aggregate(1, i, decimal("0.1"));
+		}
+		state2.aggregate(0, 10, decimal("-0.000000000000000000001"));
+		merge(state1, state2, functions, new Node[2]);
+		// summing up doubles would result in 0.9999999999999999
+		assertEquals(0, new BigDecimal("0.999999999999999999999")
+				.compareTo(result(state1, 0).getDecimal()));
+		assertEquals(0, new BigDecimal("0.1").compareTo(result(state1, 1).getDecimal()));
+	}
+
+	@Test
+	void largeIntegerSumTest() {
+		AggregationFunction[] functions = { AggregationFunction.SUM };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		BigInteger large = BigInteger.ONE.shiftLeft(70);
+		state1.aggregate(0, 1, integer(large));
+		state1.aggregate(0, 2, integer(Long.MAX_VALUE));
+		state2.aggregate(0, 3, integer(large.negate().shiftLeft(1)));
+		state2.aggregate(0, 4, integer(Long.MAX_VALUE));
+		merge(state1, state2, functions, new Node[1]);
+		NodeValue sum = result(state1, 0);
+		assertEquals(true, sum.isInteger());
+		assertEquals(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1).subtract(large),
+				sum.getInteger());
+	}
+
+	@Test
+	void exceededPartialSumTest() {
+		AggregationFunction[] functions = { AggregationFunction.SUM };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		BigInteger tooLarge = BigInteger.ONE.shiftLeft(127);
+		state2.aggregate(0, 1, integer(tooLarge));
+		// the local sum is exact
+		assertEquals(tooLarge, result(state2, 0).getInteger());
+		// but it cannot be transferred
+		state1.aggregate(0, 2, integer(1));
+		merge(state1, state2, functions, new Node[1]);
+		assertNull(state1.getResult(0));
+	}
+
+	@Test
+	void doubleSumTest() {
+		AggregationFunction[] functions = { AggregationFunction.SUM };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		state1.aggregate(0, 1, decimal("1.5"));
+		state2.aggregate(0, 2, NodeFactory.createLiteral("0.25", XSDDatatype.XSDdouble));
+		merge(state1, state2, functions, new Node[1]);
+		NodeValue sum = result(state1, 0);
+		assertEquals(true, sum.isDouble());
+		assertEquals(1.75, sum.getDouble(), 0);
+	}
+
+	@Test
+	void sumOfUnknownValueTest() {
+		AggregationFunction[] functions = { AggregationFunction.SUM };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		state1.aggregate(0, 1, integer(2));
+		state2.aggregate(0, 2, null);
+		merge(state1, state2, functions, new Node[1]);
+		assertNull(state1.getResult(0));
+	}
+
+	@Test
+	void sumOfNonNumericValueTest() {
+		AggregationState state = new AggregationState(
+				new AggregationFunction[] { AggregationFunction.SUM });
+		state.aggregate(0, 1, NodeFactory.createURI("http://example.org/a"));
+		assertNull(state.getResult(0));
+	}
+
+	@Test
+	void averageWithoutValuesTest() {
+		AggregationState state = new AggregationState(
+				new AggregationFunction[] { AggregationFunction.AVG });
+		assertEquals(0, result(state, 0).getInteger().longValue());
+	}
+
+	@Test
+	void minMaxMergeTest() {
+		AggregationFunction[] functions = { AggregationFunction.MIN, AggregationFunction.MAX };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		state1.aggregate(0, 10, integer(5));
+		state1.aggregate(1, 10, integer(5));
+		state1.aggregate(0, 11, integer(7));
+		state1.aggregate(1, 11, integer(7));
+		state2.aggregate(0, 12, integer(3));
+		state2.aggregate(1, 12, integer(3));
+		state2.aggregate(0, 13, integer(9));
+		state2.aggregate(1, 13, integer(9));
+
+		long[] values = new long[AggregationState.getNumberOfStateValues(functions)];
+		state2.writeStateValues(values, 0);
+		assertEquals(12, values[0]);
+		assertEquals(13, values[1]);
+
+		state1.merge(values, 0, new Node[] { integer(3), integer(9) });
+		assertEquals(3, result(state1, 0).getInteger().longValue());
+		assertEquals(9, result(state1, 1).getInteger().longValue());
+		state1.writeStateValues(values, 0);
+		assertEquals(12, values[0]);
+		assertEquals(13, values[1]);
+	}
+
+	@Test
+	void minWithoutValuesTest() {
+		AggregationFunction[] functions = { AggregationFunction.MIN };
+		AggregationState state1 = new AggregationState(functions);
+		AggregationState state2 = new AggregationState(functions);
+		merge(state1, state2, functions, new Node[1]);
+		assertNull(state1.getResult(0));
+	}
+
+}
@@ -0,0 +1,143 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.master.statisticsDB.CharacteristicSetStatistics;
+
+class CharacteristicSetStatisticsTests {
+
+	private static final long P1 = 10;
+
+	private static final long P2 = 20;
+
+	private static final long P3 = 30;
+
+	private File statisticsDir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		statisticsDir = Files.createTempDirectory("characteristicSetStatisticsTests").toFile();
+	}
+
+	@AfterEach
+	void tearDown() {
+		delete(statisticsDir);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * Counts the graph<br>
+	 * 1 P1 100, 1 P1 101, 1 P2 102,<br>
+	 * 2 P1 100, 2 P3 1,<br>
+	 * 3 P2 1<br>
+	 * with a duplicate of 1 P1 100.
+	 */
+	private CharacteristicSetStatistics createStatistics() {
+		CharacteristicSetStatistics statistics = new CharacteristicSetStatistics(statisticsDir);
+		statistics.count(1, P1, 100);
+		statistics.count(2, P3, 1);
+		statistics.count(1, P1, 101);
+		statistics.count(3, P2, 1);
+		statistics.count(1, P2, 102);
+		statistics.count(2, P1, 100);
+		statistics.count(1, P1, 100);
+		statistics.finish();
+		return statistics;
+	}
+
+	@Test
+	void characteristicSetsTest() {
+		CharacteristicSetStatistics statistics = createStatistics();
+		assertFalse(statistics.isEmpty());
+		assertEquals(2, statistics.getNumberOfSubjects(P1));
+		assertEquals(2, statistics.getNumberOfSubjects(P2));
+		assertEquals(1, statistics.getNumberOfSubjects(P1, P2));
+		assertEquals(0, statistics.getNumberOfSubjects(P2, P3));
+		// subject 1 has two P1 statements
+		assertEquals(5, statistics.estimateSubjectStarSize(P1, P1), 0.0001);
+		assertEquals(2, statistics.estimateSubjectStarSize(P1, P2), 0.0001);
+		assertEquals(0, statistics.estimateSubjectStarSize(P2, P3), 0.0001);
+	}
+
+	@Test
+	void joinSizesTest() {
+		assertJoinSizes(createStatistics());
+	}
+
+	private static void assertJoinSizes(CharacteristicSetStatistics statistics) {
+		// ?x p1 ?y. ?x p2 ?z
+		assertEquals(5, statistics.getSubjectSubjectJoinSize(P1, P1));
+		assertEquals(2, statistics.getSubjectSubjectJoinSize(P1, P2));
+		assertEquals(2, statistics.getSubjectSubjectJoinSize(P2, P1));
+		assertEquals(2, statistics.getSubjectSubjectJoinSize(P2, P2));
+		assertEquals(1, statistics.getSubjectSubjectJoinSize(P1, P3));
+		assertEquals(0, statistics.getSubjectSubjectJoinSize(P2, P3));
+		// ?y p1 ?x. ?z p2 ?x
+		assertEquals(5, statistics.getObjectObjectJoinSize(P1, P1));
+		assertEquals(2, statistics.getObjectObjectJoinSize(P2, P2));
+		assertEquals(1, statistics.getObjectObjectJoinSize(P3, P2));
+		assertEquals(0, statistics.getObjectObjectJoinSize(P1, P2));
+		// ?x p1 ?y. ?z p2 ?x
+		assertEquals(2, statistics.getSubjectObjectJoinSize(P1, P3));
+		assertEquals(2, statistics.getSubjectObjectJoinSize(P1, P2));
+		assertEquals(1, statistics.getSubjectObjectJoinSize(P2, P3));
+		assertEquals(1, statistics.getSubjectObjectJoinSize(P2, P2));
+		assertEquals(0, statistics.getSubjectObjectJoinSize(P3, P1));
+	}
+
+	@Test
+	void persistenceTest() {
+		createStatistics();
+		CharacteristicSetStatistics statistics = new CharacteristicSetStatistics(statisticsDir);
+		assertJoinSizes(statistics);
+		assertEquals(1, statistics.getNumberOfSubjects(P1, P2));
+		// the sorted runs have been deleted
+		assertFalse(new File(statisticsDir, "characteristicSetRuns").exists()
+				&& (new File(statisticsDir, "characteristicSetRuns").list().length > 0));
+	}
+
+	@Test
+	void appendTest() {
+		CharacteristicSetStatistics statistics = createStatistics();
+		statistics.count(4, P1, 103);
+		statistics.count(4, P2, 104);
+		statistics.finish();
+		assertEquals(3, statistics.getNumberOfSubjects(P1));
+		assertEquals(2, statistics.getNumberOfSubjects(P1, P2));
+		assertEquals(6, statistics.getSubjectSubjectJoinSize(P1, P1));
+		assertEquals(3, statistics.getSubjectSubjectJoinSize(P1, P2));
+		assertEquals(6, statistics.getObjectObjectJoinSize(P1, P1));
+	}
+
+	@Test
+	void clearTest() {
+		CharacteristicSetStatistics statistics = createStatistics();
+		statistics.clear();
+		assertTrue(statistics.isEmpty());
+		assertEquals(0, statistics.getSubjectSubjectJoinSize(P1, P1));
+		assertTrue(new CharacteristicSetStatistics(statisticsDir).isEmpty());
+	}
+
+}
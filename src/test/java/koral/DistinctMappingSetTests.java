@@ -0,0 +1,112 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.utils.DistinctMappingSet;
+
+class DistinctMappingSetTests {
+
+	private static final long[] VARS = { 1, 2 };
+
+	private File tmpDir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("distinctMappingSetTests").toFile();
+	}
+
+	@AfterEach
+	void tearDown() {
+		File[] files = tmpDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		tmpDir.delete();
+	}
+
+	private DistinctMappingSet createSet(MapDBStorageOptions storageType) {
+		return new DistinctMappingSet(storageType, false, false, MapDBCacheOptions.HASH_TABLE,
+				tmpDir, "distinct");
+	}
+
+	private static void addDuplicates(DistinctMappingSet set) {
+		MappingBatch batch = new MappingBatch(VARS, 2, 4);
+		batch.addRow(new long[] { 1, 2 }, 1);
+		batch.addRow(new long[] { 2, 1 }, 1);
+		// the containment is ignored
+		batch.addRow(new long[] { 1, 2 }, 2);
+		batch.addRow(new long[] { 1, 3 }, 1);
+		assertTrue(set.isEmpty());
+		assertTrue(set.add(batch, 0));
+		assertTrue(set.add(batch, 1));
+		assertFalse(set.add(batch, 2));
+		assertTrue(set.add(batch, 3));
+		assertFalse(set.add(batch, 0));
+		assertEquals(3, set.size());
+	}
+
+	@Test
+	void inMemoryTest() {
+		try (DistinctMappingSet set = createSet(MapDBStorageOptions.MEMORY);) {
+			addDuplicates(set);
+		}
+	}
+
+	@Test
+	void persistentTest() {
+		try (DistinctMappingSet set = createSet(MapDBStorageOptions.RANDOM_ACCESS_FILE);) {
+			addDuplicates(set);
+		}
+		// the swapped out set is deleted on closing
+		assertFalse(new File(tmpDir, "distinct").exists());
+	}
+
+	@Test
+	void manyMappingsTest() {
+		int numberOfMappings = 50_000;
+		MappingBatch batch = new MappingBatch(VARS, 1, numberOfMappings);
+		for (long i = 0; i < numberOfMappings; i++) {
+			batch.addRow(new long[] { i % 10_000, (i / 10_000) % 2 }, 1);
+		}
+		try (DistinctMappingSet set = createSet(MapDBStorageOptions.RANDOM_ACCESS_FILE);) {
+			int numberOfNewMappings = 0;
+			for (int row = 0; row < numberOfMappings; row++) {
+				if (set.add(batch, row)) {
+					numberOfNewMappings++;
+				}
+			}
+			assertEquals(numberOfNewMappings, set.size());
+			// each of the 10000 values is combined with 0 and 1, respectively
+			assertEquals(20_000, set.size());
+		}
+	}
+
+	@Test
+	void addAfterCloseTest() {
+		DistinctMappingSet set = createSet(MapDBStorageOptions.RANDOM_ACCESS_FILE);
+		set.close();
+		MappingBatch batch = new MappingBatch(VARS, 1, 1);
+		batch.addRow(new long[] { 1, 2 }, 1);
+		assertThrows(RuntimeException.class, () -> set.add(batch, 0));
+	}
+
+}
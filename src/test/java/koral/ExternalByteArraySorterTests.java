@@ -0,0 +1,166 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.utils.ExternalByteArraySorter;
+import de.uni_koblenz.west.koral.common.utils.SortedRunMerger;
+
+/**
+ * Tests {@link SortedRunMerger} and {@link ExternalByteArraySorter}.
+ */
+class ExternalByteArraySorterTests {
+
+	private File tmpDir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("sorterTests").toFile();
+	}
+
+	@AfterEach
+	void tearDown() {
+		File[] files = tmpDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		tmpDir.delete();
+	}
+
+	private static List<byte[]> toList(Iterator<byte[]> iterator) {
+		List<byte[]> result = new ArrayList<>();
+		while (iterator.hasNext()) {
+			result.add(iterator.next());
+		}
+		return result;
+	}
+
+	@Test
+	void unsignedOrderTest() {
+		assertTrue(SortedRunMerger.UNSIGNED_LEXICOGRAPHICAL_ORDER.compare(new byte[] { 0x7f },
+				new byte[] { (byte) 0x80 }) < 0);
+		assertTrue(SortedRunMerger.UNSIGNED_LEXICOGRAPHICAL_ORDER.compare(new byte[] { (byte) 0xff },
+				new byte[] { 0 }) > 0);
+	}
+
+	@Test
+	void prefixOrderTest() {
+		assertTrue(SortedRunMerger.UNSIGNED_LEXICOGRAPHICAL_ORDER.compare(new byte[] { 1 },
+				new byte[] { 1, 0 }) < 0);
+		assertEquals(0, SortedRunMerger.UNSIGNED_LEXICOGRAPHICAL_ORDER.compare(new byte[] { 1, 2 },
+				new byte[] { 1, 2 }));
+	}
+
+	@Test
+	void writeRunRemovesDuplicatesTest() throws IOException {
+		byte[][] arrays = { { 3 }, { 1 }, { 3 }, { (byte) 0x90 }, { 1 }, { 2 } };
+		File run = SortedRunMerger.writeRun(arrays, arrays.length, tmpDir);
+		try (SortedRunMerger merger = new SortedRunMerger(Arrays.asList(run));) {
+			List<byte[]> merged = toList(merger);
+			assertEquals(4, merged.size());
+			assertArrayEquals(new byte[] { 1 }, merged.get(0));
+			assertArrayEquals(new byte[] { 2 }, merged.get(1));
+			assertArrayEquals(new byte[] { 3 }, merged.get(2));
+			assertArrayEquals(new byte[] { (byte) 0x90 }, merged.get(3));
+		}
+	}
+
+	@Test
+	void mergeRemovesDuplicatesAcrossRunsTest() throws IOException {
+		byte[][] run1 = { { 1 }, { 3 }, { 5 } };
+		byte[][] run2 = { { 2 }, { 3 }, { (byte) 0xff } };
+		byte[][] run3 = { { 3 }, { 5 } };
+		List<File> runs = Arrays.asList(SortedRunMerger.writeRun(run1, run1.length, tmpDir),
+				SortedRunMerger.writeRun(run2, run2.length, tmpDir),
+				SortedRunMerger.writeRun(run3, run3.length, tmpDir));
+		try (SortedRunMerger merger = new SortedRunMerger(runs);) {
+			List<byte[]> merged = toList(merger);
+			assertEquals(5, merged.size());
+			assertArrayEquals(new byte[] { 1 }, merged.get(0));
+			assertArrayEquals(new byte[] { 2 }, merged.get(1));
+			assertArrayEquals(new byte[] { 3 }, merged.get(2));
+			assertArrayEquals(new byte[] { 5 }, merged.get(3));
+			assertArrayEquals(new byte[] { (byte) 0xff }, merged.get(4));
+			assertFalse(merger.hasNext());
+			assertThrows(NoSuchElementException.class, () -> merger.next());
+		}
+	}
+
+	@Test
+	void mergeRunsDeletesInputsTest() throws IOException {
+		byte[][] run1 = { { 1 }, { 2 } };
+		byte[][] run2 = { { 2 }, { 4 } };
+		List<File> runs = Arrays.asList(SortedRunMerger.writeRun(run1, run1.length, tmpDir),
+				SortedRunMerger.writeRun(run2, run2.length, tmpDir));
+		File merged = SortedRunMerger.mergeRuns(runs, tmpDir);
+		for (File run : runs) {
+			assertFalse(run.exists());
+		}
+		try (SortedRunMerger merger = new SortedRunMerger(Arrays.asList(merged));) {
+			assertEquals(3, toList(merger).size());
+		}
+	}
+
+	@Test
+	void emptySorterTest() {
+		try (ExternalByteArraySorter sorter = new ExternalByteArraySorter(tmpDir, 10);) {
+			assertFalse(sorter.getSortedArrays().hasNext());
+		}
+	}
+
+	@Test
+	void addAfterSortingTest() {
+		try (ExternalByteArraySorter sorter = new ExternalByteArraySorter(tmpDir, 10);) {
+			sorter.add(new byte[] { 1 });
+			sorter.getSortedArrays();
+			assertThrows(IllegalStateException.class, () -> sorter.add(new byte[] { 2 }));
+			assertThrows(IllegalStateException.class, () -> sorter.getSortedArrays());
+		}
+	}
+
+	@Test
+	void sortManyRunsTest() {
+		// more than 64 runs are merged in several passes
+		Random random = new Random(42);
+		TreeSet<byte[]> expected = new TreeSet<>(SortedRunMerger.UNSIGNED_LEXICOGRAPHICAL_ORDER);
+		try (ExternalByteArraySorter sorter = new ExternalByteArraySorter(tmpDir, 50);) {
+			for (int i = 0; i < 10_000; i++) {
+				byte[] array = new byte[1 + random.nextInt(3)];
+				random.nextBytes(array);
+				expected.add(array);
+				sorter.add(array);
+			}
+			List<byte[]> sorted = toList(sorter.getSortedArrays());
+			assertEquals(expected.size(), sorted.size());
+			Iterator<byte[]> expectedIterator = expected.iterator();
+			for (byte[] array : sorted) {
+				assertArrayEquals(expectedIterator.next(), array);
+			}
+		}
+		assertFalse(tmpDir.exists());
+	}
+
+}
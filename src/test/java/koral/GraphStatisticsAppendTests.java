@@ -0,0 +1,164 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatisticsDatabase;
+
+/**
+ * Tests that appending a graph does not change the owners of the resources
+ * that have already been loaded, while new resources get the owners derived
+ * from their counts.
+ */
+class GraphStatisticsAppendTests {
+
+	private static final short NUMBER_OF_CHUNKS = 2;
+
+	private static final long OWNER_1 = 0;
+
+	private static final long OWNER_2 = 1l << 48;
+
+	private GraphStatistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = new GraphStatistics(new InMemoryStatisticsDatabase(), NUMBER_OF_CHUNKS, null);
+		// the initially loaded graph with the resources 1 to 5
+		statistics.count(1, 3, 4, 0);
+		statistics.count(1, 3, 4, 0);
+		statistics.count(2, 3, 5, 1);
+	}
+
+	@Test
+	void loadedGraphTest() {
+		assertEquals(OWNER_1 | 1, statistics.getIDWithOwner(1));
+		assertEquals(OWNER_2 | 2, statistics.getIDWithOwner(2));
+		assertEquals(OWNER_1 | 3, statistics.getIDWithOwner(3));
+		assertEquals(OWNER_1 | 4, statistics.getIDWithOwner(4));
+		assertEquals(OWNER_2 | 5, statistics.getIDWithOwner(5));
+	}
+
+	@Test
+	void appendTest() {
+		long firstNewID = 10;
+		// the counts of 1 and 3 would make slave 2 their owner
+		for (int i = 0; i < 3; i++) {
+			statistics.countAppended(1, 3, 11, 1, firstNewID);
+		}
+		// ids may already contain their owner
+		statistics.countAppended(12, 3, statistics.getIDWithOwner(2), 0, firstNewID);
+		statistics.countAppended(13, 3, 4, 0, firstNewID);
+		statistics.countAppended(13, 3, 4, 1, firstNewID);
+		statistics.countAppended(13, 3, 4, 1, firstNewID);
+		statistics.finishAppending();
+
+		// already loaded resources keep their owner
+		assertEquals(OWNER_1 | 1, statistics.getIDWithOwner(1));
+		assertEquals(OWNER_2 | 2, statistics.getIDWithOwner(2));
+		assertEquals(OWNER_1 | 3, statistics.getIDWithOwner(3));
+		assertEquals(OWNER_1 | 4, statistics.getIDWithOwner(4));
+		// new resources are owned by the slave where they occur most often
+		assertEquals(OWNER_2 | 11, statistics.getIDWithOwner(11));
+		assertEquals(OWNER_1 | 12, statistics.getIDWithOwner(12));
+		assertEquals(OWNER_2 | 13, statistics.getIDWithOwner(13));
+	}
+
+	@Test
+	void repeatedAppendTest() {
+		statistics.countAppended(1, 3, 11, 1, 10);
+		statistics.countAppended(1, 3, 11, 1, 10);
+		statistics.finishAppending();
+		assertEquals(OWNER_2 | 11, statistics.getIDWithOwner(11));
+
+		// 11 belongs to the loaded graph now
+		for (int i = 0; i < 3; i++) {
+			statistics.countAppended(21, 3, 11, 0, 20);
+		}
+		statistics.countAppended(1, 3, 21, 1, 20);
+		statistics.finishAppending();
+		assertEquals(OWNER_1 | 1, statistics.getIDWithOwner(1));
+		assertEquals(OWNER_1 | 3, statistics.getIDWithOwner(3));
+		assertEquals(OWNER_2 | 11, statistics.getIDWithOwner(11));
+		assertEquals(OWNER_1 | 21, statistics.getIDWithOwner(21));
+	}
+
+	@Test
+	void withoutAppendingTest() {
+		// counting the appended statements like a new graph changes the owners
+		for (int i = 0; i < 3; i++) {
+			statistics.count(1, 3, 11, 1);
+		}
+		assertEquals(OWNER_2 | 1, statistics.getIDWithOwner(1));
+		assertEquals(OWNER_2 | 3, statistics.getIDWithOwner(3));
+	}
+
+	/**
+	 * Keeps the counts of each resource in memory.
+	 */
+	private static class InMemoryStatisticsDatabase implements GraphStatisticsDatabase {
+
+		private final Map<Long, long[]> resourceStatistics = new HashMap<>();
+
+		private final long[] chunkSizes = new long[NUMBER_OF_CHUNKS];
+
+		private void increment(long resource, int offset) {
+			long[] counts = resourceStatistics.get(resource);
+			if (counts == null) {
+				counts = new long[(3 * NUMBER_OF_CHUNKS) + 1];
+				resourceStatistics.put(resource, counts);
+			}
+			counts[offset]++;
+			counts[counts.length - 1]++;
+		}
+
+		@Override
+		public void incrementSubjectCount(long subject, int chunk) {
+			increment(subject, chunk);
+		}
+
+		@Override
+		public void incrementPropertyCount(long property, int chunk) {
+			increment(property, NUMBER_OF_CHUNKS + chunk);
+		}
+
+		@Override
+		public void incrementObjectCount(long object, int chunk) {
+			increment(object, (2 * NUMBER_OF_CHUNKS) + chunk);
+		}
+
+		@Override
+		public void incrementNumberOfTriplesPerChunk(int chunk) {
+			chunkSizes[chunk]++;
+		}
+
+		@Override
+		public long[] getChunkSizes() {
+			return chunkSizes;
+		}
+
+		@Override
+		public long[] getStatisticsForResource(long id) {
+			return resourceStatistics.get(id);
+		}
+
+		@Override
+		public void clear() {
+			resourceStatistics.clear();
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
@@ -0,0 +1,214 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.TriplePatternType;
+import de.uni_koblenz.west.koral.common.query.execution.GroupResultMerger;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationFunction;
+import de.uni_koblenz.west.koral.common.query.execution.operators.AggregationState;
+import de.uni_koblenz.west.koral.common.query.execution.operators.GroupOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternMatchOperator;
+import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
+import de.uni_koblenz.west.koral.master.utils.DeSerializer;
+
+/**
+ * Tests the merging of the partial aggregation states that are sent by the
+ * {@link GroupOperator}s of several slaves.
+ */
+class GroupResultMergerTests {
+
+	private static final long GROUP_VAR = 1;
+
+	private static final long AGGREGATED_VAR = 2;
+
+	private static final long AGGREGATE_VAR = 3;
+
+	private static final long SECOND_AGGREGATE_VAR = 4;
+
+	private Map<Long, Node> dictionaryEntries;
+
+	private DictionaryEncoder dictionary;
+
+	private MappingRecycleCache recycleCache;
+
+	@BeforeEach
+	void setUp() {
+		dictionaryEntries = new HashMap<>();
+		dictionary = new DictionaryEncoder(null, null, null) {
+			@Override
+			public String[] decodeToSerializedNodes(long[] ids) {
+				String[] result = new String[ids.length];
+				for (int i = 0; i < ids.length; i++) {
+					Node node = dictionaryEntries.get(ids[i]);
+					result[i] = node == null ? null : DeSerializer.serializeNode(node);
+				}
+				return result;
+			}
+		};
+		recycleCache = new MappingRecycleCache(10, 1);
+	}
+
+	private static GroupOperator createGroupOperator(long[] groupVars,
+			AggregationFunction... functions) {
+		long[] aggregatedVars = new long[functions.length];
+		Arrays.fill(aggregatedVars, AGGREGATED_VAR);
+		long[] aggregateVars = Arrays.copyOf(new long[] { AGGREGATE_VAR, SECOND_AGGREGATE_VAR },
+				functions.length);
+		TriplePatternMatchOperator match = new TriplePatternMatchOperator(2, 0, 1, 10, null,
+				new TriplePattern(TriplePatternType.SPO, GROUP_VAR, 5, AGGREGATED_VAR), 10, null);
+		return new GroupOperator(1, 0, 1, 10, null, 10, match, groupVars, functions,
+				aggregatedVars, aggregateVars, groupVars.length > 0 ? groupVars[0] : -1);
+	}
+
+	/**
+	 * Merges the partial state of <code>state</code> as it would be sent by a
+	 * slave.
+	 */
+	private void merge(GroupResultMerger merger, GroupOperator operator, long[] groupValues,
+			AggregationState state) {
+		long[] vars = operator.getResultVariables();
+		long[] values = new long[vars.length];
+		System.arraycopy(groupValues, 0, values, 0, groupValues.length);
+		state.writeStateValues(values, groupValues.length);
+		MappingBatch batch = new MappingBatch(vars, 1, 1);
+		batch.addRow(values, 1);
+		merger.merge(batch.createMapping(0, recycleCache));
+	}
+
+	private static Node integer(long value) {
+		return NodeFactory.createLiteral(Long.toString(value), XSDDatatype.XSDinteger);
+	}
+
+	private static String row(String... values) {
+		StringBuilder row = new StringBuilder();
+		String delim = "";
+		for (String value : values) {
+			row.append(delim).append(value);
+			delim = Configuration.QUERY_RESULT_COLUMN_SEPARATOR_CHAR;
+		}
+		return row.toString();
+	}
+
+	private static List<String> sorted(List<String> rows) {
+		List<String> result = new ArrayList<>(rows);
+		Collections.sort(result);
+		return result;
+	}
+
+	@Test
+	void countPerGroupTest() {
+		Node groupA = NodeFactory.createURI("http://example.org/a");
+		Node groupB = NodeFactory.createURI("http://example.org/b");
+		dictionaryEntries.put(100L, groupA);
+		dictionaryEntries.put(101L, groupB);
+		GroupOperator operator = createGroupOperator(new long[] { GROUP_VAR },
+				AggregationFunction.COUNT);
+		GroupResultMerger merger = new GroupResultMerger(operator, dictionary, false);
+
+		AggregationFunction[] functions = operator.getAggregationFunctions();
+		AggregationState slave1GroupA = new AggregationState(functions);
+		slave1GroupA.aggregate(0, 7, null);
+		slave1GroupA.aggregate(0, 8, null);
+		AggregationState slave2GroupA = new AggregationState(functions);
+		slave2GroupA.aggregate(0, 9, null);
+		AggregationState slave2GroupB = new AggregationState(functions);
+		slave2GroupB.aggregate(0, 7, null);
+		merge(merger, operator, new long[] { 100 }, slave1GroupA);
+		merge(merger, operator, new long[] { 100 }, slave2GroupA);
+		merge(merger, operator, new long[] { 101 }, slave2GroupB);
+
+		List<String> rows = merger.createResultRows(new long[] { GROUP_VAR, AGGREGATE_VAR });
+		assertEquals(
+				sorted(Arrays.asList(
+						row(DeSerializer.serializeNode(groupA),
+								DeSerializer.serializeNode(integer(3))),
+						row(DeSerializer.serializeNode(groupB),
+								DeSerializer.serializeNode(integer(1))))),
+				sorted(rows));
+	}
+
+	@Test
+	void noGroupWithoutMappingsTest() {
+		GroupOperator operator = createGroupOperator(new long[0], AggregationFunction.COUNT);
+		GroupResultMerger merger = new GroupResultMerger(operator, dictionary, false);
+		assertEquals(Arrays.asList(row(DeSerializer.serializeNode(integer(0)))),
+				merger.createResultRows(new long[] { AGGREGATE_VAR }));
+	}
+
+	@Test
+	void minMaxAreDecodedTest() {
+		dictionaryEntries.put(200L, integer(4));
+		dictionaryEntries.put(201L, integer(2));
+		GroupOperator operator = createGroupOperator(new long[0], AggregationFunction.MIN,
+				AggregationFunction.MAX);
+		GroupResultMerger merger = new GroupResultMerger(operator, dictionary, false);
+
+		AggregationFunction[] functions = operator.getAggregationFunctions();
+		AggregationState slave1 = new AggregationState(functions);
+		slave1.aggregate(0, 200, integer(4));
+		slave1.aggregate(1, 200, integer(4));
+		AggregationState slave2 = new AggregationState(functions);
+		slave2.aggregate(0, 201, integer(2));
+		slave2.aggregate(1, 201, integer(2));
+		merge(merger, operator, new long[0], slave1);
+		merge(merger, operator, new long[0], slave2);
+
+		assertEquals(
+				Arrays.asList(row(DeSerializer.serializeNode(integer(2)),
+						DeSerializer.serializeNode(integer(4)))),
+				merger.createResultRows(new long[] { AGGREGATE_VAR, SECOND_AGGREGATE_VAR }));
+	}
+
+	@Test
+	void unboundAggregateTest() {
+		GroupOperator operator = createGroupOperator(new long[0], AggregationFunction.SUM);
+		GroupResultMerger merger = new GroupResultMerger(operator, dictionary, false);
+		AggregationState slave1 = new AggregationState(operator.getAggregationFunctions());
+		// the value could not be decoded
+		slave1.aggregate(0, 300, null);
+		merge(merger, operator, new long[0], slave1);
+		assertEquals(Arrays.asList(row("")), merger.createResultRows(new long[] { AGGREGATE_VAR }));
+	}
+
+	@Test
+	void distinctRowsTest() {
+		Node groupA = NodeFactory.createURI("http://example.org/a");
+		Node groupB = NodeFactory.createURI("http://example.org/b");
+		dictionaryEntries.put(100L, groupA);
+		dictionaryEntries.put(101L, groupB);
+		GroupOperator operator = createGroupOperator(new long[] { GROUP_VAR },
+				AggregationFunction.COUNT);
+		AggregationFunction[] functions = operator.getAggregationFunctions();
+		for (boolean isDistinct : new boolean[] { false, true }) {
+			GroupResultMerger merger = new GroupResultMerger(operator, dictionary, isDistinct);
+			AggregationState state = new AggregationState(functions);
+			state.aggregate(0, 7, null);
+			merge(merger, operator, new long[] { 100 }, state);
+			merge(merger, operator, new long[] { 101 }, state);
+			// only the count is projected, thus, both groups have the same row
+			List<String> rows = merger.createResultRows(new long[] { AGGREGATE_VAR });
+			assertEquals(isDistinct ? 1 : 2, rows.size());
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.utils.LongHashSet;
+
+class LongHashSetTests {
+
+	@Test
+	void addTest() {
+		LongHashSet set = new LongHashSet();
+		assertTrue(set.isEmpty());
+		assertTrue(set.add(5));
+		assertFalse(set.add(5));
+		assertTrue(set.add(-5));
+		assertTrue(set.add(Long.MIN_VALUE));
+		assertEquals(3, set.size());
+		assertTrue(set.contains(5));
+		assertTrue(set.contains(Long.MIN_VALUE));
+		assertFalse(set.contains(6));
+	}
+
+	@Test
+	void zeroTest() {
+		LongHashSet set = new LongHashSet();
+		assertFalse(set.contains(0));
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.contains(0));
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	void resizeTest() {
+		LongHashSet set = new LongHashSet();
+		Set<Long> expected = new HashSet<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			// the upper bits of ids identify their owner
+			long value = (((long) random.nextInt(4)) << 48) | random.nextInt(50_000);
+			assertEquals(expected.add(value), set.add(value));
+		}
+		assertEquals(expected.size(), set.size());
+		for (long value : expected) {
+			assertTrue(set.contains(value));
+		}
+	}
+
+	@Test
+	void clearTest() {
+		LongHashSet set = new LongHashSet();
+		for (long i = 0; i < 100; i++) {
+			set.add(i);
+		}
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+		assertFalse(set.contains(99));
+		assertTrue(set.add(99));
+		assertEquals(1, set.size());
+	}
+
+}
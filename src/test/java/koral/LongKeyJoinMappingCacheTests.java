@@ -0,0 +1,156 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.utils.LongKeyJoinMappingCache;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
+class LongKeyJoinMappingCacheTests {
+
+	/**
+	 * the first variable is the join variable
+	 */
+	private static final long[] VARS = { 1, 2 };
+
+	private static final int[] COMPARISON_ORDER = { 0, 1 };
+
+	private MappingRecycleCache recycleCache;
+
+	private LongKeyJoinMappingCache cache;
+
+	@BeforeEach
+	void setUp() {
+		recycleCache = new MappingRecycleCache(100, 1);
+		cache = new LongKeyJoinMappingCache(recycleCache, VARS, COMPARISON_ORDER, 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		cache.close();
+	}
+
+	/**
+	 * @return a mapping of the given values that is known by computer 1
+	 */
+	private Mapping createMapping(long... values) {
+		int headerSize = Byte.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+		byte[] mapping = new byte[headerSize + (values.length * Long.BYTES) + 1];
+		mapping[0] = MessageType.QUERY_MAPPING_BATCH.getValue();
+		NumberConversion.int2bytes(mapping.length, mapping, Byte.BYTES + Long.BYTES + Long.BYTES);
+		for (int i = 0; i < values.length; i++) {
+			NumberConversion.long2bytes(values[i], mapping, headerSize + (i * Long.BYTES));
+		}
+		mapping[mapping.length - 1] = (byte) 0x80;
+		return recycleCache.createMapping(mapping, 0, mapping.length);
+	}
+
+	private static List<Long> getValues(Iterator<Mapping> mappings, long var, long[] vars) {
+		List<Long> values = new ArrayList<>();
+		while (mappings.hasNext()) {
+			values.add(mappings.next().getValue(var, vars));
+		}
+		Collections.sort(values);
+		return values;
+	}
+
+	@Test
+	void emptyCacheTest() {
+		assertTrue(cache.isEmpty());
+		assertEquals(0, cache.size());
+		assertFalse(cache.getMatchCandidates(createMapping(1, 1), VARS).hasNext());
+		assertFalse(cache.iterator().hasNext());
+	}
+
+	@Test
+	void matchCandidatesTest() {
+		cache.add(createMapping(10, 1));
+		cache.add(createMapping(11, 2));
+		cache.add(createMapping(10, 3));
+		assertEquals(3, cache.size());
+		assertEquals(Arrays.asList(1L, 3L),
+				getValues(cache.getMatchCandidates(createMapping(10, 0), VARS), 2, VARS));
+		assertEquals(Arrays.asList(2L),
+				getValues(cache.getMatchCandidates(createMapping(11, 0), VARS), 2, VARS));
+		assertFalse(cache.getMatchCandidates(createMapping(12, 0), VARS).hasNext());
+	}
+
+	@Test
+	void probeWithOtherVariablesTest() {
+		cache.add(createMapping(10, 1));
+		// the probing mapping binds the join variable 1 at another position
+		long[] probeVars = { 5, 1 };
+		assertEquals(Arrays.asList(1L), getValues(
+				cache.getMatchCandidates(createMapping(99, 10), probeVars), 2, VARS));
+	}
+
+	@Test
+	void manyMappingsTest() {
+		// enforces several resizes of the table and several pages
+		int numberOfMappings = 100_000;
+		for (long i = 0; i < numberOfMappings; i++) {
+			cache.add(createMapping(i % 1_000, i));
+		}
+		assertEquals(numberOfMappings, cache.size());
+		for (long key : new long[] { 0, 1, 999 }) {
+			List<Long> values = getValues(cache.getMatchCandidates(createMapping(key, 0), VARS),
+					2, VARS);
+			assertEquals(100, values.size());
+			for (long value : values) {
+				assertEquals(key, value % 1_000);
+			}
+		}
+		long expected = 0;
+		for (Mapping mapping : cache) {
+			assertEquals(expected++, mapping.getValue(2, VARS));
+		}
+		assertEquals(numberOfMappings, expected);
+	}
+
+	@Test
+	void compositeKeyTest() {
+		long[] vars = { 1, 2, 3 };
+		LongKeyJoinMappingCache compositeCache = new LongKeyJoinMappingCache(recycleCache, vars,
+				new int[] { 0, 1, 2 }, 2);
+		try {
+			compositeCache.add(createMapping(1, 1, 100));
+			compositeCache.add(createMapping(1, 2, 200));
+			compositeCache.add(createMapping(2, 1, 300));
+			assertEquals(Arrays.asList(200L), getValues(
+					compositeCache.getMatchCandidates(createMapping(1, 2, 0), vars), 3, vars));
+		} finally {
+			compositeCache.close();
+		}
+	}
+
+	@Test
+	void differentMappingLengthTest() {
+		cache.add(createMapping(1, 1));
+		assertThrows(IllegalArgumentException.class, () -> cache.add(createMapping(1, 1, 1)));
+	}
+
+	@Test
+	void addAfterCloseTest() {
+		cache.close();
+		assertThrows(IllegalStateException.class, () -> cache.add(createMapping(1, 1)));
+	}
+
+}
@@ -0,0 +1,183 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.TriplePatternType;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.slave.triple_store.impl.IndexType;
+
+class MappingBatchTests {
+
+	/**
+	 * more than 8 slaves require two containment bytes
+	 */
+	private static final int NUMBER_OF_SLAVES = 10;
+
+	private static final long[] VARS = { 7, 3, 5 };
+
+	private static final TriplePattern PATTERN = new TriplePattern(TriplePatternType.___, 7, 3, 5);
+
+	private MappingRecycleCache recycleCache;
+
+	private MappingBatch batch;
+
+	@BeforeEach
+	void setUp() {
+		recycleCache = new MappingRecycleCache(10, NUMBER_OF_SLAVES);
+		batch = new MappingBatch(VARS, NUMBER_OF_SLAVES, 4);
+	}
+
+	/**
+	 * Adds the match of <code>pattern</code> to the triple (subject property
+	 * object) that is only known by computer <code>computerId</code>.
+	 */
+	private static void addTriple(MappingBatch batch, TriplePattern pattern, long subject,
+			long property, long object, int computerId) {
+		int numberOfContainmentBytes = (NUMBER_OF_SLAVES + Byte.SIZE - 1) / Byte.SIZE;
+		byte[] triple = new byte[(3 * Long.BYTES) + numberOfContainmentBytes];
+		NumberConversion.long2bytes(subject, triple, 0);
+		NumberConversion.long2bytes(property, triple, Long.BYTES);
+		NumberConversion.long2bytes(object, triple, 2 * Long.BYTES);
+		int containmentByte = (3 * Long.BYTES) + ((computerId - 1) / Byte.SIZE);
+		triple[containmentByte] = (byte) (0x80 >>> ((computerId - 1) % Byte.SIZE));
+		batch.add(pattern, IndexType.SPO, triple);
+	}
+
+	private static void addTriple(MappingBatch batch, long subject, long property, long object,
+			int computerId) {
+		MappingBatchTests.addTriple(batch, PATTERN, subject, property, object, computerId);
+	}
+
+	@Test
+	void addTripleTest() {
+		assertTrue(batch.isEmpty());
+		addTriple(batch, 1, 2, 3, 1);
+		addTriple(batch, 4, 5, 6, 10);
+		assertEquals(2, batch.size());
+		assertFalse(batch.isFull());
+		assertEquals(1, batch.getIndexOfVariable(3));
+		assertEquals(-1, batch.getIndexOfVariable(4));
+		assertEquals(5, batch.getValue(1, 1));
+		assertEquals(6, batch.getColumn(2)[1]);
+		assertTrue(batch.isKnownByComputer(0, 1));
+		assertFalse(batch.isKnownByComputer(0, 10));
+		assertTrue(batch.isKnownByComputer(1, 10));
+		assertEquals(1, batch.getIdOfFirstComputerKnowingRow(0));
+		assertEquals(10, batch.getIdOfFirstComputerKnowingRow(1));
+	}
+
+	@Test
+	void addRowTest() {
+		batch.addRow(new long[] { 1, 2, 3 }, 1);
+		batch.addRow(new long[] { 4, 5, 6 }, 10);
+		assertEquals(2, batch.size());
+		assertEquals(5, batch.getValue(1, 1));
+		assertTrue(batch.isKnownByComputer(0, 1));
+		assertFalse(batch.isKnownByComputer(0, 10));
+		assertEquals(10, batch.getIdOfFirstComputerKnowingRow(1));
+	}
+
+	@Test
+	void clearTest() {
+		for (int i = 0; i < batch.getCapacity(); i++) {
+			addTriple(batch, i, i, i, 1);
+		}
+		assertTrue(batch.isFull());
+		batch.clear();
+		assertTrue(batch.isEmpty());
+		// reused rows must not keep the old containment
+		addTriple(batch, 1, 1, 1, 9);
+		assertFalse(batch.isKnownByComputer(0, 1));
+		assertEquals(9, batch.getIdOfFirstComputerKnowingRow(0));
+	}
+
+	@Test
+	void updateContainmentTest() {
+		addTriple(batch, 1, 2, 3, 2);
+		batch.updateContainment(0, 2, 9);
+		assertFalse(batch.isKnownByComputer(0, 2));
+		assertTrue(batch.isKnownByComputer(0, 9));
+		assertEquals(9, batch.getIdOfFirstComputerKnowingRow(0));
+	}
+
+	@Test
+	void createMappingTest() {
+		addTriple(batch, 1, 2, 3, 1);
+		addTriple(batch, 4, 5, 6, 9);
+		Mapping mapping = batch.createMapping(1, recycleCache);
+		assertEquals(batch.getLengthOfSerializedRow(), mapping.getLengthOfMappingInByteArray());
+		assertEquals(4, mapping.getValue(7, VARS));
+		assertEquals(5, mapping.getValue(3, VARS));
+		assertEquals(6, mapping.getValue(5, VARS));
+		assertEquals(9, mapping.getIdOfFirstComputerKnowingThisMapping());
+		assertTrue(mapping.isKnownByComputer(9));
+		assertFalse(mapping.isKnownByComputer(1));
+	}
+
+	@Test
+	void addMappingTest() {
+		addTriple(batch, 1, 2, 3, 3);
+		Mapping mapping = batch.createMapping(0, recycleCache);
+		MappingBatch projection = new MappingBatch(new long[] { 5, 7 }, NUMBER_OF_SLAVES, 2);
+		projection.add(mapping, VARS);
+		assertEquals(3, projection.getValue(0, 0));
+		assertEquals(1, projection.getValue(0, 1));
+		assertEquals(3, projection.getIdOfFirstComputerKnowingRow(0));
+	}
+
+	@Test
+	void addJoinTest() {
+		TriplePattern pattern1 = new TriplePattern(TriplePatternType._P_, 1, 100, 2);
+		long[] vars1 = pattern1.getVariables();
+		MappingBatch batch1 = new MappingBatch(vars1, NUMBER_OF_SLAVES, 1);
+		addTriple(batch1, pattern1, 10, 100, 20, 4);
+		Mapping mapping1 = batch1.createMapping(0, recycleCache);
+		TriplePattern pattern2 = new TriplePattern(TriplePatternType._P_, 2, 100, 3);
+		long[] vars2 = pattern2.getVariables();
+		MappingBatch batch2 = new MappingBatch(vars2, NUMBER_OF_SLAVES, 1);
+		addTriple(batch2, pattern2, 20, 100, 30, 4);
+		Mapping mapping2 = batch2.createMapping(0, recycleCache);
+
+		MappingBatch joined = new MappingBatch(new long[] { 1, 2, 3 }, NUMBER_OF_SLAVES, 1);
+		joined.add(mapping1, vars1, mapping2, vars2);
+		assertEquals(10, joined.getValue(0, 0));
+		assertEquals(20, joined.getValue(0, 1));
+		assertEquals(30, joined.getValue(0, 2));
+		assertTrue(joined.isKnownByComputer(0, 4));
+
+		batch2.clear();
+		addTriple(batch2, pattern2, 20, 100, 30, 5);
+		joined.clear();
+		joined.add(mapping1, vars1, batch2.createMapping(0, recycleCache), vars2);
+		// the containment is the intersection of both containments
+		assertEquals(-1, joined.getIdOfFirstComputerKnowingRow(0));
+	}
+
+	@Test
+	void projectionTest() {
+		addTriple(batch, 1, 2, 3, 1);
+		addTriple(batch, 4, 5, 6, 2);
+		MappingBatch projection = new MappingBatch(new long[] { 5 }, NUMBER_OF_SLAVES, 4);
+		projection.addProjection(batch);
+		projection.addRow(batch, 0);
+		assertEquals(3, projection.size());
+		assertEquals(3, projection.getValue(0, 0));
+		assertEquals(6, projection.getValue(1, 0));
+		assertEquals(3, projection.getValue(2, 0));
+		assertEquals(2, projection.getIdOfFirstComputerKnowingRow(1));
+		assertEquals(1, projection.getIdOfFirstComputerKnowingRow(2));
+	}
+
+}
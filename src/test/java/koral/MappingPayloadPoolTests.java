@@ -0,0 +1,252 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageReceiverListener;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSender;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingPayloadPool;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
+/**
+ * Tests the reuse of mapping byte arrays by {@link MappingPayloadPool} and the
+ * hand-over of owned arrays to local receivers.
+ */
+class MappingPayloadPoolTests {
+
+	private static final int NUMBER_OF_SLAVES = 2;
+
+	private static final int MAPPING_LENGTH = Mapping.getHeaderSize() + Long.BYTES + 1;
+
+	/**
+	 * task 1 of query 1 on slave 1
+	 */
+	private static final long SENDER_ID = (1l << 48) | (1l << 16) | 1;
+
+	/**
+	 * task 2 of query 1 on slave 1
+	 */
+	private static final long LOCAL_RECEIVER_ID = (1l << 48) | (1l << 16) | 2;
+
+	private MappingPayloadPool pool;
+
+	private MappingRecycleCache recycleCache;
+
+	private RecordingReceiver receiver;
+
+	private List<byte[]> remoteMessages;
+
+	private MessageSenderBuffer messageSender;
+
+	@BeforeEach
+	void setUp() {
+		pool = new MappingPayloadPool(10);
+		recycleCache = new MappingRecycleCache(10, NUMBER_OF_SLAVES, pool);
+		receiver = new RecordingReceiver();
+		remoteMessages = new ArrayList<>();
+		messageSender = new MessageSenderBuffer(NUMBER_OF_SLAVES, 10, new MessageSender() {
+
+			@Override
+			public int getCurrentID() {
+				return 1;
+			}
+
+			@Override
+			public boolean send(int receiver, byte[] array) {
+				remoteMessages.add(array);
+				return true;
+			}
+
+			@Override
+			public boolean sendToAllOtherSlaves(byte[] message) {
+				return send(2, message);
+			}
+
+			@Override
+			public boolean sendToAllSlaves(byte[] message) {
+				return send(1, message) && send(2, message);
+			}
+
+		}, receiver, null, null);
+	}
+
+	private static void fillMapping(byte[] array, int offset, long value) {
+		array[offset] = MessageType.QUERY_MAPPING_BATCH.getValue();
+		NumberConversion.int2bytes(MAPPING_LENGTH, array,
+				offset + Byte.BYTES + Long.BYTES + Long.BYTES);
+		NumberConversion.long2bytes(value, array, offset + Mapping.getHeaderSize());
+		array[(offset + MAPPING_LENGTH) - 1] = (byte) 0x80;
+	}
+
+	private Mapping createOwningMapping(long value) {
+		byte[] array = pool.allocate(MAPPING_LENGTH);
+		fillMapping(array, 0, value);
+		return recycleCache.createMapping(array);
+	}
+
+	@Test
+	void allocateAndReleaseTest() {
+		byte[] array = pool.allocate(MAPPING_LENGTH);
+		assertEquals(MAPPING_LENGTH, array.length);
+		pool.release(array);
+		// arrays of other lengths are not reused
+		assertNotSame(array, pool.allocate(MAPPING_LENGTH + 1));
+		assertSame(array, pool.allocate(MAPPING_LENGTH));
+		// the array is handed out only once
+		assertNotSame(array, pool.allocate(MAPPING_LENGTH));
+	}
+
+	@Test
+	void unpooledLengthTest() {
+		byte[] array = pool.allocate(8192);
+		pool.release(array);
+		assertNotSame(array, pool.allocate(8192));
+
+		MappingPayloadPool disabledPool = new MappingPayloadPool(0);
+		array = disabledPool.allocate(MAPPING_LENGTH);
+		disabledPool.release(array);
+		assertNotSame(array, disabledPool.allocate(MAPPING_LENGTH));
+	}
+
+	@Test
+	void reuseByOtherThreadTest() throws InterruptedException {
+		MappingPayloadPool smallPool = new MappingPayloadPool(2);
+		byte[][] arrays = new byte[3][];
+		for (int i = 0; i < arrays.length; i++) {
+			arrays[i] = smallPool.allocate(MAPPING_LENGTH);
+		}
+		// the stacks of the releasing thread overflow into the shared stacks
+		Thread releasingThread = new Thread(() -> {
+			for (byte[] array : arrays) {
+				smallPool.release(array);
+			}
+		});
+		releasingThread.start();
+		releasingThread.join();
+		byte[] reused = smallPool.allocate(MAPPING_LENGTH);
+		assertTrue((reused == arrays[0]) || (reused == arrays[1]));
+	}
+
+	@Test
+	void releaseMappingReturnsPayloadTest() {
+		Mapping mapping = createOwningMapping(5);
+		byte[] array = mapping.getByteArray();
+		recycleCache.releaseMapping(mapping);
+		assertSame(array, pool.allocate(MAPPING_LENGTH));
+	}
+
+	@Test
+	void takePayloadTest() {
+		Mapping mapping = createOwningMapping(5);
+		byte[] array = mapping.getByteArray();
+		assertSame(array, recycleCache.releaseMappingAndTakePayload(mapping));
+		// the taken array is not returned to the pool
+		assertNotSame(array, pool.allocate(MAPPING_LENGTH));
+
+		byte[] foreignArray = new byte[MAPPING_LENGTH];
+		fillMapping(foreignArray, 0, 6);
+		Mapping foreignMapping = recycleCache.createMapping(foreignArray, 0, MAPPING_LENGTH);
+		assertNull(recycleCache.releaseMappingAndTakePayload(foreignMapping));
+		// a mapping without its own array is not released
+		assertSame(foreignArray, foreignMapping.getByteArray());
+		assertEquals(6, foreignMapping.getValue(1, new long[] { 1 }));
+	}
+
+	@Test
+	void sendLocallyHandsOverPayloadTest() {
+		Mapping mapping = createOwningMapping(5);
+		byte[] array = mapping.getByteArray();
+		messageSender.sendQueryMapping(mapping, SENDER_ID, LOCAL_RECEIVER_ID, recycleCache);
+
+		assertEquals(1, receiver.receivedMappings.size());
+		assertSame(array, receiver.receivedMappings.get(0));
+		assertTrue(receiver.receivedMessages.isEmpty());
+		assertEquals(LOCAL_RECEIVER_ID, NumberConversion.bytes2long(array, Byte.BYTES));
+		// the sending mapping is released but the receiver still refers to the
+		// array
+		Mapping otherMapping = createOwningMapping(6);
+		assertNotSame(array, otherMapping.getByteArray());
+		assertEquals(5, NumberConversion.bytes2long(array, Mapping.getHeaderSize()));
+
+		// the array is reused after the receiver has released it
+		pool.release(array);
+		assertSame(array, pool.allocate(MAPPING_LENGTH));
+	}
+
+	@Test
+	void sendLocallyCopiesForeignArrayTest() {
+		byte[] message = new byte[MAPPING_LENGTH + 3];
+		fillMapping(message, 3, 5);
+		Mapping mapping = recycleCache.createMapping(message, 3, MAPPING_LENGTH);
+		messageSender.sendQueryMapping(mapping, SENDER_ID, LOCAL_RECEIVER_ID, recycleCache);
+
+		assertTrue(receiver.receivedMappings.isEmpty());
+		assertEquals(1, receiver.receivedMessages.size());
+		assertSame(message, receiver.receivedMessages.get(0));
+		// the foreign array is never handed out by the pool
+		assertNotSame(message, pool.allocate(message.length));
+		assertNotSame(message, pool.allocate(MAPPING_LENGTH));
+	}
+
+	@Test
+	void sendToAllHandsOverOriginalPayloadTest() {
+		Mapping mapping = createOwningMapping(5);
+		byte[] array = mapping.getByteArray();
+		messageSender.sendQueryMappingToAll(mapping, SENDER_ID, LOCAL_RECEIVER_ID, recycleCache);
+
+		// the local receiver gets the original array, the remote receiver a copy
+		assertEquals(1, receiver.receivedMappings.size());
+		assertSame(array, receiver.receivedMappings.get(0));
+		messageSender.sendAllBufferedMessages(recycleCache);
+		assertEquals(1, remoteMessages.size());
+		// the buffered copy has been returned to the pool after sending
+		byte[] copy = pool.allocate(MAPPING_LENGTH);
+		assertNotSame(array, copy);
+		assertEquals(5, NumberConversion.bytes2long(copy, Mapping.getHeaderSize()));
+	}
+
+	/**
+	 * Records the locally received mappings instead of forwarding them to tasks.
+	 */
+	private static class RecordingReceiver extends MessageReceiverListener {
+
+		private final List<byte[]> receivedMappings;
+
+		private final List<byte[]> receivedMessages;
+
+		public RecordingReceiver() {
+			super(null);
+			receivedMappings = new ArrayList<>();
+			receivedMessages = new ArrayList<>();
+		}
+
+		@Override
+		public void receiveLocalMapping(long sender, long receiver, byte[] pooledArray) {
+			receivedMappings.add(pooledArray);
+		}
+
+		@Override
+		public void receiveLocalMessage(long sender, long receiver, byte[] message,
+				int startIndexInMessage, int lengthOfMessage) {
+			receivedMessages.add(message);
+		}
+
+	}
+
+}
@@ -0,0 +1,277 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageReceiverListener;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSender;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.TriplePattern;
+import de.uni_koblenz.west.koral.common.query.TriplePatternType;
+import de.uni_koblenz.west.koral.common.query.execution.operators.MergeJoinOperator;
+import de.uni_koblenz.west.koral.common.query.execution.operators.TriplePatternMatchOperator;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.slave.triple_store.TripleStoreAccessor;
+
+/**
+ * Tests the applicability of {@link MergeJoinOperator} and the join of both
+ * index ranges.
+ */
+class MergeJoinOperatorTests {
+
+	private static final int NUMBER_OF_SLAVES = 2;
+
+	private static final long COORDINATOR_ID = 1l << 16;
+
+	private static final long[] RESULT_VARS = { 1, 2, 3, 4 };
+
+	/**
+	 * a subject owned by slave 2
+	 */
+	private static final long REMOTE_SUBJECT = (1l << 48) | 3;
+
+	private File tmpDir;
+
+	private Configuration conf;
+
+	private int currentSlave;
+
+	private List<byte[]> messagesToMaster;
+
+	private MessageSenderBuffer messageSender;
+
+	private MappingRecycleCache recycleCache;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("mergeJoinOperatorTests").toFile();
+		conf = new Configuration();
+		conf.setDataDir(tmpDir.getAbsolutePath());
+		conf.setTmpDir(tmpDir.getAbsolutePath());
+		conf.setTripleStoreStorageType(MapDBStorageOptions.MEMORY);
+		try (ServerSocket socket = new ServerSocket(0);) {
+			conf.addSlave("127.0.0.1", Integer.toString(socket.getLocalPort()));
+		}
+		messagesToMaster = new ArrayList<>();
+		messageSender = new MessageSenderBuffer(NUMBER_OF_SLAVES, 10, new MessageSender() {
+
+			@Override
+			public int getCurrentID() {
+				return currentSlave;
+			}
+
+			@Override
+			public boolean send(int receiver, byte[] array) {
+				if (receiver == 0) {
+					messagesToMaster.add(array);
+				}
+				return true;
+			}
+
+			@Override
+			public boolean sendToAllOtherSlaves(byte[] message) {
+				return true;
+			}
+
+			@Override
+			public boolean sendToAllSlaves(byte[] message) {
+				return true;
+			}
+
+		}, new MessageReceiverListener(null), null, null);
+		recycleCache = new MappingRecycleCache(10, NUMBER_OF_SLAVES);
+	}
+
+	@AfterEach
+	void tearDown() {
+		delete(tmpDir);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private TriplePatternMatchOperator createMatch(TriplePattern pattern) {
+		return new TriplePatternMatchOperator(1, COORDINATOR_ID, NUMBER_OF_SLAVES, 10, tmpDir,
+				pattern, 10, null);
+	}
+
+	@Test
+	void isApplicableTest() {
+		TriplePatternMatchOperator spo = createMatch(
+				new TriplePattern(TriplePatternType.___, 1, 2, 3));
+		TriplePatternMatchOperator osp = createMatch(
+				new TriplePattern(TriplePatternType.__O, 1, 4, 100));
+		TriplePatternMatchOperator pos = createMatch(
+				new TriplePattern(TriplePatternType._PO, 1, 101, 102));
+		assertTrue(MergeJoinOperator.isApplicable(spo, osp));
+		assertTrue(MergeJoinOperator.isApplicable(osp, pos));
+		assertTrue(MergeJoinOperator.isApplicable(pos, spo));
+
+		// the pso index is sorted by the property
+		assertFalse(MergeJoinOperator.isApplicable(spo,
+				createMatch(new TriplePattern(TriplePatternType._P_, 1, 101, 5))));
+		// the subject is bound
+		assertFalse(MergeJoinOperator.isApplicable(spo,
+				createMatch(new TriplePattern(TriplePatternType.S__, 103, 4, 5))));
+		// different subject variables
+		assertFalse(MergeJoinOperator.isApplicable(spo,
+				createMatch(new TriplePattern(TriplePatternType.__O, 5, 4, 100))));
+		// the pattern is looked up in several index ranges
+		TriplePatternMatchOperator lookup = createMatch(
+				new TriplePattern(TriplePatternType.__O, 1, 4, 100));
+		lookup.setLookupPatterns(new TriplePattern[] {
+				new TriplePattern(TriplePatternType.__O, 1, 4, 100),
+				new TriplePattern(TriplePatternType.__O, 1, 4, 104) });
+		assertFalse(MergeJoinOperator.isApplicable(spo, lookup));
+		// the input is not a triple pattern match
+		MergeJoinOperator join = new MergeJoinOperator(1, COORDINATOR_ID, NUMBER_OF_SLAVES, 10,
+				tmpDir, 10, spo.getTriplePattern(), osp.getTriplePattern(), null);
+		assertFalse(MergeJoinOperator.isApplicable(join, pos));
+	}
+
+	@Test
+	void duplicateSubjectsTest() {
+		// each right mapping is joined with the complete group of left mappings
+		// with the same subject
+		assertEquals(Arrays.asList(Arrays.asList(1l, 21l, 31l, 41l),
+				Arrays.asList(1l, 22l, 32l, 41l), Arrays.asList(1l, 21l, 31l, 42l),
+				Arrays.asList(1l, 22l, 32l, 42l), Arrays.asList(3l, 24l, 34l, 43l),
+				Arrays.asList(3l, 25l, 35l, 43l)), executeJoin(1));
+	}
+
+	@Test
+	void ownedSubjectsTest() {
+		assertEquals(Arrays.asList(Arrays.asList(REMOTE_SUBJECT, 26l, 36l, 45l)), executeJoin(2));
+	}
+
+	/**
+	 * Joins the left mappings of <code>?1 ?2 ?3</code> with the right mappings
+	 * of <code>?1 ?4 100</code> on slave <code>slave</code>.
+	 *
+	 * @return the values of the mappings sent to the coordinator
+	 */
+	private List<List<Long>> executeJoin(int slave) {
+		currentSlave = slave;
+		TriplePattern leftPattern = new TriplePattern(TriplePatternType.___, 1, 2, 3);
+		TriplePattern rightPattern = new TriplePattern(TriplePatternType.__O, 1, 4, 100);
+		List<long[]> leftRows = Arrays.asList(new long[] { 1, 21, 31 }, new long[] { 1, 22, 32 },
+				new long[] { 2, 23, 33 }, new long[] { 3, 24, 34 }, new long[] { 3, 25, 35 },
+				new long[] { REMOTE_SUBJECT, 26, 36 });
+		List<long[]> rightRows = Arrays.asList(new long[] { 1, 41 }, new long[] { 1, 42 },
+				new long[] { 3, 43 }, new long[] { 4, 44 }, new long[] { REMOTE_SUBJECT, 45 });
+		try (SortedTripleStore tripleStore = new SortedTripleStore(conf, leftPattern, leftRows,
+				rightPattern, rightRows);) {
+			long id = (((long) slave) << 48) | (1l << 16) | 1;
+			// at most two mappings are emitted per round
+			MergeJoinOperator join = new MergeJoinOperator(id, COORDINATOR_ID, NUMBER_OF_SLAVES, 10,
+					tmpDir, 2, leftPattern, rightPattern, tripleStore);
+			join.setUp(messageSender, recycleCache, null, null);
+			join.setEstimatedWorkLoad(1);
+			join.start();
+			for (int i = 0; (i < 10) && !join.hasToPerformFinalSteps(); i++) {
+				join.execute();
+			}
+			assertTrue(join.hasToPerformFinalSteps());
+			join.execute();
+			join.close();
+		}
+		return getValuesSentToMaster();
+	}
+
+	private List<List<Long>> getValuesSentToMaster() {
+		List<List<Long>> rows = new ArrayList<>();
+		for (byte[] message : messagesToMaster) {
+			if (message[0] != MessageType.QUERY_MAPPING_BATCH.getValue()) {
+				continue;
+			}
+			int index = Byte.BYTES + Short.BYTES;
+			while (index < message.length) {
+				int length = NumberConversion.bytes2int(message,
+						index + Byte.BYTES + Long.BYTES + Long.BYTES);
+				Mapping mapping = recycleCache.createMapping(message, index, length);
+				List<Long> row = new ArrayList<>();
+				for (long var : RESULT_VARS) {
+					row.add(mapping.getValue(var, RESULT_VARS));
+				}
+				rows.add(row);
+				recycleCache.releaseMapping(mapping);
+				index += length;
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Returns the given rows, which are sorted by the subject, as index range
+	 * of the corresponding triple pattern.
+	 */
+	private class SortedTripleStore extends TripleStoreAccessor {
+
+		private final TriplePattern leftPattern;
+
+		private final List<long[]> leftRows;
+
+		private final TriplePattern rightPattern;
+
+		private final List<long[]> rightRows;
+
+		public SortedTripleStore(Configuration conf, TriplePattern leftPattern,
+				List<long[]> leftRows, TriplePattern rightPattern, List<long[]> rightRows) {
+			super(conf, null);
+			this.leftPattern = leftPattern;
+			this.leftRows = leftRows;
+			this.rightPattern = rightPattern;
+			this.rightRows = rightRows;
+		}
+
+		@Override
+		public Iterable<Mapping> lookup(MappingRecycleCache cache, TriplePattern triplePattern) {
+			List<long[]> rows = triplePattern == leftPattern ? leftRows
+					: triplePattern == rightPattern ? rightRows : new ArrayList<>();
+			List<Mapping> mappings = new ArrayList<>();
+			for (long[] row : rows) {
+				byte[] mapping = new byte[Mapping.getHeaderSize() + (row.length * Long.BYTES) + 1];
+				mapping[0] = MessageType.QUERY_MAPPING_BATCH.getValue();
+				NumberConversion.int2bytes(mapping.length, mapping,
+						Byte.BYTES + Long.BYTES + Long.BYTES);
+				for (int i = 0; i < row.length; i++) {
+					NumberConversion.long2bytes(row[i], mapping,
+							Mapping.getHeaderSize() + (i * Long.BYTES));
+				}
+				mapping[mapping.length - 1] = (byte) (0x80 >>> (currentSlave - 1));
+				mappings.add(cache.createMapping(mapping, 0, mapping.length));
+			}
+			return mappings;
+		}
+
+	}
+
+}
@@ -0,0 +1,190 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.jena.graph.Node;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.utils.RDFFileIterator;
+
+/**
+ * Tests the parallel parsing of N-Triples and N-Quads files by an
+ * {@link RDFFileIterator} with several parser threads.
+ */
+class ParallelLineParserTests {
+
+	/**
+	 * more than the 4 MiB that are parsed as one block
+	 */
+	private static final int NUMBER_OF_LINES = 100_000;
+
+	private File tmpDir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("parallelLineParserTests").toFile();
+	}
+
+	@AfterEach
+	void tearDown() {
+		File[] files = tmpDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		tmpDir.delete();
+	}
+
+	private File writeFile(String fileName, List<String> lines) throws IOException {
+		File file = new File(tmpDir, fileName);
+		OutputStream output = new FileOutputStream(file);
+		if (fileName.endsWith(".gz")) {
+			output = new GZIPOutputStream(output);
+		}
+		try (Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);) {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * @return triples whose lines have different lengths such that the block
+	 *         boundaries are located within lines
+	 */
+	private static List<String> createTriples(int numberOfLines) {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < numberOfLines; i++) {
+			StringBuilder padding = new StringBuilder();
+			for (int j = 0; j < (i % 17); j++) {
+				padding.append('x');
+			}
+			lines.add("<http://example.org/s" + i + "> <http://example.org/p" + padding + "> \"" + i
+					+ "\" .");
+		}
+		return lines;
+	}
+
+	private static List<Node[]> parse(File file) {
+		List<Node[]> statements = new ArrayList<>();
+		try (RDFFileIterator iterator = new RDFFileIterator(file, false, null, 2);) {
+			for (Node[] statement : iterator) {
+				statements.add(statement);
+			}
+		}
+		return statements;
+	}
+
+	private static void assertTriples(List<Node[]> statements, int numberOfLines) {
+		assertEquals(numberOfLines, statements.size());
+		for (int i = 0; i < numberOfLines; i++) {
+			// each line is returned exactly once and in the order of the file
+			assertEquals(3, statements.get(i).length);
+			assertEquals(Integer.toString(i), statements.get(i)[2].getLiteralLexicalForm());
+		}
+	}
+
+	@Test
+	void blockBoundariesTest() throws IOException {
+		File file = writeFile("graph.nt", createTriples(NUMBER_OF_LINES));
+		assertTriples(parse(file), NUMBER_OF_LINES);
+	}
+
+	@Test
+	void gzipCompressedFileTest() throws IOException {
+		File file = writeFile("graph.nt.gz", createTriples(NUMBER_OF_LINES));
+		assertTriples(parse(file), NUMBER_OF_LINES);
+	}
+
+	@Test
+	void emptyFileTest() throws IOException {
+		File file = writeFile("graph.nt", new ArrayList<>());
+		assertEquals(0, parse(file).size());
+	}
+
+	@Test
+	void lastLineWithoutLineBreakTest() throws IOException {
+		File file = new File(tmpDir, "graph.nt");
+		String line = "<http://example.org/s> <http://example.org/p> \"0\" .";
+		Files.write(file.toPath(), line.getBytes(StandardCharsets.UTF_8));
+		assertTriples(parse(file), 1);
+	}
+
+	@Test
+	void lineLongerThanBlockTest() throws IOException {
+		StringBuilder longLiteral = new StringBuilder();
+		for (int i = 0; i < (5 * 1024 * 1024); i++) {
+			longLiteral.append('a');
+		}
+		List<String> lines = new ArrayList<>();
+		lines.add("<http://example.org/s> <http://example.org/p> \"" + longLiteral + "\" .");
+		lines.add("<http://example.org/s> <http://example.org/p> \"b\" .");
+		List<Node[]> statements = parse(writeFile("graph.nt", lines));
+		assertEquals(2, statements.size());
+		assertEquals(longLiteral.length(), statements.get(0)[2].getLiteralLexicalForm().length());
+		assertEquals("b", statements.get(1)[2].getLiteralLexicalForm());
+	}
+
+	@Test
+	void skipErroneousLinesTest() throws IOException {
+		List<String> lines = createTriples(NUMBER_OF_LINES);
+		List<String> linesWithErrors = new ArrayList<>(lines);
+		for (int i = NUMBER_OF_LINES - 1; i >= 0; i -= 10_000) {
+			linesWithErrors.add(i, "<http://example.org/s> this is not a triple .");
+		}
+		assertTriples(parse(writeFile("graph.nt", linesWithErrors)), NUMBER_OF_LINES);
+	}
+
+	@Test
+	void blankNodesTest() throws IOException {
+		List<String> lines = createTriples(NUMBER_OF_LINES);
+		// the first and the last line are parsed in different blocks
+		lines.set(0, "_:b1 <http://example.org/p> \"0\" .");
+		lines.set(NUMBER_OF_LINES - 1, "_:b1 <http://example.org/p> \"" + (NUMBER_OF_LINES - 1)
+				+ "\" .");
+		lines.set(1, "_:b2 <http://example.org/p> \"1\" .");
+		List<Node[]> statements = parse(writeFile("graph.nt", lines));
+		assertTriples(statements, NUMBER_OF_LINES);
+		assertEquals(statements.get(0)[0], statements.get(NUMBER_OF_LINES - 1)[0]);
+		assertFalse(statements.get(0)[0].equals(statements.get(1)[0]));
+
+		// blank nodes of different files are different
+		List<Node[]> otherStatements = parse(writeFile("graph2.nt", lines));
+		assertFalse(statements.get(0)[0].equals(otherStatements.get(0)[0]));
+	}
+
+	@Test
+	void quadsTest() throws IOException {
+		List<Node[]> statements = parse(writeFile("graph.nq",
+				Arrays.asList("<http://example.org/s> <http://example.org/p> \"0\" .",
+						"<http://example.org/s> <http://example.org/p> \"1\" "
+								+ "<http://example.org/g> .")));
+		assertEquals(2, statements.size());
+		assertEquals(3, statements.get(0).length);
+		assertEquals(4, statements.get(1).length);
+		assertEquals("http://example.org/g", statements.get(1)[3].getURI());
+	}
+
+}
@@ -0,0 +1,236 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.dictionary.DictionaryShardType;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageReceiverListener;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSender;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBCacheOptions;
+import de.uni_koblenz.west.koral.common.mapDB.MapDBStorageOptions;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.execution.QueryExecutionCoordinator;
+import de.uni_koblenz.west.koral.common.query.parser.QueryExecutionTreeType;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+import de.uni_koblenz.west.koral.master.client_manager.ClientConnectionManager;
+import de.uni_koblenz.west.koral.master.dictionary.DictionaryEncoder;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatisticsDatabase;
+
+/**
+ * Tests that the result rows decoded by the slaves are only forwarded to a
+ * client that requested binary results, while less than four result messages
+ * are unacknowledged.
+ */
+class QueryResultFlowControlTests {
+
+	private static final int NUMBER_OF_SLAVES = 2;
+
+	private static final int MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES = 4;
+
+	private File tmpDir;
+
+	private ClientConnectionManager clientConnections;
+
+	private List<byte[]> messagesToClient;
+
+	private QueryExecutionCoordinator coordinator;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("queryResultFlowControlTests").toFile();
+		Configuration conf = new Configuration();
+		try (ServerSocket socket = new ServerSocket(0);) {
+			conf.setClient("127.0.0.1", Integer.toString(socket.getLocalPort()));
+		}
+		messagesToClient = new ArrayList<>();
+		clientConnections = new ClientConnectionManager(conf, null) {
+
+			@Override
+			public void send(int receivingClient, byte[] message) {
+				messagesToClient.add(message);
+			}
+
+		};
+		GraphStatistics statistics = new GraphStatistics(new GraphStatisticsDatabase() {
+
+			@Override
+			public void incrementSubjectCount(long subject, int chunk) {
+			}
+
+			@Override
+			public void incrementPropertyCount(long property, int chunk) {
+			}
+
+			@Override
+			public void incrementObjectCount(long object, int chunk) {
+			}
+
+			@Override
+			public void incrementNumberOfTriplesPerChunk(int chunk) {
+			}
+
+			@Override
+			public long[] getChunkSizes() {
+				return new long[NUMBER_OF_SLAVES];
+			}
+
+			@Override
+			public long[] getStatisticsForResource(long id) {
+				return null;
+			}
+
+			@Override
+			public void clear() {
+			}
+
+			@Override
+			public void close() {
+			}
+
+		}, (short) NUMBER_OF_SLAVES, null);
+		MessageSenderBuffer messageSender = new MessageSenderBuffer(NUMBER_OF_SLAVES, 10,
+				new MessageSender() {
+
+					@Override
+					public int getCurrentID() {
+						return 0;
+					}
+
+					@Override
+					public boolean send(int receiver, byte[] array) {
+						return true;
+					}
+
+					@Override
+					public boolean sendToAllOtherSlaves(byte[] message) {
+						return true;
+					}
+
+					@Override
+					public boolean sendToAllSlaves(byte[] message) {
+						return true;
+					}
+
+				}, new MessageReceiverListener(null), null, null);
+
+		coordinator = new QueryExecutionCoordinator((short) 0, 1, NUMBER_OF_SLAVES, 10, tmpDir, 0,
+				clientConnections, new DictionaryEncoder(null, null, null), statistics, 10,
+				MapDBStorageOptions.MEMORY, false, false, MapDBCacheOptions.HASH_TABLE, false,
+				DictionaryShardType.REPLICATED, null, null);
+		coordinator.setUp(messageSender, new MappingRecycleCache(10, NUMBER_OF_SLAVES), null,
+				null);
+	}
+
+	@AfterEach
+	void tearDown() {
+		coordinator.close();
+		clientConnections.close();
+		delete(tmpDir);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private void startQuery(boolean useBinaryResults) {
+		coordinator.processQueryRequest(new byte[][] {
+				NumberConversion.int2bytes(QueryExecutionTreeType.LEFT_LINEAR.ordinal()),
+				new byte[] { 0 },
+				"SELECT ?s ?o WHERE { ?s ?p ?o . }".getBytes(StandardCharsets.UTF_8),
+				new byte[] { (byte) (useBinaryResults ? 1 : 0) } });
+		// parses the query and sends it to the slaves
+		coordinator.execute();
+		for (short slave = 1; slave <= NUMBER_OF_SLAVES; slave++) {
+			byte[] message = ByteBuffer.allocate(Byte.BYTES + Short.BYTES + Long.BYTES)
+					.put(MessageType.QUERY_CREATED.getValue()).putShort(slave)
+					.putLong(coordinator.getID()).array();
+			coordinator.enqueueMessage(slave, message, 0, message.length);
+		}
+	}
+
+	private void receiveDecodedRow(short slave, String row) {
+		byte[] rowBytes = (Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR + row)
+				.getBytes(StandardCharsets.UTF_8);
+		byte[] message = ByteBuffer
+				.allocate(Byte.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + rowBytes.length)
+				.put(MessageType.QUERY_RESULT_ROWS.getValue()).putShort(slave)
+				.putLong(coordinator.getID()).putInt(1).put(rowBytes).array();
+		coordinator.enqueueMessage(slave, message, 0, message.length);
+	}
+
+	private List<String> getResultsSentToClient() {
+		List<String> results = new ArrayList<>();
+		for (byte[] message : messagesToClient) {
+			if (message[0] == MessageType.QUERY_RESULT.getValue()) {
+				results.add(new String(message, Byte.BYTES, message.length - Byte.BYTES,
+						StandardCharsets.UTF_8));
+			}
+		}
+		return results;
+	}
+
+	@Test
+	void binaryResultsFlowControlTest() {
+		startQuery(true);
+		for (int i = 0; i < MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES; i++) {
+			receiveDecodedRow((short) 1, "row" + i);
+			coordinator.execute();
+		}
+		assertEquals(MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES,
+				getResultsSentToClient().size());
+
+		// the rows remain queued until the client acknowledges a message
+		receiveDecodedRow((short) 1, "row4");
+		receiveDecodedRow((short) 2, "row5");
+		coordinator.execute();
+		coordinator.execute();
+		assertEquals(MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES,
+				getResultsSentToClient().size());
+
+		coordinator.acknowledgeResultMessage();
+		coordinator.execute();
+		List<String> results = getResultsSentToClient();
+		assertEquals(MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES + 1, results.size());
+		// all queued rows are sent in one message
+		String separator = Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR;
+		assertEquals(separator + "row4" + separator + "row5", results.get(results.size() - 1));
+	}
+
+	@Test
+	void textResultsTest() {
+		startQuery(false);
+		// clients without binary results do not acknowledge results
+		for (int i = 0; i < (2 * MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES); i++) {
+			receiveDecodedRow((short) 1, "row" + i);
+			coordinator.execute();
+		}
+		assertEquals(2 * MAX_NUMBER_OF_UNACKNOWLEDGED_RESULT_MESSAGES,
+				getResultsSentToClient().size());
+	}
+
+}
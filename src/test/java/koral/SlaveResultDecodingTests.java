@@ -0,0 +1,256 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.config.impl.Configuration;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageReceiverListener;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSender;
+import de.uni_koblenz.west.koral.common.executor.messagePassing.MessageSenderBuffer;
+import de.uni_koblenz.west.koral.common.messages.MessageType;
+import de.uni_koblenz.west.koral.common.query.Mapping;
+import de.uni_koblenz.west.koral.common.query.MappingBatch;
+import de.uni_koblenz.west.koral.common.query.MappingRecycleCache;
+import de.uni_koblenz.west.koral.common.query.execution.QueryOperatorBase;
+import de.uni_koblenz.west.koral.master.statisticsDB.GraphStatistics;
+import de.uni_koblenz.west.koral.slave.dictionary.DictionaryShard;
+
+/**
+ * Tests that the root operator on a slave sends the result rows it can decode
+ * with its dictionary shard as text and the remaining rows as mappings to the
+ * coordinator.
+ */
+class SlaveResultDecodingTests {
+
+	private static final int NUMBER_OF_SLAVES = 2;
+
+	private static final long[] VARS = { 1, 2 };
+
+	/**
+	 * task 2 of query 1 on slave 1
+	 */
+	private static final long ROOT_ID = (1l << 48) | (1l << 16) | 2;
+
+	/**
+	 * the coordinator of query 1 on the master
+	 */
+	private static final long COORDINATOR_ID = 1l << 16;
+
+	private File tmpDir;
+
+	private DictionaryShard shard;
+
+	private List<byte[]> messagesToMaster;
+
+	private MessageSenderBuffer messageSender;
+
+	private MappingRecycleCache recycleCache;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("slaveResultDecodingTests").toFile();
+		Configuration conf = new Configuration();
+		conf.setDataDir(tmpDir.getAbsolutePath());
+		try (ServerSocket socket = new ServerSocket(0);) {
+			conf.addSlave("127.0.0.1", Integer.toString(socket.getLocalPort()));
+		}
+		shard = new DictionaryShard(conf, null);
+		File shardFile = new File(tmpDir, "dictionary.gz");
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+				new GZIPOutputStream(new FileOutputStream(shardFile))));) {
+			writeEntry(output, 1, "<a>");
+			writeEntry(output, 2, "<b>");
+			writeEntry(output, 3, "<c>");
+		}
+		shard.storeEntries(shardFile);
+
+		messagesToMaster = new ArrayList<>();
+		messageSender = new MessageSenderBuffer(NUMBER_OF_SLAVES, 10, new MessageSender() {
+
+			@Override
+			public int getCurrentID() {
+				return 1;
+			}
+
+			@Override
+			public boolean send(int receiver, byte[] array) {
+				assertEquals(0, receiver);
+				messagesToMaster.add(array);
+				return true;
+			}
+
+			@Override
+			public boolean sendToAllOtherSlaves(byte[] message) {
+				return true;
+			}
+
+			@Override
+			public boolean sendToAllSlaves(byte[] message) {
+				return true;
+			}
+
+		}, new MessageReceiverListener(null), null, null);
+		recycleCache = new MappingRecycleCache(10, NUMBER_OF_SLAVES);
+	}
+
+	@AfterEach
+	void tearDown() {
+		shard.close();
+		delete(tmpDir);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static void writeEntry(DataOutputStream output, long id, String resource)
+			throws IOException {
+		byte[] bytes = resource.getBytes(StandardCharsets.UTF_8);
+		output.writeLong(id);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private RootOperator createRoot() {
+		RootOperator root = new RootOperator(tmpDir);
+		root.setUp(messageSender, recycleCache, null, null);
+		root.setDictionaryShard(shard);
+		return root;
+	}
+
+	@Test
+	void mixedDecodabilityTest() {
+		MappingBatch batch = new MappingBatch(VARS, NUMBER_OF_SLAVES, 4);
+		batch.addRow(new long[] { 1, 2 }, 1);
+		// 4 is not contained in the shard
+		batch.addRow(new long[] { 3, 4 }, 1);
+		// the ownership is ignored during decoding
+		batch.addRow(new long[] { (1l << 48) | 2, 3 }, 1);
+		createRoot().emit(batch);
+		messageSender.sendAllBufferedMessages(recycleCache);
+
+		assertEquals(2, messagesToMaster.size());
+		ByteBuffer rows = ByteBuffer.wrap(messagesToMaster.get(0));
+		assertEquals(MessageType.QUERY_RESULT_ROWS.getValue(), rows.get());
+		assertEquals(1, rows.getShort());
+		assertEquals(COORDINATOR_ID, rows.getLong());
+		assertEquals(2, rows.getInt());
+		String row = Configuration.QUERY_RESULT_ROW_SEPARATOR_CHAR;
+		String column = Configuration.QUERY_RESULT_COLUMN_SEPARATOR_CHAR;
+		String decodedRows = new String(rows.array(), rows.position(), rows.remaining(),
+				StandardCharsets.UTF_8);
+		assertEquals(row + "<a>" + column + "<b>" + row + "<b>" + column + "<c>", decodedRows);
+
+		// the master decodes the remaining row
+		byte[] mappings = messagesToMaster.get(1);
+		assertEquals(MessageType.QUERY_MAPPING_BATCH.getValue(), mappings[0]);
+		Mapping mapping = recycleCache.createMapping(mappings, Byte.BYTES + Short.BYTES,
+				mappings.length - Byte.BYTES - Short.BYTES);
+		assertEquals(COORDINATOR_ID, mapping.getIdOfReceiver());
+		assertEquals(3, mapping.getValue(1, VARS));
+		assertEquals(4, mapping.getValue(2, VARS));
+	}
+
+	@Test
+	void allRowsDecodedTest() {
+		MappingBatch batch = new MappingBatch(VARS, NUMBER_OF_SLAVES, 4);
+		batch.addRow(new long[] { 1, 1 }, 1);
+		batch.addRow(new long[] { 2, 3 }, 1);
+		createRoot().emit(batch);
+		messageSender.sendAllBufferedMessages(recycleCache);
+
+		// no mapping is sent to the master
+		assertEquals(1, messagesToMaster.size());
+		assertEquals(MessageType.QUERY_RESULT_ROWS.getValue(), messagesToMaster.get(0)[0]);
+		assertEquals(0, batch.size());
+	}
+
+	/**
+	 * Root operator that emits the given batches.
+	 */
+	private static class RootOperator extends QueryOperatorBase {
+
+		public RootOperator(File cacheDirectory) {
+			super(ROOT_ID, COORDINATOR_ID, NUMBER_OF_SLAVES, 10, cacheDirectory, 4);
+		}
+
+		public void emit(MappingBatch batch) {
+			emitMappings(batch);
+		}
+
+		@Override
+		public long computeEstimatedLoad(GraphStatistics statistics, int slave,
+				boolean setLoads) {
+			return 0;
+		}
+
+		@Override
+		public long computeTotalEstimatedLoad(GraphStatistics statistics) {
+			return 0;
+		}
+
+		@Override
+		public long[] getResultVariables() {
+			return VARS;
+		}
+
+		@Override
+		public long getFirstJoinVar() {
+			return -1;
+		}
+
+		@Override
+		public long getCurrentTaskLoad() {
+			return 0;
+		}
+
+		@Override
+		protected void executeOperationStep() {
+		}
+
+		@Override
+		protected void closeInternal() {
+		}
+
+		@Override
+		public void serialize(DataOutputStream output, boolean useBaseImplementation,
+				int slaveId) {
+		}
+
+		@Override
+		public void toString(StringBuilder sb, int indention) {
+		}
+
+		@Override
+		public String toAlgebraicString() {
+			return "root";
+		}
+
+	}
+
+}
@@ -0,0 +1,169 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.io.EncodedFileInputStream;
+import de.uni_koblenz.west.koral.common.io.EncodedFileOutputStream;
+import de.uni_koblenz.west.koral.common.io.EncodingFileFormat;
+import de.uni_koblenz.west.koral.common.io.FileCompression;
+import de.uni_koblenz.west.koral.common.io.Statement;
+import de.uni_koblenz.west.koral.common.utils.NumberConversion;
+
+/**
+ * Tests the Snappy block format by writing and reading encoded files.
+ */
+class SnappyBlockStreamTests {
+
+	private static final int NUMBER_OF_STATEMENTS = 50_000;
+
+	private File file;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		file = File.createTempFile("snappyBlocks", ".enc");
+	}
+
+	@AfterEach
+	void tearDown() {
+		file.delete();
+	}
+
+	private void write(long firstSubject, int numberOfStatements, boolean append) throws IOException {
+		try (EncodedFileOutputStream out = new EncodedFileOutputStream(file, append,
+				FileCompression.SNAPPY);) {
+			for (long subject = firstSubject; subject < (firstSubject + numberOfStatements); subject++) {
+				out.writeStatement(Statement.getStatement(EncodingFileFormat.EEE,
+						NumberConversion.long2bytes(subject), NumberConversion.long2bytes(subject % 7),
+						NumberConversion.long2bytes(subject * 31), new byte[] { (byte) subject }));
+			}
+		}
+	}
+
+	private static List<Long> readSubjects(EncodedFileInputStream in) throws IOException {
+		List<Long> subjects = new ArrayList<>();
+		while (true) {
+			Statement statement;
+			try {
+				statement = in.read();
+			} catch (EOFException e) {
+				break;
+			}
+			if (statement == null) {
+				break;
+			}
+			long subject = statement.getSubjectAsLong();
+			assertEquals(subject % 7, statement.getPropertyAsLong());
+			assertEquals(subject * 31, statement.getObjectAsLong());
+			assertArrayEquals(new byte[] { (byte) subject }, statement.getContainment());
+			subjects.add(subject);
+		}
+		return subjects;
+	}
+
+	private static List<Long> expectedSubjects(int numberOfStatements) {
+		List<Long> subjects = new ArrayList<>();
+		for (long subject = 0; subject < numberOfStatements; subject++) {
+			subjects.add(subject);
+		}
+		return subjects;
+	}
+
+	@Test
+	void roundTripTest() throws IOException {
+		write(0, NUMBER_OF_STATEMENTS, false);
+		assertEquals(FileCompression.SNAPPY, EncodedFileInputStream.getCompression(file));
+		try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE, file);) {
+			assertEquals(expectedSubjects(NUMBER_OF_STATEMENTS), readSubjects(in));
+		}
+	}
+
+	@Test
+	void gzipDetectionTest() throws IOException {
+		try (EncodedFileOutputStream out = new EncodedFileOutputStream(file, FileCompression.GZIP);) {
+			out.writeStatement(Statement.getStatement(EncodingFileFormat.EEE,
+					NumberConversion.long2bytes(0), NumberConversion.long2bytes(0),
+					NumberConversion.long2bytes(0), new byte[] { 0 }));
+		}
+		assertEquals(FileCompression.GZIP, EncodedFileInputStream.getCompression(file));
+		assertThrows(IllegalArgumentException.class,
+				() -> new EncodedFileInputStream(EncodingFileFormat.EEE, file, 0, file.length()));
+	}
+
+	@Test
+	void emptyFileTest() throws IOException {
+		assertEquals(FileCompression.SNAPPY, EncodedFileInputStream.getCompression(file));
+		try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE, file);) {
+			assertEquals(0, readSubjects(in).size());
+		}
+	}
+
+	@Test
+	void appendTest() throws IOException {
+		write(0, NUMBER_OF_STATEMENTS / 2, false);
+		write(NUMBER_OF_STATEMENTS / 2, NUMBER_OF_STATEMENTS - (NUMBER_OF_STATEMENTS / 2), true);
+		try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE, file);) {
+			assertEquals(expectedSubjects(NUMBER_OF_STATEMENTS), readSubjects(in));
+		}
+	}
+
+	@Test
+	void splitRangesTest() throws IOException {
+		write(0, NUMBER_OF_STATEMENTS, false);
+		long length = file.length();
+		for (int numberOfRanges : new int[] { 1, 2, 3, 10, 100 }) {
+			List<Long> subjects = new ArrayList<>();
+			for (int range = 0; range < numberOfRanges; range++) {
+				long rangeStart = (length * range) / numberOfRanges;
+				long rangeEnd = (length * (range + 1)) / numberOfRanges;
+				try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE,
+						file, rangeStart, rangeEnd);) {
+					subjects.addAll(readSubjects(in));
+				}
+			}
+			assertEquals(expectedSubjects(NUMBER_OF_STATEMENTS), subjects,
+					"statements read from " + numberOfRanges + " ranges");
+		}
+	}
+
+	@Test
+	void rangeBehindLastBlockTest() throws IOException {
+		write(0, NUMBER_OF_STATEMENTS, false);
+		try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEE, file,
+				file.length() - 1, Long.MAX_VALUE);) {
+			assertEquals(0, readSubjects(in).size());
+		}
+	}
+
+	@Test
+	void statementLargerThanBlockTest() throws IOException {
+		byte[] largeObject = new byte[200 * 1024];
+		Arrays.fill(largeObject, (byte) 'a');
+		try (EncodedFileOutputStream out = new EncodedFileOutputStream(file, FileCompression.SNAPPY);) {
+			out.writeStatement(Statement.getStatement(EncodingFileFormat.EEU,
+					NumberConversion.long2bytes(1), NumberConversion.long2bytes(2), largeObject,
+					new byte[] { 1 }));
+		}
+		try (EncodedFileInputStream in = new EncodedFileInputStream(EncodingFileFormat.EEU, file);) {
+			Statement statement = in.read();
+			assertEquals(1, statement.getSubjectAsLong());
+			assertArrayEquals(largeObject, statement.getObject());
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package koral;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import de.uni_koblenz.west.koral.common.io.VByteCodec;
+
+class VByteCodecTests {
+
+	private static final long[] VALUES = { 0, 1, 127, 128, 255, 16_383, 16_384, Integer.MAX_VALUE,
+			1L << 35, Long.MAX_VALUE, -1, Long.MIN_VALUE };
+
+	private static byte[] encode(long value) {
+		ByteBuffer buffer = ByteBuffer.allocate(VByteCodec.MAX_ENCODED_LENGTH);
+		VByteCodec.encode(value, buffer);
+		byte[] result = new byte[buffer.position()];
+		buffer.flip();
+		buffer.get(result);
+		return result;
+	}
+
+	@Test
+	void encodeZeroTest() {
+		assertArrayEquals(new byte[] { (byte) 0x80 }, encode(0));
+	}
+
+	@Test
+	void encodeOneByteMaxTest() {
+		assertArrayEquals(new byte[] { (byte) 0xff }, encode(127));
+	}
+
+	@Test
+	void encodeOneByteMaxPlusOneTest() {
+		assertArrayEquals(new byte[] { 0x01, (byte) 0x80 }, encode(128));
+	}
+
+	@Test
+	void encodeNegativeValueTest() {
+		assertEquals(VByteCodec.MAX_ENCODED_LENGTH, encode(-1).length);
+		assertEquals(VByteCodec.MAX_ENCODED_LENGTH, encode(Long.MIN_VALUE).length);
+	}
+
+	@Test
+	void encodedLengthTest() {
+		for (long value : VALUES) {
+			assertEquals(encode(value).length, VByteCodec.getEncodedLength(value),
+					"encoded length of " + value);
+		}
+		assertEquals(1, VByteCodec.getEncodedLength(127));
+		assertEquals(2, VByteCodec.getEncodedLength(128));
+		assertEquals(9, VByteCodec.getEncodedLength(Long.MAX_VALUE));
+	}
+
+	@Test
+	void roundTripTest() {
+		for (long value : VALUES) {
+			assertEquals(value, VByteCodec.decode(ByteBuffer.wrap(encode(value))));
+		}
+	}
+
+	@Test
+	void roundTripArrayTest() {
+		ByteBuffer buffer = ByteBuffer.allocate(VALUES.length * VByteCodec.MAX_ENCODED_LENGTH);
+		VByteCodec.encode(VALUES, 0, VALUES.length, buffer);
+		buffer.flip();
+		long[] decoded = new long[VALUES.length + 2];
+		VByteCodec.decode(buffer, decoded, 1, VALUES.length);
+		assertEquals(0, buffer.remaining());
+		for (int i = 0; i < VALUES.length; i++) {
+			assertEquals(VALUES[i], decoded[i + 1]);
+		}
+		assertEquals(0, decoded[0]);
+		assertEquals(0, decoded[decoded.length - 1]);
+	}
+
+	@Test
+	void decodeTruncatedValueTest() {
+		byte[] encoded = encode(1L << 35);
+		ByteBuffer truncated = ByteBuffer.wrap(encoded, 0, encoded.length - 1);
+		assertThrows(BufferUnderflowException.class, () -> VByteCodec.decode(truncated));
+	}
+
+}